@@ -1,16 +1,37 @@
 package com.deepsouthrobotics.api;
 
+import com.deepsouthrobotics.brain.CoverageVerifier;
+import com.deepsouthrobotics.brain.FieldRegistry;
 import com.deepsouthrobotics.brain.MissionBrain;
+import com.deepsouthrobotics.brain.MissionCache;
+import com.deepsouthrobotics.brain.MissionReplan;
+import com.deepsouthrobotics.brain.PlannerOptions;
+import com.deepsouthrobotics.brain.PlannerPool;
+import com.deepsouthrobotics.brain.PreparedField;
+import com.deepsouthrobotics.brain.RegisteredField;
+import com.deepsouthrobotics.brain.SweepMission;
 import com.deepsouthrobotics.data.GPSPosition;
+import com.deepsouthrobotics.data.MissionFormat;
+import com.deepsouthrobotics.data.PlanningFidelity;
+import com.deepsouthrobotics.data.PlanningMode;
+import com.deepsouthrobotics.data.PlanningPriority;
+import com.deepsouthrobotics.util.MavlinkMissionEncoder;
+import com.deepsouthrobotics.util.PlannerMetrics;
+import com.deepsouthrobotics.util.PlannerPhase;
+import org.apache.commons.io.IOUtils;
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
 |--------------------------------------------------------------------------
@@ -31,22 +52,154 @@ public class BuildMissionFromLatLngPoints
      * POST body. The format of the data is this:
      * [{"lat":30.564095635277162,"lng":-87.67660153473776},{"lat":30.56424575559707,"lng":-87.6766632255451} ... ]
      * Note that each lat/long pair represents a vertex on the polygon that
-     * we're filling with waypoints.
+     * we're filling with waypoints. Instead of the missionPolygon and
+     * polyObstacles the body can carry "fieldId":"back-forty" to plan on
+     * a field stored with PUT /fields/{id} -- the version of the field
+     * that got planned comes back in the X-Field-Version header.
      * @param mowingPathWidthInMeters The width in meters that will separate
      * the waypoints -- so, for example, if you have a mowing deck that's
      * 50cm wide and you want to allow 10cm of overlap, then you'll want
      * 40cm between your waypoints and you'll pass in 0.4 for this value
+     * @param planningMode Optional -- "sweep" (the default) runs one sweep
+     * across the whole boundary, "cells" splits the boundary minus the
+     * obstacles into boustrophedon cells that are planned in parallel
+     * (usually the better choice for fields with lots of obstacles)
+     * @param simplifyToleranceCm Optional -- thin out the boundary and obstacle
+     * vertices first, moving no outline by more than this many centimeters
+     * (the boundary only shrinks and obstacles only grow). Handy for
+     * boundaries recorded by walking the perimeter. The number of
+     * vertices removed comes back in the X-Simplified-Vertices
+     * header.
+     * @param decimateToleranceCm Optional -- drop waypoints that are within this
+     * many centimeters of the straight line between their neighbors (or on
+     * top of the previous waypoint). Swath ends and turns are always kept.
+     * The number of waypoints dropped comes back in the
+     * X-Decimated-Waypoints header.
+     * Note that obstacle diffs (see changeMissionObstacle(..)) index into
+     * the full, undecimated mission.
+     * @param profile Optional -- if true, the response is an object instead:
+     * {"waypoints":[ ...same as below... ], "profile":{...}} where the
+     * profile has the swath count, intersection tests, containment
+     * checks, waypoints emitted, and time and bytes allocated per
+     * planner phase for this request. Every response also gets a
+     * Server-Timing header with the parse/project/plan/encode times.
+     * @param verify Optional -- if true, the response is an object as for
+     * profile, with a "coverage" section that has how much of the field
+     * (inside the boundary, outside the obstacles) the mission's swaths
+     * go over, miss, and go over more than once, plus how much gets
+     * mowed outside the field (see CoverageVerifier). JSON only.
+     * @param format Optional -- "json" (the default) or "wpl" for a QGC WPL 110
+     * waypoint file (text/plain) that QGroundControl and Mission Planner
+     * can load as-is. The file is streamed out as it's written, so
+     * it doesn't matter how big the mission is. Or "mavlink" for the
+     * same mission items as MAVLink v2 MISSION_ITEM_INT frames
+     * (application/octet-stream) that can be forwarded to the
+     * autopilot as-is during a mission upload -- the number of
+     * items (for MISSION_COUNT) comes back in the
+     * X-Mission-Item-Count header. Can't be combined with profile or verify.
+     * @param delta Optional -- if true, the response gets an X-Mission-Hash header
+     * that can be sent back as baseMissionHash the next time the field or
+     * heading changes a little, to get just the waypoints that changed.
+     * Plain JSON only (no profile or verify).
+     * @param baseMissionHash Optional (implies delta) -- X-Mission-Hash of the mission
+     * the client's holding. If we still have it the response is the edits
+     * from it rather than the whole mission, in the same format as the
+     * obstacle diffs (see changeMissionObstacle(..)):
+     * {"baseMissionHash":"..", "waypointCount":1234, "edits":[{"start":14, "deleteCount":3, "insert":[ ... ]}]}
+     * -- and if we don't, it's the whole mission as usual. The X-Mission-Delta
+     * header says which.
+     * @param targetSystem Optional, for "mavlink" -- MAVLink system id of the vehicle (default 1)
+     * @param targetComponent Optional, for "mavlink" -- component id of its autopilot (default 1)
+     * @param fidelity Optional -- "final" (the default) for a mission to mow, or
+     * "preview" for a rough one that's quick enough to replan while the user
+     * drags the start marker around: it's planned on a simplified outline
+     * with coarse boundary probing and the swaths run straight through the
+     * obstacles (see PlannerOptions). Previews don't get an X-Mission-Id.
+     * @param priority Optional -- "interactive" for somebody in the UI waiting on
+     * the result, "normal" (the default -- or interactive for previews), or
+     * "bulk" for batch planning that can wait. Interactive missions get
+     * planned first and have planner threads of their own (see
+     * PlanningScheduler).
+     * @param tenant Optional X-Tenant header -- who the mission's for, so no one
+     * tenant can have more than their share of missions planning at once
      * @return
      * json array of lat/long values that are the mission waypoint
      * coordinates -- data is in the same format as POST body
      * input, i.e.:
      * [{"lng":-87.67663065492417,"lat":30.564106707423818},{"lng":-87.67665345464492,"lat":30.564256827726577} ... ]
+     * Sweep missions also come back with an X-Mission-Id header that can
+     * be used to patch the mission up when its obstacles change (see
+     * changeMissionObstacle(..))
      */
     @POST
     @Consumes(MediaType.TEXT_PLAIN)
-    @Produces(MediaType.APPLICATION_JSON)
-    public String buildMissionFromLatLngPoints(InputStream latLonJsonInputStream, @QueryParam("mowingPathWidthInMeters") Double mowingPathWidthInMeters)
+    @Produces({MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM})
+    public Response buildMissionFromLatLngPoints(InputStream latLonJsonInputStream, @QueryParam("mowingPathWidthInMeters") final Double mowingPathWidthInMeters,
+                                              @QueryParam("planningMode") final String planningMode,
+                                              @QueryParam("simplifyToleranceCm") final Double simplifyToleranceCm,
+                                              @QueryParam("decimateToleranceCm") final Double decimateToleranceCm,
+                                              @QueryParam("profile") final boolean profile,
+                                              @QueryParam("verify") final boolean verify,
+                                              @QueryParam("delta") boolean delta,
+                                              @QueryParam("baseMissionHash") final String baseMissionHash,
+                                              @QueryParam("format") String format,
+                                              @QueryParam("targetSystem") @DefaultValue("1") int targetSystem,
+                                              @QueryParam("targetComponent") @DefaultValue("1") int targetComponent,
+                                              @QueryParam("fidelity") String fidelity,
+                                              @QueryParam("priority") String priority,
+                                              @HeaderParam("X-Tenant") String tenant)
+            throws IOException
     {
+        long requestNanos = System.nanoTime();
+        try
+        {
+            final InputStream body = readAhead(latLonJsonInputStream);
+            final MissionFormat missionFormat = MissionFormat.fromQueryParam(format);
+            final MavlinkMissionEncoder mavlinkEncoder = new MavlinkMissionEncoder(targetSystem, targetComponent);
+            final PlannerOptions options = PlannerOptions.forFidelity(PlanningFidelity.fromQueryParam(fidelity));
+            final boolean deltaResponse = delta || baseMissionHash != null;
+
+            //Somebody's waiting on a preview, so unless they said otherwise it jumps the line
+            PlanningPriority planningPriority = priority == null && options.fidelity == PlanningFidelity.PREVIEW
+                    ? PlanningPriority.INTERACTIVE
+                    : PlanningPriority.fromQueryParam(priority);
+
+            return PlannerPool.plan(planningPriority, tenant, new Callable<Response>()
+            {
+                @Override
+                public Response call()
+                {
+                    return buildMission(body, mowingPathWidthInMeters, planningMode, simplifyToleranceCm,
+                            decimateToleranceCm, profile, verify, deltaResponse, baseMissionHash, missionFormat,
+                            mavlinkEncoder, options);
+                }
+            });
+        }
+        finally
+        {
+            PlannerMetrics.observeRequest(requestNanos);
+        }
+    }
+
+    private Response buildMission(InputStream latLonJsonInputStream, Double mowingPathWidthInMeters, String planningMode,
+                                  Double simplifyToleranceCm, Double decimateToleranceCm, boolean profile,
+                                  boolean verify, boolean delta, String baseMissionHash, MissionFormat format,
+                                  MavlinkMissionEncoder mavlinkEncoder, PlannerOptions options)
+    {
+        if(profile && format != MissionFormat.JSON)
+        {
+            throw new BadRequestException("profile only comes back with JSON missions");
+        }
+        if(verify && format != MissionFormat.JSON)
+        {
+            throw new BadRequestException("verify only comes back with JSON missions");
+        }
+        if(delta && (format != MissionFormat.JSON || profile || verify))
+        {
+            throw new BadRequestException("delta only comes back with plain JSON missions (no profile or verify)");
+        }
+
+        long parseNanos = PlannerMetrics.startPhase(PlannerPhase.PARSE);
         JSONTokener tokener = new JSONTokener(latLonJsonInputStream);
         JSONObject truckload = new JSONObject(tokener);
         JSONObject startLatLngJsonObj = (JSONObject)truckload.getJSONObject("startMarker");
@@ -55,86 +208,276 @@ public class BuildMissionFromLatLngPoints
                 startLatLngJsonObj.getDouble("lat"),
                 startLatLngJsonObj.getDouble("lng"));
 
-        JSONArray missionPolygonJsonArray = (JSONArray)truckload.get("missionPolygon");
-        List<GPSPosition> missionGPSPositionList = buildGPSPositionListFromJsonArrayOfLatLngJsonObj(missionPolygonJsonArray);
-
-        //Note that the client is presently approximating the circles as polygons
-        //and just adding them in to the polyObstacles -- hence we're not
-        //getting a circleObstacles object from the client -- but
-        //I'm not yet sure we'll stick with the polygon
-        //approximation approach, so just leaving
-        //this unused code sitting around as
-        //a reminder 'till some "final"
-        //decision is made about
-        //circles
-        //JSONArray circleObstaclesObj = (JSONArray)truckload.get("circleObstacles");
-
-        //This is a JSONArray of JSONArray where the inner JSONArray's each
-        //have {'lat': _____, 'lng':_____} JSONObject's that are
-        //the vertices of an obstacle polygon
-        JSONArray polyObstaclesJsonArray = (JSONArray)truckload.get("polyObstacles");
-        List<List<GPSPosition>> polyObstaclesListOfLists = buildListOfGPSListsFromPolyObstacles(polyObstaclesJsonArray);
+        //Either the client sends the whole field or the id of a field it
+        //stored with us earlier (see Fields)
+        RegisteredField registeredField = null;
+        List<GPSPosition> missionGPSPositionList;
+        List<List<GPSPosition>> polyObstaclesListOfLists;
+        if(truckload.has("fieldId"))
+        {
+            String fieldId = truckload.getString("fieldId");
+            Fields.checkFieldId(fieldId);
+            registeredField = FieldRegistry.get(fieldId);
+            if(registeredField == null)
+            {
+                throw new NotFoundException("No field " + fieldId);
+            }
+            missionGPSPositionList = registeredField.copyBoundary();
+            polyObstaclesListOfLists = registeredField.copyObstacles();
+        }
+        else
+        {
+            JSONArray missionPolygonJsonArray = (JSONArray)truckload.get("missionPolygon");
+            missionGPSPositionList = buildGPSPositionListFromJsonArrayOfLatLngJsonObj(missionPolygonJsonArray);
+
+            //Note that the client is presently approximating the circles as polygons
+            //and just adding them in to the polyObstacles -- hence we're not
+            //getting a circleObstacles object from the client -- but
+            //I'm not yet sure we'll stick with the polygon
+            //approximation approach, so just leaving
+            //this unused code sitting around as
+            //a reminder 'till some "final"
+            //decision is made about
+            //circles
+            //JSONArray circleObstaclesObj = (JSONArray)truckload.get("circleObstacles");
+
+            //This is a JSONArray of JSONArray where the inner JSONArray's each
+            //have {'lat': _____, 'lng':_____} JSONObject's that are
+            //the vertices of an obstacle polygon
+            JSONArray polyObstaclesJsonArray = (JSONArray)truckload.get("polyObstacles");
+            polyObstaclesListOfLists = buildListOfGPSListsFromPolyObstacles(polyObstaclesJsonArray);
+        }
 
         //JSONObject lls = missionPolygonObj;
         //JSONArray circleObstacles = new JSONArray(circleObstaclesObj);
         //JSONArray polyObstacles = new JSONArray(polyObstaclesObj);
 
         Double heading = Double.parseDouble((String) truckload.get("heading"));
+        PlannerMetrics.observe(PlannerPhase.PARSE, parseNanos);
 
         //JSONArray latLngs = new JSONArray();
         //old code
 
-        MissionBrain brain = new MissionBrain();
+        MissionBrain brain = new MissionBrain(options);
+
+        //Previews get simplified whether they asked for it or not
+        double simplifyCm = Math.max(simplifyToleranceCm == null ? 0 : simplifyToleranceCm, options.simplifyToleranceCentimeters);
 
-        List<GPSPosition> waypoints = brain.buildMissionWaypointsFromLatLngBoundsJSONArray(
-                missionGPSPositionList, polyObstaclesListOfLists, mowingPathWidthInMeters,
-                startLatLngUnchecked, heading);
+        int simplifiedVertices = 0;
+        PreparedField preparedField;
+        if(simplifyCm > 0)
+        {
+            simplifiedVertices = brain.simplifyMissionGeometry(missionGPSPositionList, polyObstaclesListOfLists, simplifyCm);
+            preparedField = brain.prepareField(missionGPSPositionList, polyObstaclesListOfLists, startLatLngUnchecked);
+        }
+        else if(registeredField != null)
+        {
+            //Reuses the projection from earlier requests that started at the same spot
+            preparedField = registeredField.prepare(startLatLngUnchecked);
+        }
+        else
+        {
+            preparedField = brain.prepareField(missionGPSPositionList, polyObstaclesListOfLists, startLatLngUnchecked);
+        }
 
-        JSONArray jsonArray = new JSONArray();
-        for(int x = 0; x < waypoints.size(); x++)
+        PlanningMode mode = PlanningMode.fromQueryParam(planningMode);
+        List<GPSPosition> plannedWaypoints;
+        String missionId = null;
+        if(mode == PlanningMode.SWEEP && options.fidelity == PlanningFidelity.FINAL)
         {
-            GPSPosition gpsPosition = waypoints.get(x);
-            JSONObject jsonObject = new JSONObject();
-            jsonObject.put("lat", gpsPosition.latitude);
-            jsonObject.put("lng", gpsPosition.longitude);
-            jsonArray.put(x, jsonObject);
+            //Hang on to sweep missions so obstacle edits can be replanned incrementally
+            //(not previews though -- there's nothing to patch up on those)
+            SweepMission mission = brain.buildSweepMission(preparedField, mowingPathWidthInMeters, heading);
+            plannedWaypoints = mission.waypoints;
+            missionId = MissionCache.put(mission);
         }
+        else
+        {
+            plannedWaypoints = brain.buildMissionWaypoints(preparedField, mowingPathWidthInMeters, heading, mode);
+        }
+        List<GPSPosition> waypoints = decimate(brain, plannedWaypoints, heading, mowingPathWidthInMeters, decimateToleranceCm);
 
-        return jsonArray.toString();
+        Response.ResponseBuilder response = delta
+                ? MissionResponses.okSince(baseMissionHash, waypoints)
+                : MissionResponses.ok(waypoints, format, profile,
+                        verify ? verifyCoverage(preparedField, waypoints, mowingPathWidthInMeters) : null, mavlinkEncoder);
+        if(missionId != null)
+        {
+            response.header("X-Mission-Id", missionId);
+        }
+
+        if(registeredField != null)
+        {
+            response.header("X-Field-Version", registeredField.version);
+        }
+        return response
+                .header("X-Simplified-Vertices", simplifiedVertices)
+                .header("X-Decimated-Waypoints", plannedWaypoints.size() - waypoints.size())
+                .header("X-Planning-Fidelity", options.fidelity.name().toLowerCase())
+                .build();
     }
 
+    /**
+     * Add, move/reshape or remove one obstacle of a mission we built earlier,
+     * only replanning the swaths the obstacle touches when we can get away
+     * with it
+     *
+     * @param missionId X-Mission-Id header from the response that built the mission
+     * @param obstacleJsonInputStream POST body in this format:
+     * {"obstacleIndex":2, "polyObstacle":[{"lat":30.56409,"lng":-87.67660}, ... ]}
+     * Leave obstacleIndex out to add a new obstacle, and leave polyObstacle
+     * out to remove the obstacle at obstacleIndex (indexes are
+     * positions in the polyObstacles array of the original
+     * request, adjusted for any earlier adds/removes)
+     * @param diff If true, return the edits to the previous waypoint list
+     * rather than the whole list, i.e.:
+     * {"incremental":true, "edits":[{"start":14, "deleteCount":3, "insert":[{"lat":..,"lng":..}, ... ]}, ... ]}
+     * where every start index refers to the previous waypoint list
+     * @param decimateToleranceCm Optional, same as buildMissionFromLatLngPoints(..)
+     * -- can't be combined with diff since the edits index into the full mission
+     * @param format Optional, same as buildMissionFromLatLngPoints(..) -- also not
+     * with diff
+     * @param targetSystem Optional, same as buildMissionFromLatLngPoints(..)
+     * @param targetComponent Optional, same as buildMissionFromLatLngPoints(..)
+     * @param priority Optional, same as buildMissionFromLatLngPoints(..)
+     * @param tenant Optional, same as buildMissionFromLatLngPoints(..)
+     * @return Same as buildMissionFromLatLngPoints(..) (or the edits), with a new
+     * X-Mission-Id header for the changed mission
+     */
+    @POST
+    @Path("{missionId}/obstacles")
+    @Consumes(MediaType.TEXT_PLAIN)
+    @Produces({MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM})
+    public Response changeMissionObstacle(@PathParam("missionId") String missionId,
+                                          InputStream obstacleJsonInputStream,
+                                          @QueryParam("diff") final boolean diff,
+                                          @QueryParam("decimateToleranceCm") final Double decimateToleranceCm,
+                                          @QueryParam("format") String format,
+                                          @QueryParam("targetSystem") @DefaultValue("1") int targetSystem,
+                                          @QueryParam("targetComponent") @DefaultValue("1") int targetComponent,
+                                          @QueryParam("priority") String priority,
+                                          @HeaderParam("X-Tenant") String tenant)
+    {
+        final SweepMission previous = MissionCache.get(missionId);
+        if(previous == null)
+        {
+            throw new NotFoundException("No mission " + missionId + " -- it may have been evicted, so rebuild it");
+        }
 
-    public List<GPSPosition> buildGPSPositionListFromJsonArrayOfLatLngJsonObj(JSONArray missionJsonArray)
+        final int obstacleIndex;
+        final List<GPSPosition> polyObstacle;
+        try
+        {
+            JSONObject truckload = new JSONObject(new JSONTokener(obstacleJsonInputStream));
+            obstacleIndex = truckload.optInt("obstacleIndex", -1);
+            polyObstacle = truckload.has("polyObstacle")
+                    ? buildGPSPositionListFromJsonArrayOfLatLngJsonObj(truckload.getJSONArray("polyObstacle"))
+                    : null;
+        }
+        catch(JSONException e)
+        {
+            throw new BadRequestException("Couldn't read the obstacle change: " + e.getMessage());
+        }
+
+        if(obstacleIndex >= previous.polyObstacles.size() || (obstacleIndex < 0 && polyObstacle == null))
+        {
+            throw new BadRequestException("Need a valid obstacleIndex, a polyObstacle, or both");
+        }
+        if(polyObstacle != null && polyObstacle.size() < 3)
+        {
+            throw new BadRequestException("polyObstacle needs at least 3 vertices");
+        }
+        if(diff && decimateToleranceCm != null)
+        {
+            throw new BadRequestException("diff edits index into the full mission, so they can't be decimated");
+        }
+        final MissionFormat missionFormat = MissionFormat.fromQueryParam(format);
+        if(diff && missionFormat != MissionFormat.JSON)
+        {
+            throw new BadRequestException("diff edits only come back as JSON");
+        }
+
+        final MavlinkMissionEncoder mavlinkEncoder = new MavlinkMissionEncoder(targetSystem, targetComponent);
+        return PlannerPool.plan(PlanningPriority.fromQueryParam(priority), tenant, new Callable<Response>()
+        {
+            @Override
+            public Response call()
+            {
+                return replanMission(previous, obstacleIndex, polyObstacle, diff, decimateToleranceCm,
+                        missionFormat, mavlinkEncoder);
+            }
+        });
+    }
+
+    private Response replanMission(SweepMission previous, int obstacleIndex, List<GPSPosition> polyObstacle, boolean diff,
+                                   Double decimateToleranceCm, MissionFormat missionFormat,
+                                   MavlinkMissionEncoder mavlinkEncoder)
     {
-        List<GPSPosition> list = new ArrayList<GPSPosition>();
+        MissionBrain brain = new MissionBrain();
+        MissionReplan replan = brain.replanMissionAfterObstacleChange(previous, obstacleIndex, polyObstacle);
+        String newMissionId = MissionCache.put(replan.mission);
 
-        for(int x=0; x < missionJsonArray.length(); x++)
+        if(!diff)
         {
-            JSONObject latLng = (JSONObject) missionJsonArray.get(x);
-            Double lat = latLng.getDouble("lat");
-            Double lng = latLng.getDouble("lng");
-            GPSPosition gpsPosition = new GPSPosition(lat, lng);
-            list.add(gpsPosition);
+            List<GPSPosition> waypoints = decimate(brain, replan.mission.waypoints, replan.mission.headingDegrees,
+                    replan.mission.mowingPathWidthInMeters, decimateToleranceCm);
+            return MissionResponses.ok(waypoints, missionFormat, false, mavlinkEncoder)
+                    .header("X-Mission-Id", newMissionId)
+                    .build();
         }
 
-        return list;
+        JSONObject result = new JSONObject();
+        result.put("incremental", replan.incremental);
+        result.put("edits", MissionResponses.editsJson(replan.edits));
+
+        return Response.ok(result.toString())
+                .header("X-Mission-Id", newMissionId)
+                .build();
     }
 
-    public List<List<GPSPosition>> buildListOfGPSListsFromPolyObstacles(JSONArray polyObstacles)
+    /**
+     * The planning gets handed off to a scheduler thread (see
+     * PlannerPool.plan(..)), so read the whole request in first -- the
+     * planner thread should never sit waiting on the network
+     */
+    private static InputStream readAhead(InputStream requestBody) throws IOException
+    {
+        return new ByteArrayInputStream(IOUtils.toByteArray(requestBody));
+    }
+
+    private List<GPSPosition> decimate(MissionBrain brain, List<GPSPosition> waypoints, Double heading,
+                                       Double mowingPathWidthInMeters, Double decimateToleranceCm)
     {
-        List<List<GPSPosition>> listOfGPSPolygonLists = new ArrayList<>();
-        for(int x = 0; x < polyObstacles.length(); x++)
+        if(decimateToleranceCm == null || decimateToleranceCm <= 0)
         {
-            JSONArray polyObstacleJSONList = polyObstacles.getJSONArray(x);
-            List<GPSPosition> polyObstacleGPSPositionList = new ArrayList<GPSPosition>();
-            for(int y = 0; y < polyObstacleJSONList.length(); y++)
-            {
-                JSONObject latLngJsonObj = polyObstacleJSONList.getJSONObject(y);
-                polyObstacleGPSPositionList.add(new GPSPosition(latLngJsonObj.getDouble("lat"), latLngJsonObj.getDouble("lng")));
-            }
-            listOfGPSPolygonLists.add(polyObstacleGPSPositionList);
+            return waypoints;
         }
-        return listOfGPSPolygonLists;
+        return brain.decimateMissionWaypoints(waypoints, heading, mowingPathWidthInMeters, decimateToleranceCm);
+    }
+
+    private CoverageVerifier.Report verifyCoverage(PreparedField preparedField, List<GPSPosition> waypoints,
+                                                   Double mowingPathWidthInMeters)
+    {
+        long verificationNanos = PlannerMetrics.startPhase(PlannerPhase.COVERAGE_VERIFICATION);
+        CoverageVerifier.Report coverage = new CoverageVerifier(preparedField).verify(waypoints, mowingPathWidthInMeters);
+        PlannerMetrics.observe(PlannerPhase.COVERAGE_VERIFICATION, verificationNanos);
+        return coverage;
+    }
+
+    public JSONArray buildJsonArrayOfLatLngJsonObj(List<GPSPosition> waypoints)
+    {
+        return LatLngJson.toJsonArray(waypoints);
+    }
+
+
+    public List<GPSPosition> buildGPSPositionListFromJsonArrayOfLatLngJsonObj(JSONArray missionJsonArray)
+    {
+        return LatLngJson.toPositionList(missionJsonArray);
+    }
+
+    public List<List<GPSPosition>> buildListOfGPSListsFromPolyObstacles(JSONArray polyObstacles)
+    {
+        return LatLngJson.toPositionLists(polyObstacles);
     }
 
     @GET
@@ -0,0 +1,126 @@
+package com.deepsouthrobotics.api;
+
+import com.deepsouthrobotics.brain.RecordedTrackBuilder;
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.data.GPSCartesianCoordinateSpace;
+import com.deepsouthrobotics.data.GPSPosition;
+import com.deepsouthrobotics.data.MissionFormat;
+import com.deepsouthrobotics.data.RecordedPositions;
+import com.deepsouthrobotics.util.MavlinkMissionEncoder;
+import com.deepsouthrobotics.util.PlannerMetrics;
+import com.deepsouthrobotics.util.PlannerPhase;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Build Mission From Recording API
+|--------------------------------------------------------------------------
+|
+| Teach and repeat -- turns a recording of the robot being driven around
+| into a mission that drives the same path (see RecordedTrackBuilder)
+*/
+@Path("buildMissionFromRecording")
+public class BuildMissionFromRecording
+{
+    /**
+     * @param recordingInputStream POST body -- the recording, one point per line:
+     * POINT 32 CARTESIAN X:-2.72 Y:0.57 AUTOPILOT_TIME_MILLIS:131559 LOCAL_TIME_MILLIS:1487620496519
+     * POINT 33 CARTESIAN X:-2.70 Y:0.61 AUTOPILOT_TIME_MILLIS:131759 LOCAL_TIME_MILLIS:1487620496719
+     * ...
+     * where X is meters north and Y meters east of where the recording
+     * started. It's read as it comes in, so it can be as long as you like.
+     * @param originLat Latitude of the recording's (0,0)
+     * @param originLng Longitude of the recording's (0,0)
+     * @param toleranceCm Optional -- furthest the mission may stray from the recorded
+     * path (defaults to Config.recordedTrackToleranceCentimeters)
+     * @param format Optional, same as buildMissionFromLatLngPoints(..)
+     * @param targetSystem Optional, same as buildMissionFromLatLngPoints(..)
+     * @param targetComponent Optional, same as buildMissionFromLatLngPoints(..)
+     * @return Same as buildMissionFromLatLngPoints(..), plus an X-Recorded-Points
+     * header with the number of recorded points that went into the mission
+     */
+    @POST
+    @Consumes(MediaType.TEXT_PLAIN)
+    @Produces({MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM})
+    public Response buildMissionFromRecording(InputStream recordingInputStream,
+                                              @QueryParam("originLat") Double originLat,
+                                              @QueryParam("originLng") Double originLng,
+                                              @QueryParam("toleranceCm") Double toleranceCm,
+                                              @QueryParam("format") String format,
+                                              @QueryParam("targetSystem") @DefaultValue("1") int targetSystem,
+                                              @QueryParam("targetComponent") @DefaultValue("1") int targetComponent)
+            throws IOException
+    {
+        if(originLat == null || originLng == null)
+        {
+            throw new BadRequestException("Need the originLat and originLng of the recording's (0,0)");
+        }
+        double toleranceMeters = (toleranceCm == null ? Config.recordedTrackToleranceCentimeters : toleranceCm) / 100;
+        if(toleranceMeters <= 0)
+        {
+            throw new BadRequestException("toleranceCm has to be more than 0");
+        }
+        MissionFormat missionFormat = MissionFormat.fromQueryParam(format);
+
+        long requestNanos = System.nanoTime();
+        try
+        {
+            GPSCartesianCoordinateSpace space = new GPSCartesianCoordinateSpace(new GPSPosition(originLat, originLng, 0, 0));
+            List<GPSPosition> waypoints = new ArrayList<>();
+            final RecordedTrackBuilder builder = new RecordedTrackBuilder(space, toleranceMeters,
+                    Config.recordedTrackReorderWindow, waypoints);
+
+            //Reading the recording and simplifying the track happen together as the
+            //recording streams in, so it all gets timed as the simplification
+            long simplificationNanos = PlannerMetrics.startPhase(PlannerPhase.TRACK_SIMPLIFICATION);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Config.MISSION_BUILDING_SERVICE_TIMEOUT);
+            try
+            {
+                RecordedPositions.read(recordingInputStream, new RecordedPositions.Batches()
+                {
+                    @Override
+                    public void accept(RecordedPositions batch)
+                    {
+                        if(System.nanoTime() > deadline)
+                        {
+                            throw new ServiceUnavailableException("Gave up on the recording after "
+                                    + Config.MISSION_BUILDING_SERVICE_TIMEOUT + " seconds");
+                        }
+                        builder.accept(batch);
+                    }
+                });
+            }
+            catch(NumberFormatException e)
+            {
+                throw new BadRequestException("Couldn't read the recording: " + e.getMessage());
+            }
+            builder.finish();
+            PlannerMetrics.observe(PlannerPhase.TRACK_SIMPLIFICATION, simplificationNanos);
+            PlannerMetrics.countMissionBuilt(waypoints.size());
+
+            return MissionResponses.ok(waypoints, missionFormat, false, new MavlinkMissionEncoder(targetSystem, targetComponent))
+                    .header("X-Recorded-Points", builder.pointsUsed())
+                    .build();
+        }
+        finally
+        {
+            PlannerMetrics.observeRequest(requestNanos);
+        }
+    }
+
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public String getIt() {
+        return "You'll want to access this resource via POST";
+    }
+}
@@ -0,0 +1,143 @@
+package com.deepsouthrobotics.api;
+
+import com.deepsouthrobotics.brain.FieldRegistry;
+import com.deepsouthrobotics.brain.RegisteredField;
+import com.deepsouthrobotics.data.GPSPosition;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Fields API
+|--------------------------------------------------------------------------
+|
+| Lets clients store a field (boundary plus obstacles) with us once and
+| then build missions on it by id -- send {"fieldId":"back-forty", ...}
+| to buildMissionFromLatLngPoints instead of the missionPolygon and
+| polyObstacles
+*/
+@Path("fields")
+public class Fields
+{
+    /**
+     * Store a field, or replace it if the id's already taken. Missions that
+     * are being built on the old version of the field finish on the old
+     * version -- the next request gets the new one.
+     *
+     * @param fieldId Letters, digits, '.', '_' and '-' (up to 64 of them)
+     * @param fieldJsonInputStream PUT body in this format (same as the mission request):
+     * {"missionPolygon":[{"lat":30.56409,"lng":-87.67660}, ... ],
+     *  "polyObstacles":[[{"lat":..,"lng":..}, ... ], ... ]}
+     * @return {"id":"back-forty", "version":3, "vertices":42, "obstacles":2} --
+     * 201 for a new field, 200 for a replaced one
+     */
+    @PUT
+    @Path("{fieldId}")
+    @Consumes(MediaType.TEXT_PLAIN)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response putField(@PathParam("fieldId") String fieldId, InputStream fieldJsonInputStream)
+    {
+        checkFieldId(fieldId);
+
+        List<GPSPosition> missionBoundary;
+        List<List<GPSPosition>> polyObstacles;
+        try
+        {
+            JSONObject truckload = new JSONObject(new JSONTokener(fieldJsonInputStream));
+            missionBoundary = LatLngJson.toPositionList(truckload.getJSONArray("missionPolygon"));
+            polyObstacles = truckload.has("polyObstacles")
+                    ? LatLngJson.toPositionLists(truckload.getJSONArray("polyObstacles"))
+                    : new ArrayList<List<GPSPosition>>();
+        }
+        catch(JSONException e)
+        {
+            throw new BadRequestException("Couldn't read the field: " + e.getMessage());
+        }
+
+        if(missionBoundary.size() < 3)
+        {
+            throw new BadRequestException("missionPolygon needs at least 3 vertices");
+        }
+        for(List<GPSPosition> obstacle : polyObstacles)
+        {
+            if(obstacle.size() < 3)
+            {
+                throw new BadRequestException("Every polyObstacle needs at least 3 vertices");
+            }
+        }
+
+        RegisteredField field = FieldRegistry.put(fieldId, missionBoundary, polyObstacles);
+        if(field == null)
+        {
+            throw new WebApplicationException("Too many fields stored -- delete some first", 507);
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("id", field.id);
+        result.put("version", field.version);
+        result.put("vertices", field.boundaryVertexCount());
+        result.put("obstacles", field.obstacleCount());
+        return Response.status(field.version == 1 ? Response.Status.CREATED : Response.Status.OK)
+                .entity(result.toString())
+                .build();
+    }
+
+    /**
+     * @return The stored field in the same format it was PUT in, plus its id and version
+     */
+    @GET
+    @Path("{fieldId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public String getField(@PathParam("fieldId") String fieldId)
+    {
+        checkFieldId(fieldId);
+
+        RegisteredField field = FieldRegistry.get(fieldId);
+        if(field == null)
+        {
+            throw new NotFoundException("No field " + fieldId);
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("id", field.id);
+        result.put("version", field.version);
+        result.put("missionPolygon", LatLngJson.toJsonArray(field.copyBoundary()));
+        result.put("polyObstacles", LatLngJson.toJsonArrayOfArrays(field.copyObstacles()));
+        return result.toString();
+    }
+
+    @DELETE
+    @Path("{fieldId}")
+    public Response deleteField(@PathParam("fieldId") String fieldId)
+    {
+        checkFieldId(fieldId);
+
+        if(!FieldRegistry.remove(fieldId))
+        {
+            throw new NotFoundException("No field " + fieldId);
+        }
+        return Response.noContent().build();
+    }
+
+    /**
+     * 400 for anything that isn't a FieldRegistry.FIELD_ID -- every endpoint
+     * that takes a field id goes through here
+     */
+    static void checkFieldId(String fieldId)
+    {
+        if(!FieldRegistry.isValidId(fieldId))
+        {
+            throw new BadRequestException("Field ids are 1-64 letters, digits, '.', '_' or '-'");
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.deepsouthrobotics.api;
+
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.util.FlightRecordings;
+import com.deepsouthrobotics.util.PlannerEvents;
+import org.json.JSONObject;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Flight Recording Admin API
+|--------------------------------------------------------------------------
+|
+| Start, dump and stop a bounded Java Flight Recorder recording of the
+| planner (see PlannerEvents) so we can profile real traffic. Recordings
+| are written to files on the server, never sent back in the response.
+*/
+@Path("admin/flightRecording")
+public class FlightRecording
+{
+    /**
+     * @return {"available":true, "state":"RUNNING"}
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public String getState()
+    {
+        JSONObject json = new JSONObject();
+        json.put("available", PlannerEvents.AVAILABLE);
+        json.put("state", PlannerEvents.AVAILABLE ? FlightRecordings.state() : "NONE");
+        return json.toString();
+    }
+
+    /**
+     * @param maxAgeSeconds Optional -- only keep this many seconds of events
+     * @param maxSizeMb Optional -- only keep this many megabytes of events
+     * @param durationSeconds Optional -- stop recording on its own after this long
+     * (starting again later writes that recording out to a file before
+     * replacing it)
+     * @return {"started":true, "state":"RUNNING"} -- started is false if a
+     * recording was already running
+     */
+    @POST
+    @Path("start")
+    @Produces(MediaType.APPLICATION_JSON)
+    public String start(@QueryParam("maxAgeSeconds") Long maxAgeSeconds,
+                        @QueryParam("maxSizeMb") Long maxSizeMb,
+                        @QueryParam("durationSeconds") Long durationSeconds)
+    {
+        requireFlightRecorder();
+        try
+        {
+            boolean started = FlightRecordings.start(
+                    maxAgeSeconds == null ? Config.flightRecordingMaxAgeSeconds : maxAgeSeconds,
+                    maxSizeMb == null ? Config.flightRecordingMaxSizeMegabytes : maxSizeMb,
+                    durationSeconds);
+            JSONObject json = new JSONObject();
+            json.put("started", started);
+            json.put("state", FlightRecordings.state());
+            return json.toString();
+        }
+        catch(IOException | ParseException e)
+        {
+            throw new InternalServerErrorException("Couldn't start recording: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write out what's been recorded so far and keep going
+     *
+     * @return {"file":"/tmp/mission-planner-20190704-101500-000.jfr"}
+     */
+    @POST
+    @Path("dump")
+    @Produces(MediaType.APPLICATION_JSON)
+    public String dump()
+    {
+        requireFlightRecorder();
+        try
+        {
+            return fileJson(FlightRecordings.dump());
+        }
+        catch(IOException e)
+        {
+            throw new InternalServerErrorException("Couldn't dump recording: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stop recording and write it out
+     *
+     * @return Same as dump()
+     */
+    @POST
+    @Path("stop")
+    @Produces(MediaType.APPLICATION_JSON)
+    public String stop()
+    {
+        requireFlightRecorder();
+        try
+        {
+            return fileJson(FlightRecordings.stop());
+        }
+        catch(IOException e)
+        {
+            throw new InternalServerErrorException("Couldn't stop recording: " + e.getMessage(), e);
+        }
+    }
+
+    private void requireFlightRecorder()
+    {
+        if(!PlannerEvents.AVAILABLE)
+        {
+            throw new ServiceUnavailableException("Java Flight Recorder isn't available on this JVM");
+        }
+    }
+
+    private String fileJson(File file)
+    {
+        if(file == null)
+        {
+            throw new NotFoundException("No recording -- start one first");
+        }
+        JSONObject json = new JSONObject();
+        json.put("file", file.getAbsolutePath());
+        return json.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.deepsouthrobotics.api;
+
+import com.deepsouthrobotics.data.GPSPosition;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Lat/Lng JSON
+|--------------------------------------------------------------------------
+|
+| Converting between GPSPosition lists and the [{"lat":..,"lng":..}, ..]
+| arrays the API speaks, for all of the resources that need it
+*/
+class LatLngJson
+{
+    static JSONArray toJsonArray(List<GPSPosition> positions)
+    {
+        JSONArray jsonArray = new JSONArray();
+        for(int x = 0; x < positions.size(); x++)
+        {
+            GPSPosition gpsPosition = positions.get(x);
+            JSONObject jsonObject = new JSONObject();
+            jsonObject.put("lat", gpsPosition.latitude);
+            jsonObject.put("lng", gpsPosition.longitude);
+            jsonArray.put(x, jsonObject);
+        }
+        return jsonArray;
+    }
+
+    static JSONArray toJsonArrayOfArrays(List<List<GPSPosition>> polygons)
+    {
+        JSONArray jsonArray = new JSONArray();
+        for(List<GPSPosition> polygon : polygons)
+        {
+            jsonArray.put(toJsonArray(polygon));
+        }
+        return jsonArray;
+    }
+
+    static List<GPSPosition> toPositionList(JSONArray latLngJsonArray)
+    {
+        List<GPSPosition> list = new ArrayList<GPSPosition>();
+        for(int x = 0; x < latLngJsonArray.length(); x++)
+        {
+            JSONObject latLng = latLngJsonArray.getJSONObject(x);
+            list.add(new GPSPosition(latLng.getDouble("lat"), latLng.getDouble("lng")));
+        }
+        return list;
+    }
+
+    static List<List<GPSPosition>> toPositionLists(JSONArray polygons)
+    {
+        List<List<GPSPosition>> listOfGPSPolygonLists = new ArrayList<>();
+        for(int x = 0; x < polygons.length(); x++)
+        {
+            listOfGPSPolygonLists.add(toPositionList(polygons.getJSONArray(x)));
+        }
+        return listOfGPSPolygonLists;
+    }
+}
@@ -0,0 +1,28 @@
+package com.deepsouthrobotics.api;
+
+import com.deepsouthrobotics.util.PlannerMetrics;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Metrics API
+|--------------------------------------------------------------------------
+|
+| Planner latency histograms and counters in the Prometheus text
+| format, for scraping
+*/
+@Path("metrics")
+public class Metrics
+{
+    @GET
+    @Produces("text/plain; version=0.0.4")
+    public String getMetrics()
+    {
+        return PlannerMetrics.prometheusText();
+    }
+}
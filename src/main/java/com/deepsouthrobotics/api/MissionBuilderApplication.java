@@ -0,0 +1,46 @@
+package com.deepsouthrobotics.api;
+
+import com.deepsouthrobotics.brain.PlannerWarmup;
+import com.deepsouthrobotics.filter.CORSFilter;
+import com.deepsouthrobotics.filter.ServerTimingFilter;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.ServerProperties;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Mission Builder Application
+|--------------------------------------------------------------------------
+|
+| Every resource and provider the servlet serves, listed out by hand so
+| Jersey doesn't have to scan the api package for them (and read every
+| class in it) when the servlet starts up. Add new resources here --
+| they won't be found otherwise.
+|
+| We also switch off the WADL and the auto-discovered features, which we
+| don't use and which pull in a good chunk of classes at startup.
+|
+| The servlet's load-on-startup builds this, which is also what starts
+| the planner warming up (see PlannerWarmup and Ready).
+*/
+public class MissionBuilderApplication extends ResourceConfig
+{
+    public MissionBuilderApplication()
+    {
+        register(BuildMissionFromLatLngPoints.class);
+        register(BuildMissionFromRecording.class);
+        register(Fields.class);
+        register(FlightRecording.class);
+        register(Metrics.class);
+        register(Ready.class);
+
+        register(CORSFilter.class);
+        register(ServerTimingFilter.class);
+
+        property(ServerProperties.WADL_FEATURE_DISABLE, true);
+        property(ServerProperties.FEATURE_AUTO_DISCOVERY_DISABLE, true);
+
+        PlannerWarmup.start();
+    }
+}
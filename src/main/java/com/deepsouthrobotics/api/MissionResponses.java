@@ -0,0 +1,210 @@
+package com.deepsouthrobotics.api;
+
+import com.deepsouthrobotics.brain.CoverageVerifier;
+import com.deepsouthrobotics.brain.MissionReplan;
+import com.deepsouthrobotics.brain.SentMissionCache;
+import com.deepsouthrobotics.data.GPSPosition;
+import com.deepsouthrobotics.data.MissionFormat;
+import com.deepsouthrobotics.util.MavlinkMissionEncoder;
+import com.deepsouthrobotics.util.PlannerMetrics;
+import com.deepsouthrobotics.util.PlannerPhase;
+import com.deepsouthrobotics.util.RequestProfile;
+import com.deepsouthrobotics.util.WaypointFileWriter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Mission Responses
+|--------------------------------------------------------------------------
+|
+| Turning a built mission into a response in whichever format the client
+| asked for (see MissionFormat) -- shared by every resource that hands
+| back a mission
+*/
+class MissionResponses
+{
+    static Response.ResponseBuilder ok(List<GPSPosition> waypoints, MissionFormat format, boolean profile,
+                                        MavlinkMissionEncoder mavlinkEncoder)
+    {
+        return ok(waypoints, format, profile, null, mavlinkEncoder);
+    }
+
+    /**
+     * @param coverage If not null, goes back alongside the waypoints (JSON only,
+     * same as the profile)
+     */
+    static Response.ResponseBuilder ok(List<GPSPosition> waypoints, MissionFormat format, boolean profile,
+                                        CoverageVerifier.Report coverage, MavlinkMissionEncoder mavlinkEncoder)
+    {
+        if(format == MissionFormat.WPL)
+        {
+            return Response.ok(waypointFile(waypoints), MediaType.TEXT_PLAIN);
+        }
+        if(format == MissionFormat.MAVLINK)
+        {
+            //Check up front -- once we're streaming it's too late for a 400
+            int missionItems = MavlinkMissionEncoder.missionItemCount(waypoints);
+            if(missionItems > MavlinkMissionEncoder.MAX_MISSION_ITEMS)
+            {
+                throw new BadRequestException("MAVLink missions top out at " + MavlinkMissionEncoder.MAX_MISSION_ITEMS
+                        + " items and this one has " + missionItems + " -- try decimating it or a wider swath");
+            }
+            return Response.ok(mavlinkFrames(waypoints, mavlinkEncoder), MediaType.APPLICATION_OCTET_STREAM)
+                    .header("X-Mission-Item-Count", missionItems);
+        }
+        if(profile || coverage != null)
+        {
+            return Response.ok(serializeWithSections(waypoints, profile, coverage));
+        }
+        return Response.ok(serialize(waypoints));
+    }
+
+    /**
+     * A plain JSON mission that the client can ask for the changes to next time:
+     * it comes back with an X-Mission-Hash header, and if the client sent the
+     * hash of a mission it's holding (and we still have that one -- see
+     * SentMissionCache) we send the edits from that mission instead of the
+     * whole thing:
+     * {"baseMissionHash":"..", "waypointCount":1234, "edits":[{"start":14, "deleteCount":3, "insert":[ ... ]}]}
+     * The X-Mission-Delta header says which one it is.
+     *
+     * @param baseMissionHash X-Mission-Hash of the mission the client has, or null
+     */
+    static Response.ResponseBuilder okSince(String baseMissionHash, List<GPSPosition> waypoints)
+    {
+        long serializationNanos = PlannerMetrics.startPhase(PlannerPhase.SERIALIZATION);
+        String missionHash = SentMissionCache.put(waypoints);
+        List<MissionReplan.Edit> edits = baseMissionHash == null ? null : SentMissionCache.editFrom(baseMissionHash, waypoints);
+        PlannerMetrics.observe(PlannerPhase.SERIALIZATION, serializationNanos);
+
+        if(edits == null)
+        {
+            return Response.ok(serialize(waypoints))
+                    .header("X-Mission-Hash", missionHash)
+                    .header("X-Mission-Delta", false);
+        }
+
+        serializationNanos = PlannerMetrics.startPhase(PlannerPhase.SERIALIZATION);
+        JSONObject result = new JSONObject();
+        result.put("baseMissionHash", baseMissionHash);
+        result.put("waypointCount", waypoints.size());
+        result.put("edits", editsJson(edits));
+        String json = result.toString();
+        PlannerMetrics.observe(PlannerPhase.SERIALIZATION, serializationNanos);
+
+        return Response.ok(json)
+                .header("X-Mission-Hash", missionHash)
+                .header("X-Mission-Delta", true);
+    }
+
+    /**
+     * [{"start":14, "deleteCount":3, "insert":[{"lat":..,"lng":..}, ... ]}, ... ]
+     */
+    static JSONArray editsJson(List<MissionReplan.Edit> edits)
+    {
+        JSONArray json = new JSONArray();
+        for(MissionReplan.Edit edit : edits)
+        {
+            JSONObject jsonObject = new JSONObject();
+            jsonObject.put("start", edit.start);
+            jsonObject.put("deleteCount", edit.deleteCount);
+            jsonObject.put("insert", LatLngJson.toJsonArray(edit.insert));
+            json.put(jsonObject);
+        }
+        return json;
+    }
+
+    /**
+     * The mission as a QGC WPL 110 file, written straight to the response as
+     * Jersey asks for it (see WaypointFileWriter)
+     */
+    private static StreamingOutput waypointFile(final List<GPSPosition> waypoints)
+    {
+        return new StreamingOutput()
+        {
+            @Override
+            public void write(OutputStream output) throws IOException
+            {
+                long serializationNanos = PlannerMetrics.startPhase(PlannerPhase.SERIALIZATION);
+                new WaypointFileWriter(output).writeMission(waypoints);
+                PlannerMetrics.observe(PlannerPhase.SERIALIZATION, serializationNanos);
+            }
+        };
+    }
+
+    /**
+     * The mission as MAVLink MISSION_ITEM_INT frames, written straight to the
+     * response (see MavlinkMissionEncoder)
+     */
+    private static StreamingOutput mavlinkFrames(final List<GPSPosition> waypoints, final MavlinkMissionEncoder encoder)
+    {
+        return new StreamingOutput()
+        {
+            @Override
+            public void write(OutputStream output) throws IOException
+            {
+                long serializationNanos = PlannerMetrics.startPhase(PlannerPhase.SERIALIZATION);
+                encoder.writeMission(waypoints, Channels.newChannel(output));
+                output.flush();
+                PlannerMetrics.observe(PlannerPhase.SERIALIZATION, serializationNanos);
+            }
+        };
+    }
+
+    private static String serialize(List<GPSPosition> waypoints)
+    {
+        long serializationNanos = PlannerMetrics.startPhase(PlannerPhase.SERIALIZATION);
+        String json = LatLngJson.toJsonArray(waypoints).toString();
+        PlannerMetrics.observe(PlannerPhase.SERIALIZATION, serializationNanos);
+        return json;
+    }
+
+    /**
+     * Waypoints plus the profile of this request and/or the coverage check --
+     * the profile is taken after the waypoints are encoded so it includes
+     * the encoding
+     */
+    private static String serializeWithSections(List<GPSPosition> waypoints, boolean profile,
+                                                CoverageVerifier.Report coverage)
+    {
+        long serializationNanos = PlannerMetrics.startPhase(PlannerPhase.SERIALIZATION);
+        JSONObject result = new JSONObject();
+        result.put("waypoints", LatLngJson.toJsonArray(waypoints));
+        if(coverage != null)
+        {
+            result.put("coverage", coverageJson(coverage));
+        }
+        PlannerMetrics.observe(PlannerPhase.SERIALIZATION, serializationNanos);
+
+        if(profile)
+        {
+            RequestProfile requestProfile = RequestProfile.current();
+            result.put("profile", requestProfile == null ? JSONObject.NULL : requestProfile.toJSON());
+        }
+        return result.toString();
+    }
+
+    private static JSONObject coverageJson(CoverageVerifier.Report coverage)
+    {
+        JSONObject json = new JSONObject();
+        json.put("coveredPercent", coverage.coveredPercent());
+        json.put("missedPercent", coverage.missedPercent());
+        json.put("overlapPercent", coverage.overlapPercent());
+        json.put("spillPercent", coverage.spillPercent());
+        json.put("fieldSquareMeters", coverage.fieldSquareMeters());
+        json.put("resolutionMeters", coverage.resolutionMeters);
+        return json;
+    }
+}
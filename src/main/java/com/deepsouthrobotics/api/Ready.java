@@ -0,0 +1,50 @@
+package com.deepsouthrobotics.api;
+
+import com.deepsouthrobotics.brain.PlannerWarmup;
+import org.json.JSONObject;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Readiness API
+|--------------------------------------------------------------------------
+|
+| For load balancers and deploy scripts: 503 while the planner is still
+| warming up after a restart (see PlannerWarmup), 200 once it's done
+*/
+@Path("ready")
+public class Ready
+{
+    /**
+     * @return {"ready":true, "warmupRounds":64, "warmupMillis":5120, "steady":true}
+     * where steady is false if the warm-up ran out of time before the
+     * planner settled down to full speed
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getReady()
+    {
+        boolean ready = PlannerWarmup.isReady();
+        JSONObject status = new JSONObject();
+        status.put("ready", ready);
+        status.put("warmupRounds", PlannerWarmup.rounds());
+        status.put("warmupMillis", PlannerWarmup.elapsedMillis());
+        status.put("steady", PlannerWarmup.steady());
+
+        if(!ready)
+        {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", 1)
+                    .entity(status.toString())
+                    .build();
+        }
+        return Response.ok(status.toString()).build();
+    }
+}
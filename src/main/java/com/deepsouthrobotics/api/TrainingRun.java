@@ -0,0 +1,108 @@
+package com.deepsouthrobotics.api;
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Training Run
+|--------------------------------------------------------------------------
+|
+| Starts the application in-process (no servlet container) and sends it
+| one of every kind of request we serve, so that every class a real
+| request needs -- Jersey, HK2, org.json and ours -- gets loaded. The
+| appcds build profile runs this with -XX:ArchiveClassesAtExit to
+| write those classes out to a CDS archive, and a JVM started with
+| -XX:SharedArchiveFile pointing at it maps them in at startup
+| instead of loading and verifying them one by one.
+|
+|   java -XX:ArchiveClassesAtExit=missionbuilder.jsa -cp <jars> com.deepsouthrobotics.api.TrainingRun
+*/
+public class TrainingRun
+{
+    private static final URI BASE_URI = URI.create("http://localhost/api/");
+
+    private static final String FIELD =
+            "\"missionPolygon\":[{\"lat\":30.5640,\"lng\":-87.6766},{\"lat\":30.5645,\"lng\":-87.6766},"
+                    + "{\"lat\":30.5645,\"lng\":-87.6760},{\"lat\":30.5640,\"lng\":-87.6760}],"
+                    + "\"polyObstacles\":[[{\"lat\":30.5642,\"lng\":-87.6764},{\"lat\":30.5643,\"lng\":-87.6764},"
+                    + "{\"lat\":30.5643,\"lng\":-87.6763},{\"lat\":30.5642,\"lng\":-87.6763}]]";
+
+    private static final String MISSION = "{\"startMarker\":{\"lat\":30.5641,\"lng\":-87.6765},\"heading\":\"30\"," + FIELD + "}";
+
+    private static final String REGISTERED_MISSION =
+            "{\"startMarker\":{\"lat\":30.5641,\"lng\":-87.6765},\"heading\":\"30\",\"fieldId\":\"training-run\"}";
+
+    private static final String RECORDING =
+            "POINT 0 CARTESIAN X:0.00 Y:0.00 AUTOPILOT_TIME_MILLIS:1000 LOCAL_TIME_MILLIS:1487620496519\n"
+                    + "POINT 1 CARTESIAN X:1.00 Y:0.02 AUTOPILOT_TIME_MILLIS:1200 LOCAL_TIME_MILLIS:1487620496719\n"
+                    + "GUIDEPOINT_CARTESIAN CARTESIAN X:-4.57 Y:-1.68 AUTOPILOT_TIME_MILLIS:1300 LOCAL_TIME_MILLIS:1487620496819\n"
+                    + "POINT 2 CARTESIAN X:2.00 Y:1.00 AUTOPILOT_TIME_MILLIS:1400 LOCAL_TIME_MILLIS:1487620496919\n";
+
+    public static void main(String[] args) throws Exception
+    {
+        long startNanos = System.nanoTime();
+        ApplicationHandler handler = new ApplicationHandler(new MissionBuilderApplication());
+        System.out.println("Application started in " + (System.nanoTime() - startNanos) / 1000000 + "ms");
+
+        run(handler);
+        System.out.println("Training run done in " + (System.nanoTime() - startNanos) / 1000000 + "ms");
+    }
+
+    /**
+     * Send one of every kind of request through the handler
+     */
+    static void run(ApplicationHandler handler) throws Exception
+    {
+        send(handler, "POST", "buildMissionFromLatLngPoints?mowingPathWidthInMeters=1", MISSION);
+        send(handler, "POST", "buildMissionFromLatLngPoints?mowingPathWidthInMeters=1&profile=true&verify=true", MISSION);
+        send(handler, "POST", "buildMissionFromLatLngPoints?mowingPathWidthInMeters=1&planningMode=cells&decimateToleranceCm=5", MISSION);
+        send(handler, "POST", "buildMissionFromLatLngPoints?mowingPathWidthInMeters=1&format=wpl", MISSION);
+        send(handler, "POST", "buildMissionFromLatLngPoints?mowingPathWidthInMeters=1&fidelity=preview", MISSION);
+        send(handler, "POST", "buildMissionFromLatLngPoints?mowingPathWidthInMeters=1&baseMissionHash=training-run", MISSION);
+        send(handler, "POST", "buildMissionFromLatLngPoints?mowingPathWidthInMeters=1&priority=interactive", MISSION);
+        send(handler, "POST", "buildMissionFromLatLngPoints?mowingPathWidthInMeters=1&format=mavlink", MISSION);
+
+        send(handler, "PUT", "fields/training-run", "{" + FIELD + "}");
+        send(handler, "GET", "fields/training-run", null);
+        send(handler, "POST", "buildMissionFromLatLngPoints?mowingPathWidthInMeters=1", REGISTERED_MISSION);
+        send(handler, "DELETE", "fields/training-run", null);
+
+        send(handler, "POST", "buildMissionFromRecording?originLat=30.5641&originLng=-87.6765", RECORDING);
+        send(handler, "GET", "metrics", null);
+    }
+
+    /**
+     * @return Response status
+     */
+    static int send(ApplicationHandler handler, String method, String path, String body) throws Exception
+    {
+        ContainerRequest request = new ContainerRequest(BASE_URI, BASE_URI.resolve(path), method,
+                null, new MapPropertiesDelegate());
+        request.header(HttpHeaders.ACCEPT, MediaType.WILDCARD);
+        if(body != null)
+        {
+            request.header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN);
+            request.setEntityStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        ByteArrayOutputStream entity = new ByteArrayOutputStream();
+        ContainerResponse response = handler.apply(request, entity).get();
+        if(response.getStatus() >= 400)
+        {
+            System.out.println(method + " " + path + " -> " + response.getStatus());
+        }
+        return response.getStatus();
+    }
+}
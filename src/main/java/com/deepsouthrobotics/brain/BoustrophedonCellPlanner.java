@@ -0,0 +1,477 @@
+package com.deepsouthrobotics.brain;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Boustrophedon Cell Planner
+|--------------------------------------------------------------------------
+|
+| Rather than running one sweep across the whole boundary and patching
+| the gaps (look-ahead perimeter tracing, obstacle detours, etc.) this
+| planner splits the mission boundary minus the obstacles into cells
+| that are monotone along the mowing heading -- i.e. every swath line
+| crosses a cell in exactly one piece. Each cell can then be mowed
+| back and forth (boustrophedon -- "as the ox plows") without any
+| detours at all, the cells get planned independently on the
+| PlannerPool, and we stitch them together at the end in whatever
+| order the TransitOrderer says keeps the driving between them short.
+|
+| The decomposition works in the SweepFrame: every vertex of the boundary
+| and the obstacles is an "event" across value. Between 2 neighboring
+| events the number of free intervals on a swath line can't change, so
+| we call that a slab. Interval j of a slab gets merged into the cell
+| of interval k of the slab below when they connect 1:1 -- anything
+| else (a split or a merge around an obstacle) starts a new cell.
+*/
+public class BoustrophedonCellPlanner
+{
+	//Slabs thinner than this are just numeric noise from vertices that
+	//happen to sit at (nearly) the same across value
+	private static final double MIN_SLAB_WIDTH = 1e-9;
+
+	private final SweepFrame frame;
+	private final SweepPolygon boundary;
+	private final List<SweepPolygon> obstacles;
+	private final double swathWidth;
+	private final double minLineLength;
+	private final long transitOrderingMaxMoves;
+	private final long transitOrderingBudgetMillis;
+
+	/**
+	 * @param transitOrderingMaxMoves How many moves the TransitOrderer gets to
+	 * try when it works on the order of the cells
+	 * @param transitOrderingBudgetMillis Safety net in case those moves take
+	 * far longer than they should
+	 */
+	public BoustrophedonCellPlanner(SweepFrame frame,
+									SweepPolygon boundary,
+									List<SweepPolygon> obstacles,
+									double swathWidth,
+									double minLineLength,
+									long transitOrderingMaxMoves,
+									long transitOrderingBudgetMillis)
+	{
+		this.frame = frame;
+		this.boundary = boundary;
+		this.obstacles = obstacles;
+		this.swathWidth = swathWidth;
+		this.minLineLength = minLineLength;
+		this.transitOrderingMaxMoves = transitOrderingMaxMoves;
+		this.transitOrderingBudgetMillis = transitOrderingBudgetMillis;
+	}
+
+	/**
+	 * @param start Mission start in (x,y) -- the swath grid is anchored so that
+	 * a swath runs through this point, and the cell order starts here
+	 * @return The (x,y) points for each cell in the order they should
+	 * be mowed. Connecting one cell to the next is left to the
+	 * caller since that needs the perimeter tracing logic
+	 * that lives in MissionBrain.
+	 */
+	public List<List<Point2D.Double>> plan(Point2D.Double start)
+	{
+		double originAcross = frame.across(start.x, start.y);
+
+		List<Slab> slabs = buildSlabs();
+		List<Cell> cells = mergeSlabsIntoCells(slabs);
+		List<List<double[]>> swathsPerCell = planCellsInParallel(cells, originAcross);
+
+		return orderAndBuildCellPaths(swathsPerCell, frame.along(start.x, start.y), originAcross);
+	}
+
+	private List<Slab> buildSlabs()
+	{
+		double[] events = eventAcrossValues();
+		List<Slab> slabs = new ArrayList<>();
+
+		for(int i = 0; i < events.length - 1; i++)
+		{
+			double low = events[i];
+			double high = events[i + 1];
+			double[] intervals = SwathIntervals.free(boundary, obstacles, (low + high) / 2);
+			if(intervals.length > 0)
+			{
+				slabs.add(new Slab(low, high, intervals));
+			}
+		}
+		return slabs;
+	}
+
+	/**
+	 * @return Sorted, de-duplicated across values of every vertex that falls
+	 * within the mission boundary's across range
+	 */
+	private double[] eventAcrossValues()
+	{
+		int total = boundary.size();
+		for(SweepPolygon obstacle : obstacles)
+		{
+			total += obstacle.size();
+		}
+
+		double[] values = new double[total];
+		int count = 0;
+		for(double v : boundary.across)
+		{
+			values[count++] = v;
+		}
+		for(SweepPolygon obstacle : obstacles)
+		{
+			for(double v : obstacle.across)
+			{
+				if(v > boundary.minAcross && v < boundary.maxAcross)
+				{
+					values[count++] = v;
+				}
+			}
+		}
+
+		Arrays.sort(values, 0, count);
+		double[] unique = new double[count];
+		int uniqueCount = 0;
+		for(int i = 0; i < count; i++)
+		{
+			if(uniqueCount == 0 || values[i] - unique[uniqueCount - 1] > MIN_SLAB_WIDTH)
+			{
+				unique[uniqueCount++] = values[i];
+			}
+		}
+		return Arrays.copyOf(unique, uniqueCount);
+	}
+
+	private List<Cell> mergeSlabsIntoCells(List<Slab> slabs)
+	{
+		List<Cell> cells = new ArrayList<>();
+		Cell[] previousCells = new Cell[0];
+
+		for(int s = 0; s < slabs.size(); s++)
+		{
+			Slab slab = slabs.get(s);
+			Cell[] currentCells = new Cell[slab.count()];
+
+			int[] predecessors = null;
+			if(s > 0 && Math.abs(slabs.get(s - 1).high - slab.low) <= MIN_SLAB_WIDTH)
+			{
+				predecessors = oneToOneLinks(slabs.get(s - 1), slab);
+			}
+
+			for(int j = 0; j < slab.count(); j++)
+			{
+				if(predecessors != null && predecessors[j] >= 0)
+				{
+					currentCells[j] = previousCells[predecessors[j]];
+				}
+				else
+				{
+					currentCells[j] = new Cell();
+					cells.add(currentCells[j]);
+				}
+				currentCells[j].add(slab, j);
+			}
+			previousCells = currentCells;
+		}
+		return cells;
+	}
+
+	/**
+	 * Look at the free intervals a hair below and a hair above the event that
+	 * separates the 2 slabs and figure out which intervals continue
+	 * straight through it.
+	 *
+	 * @return For each interval of the upper slab, the index of the interval in
+	 * the lower slab that it continues 1:1 -- or -1 if it's the start of
+	 * a new cell
+	 */
+	private int[] oneToOneLinks(Slab lower, Slab upper)
+	{
+		int[] links = new int[upper.count()];
+		Arrays.fill(links, -1);
+
+		double event = upper.low;
+		double delta = Math.min(1e-6, Math.min(lower.high - lower.low, upper.high - upper.low) / 4);
+		double[] below = SwathIntervals.free(boundary, obstacles, event - delta);
+		double[] above = SwathIntervals.free(boundary, obstacles, event + delta);
+
+		//If the counts don't match the slabs' counts then something funky is
+		//going on numerically -- safest thing is to not merge anything
+		if(below.length != lower.intervals.length || above.length != upper.intervals.length)
+		{
+			return links;
+		}
+
+		int[] aboveOverlapCount = new int[upper.count()];
+		int[] aboveOverlapIndex = new int[upper.count()];
+		int[] belowOverlapCount = new int[lower.count()];
+
+		for(int k = 0; k < lower.count(); k++)
+		{
+			for(int j = 0; j < upper.count(); j++)
+			{
+				if(below[2 * k] < above[2 * j + 1] && above[2 * j] < below[2 * k + 1])
+				{
+					belowOverlapCount[k]++;
+					aboveOverlapCount[j]++;
+					aboveOverlapIndex[j] = k;
+				}
+			}
+		}
+
+		for(int j = 0; j < upper.count(); j++)
+		{
+			if(aboveOverlapCount[j] == 1 && belowOverlapCount[aboveOverlapIndex[j]] == 1)
+			{
+				links[j] = aboveOverlapIndex[j];
+			}
+		}
+		return links;
+	}
+
+	private List<List<double[]>> planCellsInParallel(List<Cell> cells, double originAcross)
+	{
+		List<ForkJoinTask<List<double[]>>> tasks = new ArrayList<>();
+		for(Cell cell : cells)
+		{
+			tasks.add(PlannerPool.get().submit(new CellSwathTask(cell, originAcross)));
+		}
+
+		//Joining in submission order keeps the result independent of
+		//which worker happened to finish first
+		List<List<double[]>> swathsPerCell = new ArrayList<>();
+		for(ForkJoinTask<List<double[]>> task : tasks)
+		{
+			swathsPerCell.add(task.join());
+		}
+		return swathsPerCell;
+	}
+
+	/**
+	 * Decide which order to mow the cells in (and which corner to enter each
+	 * one from) with the TransitOrderer, then build the cells' paths.
+	 */
+	private List<List<Point2D.Double>> orderAndBuildCellPaths(List<List<double[]>> swathsPerCell,
+															   double startAlong, double startAcross)
+	{
+		//Every cell can be mowed 4 ways (bottom-up or top-down, starting from
+		//either end of the first swath) and each of those can be driven
+		//backwards -- which is the pairing TransitOrderer expects
+		List<List<List<Point2D.Double>>> cellOptions = new ArrayList<>();
+		for(List<double[]> swaths : swathsPerCell)
+		{
+			if(swaths.isEmpty())
+			{
+				continue;
+			}
+			List<List<Point2D.Double>> paths = new ArrayList<>();
+			for(int variant = 0; variant < 4; variant++)
+			{
+				List<Point2D.Double> path = zigzag(swaths, (variant & 1) != 0, (variant & 2) != 0);
+				List<Point2D.Double> backwards = new ArrayList<>(path);
+				Collections.reverse(backwards);
+				paths.add(path);
+				paths.add(backwards);
+			}
+			cellOptions.add(paths);
+		}
+
+		double[][] options = new double[cellOptions.size()][];
+		for(int c = 0; c < cellOptions.size(); c++)
+		{
+			List<List<Point2D.Double>> paths = cellOptions.get(c);
+			options[c] = new double[paths.size() * 4];
+			for(int o = 0; o < paths.size(); o++)
+			{
+				List<Point2D.Double> path = paths.get(o);
+				options[c][4 * o] = path.get(0).x;
+				options[c][4 * o + 1] = path.get(0).y;
+				options[c][4 * o + 2] = path.get(path.size() - 1).x;
+				options[c][4 * o + 3] = path.get(path.size() - 1).y;
+			}
+		}
+
+		int[][] order = new TransitOrderer(frame.x(startAlong, startAcross), frame.y(startAlong, startAcross),
+				options, transitOrderingMaxMoves, transitOrderingBudgetMillis).order();
+
+		List<List<Point2D.Double>> cellPaths = new ArrayList<>();
+		for(int[] nodeAndOption : order)
+		{
+			cellPaths.add(cellOptions.get(nodeAndOption[0]).get(nodeAndOption[1]));
+		}
+		return cellPaths;
+	}
+
+	/**
+	 * Mow the cell's swaths back and forth. Like adjustTurnInitiationPoint..
+	 * in MissionBrain, the turn point on each swath gets pulled back so
+	 * that the robot turns onto the next swath inside the boundary.
+	 */
+	private List<Point2D.Double> zigzag(List<double[]> swaths, boolean reverse, boolean startAtEnd)
+	{
+		List<double[]> ordered = new ArrayList<>(swaths);
+		if(reverse)
+		{
+			Collections.reverse(ordered);
+		}
+
+		List<Point2D.Double> path = new ArrayList<>();
+		boolean forward = !startAtEnd;
+		double entry = forward ? ordered.get(0)[0] : ordered.get(0)[1];
+
+		for(int i = 0; i < ordered.size(); i++)
+		{
+			double[] swath = ordered.get(i);
+			double exit = forward ? swath[1] : swath[0];
+			double nextEntry = 0;
+
+			if(i < ordered.size() - 1)
+			{
+				double[] next = ordered.get(i + 1);
+				double pulledBack = forward ? Math.min(swath[1], next[1]) : Math.max(swath[0], next[0]);
+
+				//Only pull back if the swaths actually overlap there -- otherwise
+				//we just cut across from one end to the next
+				if(pulledBack >= Math.max(swath[0], next[0]) && pulledBack <= Math.min(swath[1], next[1]))
+				{
+					exit = pulledBack;
+					nextEntry = pulledBack;
+				}
+				else
+				{
+					nextEntry = forward ? next[1] : next[0];
+				}
+			}
+
+			path.add(point(entry, swath[2]));
+			path.add(point(exit, swath[2]));
+
+			entry = nextEntry;
+			forward = !forward;
+		}
+		return path;
+	}
+
+	private Point2D.Double point(double along, double across)
+	{
+		return new Point2D.Double(frame.x(along, across), frame.y(along, across));
+	}
+
+	/**
+	 * A slab is the strip between 2 neighboring event across values
+	 */
+	private static class Slab
+	{
+		final double low;
+		final double high;
+		final double[] intervals;
+
+		Slab(double low, double high, double[] intervals)
+		{
+			this.low = low;
+			this.high = high;
+			this.intervals = intervals;
+		}
+
+		int count()
+		{
+			return intervals.length / 2;
+		}
+	}
+
+	/**
+	 * A cell is a stack of slab intervals that connect 1:1
+	 */
+	private static class Cell
+	{
+		final List<Slab> slabs = new ArrayList<>();
+		final List<Integer> intervalIndexes = new ArrayList<>();
+
+		void add(Slab slab, int intervalIndex)
+		{
+			slabs.add(slab);
+			intervalIndexes.add(intervalIndex);
+		}
+	}
+
+	/**
+	 * Computes every swath inside one cell -- returned as {startAlong, endAlong, across}
+	 * triples sorted by across value (only ever run on the pool, never serialized)
+	 */
+	@SuppressWarnings("serial")
+	private class CellSwathTask extends RecursiveTask<List<double[]>>
+	{
+		private final Cell cell;
+		private final double originAcross;
+
+		CellSwathTask(Cell cell, double originAcross)
+		{
+			this.cell = cell;
+			this.originAcross = originAcross;
+		}
+
+		@Override
+		protected List<double[]> compute()
+		{
+			List<double[]> swaths = new ArrayList<>();
+
+			for(int p = 0; p < cell.slabs.size(); p++)
+			{
+				Slab slab = cell.slabs.get(p);
+				int index = cell.intervalIndexes.get(p);
+
+				long k = (long)Math.ceil((slab.low - originAcross) / swathWidth);
+				for(double across = originAcross + k * swathWidth; across < slab.high; across = originAcross + (++k) * swathWidth)
+				{
+					if(across < slab.low)
+					{
+						continue;
+					}
+
+					double[] intervals = SwathIntervals.free(boundary, obstacles, across);
+					int pick = intervals.length == slab.intervals.length ? index : closestInterval(intervals, slab, index);
+					if(pick < 0)
+					{
+						continue;
+					}
+
+					double start = intervals[2 * pick];
+					double end = intervals[2 * pick + 1];
+					if(end - start >= minLineLength)
+					{
+						swaths.add(new double[] {start, end, across});
+					}
+				}
+			}
+			return swaths;
+		}
+
+		/**
+		 * Fallback for the (numerically unlucky) case where the swath line doesn't
+		 * see the same number of intervals as the slab's midpoint did
+		 */
+		private int closestInterval(double[] intervals, Slab slab, int index)
+		{
+			double referenceStart = slab.intervals[2 * index];
+			double referenceEnd = slab.intervals[2 * index + 1];
+			int best = -1;
+			double bestOverlap = 0;
+			for(int i = 0; i < intervals.length / 2; i++)
+			{
+				double overlap = Math.min(intervals[2 * i + 1], referenceEnd) - Math.max(intervals[2 * i], referenceStart);
+				if(overlap > bestOverlap)
+				{
+					bestOverlap = overlap;
+					best = i;
+				}
+			}
+			return best;
+		}
+	}
+}
@@ -0,0 +1,603 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Coverage Verifier
+|--------------------------------------------------------------------------
+|
+| How much of a field does a mission actually mow? We lay a grid over the
+| field and, one row of cells at a time, fill in three bitsets: the cells
+| inside the boundary but not inside an obstacle, the cells the mower
+| deck passes over (every leg of the mission swept out to the swath
+| width), and the cells the deck passes over more than once. Counting
+| bits gives us the covered, missed and overlap percentages.
+|
+| A cell only counts as overlap when two different passes go over it --
+| the deck sweeping around a corner or along a curvy obstacle perimeter
+| goes over the same cells from neighboring legs, but that's one pass,
+| so legs that are less than a swath width apart along the mission
+| don't count against each other.
+|
+| Rows only depend on the geometry, so bands of rows get counted in
+| parallel on the PlannerPool and the counts added up at the end. Only
+| a row's worth of bits is ever held per worker, so a fine grid over a
+| big field costs time but not memory.
+*/
+public class CoverageVerifier
+{
+	//Rows of cells per task -- below this a worker just does the work
+	//itself rather than splitting it any further
+	private static final int ROWS_PER_TASK = 64;
+
+	private final PreparedField field;
+
+	//Boundary and obstacle edges as {x, y, x, y, ...} (the last vertex
+	//is joined back up to the first)
+	private final double[] boundaryEdges;
+	private final double[][] obstacleEdges;
+
+	public CoverageVerifier(PreparedField field)
+	{
+		this.field = field;
+		this.boundaryEdges = edges(field.boundary());
+		DoubleBuffer[] obstacles = field.obstacles();
+		this.obstacleEdges = new double[obstacles.length][];
+		for(int i = 0; i < obstacles.length; i++)
+		{
+			obstacleEdges[i] = edges(obstacles[i]);
+		}
+	}
+
+	/**
+	 * Verify at the configured resolution (see Config.coverageResolutionMeters)
+	 */
+	public Report verify(List<GPSPosition> waypoints, double mowingPathWidthInMeters)
+	{
+		return verify(waypoints, mowingPathWidthInMeters, Config.coverageResolutionMeters);
+	}
+
+	/**
+	 * @param waypoints Mission as it's handed back to the client (only lat/lng are
+	 * used -- they're projected into the field's (x,y) space here -- and
+	 * they're left as they are)
+	 * @param mowingPathWidthInMeters Width of the mower deck
+	 * @param resolutionMeters Size of a grid cell -- gets bumped up if the grid
+	 * would have more than Config.coverageMaxCells cells
+	 */
+	public Report verify(List<GPSPosition> waypoints, double mowingPathWidthInMeters, double resolutionMeters)
+	{
+		if(!(mowingPathWidthInMeters > 0) || !(resolutionMeters > 0))
+		{
+			throw new IllegalArgumentException("Swath width and resolution have to be positive");
+		}
+
+		//Project the mission into the same (x,y) space as the field (the planner
+		//leaves its own x,y values shifted about, so we can't trust them)
+		MissionBrain brain = new MissionBrain();
+		GPSPosition origin = field.projectionOrigin();
+		double[] pathX = new double[waypoints.size()];
+		double[] pathY = new double[waypoints.size()];
+		double[] pathDistance = new double[waypoints.size()];
+		for(int i = 0; i < waypoints.size(); i++)
+		{
+			GPSPosition projected = new GPSPosition(waypoints.get(i).latitude, waypoints.get(i).longitude);
+			brain.setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(origin, projected);
+			pathX[i] = projected.x;
+			pathY[i] = projected.y;
+			if(i > 0)
+			{
+				pathDistance[i] = pathDistance[i - 1] + Math.hypot(pathX[i] - pathX[i - 1], pathY[i] - pathY[i - 1]);
+			}
+		}
+
+		//Leave half a swath of room around the boundary so anything mowed
+		//just outside of it gets counted too
+		double halfWidth = mowingPathWidthInMeters / 2;
+		double minX = field.minX - halfWidth;
+		double minY = field.minY - halfWidth;
+		double spanX = field.maxX - field.minX + mowingPathWidthInMeters;
+		double spanY = field.maxY - field.minY + mowingPathWidthInMeters;
+		double resolution = Math.max(resolutionMeters, Math.sqrt(spanX * spanY / Config.coverageMaxCells));
+		int rows = (int)Math.ceil(spanX / resolution);
+		int columns = (int)Math.ceil(spanY / resolution);
+
+		Grid grid = new Grid(minX, minY, resolution, columns, halfWidth, pathX, pathY, pathDistance);
+		long[] counts = PlannerPool.get().invoke(new RowTask(grid, 0, rows));
+		return new Report(resolution, counts[0], counts[1], counts[2], counts[3]);
+	}
+
+	/**
+	 * What verify(..) found, in cells of resolutionMeters x resolutionMeters
+	 */
+	public static class Report
+	{
+		public final double resolutionMeters;
+
+		//Inside the boundary and outside the obstacles
+		public final long fieldCells;
+
+		//Field cells the deck goes over at least once
+		public final long coveredCells;
+
+		//Field cells the deck goes over on more than one pass
+		public final long overlapCells;
+
+		//Cells outside the field (past the boundary or inside an obstacle)
+		//that the deck goes over
+		public final long spillCells;
+
+		Report(double resolutionMeters, long fieldCells, long coveredCells, long overlapCells, long spillCells)
+		{
+			this.resolutionMeters = resolutionMeters;
+			this.fieldCells = fieldCells;
+			this.coveredCells = coveredCells;
+			this.overlapCells = overlapCells;
+			this.spillCells = spillCells;
+		}
+
+		public double fieldSquareMeters()
+		{
+			return fieldCells * resolutionMeters * resolutionMeters;
+		}
+
+		public double coveredPercent()
+		{
+			return percentOfField(coveredCells);
+		}
+
+		public double missedPercent()
+		{
+			return percentOfField(fieldCells - coveredCells);
+		}
+
+		public double overlapPercent()
+		{
+			return percentOfField(overlapCells);
+		}
+
+		/**
+		 * @return Area mowed outside the field as a percent of the field's area
+		 */
+		public double spillPercent()
+		{
+			return percentOfField(spillCells);
+		}
+
+		private double percentOfField(long cells)
+		{
+			return fieldCells == 0 ? 0 : 100.0 * cells / fieldCells;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("covered %.2f%%, missed %.2f%%, overlap %.2f%%, spill %.2f%% of %.1f m^2 at %.3f m",
+					coveredPercent(), missedPercent(), overlapPercent(), spillPercent(),
+					fieldSquareMeters(), resolutionMeters);
+		}
+	}
+
+	/**
+	 * Everything a row needs to know, shared (read only) by every worker
+	 */
+	private class Grid
+	{
+		final double minX;
+		final double minY;
+		final double resolution;
+		final int columns;
+		final double halfWidth;
+		final double[] pathX;
+		final double[] pathY;
+
+		//How far along the mission each waypoint is
+		final double[] pathDistance;
+
+		Grid(double minX, double minY, double resolution, int columns, double halfWidth,
+			 double[] pathX, double[] pathY, double[] pathDistance)
+		{
+			this.minX = minX;
+			this.minY = minY;
+			this.resolution = resolution;
+			this.columns = columns;
+			this.halfWidth = halfWidth;
+			this.pathX = pathX;
+			this.pathY = pathY;
+			this.pathDistance = pathDistance;
+		}
+
+		/**
+		 * @return First column whose center is at or past y
+		 */
+		int column(double y)
+		{
+			double column = Math.ceil((y - minY) / resolution - 0.5);
+			return (int)Math.max(0, Math.min(columns, column));
+		}
+	}
+
+	/**
+	 * Counts {field, covered, overlap, spill} cells over a band of rows (only
+	 * ever run on the pool, never serialized)
+	 */
+	@SuppressWarnings("serial")
+	private class RowTask extends RecursiveTask<long[]>
+	{
+		private final Grid grid;
+		private final int from;
+		private final int to;
+
+		RowTask(Grid grid, int from, int to)
+		{
+			this.grid = grid;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected long[] compute()
+		{
+			if(to - from > ROWS_PER_TASK)
+			{
+				int middle = (from + to) >>> 1;
+				RowTask upper = new RowTask(grid, middle, to);
+				upper.fork();
+				long[] counts = new RowTask(grid, from, middle).compute();
+				long[] upperCounts = upper.join();
+				for(int i = 0; i < counts.length; i++)
+				{
+					counts[i] += upperCounts[i];
+				}
+				return counts;
+			}
+
+			return new RowCounter(grid, legsNear(from, to)).count(from, to);
+		}
+
+		/**
+		 * @return Indexes of the mission legs (leg i runs from waypoint i to
+		 * i + 1) whose swept corridor reaches into this band, in mission order
+		 */
+		private int[] legsNear(int from, int to)
+		{
+			double bandMinX = grid.minX + from * grid.resolution - grid.halfWidth;
+			double bandMaxX = grid.minX + to * grid.resolution + grid.halfWidth;
+			int[] legs = new int[Math.max(grid.pathX.length - 1, 0)];
+			int count = 0;
+			for(int i = 0; i < legs.length; i++)
+			{
+				double x1 = grid.pathX[i];
+				double x2 = grid.pathX[i + 1];
+				if(Math.max(x1, x2) >= bandMinX && Math.min(x1, x2) <= bandMaxX)
+				{
+					legs[count++] = i;
+				}
+			}
+			return Arrays.copyOf(legs, count);
+		}
+	}
+
+	/**
+	 * One worker's bitsets (reused from row to row)
+	 */
+	private class RowCounter
+	{
+		private final Grid grid;
+		private final int[] legs;
+
+		private final long[] fieldBits;
+		private final long[] obstacleBits;
+		private final long[] coveredBits;
+		private final long[] overlapBits;
+
+		//Polygon crossings along the current row
+		private double[] crossings = new double[16];
+
+		//Legs that have gone over this row but are still close enough (along
+		//the mission) to the leg we're on to be part of the same pass --
+		//they're only added to coveredBits once we've moved far
+		//enough on that they'd count as a different pass
+		private int[] recentLegs = new int[16];
+		private int[] recentFrom = new int[16];
+		private int[] recentTo = new int[16];
+
+		private final double[] interval = new double[2];
+
+		RowCounter(Grid grid, int[] legs)
+		{
+			this.grid = grid;
+			this.legs = legs;
+			int words = (grid.columns + 63) >>> 6;
+			this.fieldBits = new long[words];
+			this.obstacleBits = new long[words];
+			this.coveredBits = new long[words];
+			this.overlapBits = new long[words];
+		}
+
+		long[] count(int from, int to)
+		{
+			long[] counts = new long[4];
+			for(int row = from; row < to; row++)
+			{
+				double x = grid.minX + (row + 0.5) * grid.resolution;
+				fillField(x);
+				fillCorridor(x);
+				for(int w = 0; w < fieldBits.length; w++)
+				{
+					counts[0] += Long.bitCount(fieldBits[w]);
+					counts[1] += Long.bitCount(fieldBits[w] & coveredBits[w]);
+					counts[2] += Long.bitCount(fieldBits[w] & overlapBits[w]);
+					counts[3] += Long.bitCount(~fieldBits[w] & coveredBits[w]);
+				}
+			}
+			return counts;
+		}
+
+		/**
+		 * fieldBits = inside the boundary and not inside any obstacle
+		 */
+		private void fillField(double x)
+		{
+			Arrays.fill(fieldBits, 0L);
+			fillPolygon(boundaryEdges, x, fieldBits);
+			Arrays.fill(obstacleBits, 0L);
+			for(double[] obstacle : obstacleEdges)
+			{
+				fillPolygon(obstacle, x, obstacleBits);
+			}
+			for(int w = 0; w < fieldBits.length; w++)
+			{
+				fieldBits[w] &= ~obstacleBits[w];
+			}
+		}
+
+		/**
+		 * Set the bits of every cell on this row whose center is inside the
+		 * polygon (even-odd, same as Path2D for the simple polygons we get)
+		 */
+		private void fillPolygon(double[] edges, double x, long[] bits)
+		{
+			int count = 0;
+			int n = edges.length;
+			for(int i = 0; i < n; i += 2)
+			{
+				double x1 = edges[i];
+				double y1 = edges[i + 1];
+				double x2 = edges[(i + 2) % n];
+				double y2 = edges[(i + 3) % n];
+				if((x1 <= x) != (x2 <= x))
+				{
+					if(count == crossings.length)
+					{
+						crossings = Arrays.copyOf(crossings, count * 2);
+					}
+					crossings[count++] = y1 + (x - x1) * (y2 - y1) / (x2 - x1);
+				}
+			}
+			Arrays.sort(crossings, 0, count);
+			for(int i = 0; i + 1 < count; i += 2)
+			{
+				setRange(bits, grid.column(crossings[i]), grid.column(crossings[i + 1]));
+			}
+		}
+
+		/**
+		 * coveredBits = cells some leg goes over, overlapBits = cells two
+		 * different passes go over
+		 */
+		private void fillCorridor(double x)
+		{
+			Arrays.fill(coveredBits, 0L);
+			Arrays.fill(overlapBits, 0L);
+			int recent = 0;
+			for(int leg : legs)
+			{
+				if(!corridorInterval(leg, x))
+				{
+					continue;
+				}
+				int from = grid.column(interval[0]);
+				int to = grid.column(interval[1]);
+				if(from >= to)
+				{
+					continue;
+				}
+
+				//Legs far enough back along the mission are a different pass now
+				int done = 0;
+				while(done < recent && grid.pathDistance[leg] - grid.pathDistance[recentLegs[done] + 1] >= 2 * grid.halfWidth)
+				{
+					setRange(coveredBits, recentFrom[done], recentTo[done]);
+					done++;
+				}
+				if(done > 0)
+				{
+					recent -= done;
+					System.arraycopy(recentLegs, done, recentLegs, 0, recent);
+					System.arraycopy(recentFrom, done, recentFrom, 0, recent);
+					System.arraycopy(recentTo, done, recentTo, 0, recent);
+				}
+
+				andRange(overlapBits, coveredBits, from, to);
+
+				if(recent == recentLegs.length)
+				{
+					recentLegs = Arrays.copyOf(recentLegs, recent * 2);
+					recentFrom = Arrays.copyOf(recentFrom, recent * 2);
+					recentTo = Arrays.copyOf(recentTo, recent * 2);
+				}
+				recentLegs[recent] = leg;
+				recentFrom[recent] = from;
+				recentTo[recent] = to;
+				recent++;
+			}
+			for(int i = 0; i < recent; i++)
+			{
+				setRange(coveredBits, recentFrom[i], recentTo[i]);
+			}
+		}
+
+		/**
+		 * The deck sweeps out a capsule along each leg (a rectangle the width of
+		 * the swath with half circles on the ends). Being convex, the row
+		 * crosses it in one interval, which we put in interval[]
+		 *
+		 * @return False if the row misses the capsule
+		 */
+		private boolean corridorInterval(int leg, double x)
+		{
+			double h = grid.halfWidth;
+			double ax = grid.pathX[leg];
+			double ay = grid.pathY[leg];
+			double bx = grid.pathX[leg + 1];
+			double by = grid.pathY[leg + 1];
+
+			double low = Double.MAX_VALUE;
+			double high = -Double.MAX_VALUE;
+
+			//The two end circles
+			double ua = x - ax;
+			if(Math.abs(ua) < h)
+			{
+				double dy = Math.sqrt(h * h - ua * ua);
+				low = Math.min(low, ay - dy);
+				high = Math.max(high, ay + dy);
+			}
+			double ub = x - bx;
+			if(Math.abs(ub) < h)
+			{
+				double dy = Math.sqrt(h * h - ub * ub);
+				low = Math.min(low, by - dy);
+				high = Math.max(high, by + dy);
+			}
+
+			//The rectangle -- with v = y - ay, the point is along the leg when
+			//0 <= ua*dx + v*dy <= length^2 and beside it when
+			//-h*length <= ua*dy - v*dx <= h*length
+			double dx = bx - ax;
+			double dy = by - ay;
+			double lengthSquared = dx * dx + dy * dy;
+			if(lengthSquared > 0)
+			{
+				double reach = h * Math.sqrt(lengthSquared);
+				double vLow = -Double.MAX_VALUE;
+				double vHigh = Double.MAX_VALUE;
+				boolean inside = true;
+
+				//Along the leg
+				double k = ua * dx;
+				if(dy != 0)
+				{
+					double v1 = (0 - k) / dy;
+					double v2 = (lengthSquared - k) / dy;
+					vLow = Math.max(vLow, Math.min(v1, v2));
+					vHigh = Math.min(vHigh, Math.max(v1, v2));
+				}
+				else
+				{
+					inside = k >= 0 && k <= lengthSquared;
+				}
+
+				//Beside it
+				k = ua * dy;
+				if(dx != 0)
+				{
+					double v1 = (k + reach) / dx;
+					double v2 = (k - reach) / dx;
+					vLow = Math.max(vLow, Math.min(v1, v2));
+					vHigh = Math.min(vHigh, Math.max(v1, v2));
+				}
+				else
+				{
+					inside = inside && Math.abs(k) <= reach;
+				}
+
+				if(inside && vLow < vHigh)
+				{
+					low = Math.min(low, ay + vLow);
+					high = Math.max(high, ay + vHigh);
+				}
+			}
+
+			if(low >= high)
+			{
+				return false;
+			}
+			interval[0] = low;
+			interval[1] = high;
+			return true;
+		}
+	}
+
+	/**
+	 * Set bits [from, to)
+	 */
+	private static void setRange(long[] bits, int from, int to)
+	{
+		if(from >= to)
+		{
+			return;
+		}
+		int first = from >>> 6;
+		int last = (to - 1) >>> 6;
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> -to;
+		if(first == last)
+		{
+			bits[first] |= firstMask & lastMask;
+			return;
+		}
+		bits[first] |= firstMask;
+		for(int w = first + 1; w < last; w++)
+		{
+			bits[w] = -1L;
+		}
+		bits[last] |= lastMask;
+	}
+
+	/**
+	 * into |= source & [from, to)
+	 */
+	private static void andRange(long[] into, long[] source, int from, int to)
+	{
+		int first = from >>> 6;
+		int last = (to - 1) >>> 6;
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> -to;
+		if(first == last)
+		{
+			into[first] |= source[first] & firstMask & lastMask;
+			return;
+		}
+		into[first] |= source[first] & firstMask;
+		for(int w = first + 1; w < last; w++)
+		{
+			into[w] |= source[w];
+		}
+		into[last] |= source[last] & lastMask;
+	}
+
+	/**
+	 * Just the (x,y) of each {latitude, longitude, x, y} vertex
+	 */
+	private static double[] edges(DoubleBuffer packed)
+	{
+		double[] edges = new double[packed.capacity() / 2];
+		for(int i = 0, j = 0; i < packed.capacity(); i += 4, j += 2)
+		{
+			edges[j] = packed.get(i + 2);
+			edges[j + 1] = packed.get(i + 3);
+		}
+		return edges;
+	}
+}
@@ -0,0 +1,171 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Field Registry
+|--------------------------------------------------------------------------
+|
+| Fields that clients have stored with us (PUT /fields/{id}) so mission
+| requests can send a field id instead of the whole boundary and every
+| obstacle. Each id maps to an immutable RegisteredField snapshot and
+| an update swaps the whole snapshot in one go (copy-on-write), so
+| plans that are already running keep a consistent view of the
+| field while new requests pick up the new version.
+|
+| Unlike the MissionCache no field ever gets dropped -- these are the
+| client's fields -- so once we're holding Config.maxRegisteredFields
+| (counting the ones on disk we haven't mapped in since the restart)
+| new ids get turned away 'till some are deleted.
+|
+| With a Config.fieldStoreDirectory every field is also written to disk
+| (see FieldStore) and mapped back in, and fields we haven't seen since
+| the last restart get mapped in the first time somebody asks for them.
+| If the map ever fills up anyway (the cap got lowered, or files were
+| copied into the store) stored fields are unmapped to make room --
+| they're still on disk, so they just get mapped back in next time.
+| Writes go one at a time so the disk and the map always agree on
+| which version of a field is the latest; reads never wait.
+|
+| Ids end up in FieldStore file names, so anything that isn't a
+| FIELD_ID gets turned away here (the API checks first, so clients see
+| a 400 rather than this IllegalArgumentException).
+*/
+public class FieldRegistry
+{
+	public static final Pattern FIELD_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+	private static final ConcurrentMap<String, RegisteredField> FIELDS = new ConcurrentHashMap<>();
+
+	//How many fields we're holding all told, mapped in or not -- counted off
+	//the store the first time we need it (guarded by the class, like writes)
+	private static int fieldCount = -1;
+
+	/**
+	 * Store (or replace) a field
+	 *
+	 * @return The new snapshot (version 1 for a new field, one more than the
+	 * previous version otherwise), or null if the field is new and
+	 * the registry is full
+	 */
+	public static synchronized RegisteredField put(String id, List<GPSPosition> missionBoundary, List<List<GPSPosition>> polyObstacles)
+	{
+		checkId(id);
+		RegisteredField previous = get(id);
+		if(previous == null && fieldCount() >= Config.maxRegisteredFields)
+		{
+			return null;
+		}
+
+		RegisteredField field = new RegisteredField(id, previous == null ? 1 : previous.version + 1, missionBoundary, polyObstacles);
+		field = FieldStore.saveField(field);
+		if(previous == null)
+		{
+			fieldCount++;
+			makeRoom();
+		}
+		FIELDS.put(id, field);
+		return field;
+	}
+
+	/**
+	 * @return The current snapshot of the field, or null if there's no such field
+	 */
+	public static RegisteredField get(String id)
+	{
+		checkId(id);
+		RegisteredField field = FIELDS.get(id);
+		if(field == null && FieldStore.ENABLED)
+		{
+			field = load(id);
+		}
+		return field;
+	}
+
+	/**
+	 * @return True if there was a field to remove
+	 */
+	public static synchronized boolean remove(String id)
+	{
+		checkId(id);
+		boolean removed = get(id) != null;
+		FIELDS.remove(id);
+		FieldStore.delete(id);
+		if(removed)
+		{
+			fieldCount = fieldCount() - 1;
+		}
+		return removed;
+	}
+
+	/**
+	 * @return True if the id's letters, digits, '.', '_' or '-' (up to 64 of them)
+	 */
+	public static boolean isValidId(String id)
+	{
+		return id != null && FIELD_ID.matcher(id).matches();
+	}
+
+	private static void checkId(String id)
+	{
+		if(!isValidId(id))
+		{
+			throw new IllegalArgumentException("Not a field id: " + id);
+		}
+	}
+
+	/**
+	 * Map in a field that's on disk but that we haven't needed since the last
+	 * restart (under the write lock, so a delete can't sneak in between
+	 * reading the file and publishing it)
+	 */
+	private static synchronized RegisteredField load(String id)
+	{
+		RegisteredField field = FIELDS.get(id);
+		if(field == null)
+		{
+			field = FieldStore.loadField(id);
+			if(field != null)
+			{
+				makeRoom();
+				FIELDS.put(id, field);
+			}
+		}
+		return field;
+	}
+
+	private static synchronized int fieldCount()
+	{
+		if(fieldCount < 0)
+		{
+			fieldCount = FieldStore.countStored();
+		}
+		return fieldCount;
+	}
+
+	/**
+	 * Unmap stored fields 'till there's room for one more in the map. Fields
+	 * that only live on the heap (no store, or the write failed) stay put.
+	 */
+	private static synchronized void makeRoom()
+	{
+		Iterator<RegisteredField> mapped = FIELDS.values().iterator();
+		while(FIELDS.size() >= Config.maxRegisteredFields && mapped.hasNext())
+		{
+			if(mapped.next().stored)
+			{
+				mapped.remove();
+			}
+		}
+	}
+}
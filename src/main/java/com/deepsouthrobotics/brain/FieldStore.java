@@ -0,0 +1,542 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Field Store
+|--------------------------------------------------------------------------
+|
+| Keeps the FieldRegistry on disk (in Config.fieldStoreDirectory) so
+| registered fields -- and the prepared versions of them we've already
+| projected -- survive a redeploy. Each one is a little binary file of
+| doubles that we map straight into memory, so a field's geometry lives
+| in the page cache instead of on the heap and loading one is just a
+| matter of mapping its file.
+|
+|   <id>.field                               lat/lng of a registered field
+|   <id>@<version>@<start lat>_<start lng>.prepared   a prepared field
+|
+| ('@' can't show up in a field id, so <id>@ only ever matches that
+| field's prepared files.) Every file is written off to the side and
+| then moved into place, so anything that's mapped the old file keeps
+| reading the old file.
+|
+| A field can be replaced while a request is still preparing the old
+| version, so the old version's prepared files are cleared out *after*
+| the new field is in place, and a prepared file that turns out to be
+| for a version that's no longer stored deletes itself. Whichever of
+| the two runs second catches it.
+|
+| Prepared files are written and deleted on a writer thread of their
+| own, so the request that prepared the field doesn't wait on an fsync.
+| A field keeps a prepared file for each start point its RegisteredField
+| is holding on to (Config.preparedStartsPerField of them) -- the file
+| goes when the start point falls out of that cache.
+|
+| File layout (little-endian):
+|
+|   int magic, int format, long field version, int doubles per vertex,
+|   int boundary vertices, int obstacles, int header doubles,
+|   int vertices of each obstacle (padded out to 8 bytes),
+|   header doubles, boundary vertices, then each obstacle's vertices
+|
+| A prepared field's header doubles are the requested start (lat,lng),
+| the start {lat,lng,x,y} and the (x,y) bounds.
+|
+| When there's no Config.fieldStoreDirectory all of this is skipped and
+| fields only live on the heap.
+*/
+class FieldStore
+{
+	static final boolean ENABLED = Config.fieldStoreDirectory != null;
+
+	private static final int FIELD_MAGIC = 0x44535246; //DSRF
+	private static final int PREPARED_MAGIC = 0x44535250; //DSRP
+	private static final int FORMAT = 1;
+	private static final int FIXED_HEADER_BYTES = 32;
+	private static final int PREPARED_HEADER_DOUBLES = 10;
+
+	//One thread, so a prepared file's write and delete happen in the order they were asked for
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		@Override
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, "field-store-writer");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * @return The stored field mapped from disk, or null if there isn't one
+	 */
+	static RegisteredField loadField(String id)
+	{
+		Mapped file = map(fieldFile(id), FIELD_MAGIC, 2, 0);
+		if(file == null)
+		{
+			return null;
+		}
+		return new RegisteredField(id, file.version, file.boundary, file.obstacles);
+	}
+
+	/**
+	 * @return How many fields are stored (0 if the store's off)
+	 */
+	static int countStored()
+	{
+		if(!ENABLED)
+		{
+			return 0;
+		}
+
+		int count = 0;
+		try(DirectoryStream<Path> fieldFiles = Files.newDirectoryStream(directory(), "*.field"))
+		{
+			for(Path ignored : fieldFiles)
+			{
+				count++;
+			}
+		}
+		catch(IOException e)
+		{
+			System.out.println("Couldn't count stored fields: " + e);
+		}
+		return count;
+	}
+
+	/**
+	 * Write the field out (replacing any older version of it along with all of
+	 * the older version's prepared files)
+	 *
+	 * @return The field mapped back from disk, or the field we were given if
+	 * the store's off or the write failed
+	 */
+	static RegisteredField saveField(RegisteredField field)
+	{
+		if(!ENABLED)
+		{
+			return field;
+		}
+
+		Path path = fieldFile(field.id);
+		try
+		{
+			write(path, FIELD_MAGIC, field.version, 2, new double[0], field.boundary(), field.obstacles());
+		}
+		catch(IOException e)
+		{
+			System.out.println("Couldn't store field " + field.id + ": " + e);
+			return field;
+		}
+		deletePrepared(field.id, field.version);
+
+		RegisteredField mapped = loadField(field.id);
+		return mapped == null ? field : mapped;
+	}
+
+	/**
+	 * @return The stored version of the field prepared around the given start,
+	 * or null if we haven't got one
+	 */
+	static PreparedField loadPrepared(RegisteredField field, GPSPosition startGPSPositionUnchecked)
+	{
+		if(!ENABLED)
+		{
+			return null;
+		}
+
+		Mapped file = map(preparedFile(field, startGPSPositionUnchecked.latitude, startGPSPositionUnchecked.longitude),
+				PREPARED_MAGIC, 4, PREPARED_HEADER_DOUBLES);
+		if(file == null || file.version != field.version)
+		{
+			return null;
+		}
+
+		DoubleBuffer header = file.header;
+		return new PreparedField(file.boundary, file.obstacles,
+				new double[] {header.get(2), header.get(3), header.get(4), header.get(5)},
+				header.get(0), header.get(1),
+				header.get(6), header.get(7), header.get(8), header.get(9));
+	}
+
+	/**
+	 * Store the field prepared around its requested start point -- later, on
+	 * the writer thread (it's the same as the one we already have, so there's
+	 * nothing to hand back)
+	 */
+	static void savePrepared(final RegisteredField field, final PreparedField prepared)
+	{
+		if(!ENABLED)
+		{
+			return;
+		}
+
+		WRITER.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				writePrepared(field, prepared);
+			}
+		});
+	}
+
+	/**
+	 * Delete the stored copy of the field prepared around the given start
+	 * point -- later, on the writer thread (so after any write of it that's
+	 * still waiting)
+	 */
+	static void forgetPrepared(RegisteredField field, double startLatitude, double startLongitude)
+	{
+		if(!ENABLED)
+		{
+			return;
+		}
+
+		final Path path = preparedFile(field, startLatitude, startLongitude);
+		final String id = field.id;
+		WRITER.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					Files.deleteIfExists(path);
+				}
+				catch(IOException e)
+				{
+					System.out.println("Couldn't delete prepared field " + id + ": " + e);
+				}
+			}
+		});
+	}
+
+	private static void writePrepared(RegisteredField field, PreparedField prepared)
+	{
+		double[] start = prepared.start();
+		double[] header = {
+				prepared.requestedStartLatitude(), prepared.requestedStartLongitude(),
+				start[0], start[1], start[2], start[3],
+				prepared.minX, prepared.minY, prepared.maxX, prepared.maxY};
+		Path path = preparedFile(field, prepared.requestedStartLatitude(), prepared.requestedStartLongitude());
+		try
+		{
+			write(path, PREPARED_MAGIC, field.version, 4, header, prepared.boundary(), prepared.obstacles());
+
+			//The field got replaced (or deleted) while we were preparing it
+			if(storedVersion(field.id) != field.version)
+			{
+				Files.deleteIfExists(path);
+			}
+		}
+		catch(IOException e)
+		{
+			System.out.println("Couldn't store prepared field " + field.id + ": " + e);
+		}
+	}
+
+	/**
+	 * Forget the field and everything prepared from it
+	 */
+	static void delete(String id)
+	{
+		if(!ENABLED)
+		{
+			return;
+		}
+
+		try
+		{
+			Files.deleteIfExists(fieldFile(id));
+		}
+		catch(IOException e)
+		{
+			System.out.println("Couldn't delete stored field " + id + ": " + e);
+		}
+		deletePrepared(id, 0);
+	}
+
+	/**
+	 * Delete the field's prepared files for every version but the given one
+	 * (versions start at 1, so 0 deletes them all)
+	 */
+	private static void deletePrepared(String id, long keepVersion)
+	{
+		String kept = id + "@" + keepVersion + "@";
+		try(DirectoryStream<Path> preparedFiles = Files.newDirectoryStream(directory(), id + "@*.prepared"))
+		{
+			for(Path preparedFile : preparedFiles)
+			{
+				if(!preparedFile.getFileName().toString().startsWith(kept))
+				{
+					Files.deleteIfExists(preparedFile);
+				}
+			}
+		}
+		catch(IOException e)
+		{
+			System.out.println("Couldn't delete prepared versions of " + id + ": " + e);
+		}
+	}
+
+	/**
+	 * @return The version of the field that's on disk right now, or -1 if there
+	 * isn't one
+	 */
+	private static long storedVersion(String id) throws IOException
+	{
+		Path path = fieldFile(id);
+		if(!Files.isRegularFile(path))
+		{
+			return -1;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			while(header.hasRemaining())
+			{
+				if(channel.read(header) < 0)
+				{
+					return -1;
+				}
+			}
+		}
+		catch(NoSuchFileException e)
+		{
+			//Deleted since we looked
+			return -1;
+		}
+		return header.getInt(0) == FIELD_MAGIC ? header.getLong(8) : -1;
+	}
+
+	private static Path directory() throws IOException
+	{
+		Path directory = new File(Config.fieldStoreDirectory).toPath();
+		Files.createDirectories(directory);
+		return directory;
+	}
+
+	private static Path fieldFile(String id)
+	{
+		return inStore(id + ".field");
+	}
+
+	private static Path preparedFile(RegisteredField field, double startLatitude, double startLongitude)
+	{
+		return inStore(field.id + "@" + field.version + "@"
+				+ Long.toHexString(Double.doubleToLongBits(startLatitude)) + "_"
+				+ Long.toHexString(Double.doubleToLongBits(startLongitude)) + ".prepared");
+	}
+
+	/**
+	 * The FieldRegistry only lets FIELD_IDs through, but the file names are
+	 * built out of them, so make sure the one we've built really is right
+	 * in the store before we read, write or delete it
+	 */
+	private static Path inStore(String fileName)
+	{
+		Path directory = new File(Config.fieldStoreDirectory).toPath().toAbsolutePath().normalize();
+		Path path = directory.resolve(fileName).normalize();
+		if(!directory.equals(path.getParent()))
+		{
+			throw new IllegalArgumentException("Not a file in the field store: " + fileName);
+		}
+		return path;
+	}
+
+	private static void write(Path path, int magic, long version, int stride, double[] header,
+							  DoubleBuffer boundary, DoubleBuffer[] obstacles) throws IOException
+	{
+		int dataOffset = dataOffset(obstacles.length);
+		long doubles = header.length + boundary.capacity();
+		for(DoubleBuffer obstacle : obstacles)
+		{
+			doubles += obstacle.capacity();
+		}
+
+		ByteBuffer bytes = ByteBuffer.allocate((int)(dataOffset + 8 * doubles)).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.putInt(0, magic);
+		bytes.putInt(4, FORMAT);
+		bytes.putLong(8, version);
+		bytes.putInt(16, stride);
+		bytes.putInt(20, boundary.capacity() / stride);
+		bytes.putInt(24, obstacles.length);
+		bytes.putInt(28, header.length);
+		for(int i = 0; i < obstacles.length; i++)
+		{
+			bytes.putInt(FIXED_HEADER_BYTES + 4 * i, obstacles[i].capacity() / stride);
+		}
+
+		int offset = dataOffset;
+		for(double value : header)
+		{
+			bytes.putDouble(offset, value);
+			offset += 8;
+		}
+		offset = put(bytes, offset, boundary);
+		for(DoubleBuffer obstacle : obstacles)
+		{
+			offset = put(bytes, offset, obstacle);
+		}
+
+		//Write it next to where it's going and then move it into place so nobody
+		//ever maps a half written file
+		Path temporary = Files.createTempFile(directory(), path.getFileName().toString(), ".tmp");
+		try
+		{
+			try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE))
+			{
+				long written = 0;
+				while(written < bytes.capacity())
+				{
+					written += channel.write(bytes, written);
+				}
+				channel.force(true);
+			}
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private static int put(ByteBuffer bytes, int offset, DoubleBuffer values)
+	{
+		for(int i = 0; i < values.capacity(); i++)
+		{
+			bytes.putDouble(offset, values.get(i));
+			offset += 8;
+		}
+		return offset;
+	}
+
+	/**
+	 * Map a stored file and carve it up into DoubleBuffer views -- nothing gets
+	 * copied out of it
+	 *
+	 * @return Null if the file isn't there or isn't what we expected
+	 */
+	private static Mapped map(Path path, int magic, int stride, int headerDoubles)
+	{
+		if(!ENABLED || !Files.isRegularFile(path))
+		{
+			return null;
+		}
+
+		MappedByteBuffer bytes;
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		catch(IOException e)
+		{
+			System.out.println("Couldn't map " + path + ": " + e);
+			return null;
+		}
+		bytes.order(ByteOrder.LITTLE_ENDIAN);
+
+		if(bytes.capacity() < FIXED_HEADER_BYTES
+				|| bytes.getInt(0) != magic
+				|| bytes.getInt(4) != FORMAT
+				|| bytes.getInt(16) != stride
+				|| bytes.getInt(28) != headerDoubles)
+		{
+			System.out.println("Ignoring " + path + " -- it's not a stored field we understand");
+			return null;
+		}
+
+		int boundaryVertices = bytes.getInt(20);
+		int obstacleCount = bytes.getInt(24);
+		if(boundaryVertices < 0 || obstacleCount < 0 || obstacleCount > (bytes.capacity() - FIXED_HEADER_BYTES) / 4)
+		{
+			System.out.println("Ignoring " + path + " -- it's been cut short");
+			return null;
+		}
+
+		long doubles = headerDoubles + (long)boundaryVertices * stride;
+		int[] obstacleVertices = new int[obstacleCount];
+		for(int i = 0; i < obstacleCount; i++)
+		{
+			obstacleVertices[i] = bytes.getInt(FIXED_HEADER_BYTES + 4 * i);
+			if(obstacleVertices[i] < 0)
+			{
+				System.out.println("Ignoring " + path + " -- it's not a stored field we understand");
+				return null;
+			}
+			doubles += (long)obstacleVertices[i] * stride;
+		}
+		if(dataOffset(obstacleCount) + 8 * doubles != bytes.capacity())
+		{
+			System.out.println("Ignoring " + path + " -- it's been cut short");
+			return null;
+		}
+
+		DoubleBuffer all = bytes.asDoubleBuffer();
+		int index = dataOffset(obstacleCount) / 8;
+
+		Mapped mapped = new Mapped();
+		mapped.version = bytes.getLong(8);
+		mapped.header = slice(all, index, headerDoubles);
+		index += headerDoubles;
+		mapped.boundary = slice(all, index, boundaryVertices * stride);
+		index += boundaryVertices * stride;
+		mapped.obstacles = new DoubleBuffer[obstacleCount];
+		for(int i = 0; i < obstacleCount; i++)
+		{
+			mapped.obstacles[i] = slice(all, index, obstacleVertices[i] * stride);
+			index += obstacleVertices[i] * stride;
+		}
+		return mapped;
+	}
+
+	private static DoubleBuffer slice(DoubleBuffer all, int index, int length)
+	{
+		DoubleBuffer view = all.duplicate();
+		view.position(index);
+		view.limit(index + length);
+		return view.slice();
+	}
+
+	/**
+	 * @return Byte offset of the first double -- after the fixed header and the
+	 * obstacle vertex counts, rounded up so the doubles are 8 byte aligned
+	 */
+	private static int dataOffset(int obstacleCount)
+	{
+		return (FIXED_HEADER_BYTES + 4 * obstacleCount + 7) & ~7;
+	}
+
+	private static class Mapped
+	{
+		long version;
+		DoubleBuffer header;
+		DoubleBuffer boundary;
+		DoubleBuffer[] obstacles;
+	}
+}
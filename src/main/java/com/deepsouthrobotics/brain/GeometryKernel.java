@@ -0,0 +1,152 @@
+package com.deepsouthrobotics.brain;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Geometry Kernel
+|--------------------------------------------------------------------------
+|
+| The little vector helpers the planner leans on in its inner loops
+| (norms, perpendicular probes, distances) done on plain doubles.
+| Anything that hands back a vector writes it into a Point2D.Double
+| the caller passes in, so a loop can keep reusing the same one
+| instead of allocating a fresh point every time around.
+|
+| When threading a scratch vector through isn't practical, Scratch
+| holds a few reusable vectors and a reusable double[] per thread.
+| Whatever you get out of it is only good 'till the next time the
+| same thread asks for it -- copy anything you want to keep.
+*/
+public final class GeometryKernel
+{
+	private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>()
+	{
+		@Override
+		protected Scratch initialValue()
+		{
+			return new Scratch();
+		}
+	};
+
+	private GeometryKernel()
+	{
+	}
+
+	/**
+	 * @return This thread's scratch space
+	 */
+	public static Scratch scratch()
+	{
+		return SCRATCH.get();
+	}
+
+	/**
+	 * Vector of length distance pointing from start toward stop
+	 *
+	 * @return out
+	 */
+	public static Point2D.Double parallelNorm(double startX, double startY, double stopX, double stopY,
+											  double distance, Point2D.Double out)
+	{
+		double nX = stopX - startX;
+		double nY = stopY - startY;
+
+		double normLength = Math.sqrt((nX * nX) + (nY * nY));
+		nX /= normLength;
+		nY /= normLength;
+
+		out.x = distance * nX;
+		out.y = distance * nY;
+		return out;
+	}
+
+	/**
+	 * Vector of length distance that's perpendicular to the line from start to stop
+	 * (90 degrees counter-clockwise of stop-to-start)
+	 *
+	 * @return out
+	 */
+	public static Point2D.Double perpendicularNorm(double startX, double startY, double stopX, double stopY,
+												   double distance, Point2D.Double out)
+	{
+		double perpX = startX - stopX;
+		double perpY = startY - stopY;
+
+		double nX = -perpY;
+		double nY = perpX;
+
+		double normLength = Math.sqrt((nX * nX) + (nY * nY));
+		nX /= normLength;
+		nY /= normLength;
+
+		out.x = distance * nX;
+		out.y = distance * nY;
+		return out;
+	}
+
+	/**
+	 * The point distance meters off the middle of the line from start to stop,
+	 * in the direction of perpendicularNorm(..)
+	 *
+	 * @return out
+	 */
+	public static Point2D.Double pointPerpendicularToMiddleOfLine(double startX, double startY,
+																  double stopX, double stopY,
+																  double distance, Point2D.Double out)
+	{
+		double midpointX = (startX + stopX) / 2;
+		double midpointY = (startY + stopY) / 2;
+
+		perpendicularNorm(startX, startY, stopX, stopY, distance, out);
+		out.x += midpointX;
+		out.y += midpointY;
+		return out;
+	}
+
+	public static double distance(double x1, double y1, double x2, double y2)
+	{
+		double dx = x1 - x2;
+		double dy = y1 - y2;
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	/**
+	 * Reusable per-thread working storage
+	 */
+	public static final class Scratch
+	{
+		//General purpose vectors -- which one a method uses is up to it, just
+		//don't hand one to a method that's going to use it too
+		public final Point2D.Double norm = new Point2D.Double();
+		public final Point2D.Double step = new Point2D.Double();
+		public final Point2D.Double probe = new Point2D.Double();
+		public final Point2D.Double from = new Point2D.Double();
+		public final Point2D.Double to = new Point2D.Double();
+
+		//For building up short-lived paths (cleared by whoever uses it)
+		public final List<Point2D.Double> points = new ArrayList<>();
+
+		private double[] doubles = new double[64];
+
+		private Scratch()
+		{
+		}
+
+		/**
+		 * @return An array at least length long (its contents are garbage)
+		 */
+		public double[] doubles(int length)
+		{
+			if(doubles.length < length)
+			{
+				doubles = new double[Math.max(length, doubles.length * 2)];
+			}
+			return doubles;
+		}
+	}
+}
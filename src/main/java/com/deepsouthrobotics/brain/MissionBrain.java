@@ -4,12 +4,18 @@ import com.deepsouthrobotics.data.Config;
 import com.deepsouthrobotics.data.GPSCartesianCoordinateSpace;
 import com.deepsouthrobotics.data.GPSPosition;
 import com.deepsouthrobotics.data.GPSPositionArea;
+import com.deepsouthrobotics.data.PlanningMode;
 import com.deepsouthrobotics.util.Geo;
+import com.deepsouthrobotics.util.PlannerEvents;
+import com.deepsouthrobotics.util.PlannerMetrics;
+import com.deepsouthrobotics.util.PlannerPhase;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -24,10 +30,38 @@ import java.util.List;
 */
 public class MissionBrain
 {
+	//Who gets told about each swath turn -- nobody, unless tracing was
+	//switched on in Config or someone plugged in their own listener
+	private static volatile MissionTraceListener traceListener = Config.missionTraceLogging
+			? new RingBufferTraceLogger(Config.missionTraceBufferSize, System.out)
+			: MissionTraceListener.NONE;
+
+	//How carefully we plan (see PlannerOptions)
+	private final PlannerOptions options;
+
     public MissionBrain()
     {
+		this(PlannerOptions.FINAL);
     }
 
+	public MissionBrain(PlannerOptions options)
+	{
+		this.options = options;
+	}
+
+	public PlannerOptions options()
+	{
+		return options;
+	}
+
+	/**
+	 * Swap in a listener for swath turns (MissionTraceListener.NONE turns tracing back off)
+	 */
+	public static void setTraceListener(MissionTraceListener listener)
+	{
+		traceListener = listener == null ? MissionTraceListener.NONE : listener;
+	}
+
 	/**
 	 * This is the fancy look-ahead logic that takes a given edge in the mission and
 	 * asks (and attempts to answer) the question "are there valid sections
@@ -51,11 +85,11 @@ public class MissionBrain
 			GPSPositionArea missionBoundaryPath,
 			List<GPSPositionArea> polyObstaclesGPSPositionAreaList,
 			Point2D.Double originalPointPath,
-			Double headingRadians,
-			Double minX,
-			Double maxX,
-			Double minY,
-			Double maxY
+			double headingRadians,
+			double minX,
+			double maxX,
+			double minY,
+			double maxY
 	)
 	{
 		List<List<Point2D.Double>> listOfPointsLists = new ArrayList<>();
@@ -63,15 +97,17 @@ public class MissionBrain
 		List<GPSPosition> missionBoundaryPoints = missionBoundaryPath.positions;
 
 		//Save the Sine/Cosine values since we'll be using them often
-		Double cos = Math.cos(headingRadians);
-		Double sin = Math.sin(headingRadians);
+		double cos = Math.cos(headingRadians);
+		double sin = Math.sin(headingRadians);
 
 		boolean pushed = false;
+		long checks = 1;
 
 		//First push the start point 'till it's at the edge of
 		//the missionBoundary on the given heading
 		while(missionBoundaryPath.contains(endPointAtEdgeOfBoundary))
 		{
+			checks++;
 			pushed = true;
 			endPointAtEdgeOfBoundary.x += cos * .01;
 			endPointAtEdgeOfBoundary.y += sin * .01;
@@ -93,7 +129,7 @@ public class MissionBrain
 		//section of polygon out in the distance
 		Point2D.Double point = new Point2D.Double(endPointAtEdgeOfBoundary.x, endPointAtEdgeOfBoundary.y);
 
-		//Now we push beyond the current boundary in increments of (Config.
+		//Now we push beyond the current boundary in increments of (options.
 		//minMowingLineDistanceMeters - 1cm) 'till we're beyond one of the
 		//the edge values of our missionBoundary (i.e. the "edge"
 		//values are passed in as minX,maxX,minY,maxY)
@@ -102,10 +138,11 @@ public class MissionBrain
 		//this heading
 		while(point.x >= minX && point.x <= maxX && point.y >= minY && point.y <= maxY)
 		{
-			Double xComponentAdd = cos * (Config.minMowingLineDistanceMeters-.01);
-			Double yComponentAdd = sin * (Config.minMowingLineDistanceMeters-.01);
+			double xComponentAdd = cos * (options.minMowingLineDistanceMeters-.01);
+			double yComponentAdd = sin * (options.minMowingLineDistanceMeters-.01);
 			point.x += xComponentAdd;
 			point.y += yComponentAdd;
+			checks++;
 			if(missionBoundaryPath.contains(point))
 			{
 				//once we find a point within the polygon we're only part of the way to knowing
@@ -115,10 +152,12 @@ public class MissionBrain
 				//of the line and figure out if the distance is sufficient
 				//to consider this a valid mission line
 				Point2D.Double newBeginPoint = new Point2D.Double(point.x, point.y);
-				Double xCentimeterBump = cos * .01;
-				Double yCentimeterBump = sin * .01;
+				double xCentimeterBump = cos * .01;
+				double yCentimeterBump = sin * .01;
+				checks++;
 				while(missionBoundaryPath.contains(newBeginPoint))
 				{
+					checks++;
 					newBeginPoint.x -= xCentimeterBump;
 					newBeginPoint.y -= yCentimeterBump;
 				}
@@ -171,8 +210,10 @@ public class MissionBrain
 
 					//Do the logic to ensure we're at the end of the mission boundary
 					//before we resume looking for new points out in the distance
+					checks++;
 					while(missionBoundaryPath.contains(endPointAtEdgeOfBoundary))
 					{
+						checks++;
 						endPointAtEdgeOfBoundary.x += cos * .01;
 						endPointAtEdgeOfBoundary.y += sin * .01;
 					}
@@ -192,6 +233,7 @@ public class MissionBrain
 				}
 			}
 		}
+		PlannerMetrics.countContainmentChecks(checks);
 
 		return listOfPointsLists;
 	}
@@ -245,7 +287,7 @@ public class MissionBrain
 		//that point1 lies between
 		//List<Point2D.Double> missionBoundaryPoints = getPointsOnPath(missionBoundary);
 
-		Boolean point1IsVertex = false;
+		boolean point1IsVertex = false;
 		int point1MissionBoundaryVertexIndex = -1;
 		int point1LeftMissionBoundaryVertexIndex = -1;
 		int point1RightMissionBoundaryVertexIndex = -1;
@@ -273,8 +315,8 @@ public class MissionBrain
 
 					Point2D.Double leftPoint = missionBoundaryPoints.get(x);
 					Point2D.Double rightPoint = missionBoundaryPoints.get(0);
-					Line2D.Double line = new Line2D.Double(leftPoint, rightPoint);
-					Double pointLineDistance = line.ptLineDist(point1);
+					double pointLineDistance = Line2D.ptSegDist(leftPoint.x, leftPoint.y, rightPoint.x, rightPoint.y,
+							point1.x, point1.y);
 					if(pointLineDistance <= .01)
 					{
 						point1LeftMissionBoundaryVertexIndex = x;
@@ -287,8 +329,8 @@ public class MissionBrain
 					//next vertex in the list
 					Point2D.Double leftPoint = missionBoundaryPoints.get(x);
 					Point2D.Double rightPoint = missionBoundaryPoints.get(x+1);
-					Line2D.Double line = new Line2D.Double(leftPoint, rightPoint);
-					Double pointLineDistance = line.ptLineDist(point1);
+					double pointLineDistance = Line2D.ptSegDist(leftPoint.x, leftPoint.y, rightPoint.x, rightPoint.y,
+							point1.x, point1.y);
 					if(pointLineDistance <= .01)
 					{
 						point1LeftMissionBoundaryVertexIndex = x;
@@ -310,7 +352,7 @@ public class MissionBrain
 		//it's high time to do the same logic for point2
 
 		//We effectively duplicate the code above for point1
-		Boolean point2IsVertex = false;
+		boolean point2IsVertex = false;
 		int point2MissionBoundaryVertexIndex = -1;
 		int point2LeftMissionBoundaryVertexIndex = -1;
 		int point2RightMissionBoundaryVertexIndex = -1;
@@ -329,8 +371,8 @@ public class MissionBrain
 				{
 					Point2D.Double leftPoint = missionBoundaryPoints.get(x);
 					Point2D.Double rightPoint = missionBoundaryPoints.get(0);
-					Line2D.Double line = new Line2D.Double(leftPoint, rightPoint);
-					Double pointLineDistance = line.ptLineDist(point2);
+					double pointLineDistance = Line2D.ptSegDist(leftPoint.x, leftPoint.y, rightPoint.x, rightPoint.y,
+							point2.x, point2.y);
 					if(pointLineDistance <= .01)
 					{
 						point2LeftMissionBoundaryVertexIndex = x;
@@ -343,8 +385,8 @@ public class MissionBrain
 					//next vertex in the list
 					Point2D.Double leftPoint = missionBoundaryPoints.get(x);
 					Point2D.Double rightPoint = missionBoundaryPoints.get(x+1);
-					Line2D.Double line = new Line2D.Double(leftPoint, rightPoint);
-					Double pointLineDistance = line.ptLineDist(point2);
+					double pointLineDistance = Line2D.ptSegDist(leftPoint.x, leftPoint.y, rightPoint.x, rightPoint.y,
+							point2.x, point2.y);
 					if(pointLineDistance <= .01)
 					{
 						point2LeftMissionBoundaryVertexIndex = x;
@@ -368,10 +410,10 @@ public class MissionBrain
 		//choose to follow (i.e. we'll append those points
 		//to listOfPointsToAppendThePathTo)
 
-		Double directionLeftDistance = 0.0;
+		double directionLeftDistance = 0.0;
 		List<Point2D.Double> leftPathVertices = new ArrayList<>();
 
-		Double directionRightDistance = 0.0;
+		double directionRightDistance = 0.0;
 		List<Point2D.Double> rightPathVertices = new ArrayList<>();
 
 		if(point1IsVertex)
@@ -393,7 +435,7 @@ public class MissionBrain
 				{
 					Point2D.Double nextPoint = missionBoundaryPoints.get(nextIndexLeft);
 					leftPathVertices.add(nextPoint);
-					Double previousToNextPointDistance = previousPoint.distance(nextPoint);
+					double previousToNextPointDistance = previousPoint.distance(nextPoint);
 					directionLeftDistance += previousToNextPointDistance;
 					nextIndexLeft = nextIndexLeft == 0 ? missionBoundaryPoints.size()-1 : nextIndexLeft-1;
 					previousPoint = nextPoint;
@@ -421,7 +463,7 @@ public class MissionBrain
 				{
 					Point2D.Double nextPoint = missionBoundaryPoints.get(nextIndexRight);
 					rightPathVertices.add(nextPoint);
-					Double previousToNextPointDistance = previousPoint.distance(nextPoint);
+					double previousToNextPointDistance = previousPoint.distance(nextPoint);
 					directionRightDistance += previousToNextPointDistance;
 					nextIndexRight = nextIndexRight == missionBoundaryPoints.size()-1 ? 0 : nextIndexRight+1;
 					previousPoint = nextPoint;
@@ -446,7 +488,7 @@ public class MissionBrain
 				{
 					Point2D.Double nextPoint = missionBoundaryPoints.get(nextIndexLeft);
 					leftPathVertices.add(nextPoint);
-					Double previousToNextPointDistance = previousPoint.distance(nextPoint);
+					double previousToNextPointDistance = previousPoint.distance(nextPoint);
 					directionLeftDistance += previousToNextPointDistance;
 					nextIndexLeft = nextIndexLeft == 0 ? missionBoundaryPoints.size()-1 : nextIndexLeft-1;
 					previousPoint = nextPoint;
@@ -482,7 +524,7 @@ public class MissionBrain
 				{
 					Point2D.Double nextPoint = missionBoundaryPoints.get(nextIndexRight);
 					rightPathVertices.add(nextPoint);
-					Double previousToNextPointDistance = previousPoint.distance(nextPoint);
+					double previousToNextPointDistance = previousPoint.distance(nextPoint);
 					directionRightDistance += previousToNextPointDistance;
 					nextIndexRight = nextIndexRight == missionBoundaryPoints.size()-1 ? 0 : nextIndexRight+1;
 					previousPoint = nextPoint;
@@ -527,7 +569,7 @@ public class MissionBrain
 				{
 					Point2D.Double nextPoint = missionBoundaryPoints.get(nextIndexLeft);
 					leftPathVertices.add(nextPoint);
-					Double previousToNextPointDistance = previousPoint.distance(nextPoint);
+					double previousToNextPointDistance = previousPoint.distance(nextPoint);
 					directionLeftDistance += previousToNextPointDistance;
 					nextIndexLeft = nextIndexLeft == 0 ? missionBoundaryPoints.size()-1 : nextIndexLeft-1;
 					previousPoint = nextPoint;
@@ -557,7 +599,7 @@ public class MissionBrain
 				{
 					Point2D.Double nextPoint = missionBoundaryPoints.get(nextIndexRight);
 					rightPathVertices.add(nextPoint);
-					Double previousToNextPointDistance = previousPoint.distance(nextPoint);
+					double previousToNextPointDistance = previousPoint.distance(nextPoint);
 					directionRightDistance += previousToNextPointDistance;
 					nextIndexRight = nextIndexRight == missionBoundaryPoints.size()-1 ? 0 : nextIndexRight+1;
 					previousPoint = nextPoint;
@@ -615,7 +657,7 @@ public class MissionBrain
 					{
 						currentIndexLeft = currentIndexLeft == 0 ? missionBoundaryPoints.size()-1 : currentIndexLeft-1;
 						Point2D.Double nextBoundaryPoint = missionBoundaryPoints.get(currentIndexLeft);
-						Double currentToNextPointDistance = currentPoint.distance(nextBoundaryPoint);
+						double currentToNextPointDistance = currentPoint.distance(nextBoundaryPoint);
 						directionLeftDistance += currentToNextPointDistance;
 						currentPoint = nextBoundaryPoint;
 					}
@@ -658,7 +700,7 @@ public class MissionBrain
 					{
 						currentIndexRight = currentIndexRight == missionBoundaryPoints.size()-1 ? 0 : currentIndexRight+1;
 						Point2D.Double nextBoundaryPoint = missionBoundaryPoints.get(currentIndexRight);
-						Double currentToNextPointDistance = currentPoint.distance(nextBoundaryPoint);
+						double currentToNextPointDistance = currentPoint.distance(nextBoundaryPoint);
 						directionRightDistance += currentToNextPointDistance;
 						currentPoint = nextBoundaryPoint;
 					}
@@ -701,20 +743,39 @@ public class MissionBrain
 	 * start point on the given heading
 	 */
     public Point2D.Double polygonEdgePointByFollowingGivenStartingPointAndHeading(
-			Path2D missionBoundary, Point2D.Double start, Double headingRadians)
+			Path2D missionBoundary, Point2D.Double start, double headingRadians)
+	{
+		return polygonEdgePointByFollowingGivenStartingPointAndHeading(
+				missionBoundary, start.x, start.y, headingRadians, new Point2D.Double());
+	}
+
+	/**
+	 * Same as polygonEdgePointByFollowingGivenStartingPointAndHeading(..) above but
+	 * writes the edge point into "out" (and returns it) so loops that keep
+	 * re-probing the edge can reuse one point
+	 */
+	public Point2D.Double polygonEdgePointByFollowingGivenStartingPointAndHeading(
+			Path2D missionBoundary, double startX, double startY, double headingRadians, Point2D.Double out)
 	{
-		Double xComponentAdd = Math.cos(headingRadians) * .01;
-		Double yComponentAdd = Math.sin(headingRadians) * .01;
+		double xComponentAdd = Math.cos(headingRadians) * options.boundaryPushAdjustmentMeters;
+		double yComponentAdd = Math.sin(headingRadians) * options.boundaryPushAdjustmentMeters;
 
-		Double edgeX = start.x + xComponentAdd;
-		Double edgeY = start.y + yComponentAdd;
+		double edgeX = startX + xComponentAdd;
+		double edgeY = startY + yComponentAdd;
 
+		long steps = 0;
 		while(missionBoundary.contains(edgeX, edgeY))
 		{
 			edgeX += xComponentAdd;
 			edgeY += yComponentAdd;
+			steps++;
 		}
+		PlannerMetrics.countStepIterations(steps);
+		//One check per step, plus the one that stopped us
+		PlannerMetrics.countContainmentChecks(steps + 1);
 
+		//(The step is options.boundaryPushAdjustmentMeters, which is a
+		//centimeter unless we're previewing)
 		//Note that we have to subtract a centimeter off the x and y component
 		//here before returning because the while.. statement above goes
 		//'till we hit a point that's a centimeter outside of
@@ -723,19 +784,20 @@ public class MissionBrain
 		//the last point we evaluated that
 		//the missionBoundary actually
 		//contained
-		Point2D.Double edge = new Point2D.Double(edgeX-xComponentAdd, edgeY-yComponentAdd);
-		return edge;
+		out.x = edgeX-xComponentAdd;
+		out.y = edgeY-yComponentAdd;
+		return out;
 	}
 
 	public void adjustStartingPointIfFirstLineIsTooShort(GPSPosition start,
 														 Path2D missionBoundary,
 														 List<GPSPosition> missionBoundaryGPSPositionList,
-														 Double headingRadians)
+														 double headingRadians)
 	{
 		Point2D.Double guide = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, start, headingRadians);
 		//If line length is too short then adjust the starting location
 		double distance = start.distance(guide);
-		if (distance < Config.minMowingLineDistanceMeters)
+		if (distance < options.minMowingLineDistanceMeters)
 		{
 			int pointVertexIndex = pointVertexIndex(start, missionBoundaryGPSPositionList);
 			//if the polygon is at a vertex, we start at the starting point vertex and move
@@ -770,17 +832,20 @@ public class MissionBrain
 				//ground
 
 				//Get the point one half meter along the path to either vertex
-				Point2D.Double minusNormHalfMeter = getParallelNorm(start, minusVertex, 0.5);
-				Point2D.Double plusNormHalfMeter = getParallelNorm(start, plusVertex, 0.5);
+				Point2D.Double minusNormVenturePoint = GeometryKernel.parallelNorm(
+						start.x, start.y, minusVertex.x, minusVertex.y, 0.5, new Point2D.Double());
+				minusNormVenturePoint.x += start.x;
+				minusNormVenturePoint.y += start.y;
 
-				Point2D.Double minusNormVenturePoint = new Point2D.Double(
-						start.x + minusNormHalfMeter.x, start.y + minusNormHalfMeter.y);
+				Point2D.Double plusNormVenturePoint = GeometryKernel.parallelNorm(
+						start.x, start.y, plusVertex.x, plusVertex.y, 0.5, new Point2D.Double());
+				plusNormVenturePoint.x += start.x;
+				plusNormVenturePoint.y += start.y;
 
-				Point2D.Double plusNormVenturePoint = new Point2D.Double(
-						start.x + plusNormHalfMeter.x, start.y + plusNormHalfMeter.y);
-
-				Point2D.Double minusNormCentimeter = getParallelNorm(start, minusVertex, 0.01);
-				Point2D.Double plusNormCentimeter = getParallelNorm(start, plusVertex, 0.01);
+				Point2D.Double minusNormCentimeter = GeometryKernel.parallelNorm(start.x, start.y,
+						minusVertex.x, minusVertex.y, options.boundaryPushAdjustmentMeters, new Point2D.Double());
+				Point2D.Double plusNormCentimeter = GeometryKernel.parallelNorm(start.x, start.y,
+						plusVertex.x, plusVertex.y, options.boundaryPushAdjustmentMeters, new Point2D.Double());
 
 				//baswell Friday -- taking out this missionBoundary.contains... check because I think we may be getting
 				//some floating point precision issues where the minusNormVenturePoint or plusNormVenturePoint
@@ -799,27 +864,30 @@ public class MissionBrain
 				//both points 1 meter away would be where the distance between a point
 				//and our vertex was less than 1 meter -- let's assume this isn't
 				//a very likely scenario for now
-				Point2D.Double minusNormEndPoint = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, minusNormVenturePoint, headingRadians);
-				Point2D.Double plusNormEndPoint = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, plusNormVenturePoint, headingRadians);
+				Point2D.Double minusNormEndPoint = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary,
+						minusNormVenturePoint.x, minusNormVenturePoint.y, headingRadians, new Point2D.Double());
+				Point2D.Double plusNormEndPoint = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary,
+						plusNormVenturePoint.x, plusNormVenturePoint.y, headingRadians, new Point2D.Double());
 
-				Double minusNormDistance = minusNormVenturePoint.distance(minusNormEndPoint);
-				Double plusNormDistance = plusNormVenturePoint.distance(plusNormEndPoint);
+				double minusNormDistance = minusNormVenturePoint.distance(minusNormEndPoint);
+				double plusNormDistance = plusNormVenturePoint.distance(plusNormEndPoint);
 
 				if (plusNormDistance >= minusNormDistance)
 				{
 					//Plus norm was longer, so let's assume this is the point to push toward to
 					//find a good starting point
-					if (plusNormDistance > Config.minMowingLineDistanceMeters)
+					if (plusNormDistance > options.minMowingLineDistanceMeters)
 					{
 						//Line length is too long, so let's pull the new starting point back toward the original
-						//starting point 'till we get to line length of Config.minMowingLineDistanceMeters
+						//starting point 'till we get to line length of options.minMowingLineDistanceMeters
 						boolean adjusted = false;
-						while (plusNormDistance > Config.minMowingLineDistanceMeters)
+						while (plusNormDistance > options.minMowingLineDistanceMeters)
 						{
 							adjusted = true;
 							plusNormVenturePoint.x -= plusNormCentimeter.x;
 							plusNormVenturePoint.y -= plusNormCentimeter.y;
-							plusNormEndPoint = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, plusNormVenturePoint, headingRadians);
+							polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary,
+									plusNormVenturePoint.x, plusNormVenturePoint.y, headingRadians, plusNormEndPoint);
 							plusNormDistance = plusNormVenturePoint.distance(plusNormEndPoint);
 						}
 						if (adjusted)
@@ -833,12 +901,13 @@ public class MissionBrain
 					{
 						//Line length is too short, so let's push the new starting point back
 						//toward the plusNormEndPoint 'till we get to line length
-						//of Config.minMowingLineDistanceMeters
-						while (plusNormDistance < Config.minMowingLineDistanceMeters)
+						//of options.minMowingLineDistanceMeters
+						while (plusNormDistance < options.minMowingLineDistanceMeters)
 						{
 							plusNormVenturePoint.x += plusNormCentimeter.x;
 							plusNormVenturePoint.y += plusNormCentimeter.y;
-							plusNormEndPoint = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, plusNormVenturePoint, headingRadians);
+							polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary,
+									plusNormVenturePoint.x, plusNormVenturePoint.y, headingRadians, plusNormEndPoint);
 							plusNormDistance = plusNormVenturePoint.distance(plusNormEndPoint);
 						}
 						start.x = plusNormVenturePoint.x;
@@ -848,15 +917,16 @@ public class MissionBrain
 				{
 					//Minus norm was longer, so let's assume this is the point to push toward to
 					//find a good starting point
-					if (minusNormDistance > Config.minMowingLineDistanceMeters)
+					if (minusNormDistance > options.minMowingLineDistanceMeters)
 					{
 						//Line length is too long, so let's pull the new starting point back toward the original
-						//starting point 'till we get to line length of Config.minMowingLineDistanceMeters
-						while (minusNormDistance > Config.minMowingLineDistanceMeters)
+						//starting point 'till we get to line length of options.minMowingLineDistanceMeters
+						while (minusNormDistance > options.minMowingLineDistanceMeters)
 						{
 							minusNormVenturePoint.x -= minusNormCentimeter.x;
 							minusNormVenturePoint.y -= minusNormCentimeter.y;
-							minusNormEndPoint = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, minusNormVenturePoint, headingRadians);
+							polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary,
+									minusNormVenturePoint.x, minusNormVenturePoint.y, headingRadians, minusNormEndPoint);
 							minusNormDistance = minusNormVenturePoint.distance(minusNormEndPoint);
 						}
 						start.x = minusNormVenturePoint.x;
@@ -865,12 +935,13 @@ public class MissionBrain
 					{
 						//Line length is too short, so let's push the new starting point back
 						//toward the minusNormEndPoint 'till we get to line length
-						//of Config.minMowingLineDistanceMeters
-						while (minusNormDistance < Config.minMowingLineDistanceMeters)
+						//of options.minMowingLineDistanceMeters
+						while (minusNormDistance < options.minMowingLineDistanceMeters)
 						{
 							minusNormVenturePoint.x += minusNormCentimeter.x;
 							minusNormVenturePoint.y += minusNormCentimeter.y;
-							minusNormEndPoint = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, minusNormVenturePoint, headingRadians);
+							polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary,
+									minusNormVenturePoint.x, minusNormVenturePoint.y, headingRadians, minusNormEndPoint);
 							minusNormDistance = minusNormVenturePoint.distance(minusNormEndPoint);
 						}
 						start.x = minusNormVenturePoint.x;
@@ -895,23 +966,23 @@ public class MissionBrain
 			//value to get x/y components to add to the start
 			//value and seeing if it's within
 			//the missionBoundary
-			Double perpHeading = headingRadians + Math.PI / 2;
+			double perpHeading = headingRadians + Math.PI / 2;
 
-			Double xComponentPerp = Math.cos(perpHeading) * .01;
-			Double yComponentPerp = Math.sin(perpHeading) * .01;
+			double xComponentPerp = Math.cos(perpHeading) * .01;
+			double yComponentPerp = Math.sin(perpHeading) * .01;
 
-			Point2D.Double perpPoint = new Point2D.Double(start.x + xComponentPerp, start.y + yComponentPerp);
-			if (missionBoundary.contains(perpPoint))
+			long checks = 1;
+			if (missionBoundary.contains(start.x + xComponentPerp, start.y + yComponentPerp))
 			{
-				start.x = perpPoint.x;
-				start.y = perpPoint.y;
+				start.x += xComponentPerp;
+				start.y += yComponentPerp;
 			} else
 			{
-				perpPoint = new Point2D.Double(start.x - xComponentPerp, start.y - yComponentPerp);
-				if (missionBoundary.contains(perpPoint))
+				checks++;
+				if (missionBoundary.contains(start.x - xComponentPerp, start.y - yComponentPerp))
 				{
-					start.x = perpPoint.x;
-					start.y = perpPoint.y;
+					start.x -= xComponentPerp;
+					start.y -= yComponentPerp;
 				} else
 				{
 					//Well, the perpendicular points on either side of the start line aren't
@@ -919,18 +990,18 @@ public class MissionBrain
 					//jacked up
 				}
 			}
+			PlannerMetrics.countContainmentChecks(checks);
 
-			guide = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, start, headingRadians);
+			polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, start.x, start.y, headingRadians, guide);
 			int navigateDirection = directionToNavigateAfterGuideLine(start, guide, missionBoundary);
 
-			while (start.distance(guide) < Config.minMowingLineDistanceMeters)
+			Point2D.Double normPerpXY = new Point2D.Double();
+			while (start.distance(guide) < options.minMowingLineDistanceMeters)
 			{
-				Point2D.Double normPerpXY = getPerpendicularNorm(start, guide, .01);
+				GeometryKernel.perpendicularNorm(start.x, start.y, guide.x, guide.y, .01, normPerpXY);
 				start.x += normPerpXY.x * navigateDirection;
 				start.y += normPerpXY.y * navigateDirection;
-				guide = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, start, headingRadians);
-				Double theDistance = start.distance(guide);
-				System.out.println("Hello friends");
+				polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, start.x, start.y, headingRadians, guide);
 			}
 		}
 	}
@@ -978,12 +1049,16 @@ public class MissionBrain
 		{
 			//If we get here we know that the line formed by startGPSPosition
 			//and endGPSPosition intersects at least 1 obstacle
-			Point2D.Double normMeter = getParallelNorm(startGPSPosition, endGPSPosition, 1.0);
-			Point2D.Double normCM = getParallelNorm(startGPSPosition, endGPSPosition, 0.01);
+			Point2D.Double normMeter = GeometryKernel.parallelNorm(startGPSPosition.x, startGPSPosition.y,
+					endGPSPosition.x, endGPSPosition.y, 1.0, new Point2D.Double());
+			Point2D.Double normCM = GeometryKernel.parallelNorm(startGPSPosition.x, startGPSPosition.y,
+					endGPSPosition.x, endGPSPosition.y, 0.01, new Point2D.Double());
 
-			Double startToEndDistance = startGPSPosition.distance(endGPSPosition);
+			double startToEndDistance = startGPSPosition.distance(endGPSPosition);
 
 			Point2D.Double flexibleVenturePoint = new Point2D.Double(startGPSPosition.x, startGPSPosition.y);
+			long steps = 0;
+			long checks = 0;
 
 			//We do this check on the distance between our starting point and the
 			//flexibleVenturePoint to see if we've pushed
@@ -993,6 +1068,7 @@ public class MissionBrain
 				for(int x = 0; x < intersectedObstacles.size(); x++)
 				{
 					GPSPositionArea obstacle = intersectedObstacles.get(x);
+					checks++;
 					if(obstacle.contains(flexibleVenturePoint))
 					{
 						//High level steps of what we're trying to do:
@@ -1010,6 +1086,8 @@ public class MissionBrain
 						{
 							obstacleStartPoint.x -= normCM.x;
 							obstacleStartPoint.y -= normCM.y;
+							steps++;
+							checks++;
 						}
 						while(obstacle.contains(obstacleStartPoint));
 
@@ -1023,6 +1101,8 @@ public class MissionBrain
 						{
 							obstacleEndPoint.x += normCM.x;
 							obstacleEndPoint.y += normCM.y;
+							steps++;
+							checks++;
 						}
 						while(obstacle.contains(obstacleEndPoint));
 
@@ -1069,10 +1149,13 @@ public class MissionBrain
 							//points within obstacles)
 							flexibleVenturePoint.x += normMeter.x;
 							flexibleVenturePoint.y += normMeter.y;
+							steps++;
 						}
 					}
 				}
 			}
+			PlannerMetrics.countStepIterations(steps);
+			PlannerMetrics.countContainmentChecks(checks);
 		}
 	}
 
@@ -1083,11 +1166,13 @@ public class MissionBrain
 	)
 	{
 		List<GPSPositionArea> intersectedPolyObstaclesGPSPositionAreaList = new ArrayList<>();
+		long intersectionTests = 0;
 
 		for (GPSPositionArea obstacleGPSPositionArea : polyObstaclesGPSPositionAreaList)
 		{
 			for(int x = 0; x < obstacleGPSPositionArea.positions.size(); x++)
 			{
+				intersectionTests++;
 				GPSPosition obstacleLineStart = obstacleGPSPositionArea.positions.get(x);
 				GPSPosition obstacleLineEnd;
 				if(x == (obstacleGPSPositionArea.positions.size() - 1 ))
@@ -1102,9 +1187,8 @@ public class MissionBrain
 				{
 					obstacleLineEnd = obstacleGPSPositionArea.positions.get(x+1);
 				}
-				Line2D.Double obstacleLine = new Line2D.Double(obstacleLineStart.x, obstacleLineStart.y, obstacleLineEnd.x, obstacleLineEnd.y);
-				Line2D.Double pathLine = new Line2D.Double(startGPSPosition.x, startGPSPosition.y, endGPSPosition.x, endGPSPosition.y);
-				if(obstacleLine.intersectsLine(pathLine))
+				if(Line2D.linesIntersect(startGPSPosition.x, startGPSPosition.y, endGPSPosition.x, endGPSPosition.y,
+						obstacleLineStart.x, obstacleLineStart.y, obstacleLineEnd.x, obstacleLineEnd.y))
 				{
 					intersectedPolyObstaclesGPSPositionAreaList.add(obstacleGPSPositionArea);
 					break;
@@ -1112,6 +1196,7 @@ public class MissionBrain
 			}
 		}
 
+		PlannerMetrics.countObstacleIntersectionTests(intersectionTests);
 		return intersectedPolyObstaclesGPSPositionAreaList;
 	}
 
@@ -1120,6 +1205,15 @@ public class MissionBrain
 	 * One of the main methods that orchestrates a lot of the heavy lifting for building out
 	 * the mission waypoints
 	 *
+	 * This happens in 2 phases. Every swath line's intervals (inside the mission
+	 * boundary, and clipped out by obstacles) only depend on the line's offset
+	 * from the guide line, so SwathLayout computes all of them in parallel up
+	 * front. Then a cheap sequential pass walks the swaths back and forth --
+	 * picking the turn points, tracing the perimeter out to any sections
+	 * beyond a concave notch, and walking around obstacles. The parallel
+	 * phase writes every swath into its own slot, so the mission comes
+	 * out the same no matter how many threads did the work.
+	 *
 	 * @param missionBoundaryGPSPositionList
 	 * @param mowingPathWidthInMeters
 	 * @param headingDegrees
@@ -1132,7 +1226,61 @@ public class MissionBrain
 															   GPSPosition startGPSPosition,
 												               List<List<GPSPosition>> polyObstaclesGPSPositionList)
     {
-		Double[] minXandMinY = scaleMinXAndMinYToZero(missionBoundaryGPSPositionList, polyObstaclesGPSPositionList);
+		return buildSweepMission(missionBoundaryGPSPositionList, mowingPathWidthInMeters, headingDegrees,
+				startGPSPosition, polyObstaclesGPSPositionList).waypoints;
+	}
+
+	/**
+	 * Same as buildMissionWaypoints(..) but hangs on to the geometry and a record of
+	 * which waypoints each swath produced, so that the mission can be patched up
+	 * by replanMissionAfterObstacleChange(..) rather than rebuilt from scratch
+	 */
+	public SweepMission buildSweepMission(List<GPSPosition> missionBoundaryGPSPositionList,
+										  Double mowingPathWidthInMeters,
+										  Double headingDegrees,
+										  GPSPosition startGPSPosition,
+										  List<List<GPSPosition>> polyObstaclesGPSPositionList)
+	{
+		return buildSweepMission(missionBoundaryGPSPositionList, mowingPathWidthInMeters, headingDegrees,
+				startGPSPosition, polyObstaclesGPSPositionList, null, null);
+	}
+
+	/**
+	 * @param startLatLng The start marker as the user sent it, when the mission
+	 * was built from (lat,lng) input (see SweepMission)
+	 * @param projectionOrigin The (lat,lng) the (x,y) coordinates were measured from
+	 */
+	private SweepMission buildSweepMission(List<GPSPosition> missionBoundaryGPSPositionList,
+										   Double mowingPathWidthInMeters,
+										   Double headingDegrees,
+										   GPSPosition startGPSPosition,
+										   List<List<GPSPosition>> polyObstaclesGPSPositionList,
+										   GPSPosition startLatLng,
+										   GPSPosition projectionOrigin)
+	{
+		PlannerEvents.describeField(missionBoundaryGPSPositionList.size(), polyObstaclesGPSPositionList.size(),
+				mowingPathWidthInMeters, headingDegrees);
+		Object missionBuildEvent = PlannerEvents.begin(PlannerEvents.Kind.MISSION_BUILD);
+		try
+		{
+			return planSweepMission(missionBoundaryGPSPositionList, mowingPathWidthInMeters, headingDegrees,
+					startGPSPosition, polyObstaclesGPSPositionList, startLatLng, projectionOrigin);
+		}
+		finally
+		{
+			PlannerEvents.commit(missionBuildEvent);
+		}
+	}
+
+	private SweepMission planSweepMission(List<GPSPosition> missionBoundaryGPSPositionList,
+										  double mowingPathWidthInMeters,
+										  double headingDegrees,
+										  GPSPosition startGPSPosition,
+										  List<List<GPSPosition>> polyObstaclesGPSPositionList,
+										  GPSPosition startLatLng,
+										  GPSPosition projectionOrigin)
+	{
+		double[] minXandMinY = scaleMinXAndMinYToZero(missionBoundaryGPSPositionList, polyObstaclesGPSPositionList);
 
 		//Convert the list of obstacle points into a form we'll use later
 		List<GPSPositionArea> polyObstaclesGPSPositionAreaList = new ArrayList<>();
@@ -1149,16 +1297,6 @@ public class MissionBrain
 		startGPSPosition.x -= minXandMinY[0];
 		startGPSPosition.y -= minXandMinY[1];
 
-		//Go ahead and pull the min x, max x, min y and max y values --
-		//we'll use these to hopefully save a few cpu
-		//cycles when building the mission
-
-		Double minX = getMinX(missionBoundaryGPSPositionList); // should always be zero
-		Double maxX = getMaxX(missionBoundaryGPSPositionList);
-
-		Double minY = getMinY(missionBoundaryGPSPositionList); // should always be zero
-		Double maxY = getMaxY(missionBoundaryGPSPositionList);
-
 		//Not entirely sure we need this space variable --
 		//the idea is you're passing in some coordinate
 		//other than the home coordinate --
@@ -1166,398 +1304,1377 @@ public class MissionBrain
 		//passing in the guidepoint coordinate
 		GPSCartesianCoordinateSpace space = new GPSCartesianCoordinateSpace(missionBoundaryGPSPositionList.get(1));
 
-		Double headingRadians = Math.toRadians(headingDegrees);
+		double headingRadians = Math.toRadians(headingDegrees);
         Path2D.Double missionBoundary = missionBoundary(missionBoundaryGPSPositionList);
-        GPSPositionArea missionBoundaryGPSPositionArea = new GPSPositionArea(missionBoundaryGPSPositionList);
 
+		long startAdjustmentNanos = PlannerMetrics.startPhase(PlannerPhase.START_ADJUSTMENT);
 		adjustStartingPointIfFirstLineIsTooShort(startGPSPosition, missionBoundary, missionBoundaryGPSPositionList, headingRadians);
+		PlannerMetrics.observe(PlannerPhase.START_ADJUSTMENT, startAdjustmentNanos);
 		startGPSPosition = space.gpsPositionGivenDistanceFromZeroZero(startGPSPosition.x, startGPSPosition.y);
 
-		//Build a "guidepoint" to shoe-horn into our old code/logic --
-		//the guidepoint is the endpoint of our first mission line --
-		//in other words, it's the second waypoint in our mission (i.e.
-		//the startGPSPosition is the first waypoint)
-		//baswell remove Monday
-		Point2D.Double guide = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, startGPSPosition, headingRadians);
+		//Project the boundary and obstacles into the sweep frame, where every
+		//swath is a line of constant "across" value
+		SweepFrame frame = new SweepFrame(headingRadians);
+		SweepPolygon boundary = new SweepPolygon(missionBoundaryGPSPositionList, frame);
+		List<SweepPolygon> obstacles = new ArrayList<>();
+		for(List<GPSPosition> polyObstaclesGPSPositions : polyObstaclesGPSPositionList)
+		{
+			obstacles.add(new SweepPolygon(polyObstaclesGPSPositions, frame));
+		}
 
-    	List<GPSPosition> missionWaypoints = new ArrayList<>();
+		double startAlong = frame.along(startGPSPosition.x, startGPSPosition.y);
+		double startAcross = frame.across(startGPSPosition.x, startGPSPosition.y);
 
-    	//Calculate which way to commence building the mission after hitting the guidepoint
-    	int navigateDirection = directionToNavigateAfterGuideLine(startGPSPosition, guide, missionBoundary);
-    	
-    	//We use the perpendicular norm for finding next turn points
-    	Point2D.Double normPerpXY = getPerpendicularNorm(startGPSPosition, guide, mowingPathWidthInMeters);
-    	normPerpXY.x *= navigateDirection;
-    	normPerpXY.y *= navigateDirection;
-    	
-    	//We use the parallel norm for pushing/pulling the mission line
-    	Point2D.Double normParallel = getParallelNorm(startGPSPosition, guide, Config.boundaryPushAdjustmentMeters);
-    	normParallel.x *= -1;
-    	normParallel.y *= -1;
-    	
-    	//Convenient way to push/pull the mission line opposite direction of above
-    	Point2D.Double normParallelNegative = new Point2D.Double();
-    	normParallelNegative.x  = normParallel.x * -1;
-    	normParallelNegative.y  = normParallel.y * -1;
+		//The "guidepoint" is the endpoint of our first mission line --
+		//in other words, it's the second waypoint in our mission (i.e.
+		//the startGPSPosition is the first waypoint)
+		Point2D.Double guide;
+		double[] firstSwathInside = boundary.insideIntervals(startAcross);
+		int firstInterval = intervalContaining(firstSwathInside, startAlong);
+		if(firstInterval >= 0)
+		{
+			guide = new Point2D.Double(
+					frame.x(firstSwathInside[2 * firstInterval + 1], startAcross),
+					frame.y(firstSwathInside[2 * firstInterval + 1], startAcross));
+		}
+		else
+		{
+			guide = polygonEdgePointByFollowingGivenStartingPointAndHeading(missionBoundary, startGPSPosition, headingRadians);
+		}
 
-		Point2D.Double currentTopPoint = new Point2D.Double(guide.x, guide.y);
-		Point2D.Double currentBottomPoint = new Point2D.Double(startGPSPosition.x, startGPSPosition.y);
+    	ArrayList<GPSPosition> missionWaypoints = new ArrayList<>();
+		ArrayList<SweepMission.SwathRun> swathRuns = new ArrayList<>();
+		SweepMission sweepMission = new SweepMission(missionWaypoints, swathRuns,
+				missionBoundaryGPSPositionList, polyObstaclesGPSPositionList, space, frame,
+				mowingPathWidthInMeters, headingDegrees, minXandMinY[0], minXandMinY[1],
+				startLatLng, projectionOrigin);
 
-		Point2D.Double lastBottomPoint = new Point2D.Double(currentBottomPoint.x, currentBottomPoint.y);
+		//The first mission point will always be the start position
+		missionWaypoints.add(startGPSPosition);
 
-		GPSPosition lastBottomGPS = new GPSPosition(startGPSPosition.latitude,
-				startGPSPosition.longitude, startGPSPosition.x, startGPSPosition.y);//this.getStartGPS();
-		
-		Geo geo = new Geo();
-		
-    	//The first mission point will always be the start position
-    	missionWaypoints.add(startGPSPosition);
-		GPSPosition adjustedGuideGPS = space.gpsPositionGivenDistanceFromZeroZero(currentTopPoint.x, currentTopPoint.y);
-		missionWaypoints.add(adjustedGuideGPS);
-
-		//baswell begin new fancy look-beyond-boundary logic
-		List<List<Point2D.Double>> additionalPointsOnThisHeading = additionalValidMissionPointsOnTheGivenPointPathAndHeading(
-				space,
-				missionBoundaryGPSPositionArea,
-				polyObstaclesGPSPositionAreaList,
-				adjustedGuideGPS,
-				headingRadians,
-				minX,
-				maxX,
-				minY,
-				maxY
-		);
-
-		List<GPSPosition> flatPoints = flattenListOfPoint2DListsThenConvertToGPSPositionList(
-				additionalPointsOnThisHeading, space);
-		if(flatPoints.size() > 0)
-		{
-			for(int x = 0; x < flatPoints.size(); x++)
-			{
-				missionWaypoints.add(flatPoints.get(x));
-			}
+		if(startGPSPosition.distance(guide) == 0)
+		{
+			return sweepMission;
 		}
-		//baswell end new fancy look-beyond-boundary logic
-
-		Point2D.Double lastMissionWaypoint = missionWaypoints.get(missionWaypoints.size()-1);
 
-    	//The second mission point will always be the guide point adjusted to ensure next turn is within boundary
-		Boolean ADD_ANOTHER_PATH_LINE = adjustTurnInitiationPointSoThatNextOrthogonalPointIsWithinBoundary(currentBottomPoint, lastMissionWaypoint, normPerpXY, missionBoundary);
-
-		//Set up the currentTopPoint/lastTopPoint variables to make the mission-waypoint-adding logic below work as intended
-		currentTopPoint = new Point2D.Double(lastMissionWaypoint.x, lastMissionWaypoint.y);
-		Point2D.Double lastTopPoint = new Point2D.Double(currentTopPoint.x, currentTopPoint.y);
-		GPSPosition lastTopGPS = space.gpsPositionGivenDistanceFromZeroZero(lastTopPoint.x, lastTopPoint.y);
-		missionWaypoints.set(missionWaypoints.size()-1, lastTopGPS);//Replace top position with adjusted position
+    	//Calculate which way to commence building the mission after hitting the guidepoint
+    	int navigateDirection = directionToNavigateAfterGuideLine(startGPSPosition, guide, missionBoundary);
 
-		for(int i = 1; ADD_ANOTHER_PATH_LINE; i++)
+    	//We use the perpendicular norm for finding the next swath -- in the sweep
+		//frame it's purely an "across" offset
+    	Point2D.Double normPerpXY = GeometryKernel.perpendicularNorm(startGPSPosition.x, startGPSPosition.y,
+				guide.x, guide.y, mowingPathWidthInMeters, GeometryKernel.scratch().norm);
+		double stepAcross = frame.across(normPerpXY.x * navigateDirection, normPerpXY.y * navigateDirection);
+
+		//Phase 1 (parallel): every swath's inside intervals and obstacle clips
+		long layoutNanos = PlannerMetrics.startPhase(PlannerPhase.SWATH_LAYOUT);
+		Object swathEvent = PlannerEvents.begin(PlannerEvents.Kind.SWATH_GENERATION);
+		SwathLayout layout = SwathLayout.compute(boundary, obstacles, startAcross, stepAcross);
+		PlannerEvents.commit(swathEvent);
+		PlannerMetrics.observe(PlannerPhase.SWATH_LAYOUT, layoutNanos);
+		PlannerMetrics.countSwaths(layout.swaths.length);
+
+		//Phase 2 (sequential): walk the swaths back and forth connecting them up
+		long swathLoopNanos = PlannerMetrics.startPhase(PlannerPhase.SWATH_LOOP);
+		MissionTraceListener trace = traceListener;
+		GeometryKernel.Scratch scratch = GeometryKernel.scratch();
+
+		//A turn on and a turn off per swath, plus whatever detours we add
+		missionWaypoints.ensureCapacity(2 * layout.swaths.length + 1);
+		swathRuns.ensureCapacity(layout.swaths.length);
+		GPSPosition lastTurnGPS = startGPSPosition;
+		double entryAlong = startAlong;
+		boolean forward = true;
+		PhaseTotals phaseTotals = new PhaseTotals();
+
+		for(int i = 0; i < layout.swaths.length; i++)
 		{
-			if(i%2 != 0) //we are at the top -- so set the top point to the perpendicular offset and push the bottom point to missionBoundary
+			SwathLayout.Swath swath = layout.swaths[i];
+			int firstWaypoint = missionWaypoints.size();
+			double[] sections = scratch.doubles(swath.inside.length);
+			int sectionCount = addSwathSectionsToMission(space, frame, swath, entryAlong, forward, i > 0,
+					missionBoundaryGPSPositionList, polyObstaclesGPSPositionAreaList, missionWaypoints, sections,
+					phaseTotals);
+			if(sectionCount == 0)
 			{
-				currentTopPoint.x += normPerpXY.x;
-				currentTopPoint.y += normPerpXY.y;
-				
-				currentBottomPoint.x = currentTopPoint.x;
-				currentBottomPoint.y = currentTopPoint.y;
-
-				pushLineToBoundary(currentTopPoint, currentBottomPoint, normParallel, missionBoundary);
-
-				List<List<Point2D.Double>> additionalPoints = additionalValidMissionPointsOnTheGivenPointPathAndHeading(
-						space,
-						missionBoundaryGPSPositionArea,
-						polyObstaclesGPSPositionAreaList,
-						currentBottomPoint,
-						headingRadians+Math.PI,
-						minX,
-						maxX,
-						minY,
-						maxY
-				);
-
-				GPSPosition firstLineStopPoint = space.gpsPositionGivenDistanceFromZeroZero(currentBottomPoint.x, currentBottomPoint.y);
-
-				flatPoints = flattenListOfPoint2DListsThenConvertToGPSPositionList(
-						additionalPoints, space);
-
-				if(flatPoints.size()> 0)
-				{
-					lastMissionWaypoint = flatPoints.get(flatPoints.size()-1);
-					currentBottomPoint = new Point2D.Double(lastMissionWaypoint.x, lastMissionWaypoint.y);
-				}
-
-				ADD_ANOTHER_PATH_LINE = adjustTurnInitiationPointSoThatNextOrthogonalPointIsWithinBoundary(currentTopPoint, currentBottomPoint, normPerpXY, missionBoundary);
-
-				GPSPosition newTopGPS = space.gpsPositionGivenDistanceFromZeroZero(currentTopPoint.x, currentTopPoint.y);
-				missionWaypoints.add(newTopGPS);
-				System.out.println(i+"Top "+ newTopGPS.latitude + " " + newTopGPS.longitude + " Distance: " + geo.latLongDistance(lastTopGPS.latitude, lastTopGPS.longitude, newTopGPS.latitude, newTopGPS.longitude));
-				lastTopGPS = newTopGPS;
+				break;
+			}
 
-				if(Math.abs(currentTopPoint.distance(currentBottomPoint)) >= Config.minMowingLineDistanceMeters)
+			//Pull the last turn point back so that the turn onto the next
+			//swath lands inside the boundary (if there is a next swath)
+			double lastSectionStart = sections[sectionCount - 2];
+			double turnAlong = sections[sectionCount - 1];
+			double nextEntryAlong = turnAlong;
+			boolean addAnotherPathLine = false;
+			if(i + 1 < layout.swaths.length)
+			{
+				double adjusted = turnAlongSoThatNextSwathIsWithinBoundary(
+						layout.swaths[i + 1].inside, lastSectionStart, turnAlong, forward);
+				if(!Double.isNaN(adjusted) && Math.abs(adjusted - lastSectionStart) >= options.minMowingLineDistanceMeters)
 				{
-					//baswell -- begin Add check for obstacles between newTopGPS and firstLineStopPoint
-					circumventObstaclesBetweenTwoPointsAndAddTheGeneratedPointsToTheMission(
-							space,
-							missionWaypoints,
-							newTopGPS,
-							firstLineStopPoint,
-							polyObstaclesGPSPositionAreaList);
-					//baswell -- end Add check for obstacles between newTopGPS and firstLineStopPoint
-
-					missionWaypoints.add(firstLineStopPoint);
-
-					if(flatPoints.size() > 0)
+					//Like the old stepping loop, only the first swath and swaths with
+					//look-ahead sections turn at the pulled back point -- the rest
+					//mow all the way to the boundary and cut across to the next
+					//swath's start (see addSwathTurnOff(..))
+					nextEntryAlong = adjusted;
+					if(!mowsToBoundaryBeforeTurning(i, sectionCount)
+							|| !turnStaysInsideBoundary(boundary, turnAlong, swath.across,
+									adjusted, layout.swaths[i + 1].across))
 					{
-						for(int x = 0; x < flatPoints.size()-1; x++)
-						{
-							missionWaypoints.add(flatPoints.get(x));
-						}
-						missionWaypoints.add(space.gpsPositionGivenDistanceFromZeroZero(currentBottomPoint.x, currentBottomPoint.y));
+						turnAlong = adjusted;
 					}
-
-					lastBottomGPS = space.gpsPositionGivenDistanceFromZeroZero(currentBottomPoint.x, currentBottomPoint.y);
+					addAnotherPathLine = true;
 				}
-					
-				lastTopPoint.x = currentTopPoint.x;
-				lastTopPoint.y = currentTopPoint.y;
-				
-				lastBottomPoint.x = currentBottomPoint.x;
-				lastBottomPoint.y = currentBottomPoint.y;
-				
 			}
-			else //we are at the bottom -- so set the bottom point to the perpendicular offset and push the top point to missionBoundary
-			{
-				currentBottomPoint.x += normPerpXY.x;
-				currentBottomPoint.y += normPerpXY.y;
-				
-				currentTopPoint.x = currentBottomPoint.x;
-				currentTopPoint.y = currentBottomPoint.y;
-				
-				pushLineToBoundary(currentBottomPoint, currentTopPoint, normParallelNegative, missionBoundary);
-
-				List<List<Point2D.Double>> additionalPoints = additionalValidMissionPointsOnTheGivenPointPathAndHeading(
-						space,
-						missionBoundaryGPSPositionArea,
-						polyObstaclesGPSPositionAreaList,
-						currentTopPoint,
-						headingRadians,
-						minX,
-						maxX,
-						minY,
-						maxY
-				);
-
-				GPSPosition firstLineStopPoint = space.gpsPositionGivenDistanceFromZeroZero(currentTopPoint.x, currentTopPoint.y);
-
-				flatPoints = flattenListOfPoint2DListsThenConvertToGPSPositionList(
-						additionalPoints, space);
-
-				if(flatPoints.size()> 0)
-				{
-					lastMissionWaypoint = flatPoints.get(flatPoints.size()-1);
-					currentTopPoint = new Point2D.Double(lastMissionWaypoint.x, lastMissionWaypoint.y);
-				}
-
-				ADD_ANOTHER_PATH_LINE = adjustTurnInitiationPointSoThatNextOrthogonalPointIsWithinBoundary(currentBottomPoint, currentTopPoint, normPerpXY, missionBoundary);
 
-				GPSPosition newBottomGPS = space.gpsPositionGivenDistanceFromZeroZero(currentBottomPoint.x, currentBottomPoint.y);
-				missionWaypoints.add(newBottomGPS);
-				System.out.println(i+"Bottom lat:"+ newBottomGPS.latitude + " lon:" + newBottomGPS.longitude + " x: " + newBottomGPS.x + " y:" + newBottomGPS.y +" Distance: " + geo.latLongDistance(lastBottomGPS.latitude, lastBottomGPS.longitude, newBottomGPS.latitude, newBottomGPS.longitude));
-				lastBottomGPS = newBottomGPS;
+			GPSPosition turnGPS = addSwathTurnOff(space, frame, i, sectionCount, swath.across,
+					sections[sectionCount - 1], turnAlong, missionWaypoints);
+			trace.swathTurn(i, forward, lastTurnGPS, turnGPS);
+			lastTurnGPS = turnGPS;
 
-				if(Math.abs(currentTopPoint.distance(currentBottomPoint)) >= Config.minMowingLineDistanceMeters)
-				{
-					//baswell -- begin Add check for obstacles between newBottomGPS and firstLineStopPoint
-					circumventObstaclesBetweenTwoPointsAndAddTheGeneratedPointsToTheMission(
-							space,
-							missionWaypoints,
-							newBottomGPS,
-							firstLineStopPoint,
-							polyObstaclesGPSPositionAreaList);
-					//baswell -- end Add check for obstacles between newTopGPS and firstLineStopPoint
-
-					missionWaypoints.add(firstLineStopPoint);
-
-					if(flatPoints.size() > 0)
-					{
-						for(int x = 0; x < flatPoints.size()-1; x++)
-						{
-							missionWaypoints.add(flatPoints.get(x));
-						}
-						missionWaypoints.add(space.gpsPositionGivenDistanceFromZeroZero(currentTopPoint.x, currentTopPoint.y));
-					}
+			swathRuns.add(new SweepMission.SwathRun(i, swath.across, entryAlong, forward,
+					lastSectionStart, sections[sectionCount - 1], turnAlong,
+					firstWaypoint, missionWaypoints.size() - firstWaypoint));
 
-					//up in the adjustTurnInitiationPoint... method above we do some karate on the last
-					//point (i.e. currentTopPoint) -- so we want add the karateified point
-					//to the missionWaypoints list
-					//missionWaypoints.add(space.gpsPositionGivenDistanceFromZeroZero(currentTopPoint.x, currentTopPoint.y));
-					lastTopGPS = space.gpsPositionGivenDistanceFromZeroZero(currentTopPoint.x, currentTopPoint.y);
-				}
-				
-				lastTopPoint.x = currentTopPoint.x;
-				lastTopPoint.y = currentTopPoint.y;
-				
-				lastBottomPoint.x = currentBottomPoint.x;
-				lastBottomPoint.y = currentBottomPoint.y;
+			if(!addAnotherPathLine)
+			{
+				break;
 			}
 
+			entryAlong = nextEntryAlong;
+			forward = !forward;
 		}
-		
-		return missionWaypoints;
-    }
+		PlannerMetrics.observe(PlannerPhase.SWATH_LOOP, swathLoopNanos);
+		phaseTotals.record();
 
-    public static void main(String[] args)
-    {
-    	MissionBrain mpr = new MissionBrain();
-    	String testWaypointFormatStatic = "11	0	3	16	0	0	0	0	30.563625	-87.678372	100.000000	1";
-    	GPSPosition gps = new GPSPosition();
-    	gps.setLongitude(-87.678372);
-    	gps.setLatitude(30.563625);
-    	String testWaypointFormatDynamic = mpr.buildWaypointString(11, gps);
-    	System.out.println("Waypoint static string:  " + testWaypointFormatStatic);
-    	System.out.println("Waypoint dynamic string: " + testWaypointFormatDynamic);
-    	System.out.println("Waypoing string generator functioning correctly: " + testWaypointFormatDynamic.contentEquals(testWaypointFormatStatic));
+		return sweepMission;
     }
 
 	/**
+	 * Adds the waypoints for one swath -- the point where we turn onto it, the
+	 * boundary transits out to any sections beyond a concave notch, and the
+	 * walks around obstacles -- but not the point where we turn off of it,
+	 * since that depends on the next swath
 	 *
-	 * @param gpsPosition GPS position (in lat,long terms) for this mission --
-	 * this is just a reference point we use when building the mission
-	 * -- so another way of explaining what we're doing is this: we
-	 * we're going to treat the given gpsPosition as being (0,0)
-	 * on our (x,y) map -- and for all other GPS positions, we
-	 * just find the distance between them and this GPS
-	 * position and the x,y components of this
-	 * distance are the x,y values for the
-	 * point on our Cartesian plane. If
-	 * that doesn't make sense it
-	 * is likely that I'm not
-	 * explaining a simple
-	 * idea very well.
-	 *
-	 * @param pos Some other (lat,lng) position that we'd like to build
-	 * an (x, y) position for
+	 * @param addEntryPoint False for the very first swath, where the entry point
+	 * is the mission's start point and has already been added
+	 * @param sections Gets the sections of the swath that got mowed, in travel order
+	 * (the last one is where we turn off of the swath) -- needs room for
+	 * swath.inside.length values
+	 * @param phaseTotals Gets the time spent on look-aheads and obstacles
+	 * @return How many values went into sections -- 0 if the swath didn't
+	 * have anything to mow from entryAlong
 	 */
-	public void setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(GPSPosition gpsPosition, GPSPosition pos)
+	private int addSwathSectionsToMission(GPSCartesianCoordinateSpace space,
+											   SweepFrame frame,
+											   SwathLayout.Swath swath,
+											   double entryAlong,
+											   boolean forward,
+											   boolean addEntryPoint,
+											   List<GPSPosition> missionBoundaryGPSPositionList,
+											   List<GPSPositionArea> polyObstaclesGPSPositionAreaList,
+											   List<GPSPosition> missionWaypoints,
+											   double[] sections,
+											   PhaseTotals phaseTotals)
 	{
-		Geo geo = new Geo();
-		double lngMeters = geo.latLongDistance(gpsPosition.latitude,gpsPosition.longitude,gpsPosition.latitude,pos.longitude);
-		double latMeters = geo.latLongDistance(gpsPosition.latitude,gpsPosition.longitude,pos.latitude,gpsPosition.longitude);
+		int sectionCount = sectionsInTravelOrder(swath.inside, entryAlong, forward, sections);
+		if(sectionCount == 0)
+		{
+			return 0;
+		}
+		GeometryKernel.Scratch scratch = GeometryKernel.scratch();
 
-		if(gpsPosition.latitude > pos.latitude)
-			latMeters*=-1;
+		if(addEntryPoint)
+		{
+			missionWaypoints.add(swathPoint(space, frame, entryAlong, swath.across));
+		}
 
-		if(gpsPosition.longitude > pos.longitude)
-			lngMeters*=-1;
+		for(int s = 0; s < sectionCount; s += 2)
+		{
+			if(s > 0)
+			{
+				//baswell look-beyond-boundary logic -- there's a valid section out
+				//beyond where the boundary had stopped us, so follow the mission
+				//boundary around 'till we get to it
+				long lookAheadStart = System.nanoTime();
+				Object tracingEvent = PlannerEvents.begin(PlannerEvents.Kind.BOUNDARY_TRACING);
+				List<Point2D.Double> pointsAlongBoundary = scratch.points;
+				pointsAlongBoundary.clear();
+				tracePathAlongMissionBoundaryFromOnePointToAnotherPointAddingVerticesOfTheShortestPath(
+						missionBoundaryGPSPositionList,
+						xyPoint(frame, sections[s - 1], swath.across, scratch.from),
+						xyPoint(frame, sections[s], swath.across, scratch.to),
+						pointsAlongBoundary);
+				for(Point2D.Double point : pointsAlongBoundary)
+				{
+					missionWaypoints.add(space.gpsPositionGivenDistanceFromZeroZero(point.x, point.y));
+				}
+				PlannerEvents.commit(tracingEvent);
+				phaseTotals.lookAheadNanos += System.nanoTime() - lookAheadStart;
+				phaseTotals.lookAheads++;
+			}
 
-		pos.x = latMeters;
-		pos.y = lngMeters;
+			long obstacleStart = System.nanoTime();
+			Object obstacleEvent = PlannerEvents.begin(PlannerEvents.Kind.OBSTACLE_CIRCUMVENTION);
+			sections[s + 1] = addObstacleDetoursAlongSection(space, frame, swath, sections[s], sections[s + 1],
+					forward, missionWaypoints, polyObstaclesGPSPositionAreaList, scratch);
+			PlannerEvents.commit(obstacleEvent);
+			phaseTotals.obstacleNanos += System.nanoTime() - obstacleStart;
+			phaseTotals.obstacleCircumventions++;
+
+			if(s < sectionCount - 2)
+			{
+				missionWaypoints.add(swathPoint(space, frame, sections[s + 1], swath.across));
+			}
+		}
+		return sectionCount;
 	}
 
 	/**
+	 * Patch up a mission after one of its obstacles was added, moved, reshaped or
+	 * removed. An obstacle only changes the swaths it sits on (the turn points
+	 * are decided by the mission boundary and the next swath), so as long as
+	 * the obstacle is entirely inside the mission boundary -- both before
+	 * and after the change -- we only redo the swaths it covers and
+	 * splice their waypoints into the old mission. Anything else
+	 * (an obstacle hanging over the boundary can cut a swath
+	 * short and change every swath after it) gets a
+	 * full replan.
 	 *
-	 * @param missionBoundaryGPSPositionList List of coordinates that represent the
-	 * vertices of the polygon that we're building a mission inside of. Just
-	 * so we're on the same page -- this Array must contain at least 3
-	 * points to make sense (i.e. 2 points would be a straight line, 1
-	 * point would be a point, and 0 points is, well, you know..)
-	 *
-	 * @param mowingPathWidthInMeters Distance between waypoints -- for a
-	 * mowing application, for example, this will be slightly less than
-	 * the width of the mowing deck to allow a little overlap
-	 *
-	 * @return List of waypoints which define the mission within the
-	 * polygon. The list is ordered such that the first point will
-	 * be the starting coordinate and the
-	 *
+	 * @param previous Mission built by buildSweepMissionFromLatLngBounds(..)
+	 * @param obstacleIndex Index of the obstacle that changed, or -1 to add a new one
+	 * @param polyObstacleLatLngs The obstacle's new (lat,lng) vertices, or null to remove it
+	 * @return The new mission and the edits that turn the old waypoints into the new ones
 	 */
-	public List<GPSPosition> buildMissionWaypointsFromLatLngBoundsJSONArray(
-			List<GPSPosition> missionBoundaryGPSPositionList,
-			List<List<GPSPosition>> polyObstaclesGPSPositionList,
-			Double mowingPathWidthInMeters,
-			GPSPosition startGPSPositionUnchecked,
-			Double heading)
+	public MissionReplan replanMissionAfterObstacleChange(SweepMission previous,
+														  int obstacleIndex,
+														  List<GPSPosition> polyObstacleLatLngs)
 	{
-		//Now figure out if the startLatLng is within the mission polygon -- if it is
-		//then that will be the mission starting point -- if it's not then
-		//find the nearest vertex on the mission polygon to the point
-		//and set the point's LatLng to that vertex -- in
-		//other words we'll begin building the
-		//mission at that vertex
+		PlannerEvents.describeField(previous.missionBoundary.size(), previous.polyObstacles.size(),
+				previous.mowingPathWidthInMeters, previous.headingDegrees);
 
-		//Just to have somewhere to start, let's call the (x,y) coordinate of
-		//our startGPSPositionUnchecked point (0,0)
-		startGPSPositionUnchecked.x = 0;
-		startGPSPositionUnchecked.y = 0;
+		//Put the obstacle in the same (x,y) space the mission was built in
+		List<GPSPosition> changedObstacle = null;
+		if(polyObstacleLatLngs != null)
+		{
+			changedObstacle = new ArrayList<>();
+			for(GPSPosition latLng : polyObstacleLatLngs)
+			{
+				GPSPosition position = new GPSPosition(latLng.latitude, latLng.longitude);
+				setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(previous.projectionOrigin, position);
+				position.x -= previous.offsetX;
+				position.y -= previous.offsetY;
+				changedObstacle.add(position);
+			}
+		}
 
-		//In this loop we find the distance from the startGPSPositionUnchecked to every vertex
-		//on the mission boundary and we set the (x,y) coordinates of those points
-		//as their (x,y) distance from startGPSPositionUnchecked
-		for(int x = 0; x < missionBoundaryGPSPositionList.size(); x++)
+		List<GPSPosition> originalObstacle = obstacleIndex >= 0 ? previous.polyObstacles.get(obstacleIndex) : null;
+		List<List<GPSPosition>> polyObstacles = new ArrayList<>(previous.polyObstacles);
+		if(obstacleIndex < 0)
 		{
-			setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(
-					startGPSPositionUnchecked, missionBoundaryGPSPositionList.get(x));
+			polyObstacles.add(changedObstacle);
+		}
+		else if(changedObstacle == null)
+		{
+			polyObstacles.remove(obstacleIndex);
+		}
+		else
+		{
+			polyObstacles.set(obstacleIndex, changedObstacle);
 		}
 
-		GPSPosition startGPSPosition = getClosestPolygonVertexIfPointNotWithinPolygon(startGPSPositionUnchecked, missionBoundaryGPSPositionList);
+		Path2D.Double missionBoundary = missionBoundary(previous.missionBoundary);
+		if(previous.swathRuns.isEmpty()
+				|| !isObstacleInsideMissionBoundary(originalObstacle, missionBoundary, previous.missionBoundary)
+				|| !isObstacleInsideMissionBoundary(changedObstacle, missionBoundary, previous.missionBoundary))
+		{
+			return fullReplan(previous, polyObstacles);
+		}
 
-		//If the start point wasn't within the mission boundary polygon (and we thus
-		//obtained a startGPSPosition point that's equal to the closest
-		//vertex to startGPSPositionUnchecked), then we'll rearrange
-		//the mission boundary list to put that vertex at the
-		//beginning and then we'll call that vertex (0,0)
-		//and set the (x,y) coordinates of the other
-		//vertices as their distance from the
-		//startGPSPosition vertex -- at
-		//some point there was a reason
-		//for this logic but I'm really
-		//not sure if it's still needed
-		if(startGPSPosition.compareTo(startGPSPositionUnchecked) != 0)
+		//Any swath within half a swath width of the obstacle (in its old or
+		//new spot) could have changed
+		SweepFrame frame = previous.frame;
+		double minAcross = Double.MAX_VALUE;
+		double maxAcross = -Double.MAX_VALUE;
+		for(List<GPSPosition> obstacle : Arrays.asList(originalObstacle, changedObstacle))
 		{
-			//If startGPSPosition is one of the mission boundary polygon vertices,
-			//this moves it to the beginning of the list
-			moveStartGPSPositionToBeginningOfList(missionBoundaryGPSPositionList, startGPSPosition);
+			if(obstacle == null)
+			{
+				continue;
+			}
+			for(GPSPosition position : obstacle)
+			{
+				double across = frame.across(position.x, position.y);
+				minAcross = Math.min(minAcross, across);
+				maxAcross = Math.max(maxAcross, across);
+			}
+		}
+		minAcross -= previous.mowingPathWidthInMeters / 2;
+		maxAcross += previous.mowingPathWidthInMeters / 2;
 
-			startGPSPosition.x = missionBoundaryGPSPositionList.get(0).x = 0;
-			startGPSPosition.y = missionBoundaryGPSPositionList.get(0).y = 0;
+		SweepPolygon boundary = new SweepPolygon(previous.missionBoundary, frame);
+		List<SweepPolygon> obstacles = new ArrayList<>();
+		List<GPSPositionArea> polyObstaclesGPSPositionAreaList = new ArrayList<>();
+		for(List<GPSPosition> obstacle : polyObstacles)
+		{
+			obstacles.add(new SweepPolygon(obstacle, frame));
+			polyObstaclesGPSPositionAreaList.add(new GPSPositionArea(obstacle));
+		}
 
-			for(int x = 1; x < missionBoundaryGPSPositionList.size(); x++)
+		//Redo the affected swaths -- each one is entered, driven and left exactly
+		//like before, only what happens in between can change
+		List<MissionReplan.Edit> edits = new ArrayList<>();
+		List<SweepMission.SwathRun> swathRuns = new ArrayList<>();
+		PhaseTotals phaseTotals = new PhaseTotals();
+		int shift = 0;
+		for(SweepMission.SwathRun run : previous.swathRuns)
+		{
+			if(run.across < minAcross || run.across > maxAcross)
 			{
-				setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(
-						startGPSPosition, missionBoundaryGPSPositionList.get(x));
+				swathRuns.add(run.movedTo(run.firstWaypoint + shift, run.waypointCount));
+				continue;
 			}
 
-			for(List<GPSPosition> obstacleGPSPositionList: polyObstaclesGPSPositionList)
+			SwathLayout.Swath swath = SwathLayout.Swath.compute(boundary, obstacles, run.across);
+			List<GPSPosition> replacement = new ArrayList<>();
+			double[] sections = GeometryKernel.scratch().doubles(swath.inside.length);
+			int sectionCount = addSwathSectionsToMission(previous.space, frame, swath, run.entryAlong, run.forward,
+					run.swath > 0, previous.missionBoundary, polyObstaclesGPSPositionAreaList, replacement, sections,
+					phaseTotals);
+
+			//The obstacle's inside the boundary so this shouldn't happen, but if
+			//the swath now ends somewhere else then every turn after it is stale
+			if(sectionCount == 0
+					|| sections[sectionCount - 2] != run.lastSectionStart
+					|| sections[sectionCount - 1] != run.lastSectionEnd)
 			{
-				for(int x = 0; x < obstacleGPSPositionList.size(); x++)
-				{
-					setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(
-							startGPSPosition, obstacleGPSPositionList.get(x));
-				}
+				phaseTotals.record();
+				return fullReplan(previous, polyObstacles);
 			}
+			addSwathTurnOff(previous.space, frame, run.swath, sectionCount, run.across,
+					run.lastSectionEnd, run.turnAlong, replacement);
+
+			edits.add(new MissionReplan.Edit(run.firstWaypoint, run.waypointCount, replacement));
+			swathRuns.add(run.movedTo(run.firstWaypoint + shift, replacement.size()));
+			shift += replacement.size() - run.waypointCount;
 		}
-		else
+		phaseTotals.record();
+
+		List<GPSPosition> missionWaypoints = new ArrayList<>();
+		int copiedThrough = 0;
+		for(MissionReplan.Edit edit : edits)
 		{
-			for(List<GPSPosition> obstacleGPSPositionList: polyObstaclesGPSPositionList)
-			{
-				for(int x = 0; x < obstacleGPSPositionList.size(); x++)
-				{
-					setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(
-							startGPSPositionUnchecked, obstacleGPSPositionList.get(x));
-				}
-			}
+			missionWaypoints.addAll(previous.waypoints.subList(copiedThrough, edit.start));
+			missionWaypoints.addAll(edit.insert);
+			copiedThrough = edit.start + edit.deleteCount;
 		}
+		missionWaypoints.addAll(previous.waypoints.subList(copiedThrough, previous.waypoints.size()));
 
-		//Note that we've gotta have at least 3 coordinates in order for any of
-		//this logic to make sense (i.e. if you've only got 2 points
-		//then you've got a line, which doesn't have area and
-		//won't contain waypoints by definition)
+		SweepMission mission = new SweepMission(missionWaypoints, swathRuns, previous.missionBoundary, polyObstacles,
+				previous.space, frame, previous.mowingPathWidthInMeters, previous.headingDegrees,
+				previous.offsetX, previous.offsetY, previous.startLatLng, previous.projectionOrigin);
+		return new MissionReplan(mission, edits, true);
+	}
 
-		List<GPSPosition> waypoints = this.buildMissionWaypoints(
-				missionBoundaryGPSPositionList, mowingPathWidthInMeters, heading,
-				startGPSPosition, polyObstaclesGPSPositionList);
+	/**
+	 * Rebuild the whole mission with the given obstacles (prepareField(..) works
+	 * from (lat,lng) copies, so it doesn't matter that building the old
+	 * mission shifted the (x,y) values around)
+	 */
+	private MissionReplan fullReplan(SweepMission previous, List<List<GPSPosition>> polyObstacles)
+	{
+		SweepMission mission = buildSweepMissionFromLatLngBounds(previous.missionBoundary, polyObstacles,
+				previous.mowingPathWidthInMeters, previous.startLatLng, previous.headingDegrees);
 
-		System.out.println("Now we've built those beautiful cartesian positions...");
-		return waypoints;
+		List<MissionReplan.Edit> edits = new ArrayList<>();
+		edits.add(new MissionReplan.Edit(0, previous.waypoints.size(), mission.waypoints));
+		return new MissionReplan(mission, edits, false);
+	}
+
+	/**
+	 * @return True if every vertex of the obstacle is inside the mission boundary
+	 * and none of its edges cross the boundary (a null obstacle, i.e. one
+	 * that doesn't exist, is trivially inside)
+	 */
+	private boolean isObstacleInsideMissionBoundary(List<GPSPosition> obstacle,
+													Path2D.Double missionBoundary,
+													List<GPSPosition> missionBoundaryGPSPositionList)
+	{
+		if(obstacle == null)
+		{
+			return true;
+		}
+		for(int x = 0; x < obstacle.size(); x++)
+		{
+			GPSPosition point1 = obstacle.get(x);
+			GPSPosition point2 = obstacle.get((x + 1) % obstacle.size());
+			if(!missionBoundary.contains(point1)
+					|| lineIntersectsPolygonEdge(new Line2D.Double(point1, point2), missionBoundaryGPSPositionList))
+			{
+				PlannerMetrics.countContainmentChecks(x + 1);
+				return false;
+			}
+		}
+		PlannerMetrics.countContainmentChecks(obstacle.size());
+		return true;
+	}
+
+	/**
+	 * @return Index of the (start, end) pair that contains the along value
+	 * (give or take a millimeter) or -1 if none of them do
+	 */
+	private int intervalContaining(double[] intervals, double along)
+	{
+		for(int x = 0; x < intervals.length; x += 2)
+		{
+			if(along >= intervals[x] - .001 && along <= intervals[x + 1] + .001)
+			{
+				return x / 2;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Starting at entryAlong and travelling along the swath (forward means in the
+	 * direction of the heading), list the sections we'll mow. The first one
+	 * runs from the entry point to the boundary, and any further ones are
+	 * the valid sections out beyond the boundary on the same heading
+	 * (i.e. the look-ahead logic).
+	 *
+	 * These don't go through the TransitOrderer: they're all on one line, so
+	 * travel order is already the shortest way through them, and a
+	 * SweepMission.SwathRun counts on each swath's waypoints being one
+	 * run. Reordering across swaths is what PlanningMode.CELLS is for.
+	 *
+	 * @param sections Gets the (from, to) pairs in the order we'll mow them -- from/to
+	 * are in travel order, so for !forward "from" is the larger value
+	 * @return How many values went into sections
+	 */
+	private int sectionsInTravelOrder(double[] inside, double entryAlong, boolean forward, double[] sections)
+	{
+		int entryInterval = intervalContaining(inside, entryAlong);
+		if(entryInterval < 0)
+		{
+			return 0;
+		}
+
+		int count = 0;
+		sections[count++] = entryAlong;
+		sections[count++] = forward ? inside[2 * entryInterval + 1] : inside[2 * entryInterval];
+
+		int pairs = inside.length / 2;
+		for(int j = forward ? entryInterval + 1 : entryInterval - 1; j >= 0 && j < pairs; j += forward ? 1 : -1)
+		{
+			if(inside[2 * j + 1] - inside[2 * j] >= options.minMowingLineDistanceMeters)
+			{
+				sections[count++] = forward ? inside[2 * j] : inside[2 * j + 1];
+				sections[count++] = forward ? inside[2 * j + 1] : inside[2 * j];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Walk around every obstacle that the swath runs into between from and to.
+	 * Adds the perimeter points of each detour to missionWaypoints (but not
+	 * the "to" point itself).
+	 *
+	 * @return The along value where the section really ends -- normally that's
+	 * "to" but if an obstacle hangs over the mission boundary we stop at
+	 * the obstacle rather than mowing through it
+	 */
+	private double addObstacleDetoursAlongSection(GPSCartesianCoordinateSpace space,
+												  SweepFrame frame,
+												  SwathLayout.Swath swath,
+												  double from,
+												  double to,
+												  boolean forward,
+												  List<GPSPosition> missionWaypoints,
+												  List<GPSPositionArea> polyObstaclesGPSPositionAreaList,
+												  GeometryKernel.Scratch scratch)
+	{
+		int clipCount = swath.clipObstacles.length;
+		double position = from;
+
+		for(int n = 0; n < clipCount; n++)
+		{
+			int c = forward ? n : clipCount - 1 - n;
+			double obstacleEntry = forward ? swath.clips[2 * c] : swath.clips[2 * c + 1];
+			double obstacleExit = forward ? swath.clips[2 * c + 1] : swath.clips[2 * c];
+
+			boolean entryAfterPosition = forward ? obstacleEntry > position : obstacleEntry < position;
+			boolean entryBeforeEnd = forward ? obstacleEntry < to : obstacleEntry > to;
+			if(!entryAfterPosition || !entryBeforeEnd)
+			{
+				continue;
+			}
+
+			boolean exitBeforeEnd = forward ? obstacleExit < to : obstacleExit > to;
+			if(!exitBeforeEnd)
+			{
+				return obstacleEntry;
+			}
+
+			if(!options.obstacleDetours)
+			{
+				//Previewing -- straight through it
+				position = obstacleExit;
+				continue;
+			}
+
+			List<Point2D.Double> pointsAroundObstacle = scratch.points;
+			pointsAroundObstacle.clear();
+			Point2D.Double obstacleStartPoint = xyPoint(frame, obstacleEntry, swath.across, scratch.from);
+			pointsAroundObstacle.add(obstacleStartPoint);
+			tracePathAlongMissionBoundaryFromOnePointToAnotherPointAddingVerticesOfTheShortestPath(
+					polyObstaclesGPSPositionAreaList.get(swath.clipObstacles[c]).positions,
+					obstacleStartPoint,
+					xyPoint(frame, obstacleExit, swath.across, scratch.to),
+					pointsAroundObstacle);
+
+			for(Point2D.Double point : pointsAroundObstacle)
+			{
+				missionWaypoints.add(space.gpsPositionGivenDistanceFromZeroZero(point.x, point.y));
+			}
+			position = obstacleExit;
+		}
+		return to;
+	}
+
+	/**
+	 * The analytic version of the old pull-the-turn-point-back-a-centimeter-at-a-time
+	 * logic: find the point closest to turnAlong (but no further than it) where
+	 * stepping over to the next swath lands inside the boundary. It lands
+	 * right on the boundary where the old loop stopped up to a centimeter
+	 * inside it.
+	 *
+	 * @return Adjusted turn along value, or NaN if the next swath doesn't overlap
+	 * this section at all
+	 */
+	private double turnAlongSoThatNextSwathIsWithinBoundary(double[] nextInside,
+															 double sectionStart,
+															 double turnAlong,
+															 boolean forward)
+	{
+		double best = Double.NaN;
+		for(int x = 0; x < nextInside.length; x += 2)
+		{
+			double start = nextInside[x];
+			double end = nextInside[x + 1];
+			if(forward && start <= turnAlong && end >= sectionStart)
+			{
+				double candidate = Math.min(turnAlong, end);
+				if(Double.isNaN(best) || candidate > best)
+				{
+					best = candidate;
+				}
+			}
+			else if(!forward && end >= turnAlong && start <= sectionStart)
+			{
+				double candidate = Math.max(turnAlong, start);
+				if(Double.isNaN(best) || candidate < best)
+				{
+					best = candidate;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * The old stepping loop pulled the turn point back so that the next swath
+	 * started inside the boundary, but (after the first swath) only moved
+	 * the turn itself when there were look-ahead sections -- otherwise it
+	 * kept the waypoint at the boundary and cut across from there
+	 */
+	private boolean mowsToBoundaryBeforeTurning(int swathIndex, int sectionCount)
+	{
+		return swathIndex > 0 && sectionCount == 2;
+	}
+
+	/**
+	 * Adds the point where we turn off of a swath. When we mow to the boundary
+	 * first but cutting across from there would leave the field (e.g. the
+	 * next swath stops short at a notch) we come back along the swath to
+	 * turnAlong before turning, rather than skip the end of the swath.
+	 *
+	 * @return The turn point
+	 */
+	private GPSPosition addSwathTurnOff(GPSCartesianCoordinateSpace space,
+										SweepFrame frame,
+										int swathIndex,
+										int sectionCount,
+										double across,
+										double sectionEnd,
+										double turnAlong,
+										List<GPSPosition> missionWaypoints)
+	{
+		if(mowsToBoundaryBeforeTurning(swathIndex, sectionCount) && turnAlong != sectionEnd)
+		{
+			missionWaypoints.add(swathPoint(space, frame, sectionEnd, across));
+		}
+		GPSPosition turnGPS = swathPoint(space, frame, turnAlong, across);
+		missionWaypoints.add(turnGPS);
+		return turnGPS;
+	}
+
+	/**
+	 * Does the straight line from one swath's turn point to the next swath's
+	 * start stay inside the boundary? Both ends are on (or inside) the
+	 * boundary and the inside intervals only bend at the boundary's
+	 * vertices, so it's enough to check the line where it passes each
+	 * vertex in between (just above and just below it).
+	 */
+	private boolean turnStaysInsideBoundary(SweepPolygon boundary,
+											double fromAlong,
+											double fromAcross,
+											double toAlong,
+											double toAcross)
+	{
+		double lowAcross = Math.min(fromAcross, toAcross);
+		double highAcross = Math.max(fromAcross, toAcross);
+		for(int v = 0; v < boundary.size(); v++)
+		{
+			double vertexAcross = boundary.across[v];
+			if(vertexAcross <= lowAcross || vertexAcross >= highAcross)
+			{
+				continue;
+			}
+			if(!lineInsideBoundaryAt(boundary, fromAlong, fromAcross, toAlong, toAcross, vertexAcross)
+					|| !lineInsideBoundaryAt(boundary, fromAlong, fromAcross, toAlong, toAcross, vertexAcross - 1e-7))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean lineInsideBoundaryAt(SweepPolygon boundary,
+										 double fromAlong,
+										 double fromAcross,
+										 double toAlong,
+										 double toAcross,
+										 double across)
+	{
+		double along = fromAlong + (toAlong - fromAlong) * (across - fromAcross) / (toAcross - fromAcross);
+		return intervalContaining(boundary.insideIntervals(across), along) >= 0;
+	}
+
+	private Point2D.Double xyPoint(SweepFrame frame, double along, double across, Point2D.Double out)
+	{
+		out.x = frame.x(along, across);
+		out.y = frame.y(along, across);
+		return out;
+	}
+
+	private GPSPosition swathPoint(GPSCartesianCoordinateSpace space, SweepFrame frame, double along, double across)
+	{
+		return space.gpsPositionGivenDistanceFromZeroZero(frame.x(along, across), frame.y(along, across));
+	}
+
+	/**
+	 * Alternative to buildMissionWaypoints(..) that splits the mission boundary
+	 * minus the obstacles into boustrophedon cells (see BoustrophedonCellPlanner),
+	 * plans every cell's swaths on the PlannerPool and then stitches the cells
+	 * together. Since obstacles are carved out of the cells up front, the
+	 * only detours left are the transits from one cell to the next.
+	 *
+	 * @param missionBoundaryGPSPositionList
+	 * @param mowingPathWidthInMeters
+	 * @param headingDegrees
+	 * @param startGPSPosition
+	 * @param polyObstaclesGPSPositionList
+	 * @return
+	 */
+	public List<GPSPosition> buildCellDecomposedMissionWaypoints(List<GPSPosition> missionBoundaryGPSPositionList,
+																 Double mowingPathWidthInMeters,
+																 Double headingDegrees,
+																 GPSPosition startGPSPosition,
+																 List<List<GPSPosition>> polyObstaclesGPSPositionList)
+	{
+		PlannerEvents.describeField(missionBoundaryGPSPositionList.size(), polyObstaclesGPSPositionList.size(),
+				mowingPathWidthInMeters, headingDegrees);
+		Object missionBuildEvent = PlannerEvents.begin(PlannerEvents.Kind.MISSION_BUILD);
+		try
+		{
+			return planCellDecomposedMission(missionBoundaryGPSPositionList, mowingPathWidthInMeters, headingDegrees,
+					startGPSPosition, polyObstaclesGPSPositionList);
+		}
+		finally
+		{
+			PlannerEvents.commit(missionBuildEvent);
+		}
+	}
+
+	private List<GPSPosition> planCellDecomposedMission(List<GPSPosition> missionBoundaryGPSPositionList,
+														double mowingPathWidthInMeters,
+														double headingDegrees,
+														GPSPosition startGPSPosition,
+														List<List<GPSPosition>> polyObstaclesGPSPositionList)
+	{
+		double[] minXandMinY = scaleMinXAndMinYToZero(missionBoundaryGPSPositionList, polyObstaclesGPSPositionList);
+
+		startGPSPosition.x -= minXandMinY[0];
+		startGPSPosition.y -= minXandMinY[1];
+
+		List<GPSPositionArea> polyObstaclesGPSPositionAreaList = new ArrayList<>();
+		for(List<GPSPosition> polyObstaclesGPSPositions : polyObstaclesGPSPositionList)
+		{
+			polyObstaclesGPSPositionAreaList.add(new GPSPositionArea(polyObstaclesGPSPositions));
+		}
+
+		GPSCartesianCoordinateSpace space = new GPSCartesianCoordinateSpace(missionBoundaryGPSPositionList.get(1));
+		Path2D.Double missionBoundary = missionBoundary(missionBoundaryGPSPositionList);
+
+		SweepFrame frame = new SweepFrame(Math.toRadians(headingDegrees));
+		SweepPolygon boundary = new SweepPolygon(missionBoundaryGPSPositionList, frame);
+		List<SweepPolygon> obstacles = new ArrayList<>();
+		for(List<GPSPosition> polyObstaclesGPSPositions : polyObstaclesGPSPositionList)
+		{
+			obstacles.add(new SweepPolygon(polyObstaclesGPSPositions, frame));
+		}
+
+		BoustrophedonCellPlanner planner = new BoustrophedonCellPlanner(
+				frame, boundary, obstacles, mowingPathWidthInMeters, options.minMowingLineDistanceMeters,
+				options.transitOrderingMaxMoves, options.transitOrderingBudgetMillis);
+		long cellPlanningNanos = PlannerMetrics.startPhase(PlannerPhase.CELL_PLANNING);
+		Object swathEvent = PlannerEvents.begin(PlannerEvents.Kind.SWATH_GENERATION);
+		List<List<Point2D.Double>> cellPaths = planner.plan(startGPSPosition);
+		PlannerEvents.commit(swathEvent);
+		PlannerMetrics.observe(PlannerPhase.CELL_PLANNING, cellPlanningNanos);
+		for(List<Point2D.Double> cellPath : cellPaths)
+		{
+			//every swath in a cell is a start point and an end point
+			PlannerMetrics.countSwaths(cellPath.size() / 2);
+		}
+
+		List<GPSPosition> missionWaypoints = new ArrayList<>();
+		missionWaypoints.add(space.gpsPositionGivenDistanceFromZeroZero(startGPSPosition.x, startGPSPosition.y));
+
+		Point2D.Double lastPoint = new Point2D.Double(startGPSPosition.x, startGPSPosition.y);
+		PhaseTotals phaseTotals = new PhaseTotals();
+		for(List<Point2D.Double> cellPath : cellPaths)
+		{
+			addTransitPointsBetweenCells(space, missionWaypoints, lastPoint, cellPath.get(0), missionBoundary,
+					missionBoundaryGPSPositionList, polyObstaclesGPSPositionAreaList, phaseTotals);
+
+			for(int x = 0; x < cellPath.size(); x++)
+			{
+				//the links from one swath to the next can cut across a corner of
+				//the mission too (e.g. when short swaths got dropped in between)
+				if(x > 0 && x % 2 == 0)
+				{
+					addTransitPointsBetweenCells(space, missionWaypoints, cellPath.get(x - 1), cellPath.get(x), missionBoundary,
+							missionBoundaryGPSPositionList, polyObstaclesGPSPositionAreaList, phaseTotals);
+				}
+				Point2D.Double point = cellPath.get(x);
+				missionWaypoints.add(space.gpsPositionGivenDistanceFromZeroZero(point.x, point.y));
+			}
+			lastPoint = cellPath.get(cellPath.size() - 1);
+		}
+		phaseTotals.record();
+
+		return missionWaypoints;
+	}
+
+	/**
+	 * Get from the end of one cell (or swath) to the start of the next one. If the straight
+	 * line between them stays inside the mission we don't need to add anything
+	 * (the caller adds the next cell's first point). Otherwise we follow the
+	 * mission perimeter when both points are on it, and walk around any
+	 * obstacles in the way when they're not -- unless the walk around them
+	 * (or when previewing, the straight line) leaves the mission, in which
+	 * case we go out to the perimeter and follow that instead.
+	 */
+	private void addTransitPointsBetweenCells(GPSCartesianCoordinateSpace space,
+											  List<GPSPosition> missionWaypoints,
+											  Point2D.Double from,
+											  Point2D.Double to,
+											  Path2D.Double missionBoundary,
+											  List<GPSPosition> missionBoundaryGPSPositionList,
+											  List<GPSPositionArea> polyObstaclesGPSPositionAreaList,
+											  PhaseTotals phaseTotals)
+	{
+		if(from.distance(to) == 0
+				|| (!transitCrossesAnyEdge(from, to, missionBoundaryGPSPositionList, polyObstaclesGPSPositionAreaList)
+					&& !transitRunsOutsideMission(from, to, missionBoundary, missionBoundaryGPSPositionList, polyObstaclesGPSPositionAreaList)))
+		{
+			return;
+		}
+
+		if(isOnPolygonPerimeter(from, missionBoundaryGPSPositionList) && isOnPolygonPerimeter(to, missionBoundaryGPSPositionList))
+		{
+			Object tracingEvent = PlannerEvents.begin(PlannerEvents.Kind.BOUNDARY_TRACING);
+			List<Point2D.Double> perimeterPath = new ArrayList<>();
+			tracePathAlongMissionBoundaryFromOnePointToAnotherPointAddingVerticesOfTheShortestPath(
+					missionBoundaryGPSPositionList, from, to, perimeterPath);
+			PlannerEvents.commit(tracingEvent);
+
+			//the trace always ends with "to" -- which is the first point of the
+			//next cell, so the caller is already going to add it
+			for(int x = 0; x < perimeterPath.size() - 1; x++)
+			{
+				Point2D.Double point = perimeterPath.get(x);
+				missionWaypoints.add(space.gpsPositionGivenDistanceFromZeroZero(point.x, point.y));
+			}
+		}
+		else
+		{
+			int firstDetourPoint = missionWaypoints.size();
+			if(options.obstacleDetours)
+			{
+				long obstacleStart = System.nanoTime();
+				Object obstacleEvent = PlannerEvents.begin(PlannerEvents.Kind.OBSTACLE_CIRCUMVENTION);
+				circumventObstaclesBetweenTwoPointsAndAddTheGeneratedPointsToTheMission(
+						space,
+						missionWaypoints,
+						space.gpsPositionGivenDistanceFromZeroZero(from.x, from.y),
+						space.gpsPositionGivenDistanceFromZeroZero(to.x, to.y),
+						polyObstaclesGPSPositionAreaList);
+				PlannerEvents.commit(obstacleEvent);
+				phaseTotals.obstacleNanos += System.nanoTime() - obstacleStart;
+				phaseTotals.obstacleCircumventions++;
+			}
+
+			//The obstacle walk doesn't know about the mission boundary (e.g. the next
+			//cell is across a concave notch), so make sure we're still inside it
+			List<GPSPosition> detour = missionWaypoints.subList(firstDetourPoint, missionWaypoints.size());
+			if(pathCrossesMissionBoundary(from, detour, to, missionBoundary, missionBoundaryGPSPositionList))
+			{
+				detour.clear();
+				addTransitAlongMissionBoundary(space, missionWaypoints, from, to, missionBoundaryGPSPositionList);
+			}
+		}
+	}
+
+	/**
+	 * Go from "from" straight out to the closest point on the mission
+	 * perimeter, follow the perimeter around to the point on it that's
+	 * closest to "to", and then straight in (the caller adds "to" itself)
+	 */
+	private void addTransitAlongMissionBoundary(GPSCartesianCoordinateSpace space,
+												List<GPSPosition> missionWaypoints,
+												Point2D.Double from,
+												Point2D.Double to,
+												List<GPSPosition> missionBoundaryGPSPositionList)
+	{
+		Point2D.Double fromEdge = closestPointOnPolygonPerimeter(from, missionBoundaryGPSPositionList);
+		Point2D.Double toEdge = closestPointOnPolygonPerimeter(to, missionBoundaryGPSPositionList);
+
+		Object tracingEvent = PlannerEvents.begin(PlannerEvents.Kind.BOUNDARY_TRACING);
+		List<Point2D.Double> perimeterPath = new ArrayList<>();
+		perimeterPath.add(fromEdge);
+		tracePathAlongMissionBoundaryFromOnePointToAnotherPointAddingVerticesOfTheShortestPath(
+				missionBoundaryGPSPositionList, fromEdge, toEdge, perimeterPath);
+		PlannerEvents.commit(tracingEvent);
+
+		//the trace ends with toEdge -- leave it off if it's "to" itself, since the
+		//caller is already going to add that
+		int end = toEdge.distance(to) <= .01 ? perimeterPath.size() - 1 : perimeterPath.size();
+		for(int x = fromEdge.distance(from) <= .01 ? 1 : 0; x < end; x++)
+		{
+			Point2D.Double point = perimeterPath.get(x);
+			missionWaypoints.add(space.gpsPositionGivenDistanceFromZeroZero(point.x, point.y));
+		}
+	}
+
+	/**
+	 * @return True if any leg of from -> through... -> to crosses the mission
+	 * boundary (legs are pulled in a centimeter at each end, the same as
+	 * transitCrossesAnyEdge(..), since their ends can sit right on an edge)
+	 * or runs along the outside of it
+	 */
+	private boolean pathCrossesMissionBoundary(Point2D.Double from,
+											   List<GPSPosition> through,
+											   Point2D.Double to,
+											   Path2D.Double missionBoundary,
+											   List<GPSPosition> missionBoundaryGPSPositionList)
+	{
+		Point2D.Double normCM = GeometryKernel.scratch().norm;
+		Line2D.Double leg = new Line2D.Double();
+		Point2D.Double legStart = from;
+		for(int x = 0; x <= through.size(); x++)
+		{
+			Point2D.Double legEnd = x < through.size() ? through.get(x) : to;
+			if(legStart.distance(legEnd) > .02)
+			{
+				GeometryKernel.parallelNorm(legStart.x, legStart.y, legEnd.x, legEnd.y, 0.01, normCM);
+				leg.setLine(legStart.x + normCM.x, legStart.y + normCM.y, legEnd.x - normCM.x, legEnd.y - normCM.y);
+				if(lineIntersectsPolygonEdge(leg, missionBoundaryGPSPositionList)
+						|| transitRunsOutsideMission(legStart, legEnd, missionBoundary, missionBoundaryGPSPositionList,
+							Collections.<GPSPositionArea>emptyList()))
+				{
+					return true;
+				}
+			}
+			legStart = legEnd;
+		}
+		return false;
+	}
+
+	private Point2D.Double closestPointOnPolygonPerimeter(Point2D.Double point, List<GPSPosition> polygon)
+	{
+		Point2D.Double closest = new Point2D.Double();
+		double closestDistance = Double.MAX_VALUE;
+		for(int x = 0; x < polygon.size(); x++)
+		{
+			GPSPosition edgeStart = polygon.get(x);
+			GPSPosition edgeEnd = polygon.get(x == polygon.size() - 1 ? 0 : x + 1);
+			double dx = edgeEnd.x - edgeStart.x;
+			double dy = edgeEnd.y - edgeStart.y;
+			double lengthSquared = dx * dx + dy * dy;
+			double t = lengthSquared == 0 ? 0
+					: Math.max(0, Math.min(1, ((point.x - edgeStart.x) * dx + (point.y - edgeStart.y) * dy) / lengthSquared));
+			double candidateX = edgeStart.x + t * dx;
+			double candidateY = edgeStart.y + t * dy;
+			double distance = point.distance(candidateX, candidateY);
+			if(distance < closestDistance)
+			{
+				closestDistance = distance;
+				closest.setLocation(candidateX, candidateY);
+			}
+		}
+		return closest;
+	}
+
+	/**
+	 * Cell entry/exit points sit right on an edge, so we pull both ends of the
+	 * transit in by a centimeter before checking it against the edges
+	 */
+	private boolean transitCrossesAnyEdge(Point2D.Double from,
+										  Point2D.Double to,
+										  List<GPSPosition> missionBoundaryGPSPositionList,
+										  List<GPSPositionArea> polyObstaclesGPSPositionAreaList)
+	{
+		Point2D.Double normCM = GeometryKernel.parallelNorm(from.x, from.y, to.x, to.y, 0.01,
+				GeometryKernel.scratch().norm);
+		Line2D.Double transit = new Line2D.Double(
+				from.x + normCM.x, from.y + normCM.y, to.x - normCM.x, to.y - normCM.y);
+
+		if(lineIntersectsPolygonEdge(transit, missionBoundaryGPSPositionList))
+		{
+			return true;
+		}
+		for(GPSPositionArea obstacle : polyObstaclesGPSPositionAreaList)
+		{
+			if(lineIntersectsPolygonEdge(transit, obstacle.positions))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A transit that doesn't cross any edge is either all inside the mission or
+	 * all outside it (e.g. straight across a notch from one side of it to the
+	 * other), so its midpoint settles which. A midpoint right on an edge means
+	 * the transit runs along that edge, which is fine.
+	 */
+	private boolean transitRunsOutsideMission(Point2D.Double from,
+											  Point2D.Double to,
+											  Path2D.Double missionBoundary,
+											  List<GPSPosition> missionBoundaryGPSPositionList,
+											  List<GPSPositionArea> polyObstaclesGPSPositionAreaList)
+	{
+		Point2D.Double midpoint = new Point2D.Double((from.x + to.x) / 2, (from.y + to.y) / 2);
+		if(!missionBoundary.contains(midpoint) && !isOnPolygonPerimeter(midpoint, missionBoundaryGPSPositionList))
+		{
+			return true;
+		}
+		for(GPSPositionArea obstacle : polyObstaclesGPSPositionAreaList)
+		{
+			if(obstacle.contains(midpoint) && !isOnPolygonPerimeter(midpoint, obstacle.positions))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean lineIntersectsPolygonEdge(Line2D.Double line, List<GPSPosition> polygon)
+	{
+		for(int x = 0; x < polygon.size(); x++)
+		{
+			GPSPosition edgeStart = polygon.get(x);
+			GPSPosition edgeEnd = polygon.get(x == polygon.size() - 1 ? 0 : x + 1);
+			if(line.intersectsLine(edgeStart.x, edgeStart.y, edgeEnd.x, edgeEnd.y))
+			{
+				PlannerMetrics.countObstacleIntersectionTests(x + 1);
+				return true;
+			}
+		}
+		PlannerMetrics.countObstacleIntersectionTests(polygon.size());
+		return false;
+	}
+
+	private boolean isOnPolygonPerimeter(Point2D.Double point, List<GPSPosition> polygon)
+	{
+		for(int x = 0; x < polygon.size(); x++)
+		{
+			GPSPosition edgeStart = polygon.get(x);
+			GPSPosition edgeEnd = polygon.get(x == polygon.size() - 1 ? 0 : x + 1);
+			if(Line2D.ptSegDist(edgeStart.x, edgeStart.y, edgeEnd.x, edgeEnd.y, point.x, point.y) <= .01)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+    public static void main(String[] args)
+    {
+    	MissionBrain mpr = new MissionBrain();
+    	String testWaypointFormatStatic = "11	0	3	16	0	0	0	0	30.563625	-87.678372	100.000000	1";
+    	GPSPosition gps = new GPSPosition();
+    	gps.setLongitude(-87.678372);
+    	gps.setLatitude(30.563625);
+    	String testWaypointFormatDynamic = mpr.buildWaypointString(11, gps);
+    	System.out.println("Waypoint static string:  " + testWaypointFormatStatic);
+    	System.out.println("Waypoint dynamic string: " + testWaypointFormatDynamic);
+    	System.out.println("Waypoing string generator functioning correctly: " + testWaypointFormatDynamic.contentEquals(testWaypointFormatStatic));
+    }
+
+	/**
+	 *
+	 * @param gpsPosition GPS position (in lat,long terms) for this mission --
+	 * this is just a reference point we use when building the mission
+	 * -- so another way of explaining what we're doing is this: we
+	 * we're going to treat the given gpsPosition as being (0,0)
+	 * on our (x,y) map -- and for all other GPS positions, we
+	 * just find the distance between them and this GPS
+	 * position and the x,y components of this
+	 * distance are the x,y values for the
+	 * point on our Cartesian plane. If
+	 * that doesn't make sense it
+	 * is likely that I'm not
+	 * explaining a simple
+	 * idea very well.
+	 *
+	 * @param pos Some other (lat,lng) position that we'd like to build
+	 * an (x, y) position for
+	 */
+	public void setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(GPSPosition gpsPosition, GPSPosition pos)
+	{
+		Geo geo = new Geo();
+		double lngMeters = geo.latLongDistance(gpsPosition.latitude,gpsPosition.longitude,gpsPosition.latitude,pos.longitude);
+		double latMeters = geo.latLongDistance(gpsPosition.latitude,gpsPosition.longitude,pos.latitude,gpsPosition.longitude);
+
+		if(gpsPosition.latitude > pos.latitude)
+			latMeters*=-1;
+
+		if(gpsPosition.longitude > pos.longitude)
+			lngMeters*=-1;
+
+		pos.x = latMeters;
+		pos.y = lngMeters;
+	}
+
+	/**
+	 *
+	 * @param missionBoundaryGPSPositionList List of coordinates that represent the
+	 * vertices of the polygon that we're building a mission inside of. Just
+	 * so we're on the same page -- this Array must contain at least 3
+	 * points to make sense (i.e. 2 points would be a straight line, 1
+	 * point would be a point, and 0 points is, well, you know..)
+	 *
+	 * @param mowingPathWidthInMeters Distance between waypoints -- for a
+	 * mowing application, for example, this will be slightly less than
+	 * the width of the mowing deck to allow a little overlap
+	 *
+	 * @return List of waypoints which define the mission within the
+	 * polygon. The list is ordered such that the first point will
+	 * be the starting coordinate and the
+	 *
+	 */
+	public List<GPSPosition> buildMissionWaypointsFromLatLngBoundsJSONArray(
+			List<GPSPosition> missionBoundaryGPSPositionList,
+			List<List<GPSPosition>> polyObstaclesGPSPositionList,
+			Double mowingPathWidthInMeters,
+			GPSPosition startGPSPositionUnchecked,
+			Double heading)
+	{
+		return buildMissionWaypointsFromLatLngBoundsJSONArray(missionBoundaryGPSPositionList,
+				polyObstaclesGPSPositionList, mowingPathWidthInMeters, startGPSPositionUnchecked,
+				heading, PlanningMode.SWEEP);
+	}
+
+	/**
+	 * Same as above, but lets the caller pick how the mission gets built
+	 *
+	 * @param planningMode SWEEP for the original single sweep across the whole
+	 * boundary, CELLS for boustrophedon cell decomposition
+	 */
+	public List<GPSPosition> buildMissionWaypointsFromLatLngBoundsJSONArray(
+			List<GPSPosition> missionBoundaryGPSPositionList,
+			List<List<GPSPosition>> polyObstaclesGPSPositionList,
+			Double mowingPathWidthInMeters,
+			GPSPosition startGPSPositionUnchecked,
+			Double heading,
+			PlanningMode planningMode)
+	{
+		return buildMissionWaypoints(
+				prepareField(missionBoundaryGPSPositionList, polyObstaclesGPSPositionList, startGPSPositionUnchecked),
+				mowingPathWidthInMeters, heading, planningMode);
+	}
+
+	/**
+	 * Does the one-time work on a field -- projecting the boundary and obstacles
+	 * into (x,y) meters around the start point and so on -- and wraps the
+	 * result up in an immutable PreparedField that can be planned as many
+	 * times as we like. Only the (lat,lng) values of the given positions
+	 * are read and none of them are modified.
+	 *
+	 * @param startGPSPositionUnchecked Where the user wants to start (if it's
+	 * outside the boundary we start at the closest boundary vertex instead)
+	 */
+	public PreparedField prepareField(List<GPSPosition> missionBoundaryGPSPositionList,
+									  List<List<GPSPosition>> polyObstaclesGPSPositionList,
+									  GPSPosition startGPSPositionUnchecked)
+	{
+		List<GPSPosition> missionBoundary = latLngCopy(missionBoundaryGPSPositionList);
+		List<List<GPSPosition>> polyObstacles = new ArrayList<>();
+		for(List<GPSPosition> obstacleGPSPositionList : polyObstaclesGPSPositionList)
+		{
+			polyObstacles.add(latLngCopy(obstacleGPSPositionList));
+		}
+
+		GPSPosition startGPSPosition = projectAroundStartGPSPosition(missionBoundary, polyObstacles,
+				new GPSPosition(startGPSPositionUnchecked.latitude, startGPSPositionUnchecked.longitude));
+
+		return new PreparedField(missionBoundary, polyObstacles, startGPSPosition,
+				startGPSPositionUnchecked.latitude, startGPSPositionUnchecked.longitude);
+	}
+
+	/**
+	 * Build a mission on a prepared field -- the field itself isn't touched, so
+	 * this is safe to call on the same field from several threads at once
+	 * (e.g. to try a few headings in parallel)
+	 *
+	 * @param planningMode SWEEP for the original single sweep across the whole
+	 * boundary, CELLS for boustrophedon cell decomposition
+	 */
+	public List<GPSPosition> buildMissionWaypoints(PreparedField field,
+												   Double mowingPathWidthInMeters,
+												   Double heading,
+												   PlanningMode planningMode)
+	{
+		//Everything below shifts and nudges the positions it's given, so it
+		//gets its own copies of the field
+		List<GPSPosition> missionBoundaryGPSPositionList = field.copyBoundary();
+		List<List<GPSPosition>> polyObstaclesGPSPositionList = field.copyObstacles();
+		GPSPosition startGPSPosition = field.copyStart();
+
+		//Note that we've gotta have at least 3 coordinates in order for any of
+		//this logic to make sense (i.e. if you've only got 2 points
+		//then you've got a line, which doesn't have area and
+		//won't contain waypoints by definition)
+
+		List<GPSPosition> waypoints;
+		if(planningMode == PlanningMode.CELLS)
+		{
+			waypoints = this.buildCellDecomposedMissionWaypoints(
+					missionBoundaryGPSPositionList, mowingPathWidthInMeters, heading,
+					startGPSPosition, polyObstaclesGPSPositionList);
+		}
+		else
+		{
+			waypoints = this.buildMissionWaypoints(
+					missionBoundaryGPSPositionList, mowingPathWidthInMeters, heading,
+					startGPSPosition, polyObstaclesGPSPositionList);
+		}
+
+		PlannerMetrics.countMissionBuilt(waypoints.size());
+		return waypoints;
+	}
+
+	/**
+	 * Optional pre-pass that thins out the vertices of the mission boundary and
+	 * obstacles (see PolygonSimplifier) -- the boundary only ever shrinks and
+	 * obstacles only ever grow, so the mission stays safe to mow
+	 *
+	 * @param toleranceCentimeters Furthest any point of an original outline may
+	 * end up from its simplified outline
+	 * @return Number of vertices removed
+	 */
+	public int simplifyMissionGeometry(List<GPSPosition> missionBoundaryGPSPositionList,
+									   List<List<GPSPosition>> polyObstaclesGPSPositionList,
+									   double toleranceCentimeters)
+	{
+		//Any reference point works here since we only care about distances --
+		//the real (x,y) values get set up when the mission is built
+		GPSPosition reference = missionBoundaryGPSPositionList.get(0);
+		GPSPosition origin = new GPSPosition(reference.latitude, reference.longitude);
+		for(GPSPosition position : missionBoundaryGPSPositionList)
+		{
+			setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(origin, position);
+		}
+		for(List<GPSPosition> obstacleGPSPositionList : polyObstaclesGPSPositionList)
+		{
+			for(GPSPosition position : obstacleGPSPositionList)
+			{
+				setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(origin, position);
+			}
+		}
+
+		double toleranceMeters = toleranceCentimeters / 100;
+		int removed = PolygonSimplifier.simplify(missionBoundaryGPSPositionList, toleranceMeters, true);
+		for(List<GPSPosition> obstacleGPSPositionList : polyObstaclesGPSPositionList)
+		{
+			removed += PolygonSimplifier.simplify(obstacleGPSPositionList, toleranceMeters, false);
+		}
+		return removed;
+	}
+
+	/**
+	 * Optional output stage that drops redundant waypoints (see WaypointDecimator)
+	 * -- every point on a swath line is kept, so only the obstacle detours and
+	 * perimeter transits get thinned out
+	 *
+	 * @param waypoints Mission built with the given heading and swath width
+	 * @param toleranceCentimeters Furthest a dropped waypoint may be from the
+	 * path that's left
+	 */
+	public List<GPSPosition> decimateMissionWaypoints(List<GPSPosition> waypoints,
+													  Double headingDegrees,
+													  Double mowingPathWidthInMeters,
+													  double toleranceCentimeters)
+	{
+		List<GPSPosition> decimated = WaypointDecimator.decimate(waypoints,
+				new SweepFrame(Math.toRadians(headingDegrees)), mowingPathWidthInMeters, toleranceCentimeters / 100);
+		return decimated;
+	}
+
+	/**
+	 * Same as buildMissionWaypointsFromLatLngBoundsJSONArray(..) in SWEEP mode, but
+	 * hands back the whole SweepMission so it can be cached and patched later
+	 * (see replanMissionAfterObstacleChange(..))
+	 */
+	public SweepMission buildSweepMissionFromLatLngBounds(
+			List<GPSPosition> missionBoundaryGPSPositionList,
+			List<List<GPSPosition>> polyObstaclesGPSPositionList,
+			Double mowingPathWidthInMeters,
+			GPSPosition startGPSPositionUnchecked,
+			Double heading)
+	{
+		return buildSweepMission(
+				prepareField(missionBoundaryGPSPositionList, polyObstaclesGPSPositionList, startGPSPositionUnchecked),
+				mowingPathWidthInMeters, heading);
+	}
+
+	/**
+	 * Same as buildMissionWaypoints(field, ..) in SWEEP mode, but hands back the
+	 * whole SweepMission (see buildSweepMissionFromLatLngBounds(..))
+	 */
+	public SweepMission buildSweepMission(PreparedField field, Double mowingPathWidthInMeters, Double heading)
+	{
+		SweepMission mission = this.buildSweepMission(
+				field.copyBoundary(), mowingPathWidthInMeters, heading,
+				field.copyStart(), field.copyObstacles(), field.requestedStart(), field.projectionOrigin());
+
+		PlannerMetrics.countMissionBuilt(mission.waypoints.size());
+		return mission;
+	}
+
+	/**
+	 * Sets the (x,y) values of the mission boundary and obstacle vertices as their
+	 * distance in meters from the start position (which gets swapped for the
+	 * closest boundary vertex if it's outside the boundary)
+	 *
+	 * @return The start position the mission should be built from
+	 */
+	private GPSPosition projectAroundStartGPSPosition(List<GPSPosition> missionBoundaryGPSPositionList,
+													  List<List<GPSPosition>> polyObstaclesGPSPositionList,
+													  GPSPosition startGPSPositionUnchecked)
+	{
+		long projectionNanos = PlannerMetrics.startPhase(PlannerPhase.PROJECTION);
+
+		//Now figure out if the startLatLng is within the mission polygon -- if it is
+		//then that will be the mission starting point -- if it's not then
+		//find the nearest vertex on the mission polygon to the point
+		//and set the point's LatLng to that vertex -- in
+		//other words we'll begin building the
+		//mission at that vertex
+
+		//Just to have somewhere to start, let's call the (x,y) coordinate of
+		//our startGPSPositionUnchecked point (0,0)
+		startGPSPositionUnchecked.x = 0;
+		startGPSPositionUnchecked.y = 0;
+
+		//In this loop we find the distance from the startGPSPositionUnchecked to every vertex
+		//on the mission boundary and we set the (x,y) coordinates of those points
+		//as their (x,y) distance from startGPSPositionUnchecked
+		for(int x = 0; x < missionBoundaryGPSPositionList.size(); x++)
+		{
+			setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(
+					startGPSPositionUnchecked, missionBoundaryGPSPositionList.get(x));
+		}
+
+		GPSPosition startGPSPosition = getClosestPolygonVertexIfPointNotWithinPolygon(startGPSPositionUnchecked, missionBoundaryGPSPositionList);
+
+		//If the start point wasn't within the mission boundary polygon (and we thus
+		//obtained a startGPSPosition point that's equal to the closest
+		//vertex to startGPSPositionUnchecked), then we'll rearrange
+		//the mission boundary list to put that vertex at the
+		//beginning and then we'll call that vertex (0,0)
+		//and set the (x,y) coordinates of the other
+		//vertices as their distance from the
+		//startGPSPosition vertex -- at
+		//some point there was a reason
+		//for this logic but I'm really
+		//not sure if it's still needed
+		if(startGPSPosition.compareTo(startGPSPositionUnchecked) != 0)
+		{
+			//If startGPSPosition is one of the mission boundary polygon vertices,
+			//this moves it to the beginning of the list
+			moveStartGPSPositionToBeginningOfList(missionBoundaryGPSPositionList, startGPSPosition);
+
+			startGPSPosition.x = missionBoundaryGPSPositionList.get(0).x = 0;
+			startGPSPosition.y = missionBoundaryGPSPositionList.get(0).y = 0;
+
+			for(int x = 1; x < missionBoundaryGPSPositionList.size(); x++)
+			{
+				setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(
+						startGPSPosition, missionBoundaryGPSPositionList.get(x));
+			}
+
+			for(List<GPSPosition> obstacleGPSPositionList: polyObstaclesGPSPositionList)
+			{
+				for(int x = 0; x < obstacleGPSPositionList.size(); x++)
+				{
+					setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(
+							startGPSPosition, obstacleGPSPositionList.get(x));
+				}
+			}
+		}
+		else
+		{
+			for(List<GPSPosition> obstacleGPSPositionList: polyObstaclesGPSPositionList)
+			{
+				for(int x = 0; x < obstacleGPSPositionList.size(); x++)
+				{
+					setXLatandYLngMetersByDiffingLatAndLonDistanceFromGPSPosition(
+							startGPSPositionUnchecked, obstacleGPSPositionList.get(x));
+				}
+			}
+		}
+
+		PlannerMetrics.observe(PlannerPhase.PROJECTION, projectionNanos);
+		return startGPSPosition;
+	}
+
+	/**
+	 * @return New positions with the same (lat,lng) values (and (x,y) left at 0)
+	 */
+	private List<GPSPosition> latLngCopy(List<GPSPosition> gpsPositionList)
+	{
+		List<GPSPosition> copy = new ArrayList<>(gpsPositionList.size());
+		for(GPSPosition position : gpsPositionList)
+		{
+			copy.add(new GPSPosition(position.latitude, position.longitude));
+		}
+		return copy;
 	}
 
 	private void moveStartGPSPositionToBeginningOfList(List<GPSPosition> mission, GPSPosition startGPSPosition)
@@ -1598,6 +2715,7 @@ public class MissionBrain
 	{
 		//Build a missionBoundaryPath2D for easy (x,y) point containment checking
 		Path2D missionBoundaryPath2D = missionBoundary(gpsPositionList);
+		PlannerMetrics.countContainmentChecks(1);
 		if(missionBoundaryPath2D.contains(startPointUnchecked.x, startPointUnchecked.y))
 		{
 			//startPointUnchecked is within the mission boundary, so we can simply send
@@ -1637,87 +2755,6 @@ public class MissionBrain
     	return index + "\t0\t3\t16\t0\t0\t0\t0\t" + gps.getLatitude() + "\t" + gps.getLongitude() + "\t100.000000\t1";
     }
 
-    /**
-     * Returns FALSE if we didn't adjust the line for the next orthogonal point since doing so would have
-     * made the current line's value less than Config.minMowingLineDistanceMeters. In other words,
-     * if we get back FALSE from this function, it can be assumed that we've reached
-     * the end of the mission and should not build any further lines.
-	 *
-	 * @param lineStartPoint
-	 * @param lineTurnPoint
-	 * @param normPerp
-	 * @param missionBoundary
-     */
-    private Boolean adjustTurnInitiationPointSoThatNextOrthogonalPointIsWithinBoundary(
-    		Point2D.Double lineStartPoint, Point2D.Double lineTurnPoint,
-			Point2D.Double normPerp, Path2D missionBoundary)
-    {
-    	//Next point is the perpendicular norm from lineTurnPoint
-    	
-    	Point2D.Double tempLineTurnPoint = new Point2D.Double(lineTurnPoint.x, lineTurnPoint.y);
-    	Point2D.Double pushXY = getParallelNorm(lineStartPoint, lineTurnPoint, Config.boundaryPushAdjustmentMeters);
-    	
-    	Boolean LINE_TOO_SHORT = false;
-    	
-    	//If perpendicular norm is not within missionBoundary, then we
-    	//reduce lineTurnPoint (pull it back towards lineStartPoint) until either
-    	// A. Perpendicular norm is within mission Boundary
-    	// B. Line from startTurnPoint to lineTurnPoint reduced below Config.minMowingLineDistanceMeters
-    	Point2D.Double nextLineStartPoint = new Point2D.Double(lineTurnPoint.x+normPerp.x, lineTurnPoint.y+normPerp.y);
-    	
-    	while(!missionBoundary.contains(nextLineStartPoint) && !LINE_TOO_SHORT)
-    	{
-    		if(Math.abs(lineStartPoint.distance(tempLineTurnPoint))<Config.minMowingLineDistanceMeters)
-    		{
-    			LINE_TOO_SHORT = true;
-    		}
-    		tempLineTurnPoint.x -= pushXY.x;
-    		tempLineTurnPoint.y -= pushXY.y;
-    		
-    		nextLineStartPoint.x -= pushXY.x;
-    		nextLineStartPoint.y -= pushXY.y;
-    	}
-    	
-    	//if tempLineTurnPoint adjusted until perpendicular point was within 
-    	//missionBoundary and we didn't violate the length contract of Config.minMowingLineDistanceMeters
-    	//then adjust the lineTurnPoint to tempLineTurnPoint
-    	if(!LINE_TOO_SHORT)
-    	{
-    		Double nextLineLength = lineLengthToBoundary(nextLineStartPoint, pushXY, missionBoundary);
-    		if(nextLineLength > Config.minMowingLineDistanceMeters)
-    		{
-        		lineTurnPoint.x = tempLineTurnPoint.x;
-        		lineTurnPoint.y = tempLineTurnPoint.y;
-    		}
-    	}
-    	
-    	return !LINE_TOO_SHORT;
-    }
-    
-    private Double lineLengthToBoundary(Point2D.Double start, Point2D.Double normParallel, Path2D missionBoundary)
-    {
-    	Point2D.Double parallelBoundaryPoint = new Point2D.Double(start.x, start.y);
-    	while(missionBoundary.contains(parallelBoundaryPoint))
-    	{
-    		parallelBoundaryPoint.x -= normParallel.x;
-    		parallelBoundaryPoint.y -= normParallel.y;
-    	}
-    	
-    	Double distanceFromStartToParallelPointBoundary = start.distance(parallelBoundaryPoint);
-    	return distanceFromStartToParallelPointBoundary;
-    }
-    
-    private void pushLineToBoundary(Point2D.Double startFixed, Point2D.Double endFlexible, Point2D.Double normParallel, Path2D missionBoundary)
-    {
-    	Point2D.Double pushXY = new Point2D.Double(normParallel.x, normParallel.y);
-    	
-    	while(missionBoundary.contains(endFlexible))
-    	{
-    		endFlexible.x += pushXY.x;
-    		endFlexible.y += pushXY.y;
-    	}
-    }
-    
     /*
      * Returns direction (+1 or -1) to build mission from initial path.
      * Positive or Negative is just a standard to know how
@@ -1728,11 +2765,14 @@ public class MissionBrain
     	int maxDistanceMetersToLookFromGuideLine = Config.maxMissionBoundaryMeters;
     	int pointsPositivePerpendicularWithinBounds = 0;
     	int pointsNegativePerpendicularWithinBounds = 0;
+    	Point2D.Double perpPoint = GeometryKernel.scratch().probe;
+    	long checks = 0;
     	
     	
         for(int i = 1; i < maxDistanceMetersToLookFromGuideLine; i++)
         {
-        	Point2D perpPoint = getPointPerpendicularToMiddleOfLine(start, guide, (double)i);
+        	GeometryKernel.pointPerpendicularToMiddleOfLine(start.x, start.y, guide.x, guide.y, i, perpPoint);
+        	checks++;
         	if(missionBoundary.contains(perpPoint))
         	{
         		pointsPositivePerpendicularWithinBounds += 1;
@@ -1745,7 +2785,8 @@ public class MissionBrain
         
         for(int i = -1; i >= -maxDistanceMetersToLookFromGuideLine; i--)
         {
-        	Point2D perpPoint = getPointPerpendicularToMiddleOfLine(start, guide, (double)i);
+        	GeometryKernel.pointPerpendicularToMiddleOfLine(start.x, start.y, guide.x, guide.y, i, perpPoint);
+        	checks++;
         	if(missionBoundary.contains(perpPoint))
         	{
         		pointsNegativePerpendicularWithinBounds += 1;
@@ -1756,6 +2797,7 @@ public class MissionBrain
         	}
         }
 
+        PlannerMetrics.countContainmentChecks(checks);
         return pointsPositivePerpendicularWithinBounds > pointsNegativePerpendicularWithinBounds ? 1 : -1;
     }
     
@@ -1766,14 +2808,14 @@ public class MissionBrain
     	//  loop trough all position points, starting at the beginning
     	//  and add Cartesian points to graph
     	
-    	Boolean FIRST_LINE = true;
+    	boolean FIRST_LINE = true;
     	
     	for(int i = 0; i < missionBoundaryGPSPositionList.size(); i++)
     	{
     		GPSPosition position = missionBoundaryGPSPositionList.get(i);
 
-			Double x = position.x;
-			Double y = position.y;
+			double x = position.x;
+			double y = position.y;
 
 			if(FIRST_LINE)
 			{
@@ -1790,63 +2832,11 @@ public class MissionBrain
     	return missionBoundary;
     }
     
-    private Point2D.Double getParallelNorm(Point2D.Double start, Point2D.Double stop, double distance)
-    {
-    	Double nX = (stop.x-start.x);
-    	Double nY = (stop.y-start.y);
-
-        double norm_length = (double) Math.sqrt((nX * nX) + (nY * nY));
-        nX /= norm_length;
-        nY /= norm_length;
-        
-        double xDistance = (distance*nX);
-        double yDistance = (distance*nY);
-        return new Point2D.Double(xDistance, yDistance);
-    }
-    
-    private Point2D.Double getPerpendicularNorm(Point2D.Double start, Point2D.Double stop, double distance)
-    {
-    	Double perpX = (start.x-stop.x);
-    	Double perpY = (start.y-stop.y);
-    	
-    	Double nX = -perpY;
-    	Double nY = perpX;
-    	
-        double norm_length = (double) Math.sqrt((nX * nX) + (nY * nY));
-        nX /= norm_length;
-        nY /= norm_length;
-        
-        double xDistance = (distance*nX);
-        double yDistance = (distance*nY);
-        return new Point2D.Double(xDistance, yDistance);
-    }
-    
-    private Point2D.Double getPointPerpendicularToMiddleOfLine(Point2D.Double start, Point2D.Double stop, double distance)
-    {
-    	Double midpointX = (start.x+stop.x)/2;
-    	Double midpointY = (start.y+stop.y)/2;
-
-    	Double perpX = (start.x-stop.x);
-    	Double perpY = (start.y-stop.y);
-    	
-    	Double nX = -perpY;
-    	Double nY = perpX;
-    	
-        
-        double norm_length = (double) Math.sqrt((nX * nX) + (nY * nY));
-        nX /= norm_length;
-        nY /= norm_length;
-        
-        double newX = midpointX + (distance*nX);
-        double newY = midpointY + (distance*nY);
-        return new Point2D.Double(newX, newY);
-    }
-    
     public Double getMinX(List<GPSPosition> missionBoundaryGPSPositionList)
     {
     	if(missionBoundaryGPSPositionList != null && missionBoundaryGPSPositionList.size() > 0)
     	{
-    		Double minX = 0.0;
+    		double minX = 0.0;
     		
     		for(GPSPosition position : missionBoundaryGPSPositionList)
     		{
@@ -1862,7 +2852,7 @@ public class MissionBrain
     {
     	if(missionBoundaryGPSPositionList != null && missionBoundaryGPSPositionList.size() > 0)
     	{
-    		Double minY = 0.0;
+    		double minY = 0.0;
     		
     		for(GPSPosition position : missionBoundaryGPSPositionList)
     		{
@@ -1878,7 +2868,7 @@ public class MissionBrain
     {
     	if(missionBoundaryGPSPositionList != null && missionBoundaryGPSPositionList.size() > 0)
     	{
-    		Double maxX = 0.0;
+    		double maxX = 0.0;
     		
     		for(GPSPosition position : missionBoundaryGPSPositionList)
     		{
@@ -1894,7 +2884,7 @@ public class MissionBrain
     {
     	if(missionBoundaryGPSPositionList != null && missionBoundaryGPSPositionList.size() > 0)
     	{
-    		Double maxY = 0.0;
+    		double maxY = 0.0;
     		
     		for(GPSPosition position : missionBoundaryGPSPositionList)
     		{
@@ -1908,10 +2898,10 @@ public class MissionBrain
     
     //Adjust Cartesian coordinates so that they all fall in the positive space
     //This is helpful for testing -- specifically graphing in java 
-    public Double[] scaleMinXAndMinYToZero(List<GPSPosition> missionBoundaryGPSPositionList, List<List<GPSPosition>> polyObstaclesGPSPositionList)
+    public double[] scaleMinXAndMinYToZero(List<GPSPosition> missionBoundaryGPSPositionList, List<List<GPSPosition>> polyObstaclesGPSPositionList)
     {
-    	Double minX = getMinX(missionBoundaryGPSPositionList);
-    	Double minY = getMinY(missionBoundaryGPSPositionList);
+    	double minX = getMinX(missionBoundaryGPSPositionList);
+    	double minY = getMinY(missionBoundaryGPSPositionList);
     	
     	for(GPSPosition p : missionBoundaryGPSPositionList)
     	{
@@ -1928,6 +2918,25 @@ public class MissionBrain
 			}
 		}
 
-    	return new Double[] {minX, minY};
+    	return new double[] {minX, minY};
     }
+
+	/**
+	 * Look-aheads and obstacle circumventions happen a few times a swath (or
+	 * a cell), so rather than record every one of them in PlannerMetrics
+	 * we add them up here and record them once per mission
+	 */
+	private static class PhaseTotals
+	{
+		long lookAheadNanos;
+		int lookAheads;
+		long obstacleNanos;
+		int obstacleCircumventions;
+
+		void record()
+		{
+			PlannerMetrics.observeTotal(PlannerPhase.LOOK_AHEAD, lookAheadNanos, lookAheads);
+			PlannerMetrics.observeTotal(PlannerPhase.OBSTACLE_CIRCUMVENTION, obstacleNanos, obstacleCircumventions);
+		}
+	}
 }
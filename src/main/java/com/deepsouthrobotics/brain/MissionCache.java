@@ -0,0 +1,55 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.Config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Mission Cache
+|--------------------------------------------------------------------------
+|
+| Holds on to recently built sweep missions so that a small edit to the
+| field (e.g. dropping a new flower bed in as an obstacle) can patch the
+| mission instead of replanning it. Least recently used missions fall
+| out once we hit Config.missionCacheSize.
+*/
+public class MissionCache
+{
+	private static final Map<String, SweepMission> MISSIONS = new LinkedHashMap<String, SweepMission>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, SweepMission> eldest)
+		{
+			return size() > Config.missionCacheSize;
+		}
+	};
+
+	/**
+	 * @return The id the mission can be looked up by later
+	 */
+	public static String put(SweepMission mission)
+	{
+		String missionId = UUID.randomUUID().toString();
+		synchronized(MISSIONS)
+		{
+			MISSIONS.put(missionId, mission);
+		}
+		return missionId;
+	}
+
+	/**
+	 * @return The mission, or null if we've never seen it (or it's been evicted)
+	 */
+	public static SweepMission get(String missionId)
+	{
+		synchronized(MISSIONS)
+		{
+			return MISSIONS.get(missionId);
+		}
+	}
+}
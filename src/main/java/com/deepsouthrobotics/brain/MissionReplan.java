@@ -0,0 +1,50 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Mission Replan
+|--------------------------------------------------------------------------
+|
+| The result of patching an existing mission after its geometry changed:
+| the new mission plus the edits that turn the old waypoint list into
+| the new one. When the change couldn't be handled incrementally the
+| edits are a single "replace everything" edit.
+*/
+public class MissionReplan
+{
+	public final SweepMission mission;
+	public final List<Edit> edits;
+	public final boolean incremental;
+
+	public MissionReplan(SweepMission mission, List<Edit> edits, boolean incremental)
+	{
+		this.mission = mission;
+		this.edits = edits;
+		this.incremental = incremental;
+	}
+
+	/**
+	 * Replace deleteCount waypoints of the old mission, starting at index
+	 * start, with the inserted waypoints. Edits are sorted by start and
+	 * their indexes all refer to the old mission.
+	 */
+	public static class Edit
+	{
+		public final int start;
+		public final int deleteCount;
+		public final List<GPSPosition> insert;
+
+		public Edit(int start, int deleteCount, List<GPSPosition> insert)
+		{
+			this.start = start;
+			this.deleteCount = deleteCount;
+			this.insert = insert;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.GPSPosition;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Mission Trace Listener
+|--------------------------------------------------------------------------
+|
+| Hook for watching a mission get built, one swath turn at a time. This
+| is called from inside the swath loop, so implementations get the raw
+| values and nothing else -- if you want strings, distances or I/O, do
+| that somewhere off the planning thread (see RingBufferTraceLogger).
+|
+| The default listener (NONE) does nothing at all, so leaving tracing
+| off costs a virtual call the JIT inlines away.
+*/
+public interface MissionTraceListener
+{
+	MissionTraceListener NONE = new MissionTraceListener()
+	{
+		@Override
+		public void swathTurn(int swathIndex, boolean forward, GPSPosition previousTurn, GPSPosition turn)
+		{
+		}
+	};
+
+	/**
+	 * The robot turns off swath number swathIndex at "turn"
+	 *
+	 * @param forward True if the swath was driven in the guide line's direction ("Top"), false for "Bottom"
+	 * @param previousTurn Where it turned off the previous swath (or the start point for the first swath)
+	 */
+	void swathTurn(int swathIndex, boolean forward, GPSPosition previousTurn, GPSPosition turn);
+}
@@ -0,0 +1,86 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.data.PlanningFidelity;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planner Options
+|--------------------------------------------------------------------------
+|
+| The knobs that decide how hard one MissionBrain works at a mission.
+| They used to be read straight out of Config, which meant every
+| mission got planned as carefully as the one the mower's going to
+| run -- including the rough ones the UI asks for over and over while
+| the user drags the start marker around.
+|
+| FINAL is what we've always done. PREVIEW probes for the boundary in
+| big steps rather than a centimeter at a time, plans on a simplified
+| outline, drives straight through obstacles rather than working out
+| the way around them and doesn't try many orders for the cells -- it's
+| the right shape, not something to mow.
+|
+| Options never change once they're built, so a brain (and everything
+| it hands them to) can share them freely.
+*/
+public final class PlannerOptions
+{
+	public static final PlannerOptions FINAL = new PlannerOptions(PlanningFidelity.FINAL,
+			Config.minMowingLineDistanceMeters,
+			Config.boundaryPushAdjustmentMeters,
+			0,
+			true,
+			Config.transitOrderingMaxMoves,
+			Config.transitOrderingBudgetMillis);
+
+	public static final PlannerOptions PREVIEW = new PlannerOptions(PlanningFidelity.PREVIEW,
+			Config.minMowingLineDistanceMeters,
+			Config.previewBoundaryPushAdjustmentMeters,
+			Config.previewSimplifyToleranceCentimeters,
+			false,
+			Config.previewTransitOrderingMaxMoves,
+			Config.previewTransitOrderingBudgetMillis);
+
+	public final PlanningFidelity fidelity;
+
+	//Swath sections (and first lines) shorter than this aren't worth mowing
+	public final double minMowingLineDistanceMeters;
+
+	//Step size when we walk a point out to the boundary
+	public final double boundaryPushAdjustmentMeters;
+
+	//Thin the boundary and obstacles out by this much before planning (0 to leave them be)
+	public final double simplifyToleranceCentimeters;
+
+	//False to run swaths straight through obstacles
+	public final boolean obstacleDetours;
+
+	//How many moves the TransitOrderer gets to try when it orders the cells,
+	//and how long it gets if that somehow takes longer
+	public final long transitOrderingMaxMoves;
+	public final long transitOrderingBudgetMillis;
+
+	public PlannerOptions(PlanningFidelity fidelity,
+						  double minMowingLineDistanceMeters,
+						  double boundaryPushAdjustmentMeters,
+						  double simplifyToleranceCentimeters,
+						  boolean obstacleDetours,
+						  long transitOrderingMaxMoves,
+						  long transitOrderingBudgetMillis)
+	{
+		this.fidelity = fidelity;
+		this.minMowingLineDistanceMeters = minMowingLineDistanceMeters;
+		this.boundaryPushAdjustmentMeters = boundaryPushAdjustmentMeters;
+		this.simplifyToleranceCentimeters = simplifyToleranceCentimeters;
+		this.obstacleDetours = obstacleDetours;
+		this.transitOrderingMaxMoves = transitOrderingMaxMoves;
+		this.transitOrderingBudgetMillis = transitOrderingBudgetMillis;
+	}
+
+	public static PlannerOptions forFidelity(PlanningFidelity fidelity)
+	{
+		return fidelity == PlanningFidelity.PREVIEW ? PREVIEW : FINAL;
+	}
+}
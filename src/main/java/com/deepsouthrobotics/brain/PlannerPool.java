@@ -0,0 +1,96 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.PlanningPriority;
+import com.deepsouthrobotics.util.RequestProfile;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planner Pool
+|--------------------------------------------------------------------------
+|
+| The fork-join pool that the planners use for CPU-bound work. There's
+| one per JVM (sized to the number of cores) so that concurrent
+| requests share the cores rather than each spinning up
+| their own set of threads.
+|
+| Requests' planning goes through plan(..), which gets it in line with
+| the PlanningScheduler (in its priority class, for its tenant) rather
+| than running it on the request's own thread -- so how many missions
+| plan at once is up to the scheduler, not how many requests the
+| container happens to have threads for, and requests that come in on
+| virtual threads (see EmbeddedServer) don't hog their carrier with
+| minutes of number crunching.
+*/
+public class PlannerPool
+{
+	private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+	private static final ForkJoinPool POOL = new ForkJoinPool(CORES);
+
+	public static ForkJoinPool get()
+	{
+		return POOL;
+	}
+
+	/**
+	 * Run a request's planning on one of the scheduler's threads once its
+	 * turn comes up (see PlanningScheduler), and wait for it. The
+	 * request's profile (if it has one) goes along with it.
+	 *
+	 * @param tenant Who the request's for (null if it didn't say)
+	 * @return Whatever the planning returned (anything it throws is thrown
+	 * straight back out)
+	 */
+	public static <T> T plan(PlanningPriority priority, String tenant, Callable<T> planning)
+	{
+		final Callable<T> work = planning;
+		final RequestProfile profile = RequestProfile.current();
+		Future<T> future = PlanningScheduler.get().submit(priority, tenant, new Callable<T>()
+		{
+			@Override
+			public T call() throws Exception
+			{
+				RequestProfile.attach(profile);
+				try
+				{
+					return work.call();
+				}
+				finally
+				{
+					RequestProfile.end();
+				}
+			}
+		});
+
+		try
+		{
+			return future.get();
+		}
+		catch(InterruptedException e)
+		{
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while planning", e);
+		}
+		catch(ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException)
+			{
+				throw (RuntimeException)cause;
+			}
+			if(cause instanceof Error)
+			{
+				throw (Error)cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+}
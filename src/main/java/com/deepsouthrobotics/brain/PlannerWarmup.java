@@ -0,0 +1,300 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.data.GPSPosition;
+import com.deepsouthrobotics.data.PlanningMode;
+import com.deepsouthrobotics.util.MavlinkMissionEncoder;
+import com.deepsouthrobotics.util.RequestProfile;
+import com.deepsouthrobotics.util.WaypointFileWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planner Warm-up
+|--------------------------------------------------------------------------
+|
+| Right after a restart the planner runs in the interpreter (and then in
+| C1) and the first missions take several times longer than they do
+| once the JIT's caught up. So when the servlet starts we plan a few
+| made-up fields over and over on a background thread -- both planning
+| modes, a few headings and swath widths, previews too, with
+| decimation, coverage checking and the WPL/MAVLink encoders thrown
+| in -- until a round of them takes about as long as the best round
+| so far a few times in a row (which is what it looks like once the
+| hot methods are in C2), or until Config.warmupBudgetMillis runs out.
+|
+| Until then isReady() is false, which /api/ready reports so a load
+| balancer can hold traffic off. Missions still get built in the
+| meantime, just slower. The warm-up's own missions are kept out of
+| PlannerMetrics (see RequestProfile.beginWarmup()), so the real ones
+| that come in meanwhile are the only ones /api/metrics sees.
+*/
+public class PlannerWarmup
+{
+	//Don't call it steady before this many rounds, no matter how it looks
+	private static final int MIN_ROUNDS = 20;
+
+	private static final Logger LOG = Logger.getLogger(PlannerWarmup.class.getName());
+
+	//Steady is this many rounds in a row within STEADY_SLACK of the best round
+	private static final int STEADY_ROUNDS = 5;
+	private static final double STEADY_SLACK = 1.10;
+
+	private static final double[] HEADINGS = {0, 30, 75};
+	private static final double[] SWATH_WIDTHS = {0.5, 1.0};
+
+	//See field(..)
+	private static final int FIELD_COUNT = 3;
+
+	//Where the encoders write to
+	private static final OutputStream DISCARD = new OutputStream()
+	{
+		@Override
+		public void write(int b)
+		{
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+		}
+	};
+
+	private static final WritableByteChannel DISCARD_CHANNEL = new WritableByteChannel()
+	{
+		@Override
+		public int write(ByteBuffer src)
+		{
+			int bytes = src.remaining();
+			src.position(src.limit());
+			return bytes;
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return true;
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	};
+
+	private static volatile boolean started;
+	private static volatile boolean ready;
+
+	//Written by the warm-up thread before it sets ready
+	private static volatile int rounds;
+	private static volatile long elapsedMillis;
+	private static volatile boolean steady;
+
+	/**
+	 * Kick off the warm-up on a background thread (only the first call does
+	 * anything). With Config.warmupBudgetMillis at 0 we're ready right away.
+	 */
+	public static synchronized void start()
+	{
+		if(started)
+		{
+			return;
+		}
+		started = true;
+
+		if(Config.warmupBudgetMillis <= 0)
+		{
+			ready = true;
+			return;
+		}
+
+		Thread thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				RequestProfile.beginWarmup();
+				try
+				{
+					warmUp(Config.warmupBudgetMillis);
+					LOG.info("Planner warm-up done: " + rounds + " rounds in " + elapsedMillis
+							+ "ms" + (steady ? "" : " (ran out of time before it settled down)"));
+				}
+				catch(RuntimeException e)
+				{
+					//A warm-up that falls over shouldn't keep us out of service forever
+					LOG.log(Level.WARNING, "Planner warm-up failed after " + rounds + " rounds in " + elapsedMillis
+							+ "ms -- serving without it", e);
+				}
+				finally
+				{
+					RequestProfile.end();
+					ready = true;
+				}
+			}
+		}, "planner-warmup");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.NORM_PRIORITY - 1);
+		thread.start();
+	}
+
+	public static boolean isReady()
+	{
+		return ready;
+	}
+
+	/**
+	 * @return Rounds of the warm-up fields planned so far
+	 */
+	public static int rounds()
+	{
+		return rounds;
+	}
+
+	public static long elapsedMillis()
+	{
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return True if the warm-up settled down before its time was up
+	 */
+	public static boolean steady()
+	{
+		return steady;
+	}
+
+	private static void warmUp(long budgetMillis)
+	{
+		long startNanos = System.nanoTime();
+		long deadlineNanos = startNanos + budgetMillis * 1000000L;
+		long bestRoundNanos = Long.MAX_VALUE;
+		int steadyRounds = 0;
+		MissionBrain brain = new MissionBrain();
+		MissionBrain previewBrain = new MissionBrain(PlannerOptions.PREVIEW);
+
+		while(System.nanoTime() < deadlineNanos)
+		{
+			long roundStartNanos = System.nanoTime();
+			planRound(brain, previewBrain);
+			long roundNanos = System.nanoTime() - roundStartNanos;
+
+			rounds++;
+			elapsedMillis = (System.nanoTime() - startNanos) / 1000000;
+
+			if(roundNanos <= bestRoundNanos * STEADY_SLACK)
+			{
+				steadyRounds++;
+			}
+			else
+			{
+				steadyRounds = 0;
+			}
+			bestRoundNanos = Math.min(bestRoundNanos, roundNanos);
+
+			if(rounds >= MIN_ROUNDS && steadyRounds >= STEADY_ROUNDS)
+			{
+				steady = true;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Plan every warm-up field every way we plan fields
+	 */
+	private static void planRound(MissionBrain brain, MissionBrain previewBrain)
+	{
+		for(int field = 0; field < FIELD_COUNT; field++)
+		{
+			List<List<GPSPosition>> obstacles = new ArrayList<>();
+			List<GPSPosition> boundary = field(field, obstacles);
+			PreparedField prepared = brain.prepareField(boundary, obstacles, new GPSPosition(30.56405, -87.67655));
+			CoverageVerifier verifier = new CoverageVerifier(prepared);
+
+			for(double heading : HEADINGS)
+			{
+				for(double width : SWATH_WIDTHS)
+				{
+					List<GPSPosition> sweep = brain.buildSweepMission(prepared, width, heading).waypoints;
+					List<GPSPosition> cells = brain.buildMissionWaypoints(prepared, width, heading, PlanningMode.CELLS);
+					List<GPSPosition> decimated = brain.decimateMissionWaypoints(sweep, heading, width, 5);
+					verifier.verify(decimated, width, 0.25);
+					encode(cells);
+					previewBrain.buildMissionWaypoints(prepared, width, heading, PlanningMode.SWEEP);
+					previewBrain.buildMissionWaypoints(prepared, width, heading, PlanningMode.CELLS);
+				}
+			}
+		}
+	}
+
+	private static void encode(List<GPSPosition> waypoints)
+	{
+		try
+		{
+			new WaypointFileWriter(DISCARD).writeMission(waypoints);
+			if(MavlinkMissionEncoder.missionItemCount(waypoints) <= MavlinkMissionEncoder.MAX_MISSION_ITEMS)
+			{
+				new MavlinkMissionEncoder(1, 1).writeMission(waypoints, DISCARD_CHANNEL);
+			}
+		}
+		catch(IOException e)
+		{
+			//Can't happen -- nothing's written anywhere
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Made-up fields about 55m x 58m, with the start position the warm-up
+	 * uses inside them
+	 *
+	 * @param obstacles Gets the field's obstacles
+	 * @return The field's boundary
+	 */
+	private static List<GPSPosition> field(int field, List<List<GPSPosition>> obstacles)
+	{
+		switch(field)
+		{
+			case 0:
+				//Plain rectangle
+				return polygon(30.5640, -87.6766, 30.5645, -87.6766, 30.5645, -87.6760, 30.5640, -87.6760);
+
+			case 1:
+				//Rectangle with a couple of obstacles in it
+				obstacles.add(polygon(30.5642, -87.6764, 30.5643, -87.6764, 30.5643, -87.6763, 30.5642, -87.6763));
+				obstacles.add(polygon(30.56435, -87.67620, 30.56440, -87.67615, 30.56435, -87.67610, 30.56430, -87.67615));
+				return polygon(30.5640, -87.6766, 30.5645, -87.6766, 30.5645, -87.6760, 30.5640, -87.6760);
+
+			default:
+				//L-shaped, with an obstacle in the corner of the L
+				obstacles.add(polygon(30.5641, -87.6764, 30.56418, -87.6764, 30.56418, -87.67632, 30.5641, -87.67632));
+				return polygon(30.5640, -87.6766, 30.5645, -87.6766, 30.5645, -87.6763,
+						30.5642, -87.6763, 30.5642, -87.6760, 30.5640, -87.6760);
+		}
+	}
+
+	/**
+	 * @param latLngs lat, lng, lat, lng, ...
+	 */
+	private static List<GPSPosition> polygon(double... latLngs)
+	{
+		GPSPosition[] vertices = new GPSPosition[latLngs.length / 2];
+		for(int i = 0; i < vertices.length; i++)
+		{
+			vertices[i] = new GPSPosition(latLngs[2 * i], latLngs[2 * i + 1]);
+		}
+		return new ArrayList<>(Arrays.asList(vertices));
+	}
+}
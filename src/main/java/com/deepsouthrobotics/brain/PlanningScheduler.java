@@ -0,0 +1,229 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.data.PlanningPriority;
+import com.deepsouthrobotics.util.PlannerMetrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planning Scheduler
+|--------------------------------------------------------------------------
+|
+| Every request's planning goes through here (see PlannerPool.plan(..))
+| so that an operator dragging the start marker around isn't stuck
+| behind a nightly batch of a few thousand fields.
+|
+| Missions wait in one line per PlanningPriority and get let onto a
+| work-stealing pool of one thread per core in priority order, with
+| two rules on top:
+|
+|   - some of the threads are kept back for INTERACTIVE missions (NORMAL
+|     and BULK missions together never take more than the rest), so
+|     there's always a thread free for the UI
+|   - no tenant gets more than Config.schedulerTenantMaxRunning missions
+|     of a priority planning at once -- the next tenant in line goes
+|     first -- so one customer's batch can't take the whole pool
+|     (requests that don't say who they're for aren't capped). It's
+|     counted per priority so a tenant's own batch doesn't hold up
+|     their interactive missions.
+|
+| How long missions waited and how long they ran is recorded per
+| priority in PlannerMetrics.
+*/
+public class PlanningScheduler
+{
+	private static final PlanningPriority[] PRIORITIES = PlanningPriority.values();
+
+	//After PRIORITIES, which the constructor needs
+	private static final PlanningScheduler INSTANCE = new PlanningScheduler(
+			Runtime.getRuntime().availableProcessors(),
+			Config.schedulerInteractiveReservedThreads,
+			Config.schedulerTenantMaxRunning);
+
+	private final ForkJoinPool workers;
+	private final int threads;
+	private final int reservedForInteractive;
+	private final int tenantMaxRunning;
+
+	//Everything below is guarded by this
+	private final List<ArrayDeque<Job<?>>> waiting = new ArrayList<>();
+	private final int[] running = new int[PRIORITIES.length];
+	private int runningTotal;
+	private final List<Map<String, Integer>> runningByTenant = new ArrayList<>();
+
+	PlanningScheduler(int threads, int reservedForInteractive, int tenantMaxRunning)
+	{
+		this.threads = Math.max(threads, 1);
+		this.reservedForInteractive = Math.max(0, Math.min(reservedForInteractive, this.threads - 1));
+		this.tenantMaxRunning = Math.max(tenantMaxRunning, 1);
+
+		//Async mode -- missions are independent, so first in, first out
+		this.workers = new ForkJoinPool(this.threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+		for(int i = 0; i < PRIORITIES.length; i++)
+		{
+			waiting.add(new ArrayDeque<Job<?>>());
+			runningByTenant.add(new HashMap<String, Integer>());
+		}
+	}
+
+	public static PlanningScheduler get()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * Get in line to plan
+	 *
+	 * @param tenant Who the planning's for (null to not count against anybody's cap)
+	 * @return The planning's result, for get()ting once it's run -- cancelling it
+	 * while it's still waiting takes it out of line
+	 */
+	public <T> FutureTask<T> submit(PlanningPriority priority, String tenant, Callable<T> planning)
+	{
+		Job<T> job = new Job<>(priority, tenant, planning);
+		synchronized(this)
+		{
+			waiting.get(priority.ordinal()).addLast(job);
+			PlannerMetrics.setScheduledWaiting(priority, waiting.get(priority.ordinal()).size());
+			dispatch();
+		}
+		return job;
+	}
+
+	/**
+	 * Let as many waiting missions onto the pool as the rules allow
+	 */
+	private synchronized void dispatch()
+	{
+		while(runningTotal < threads)
+		{
+			Job<?> next = nextEligible();
+			if(next == null)
+			{
+				return;
+			}
+
+			running[next.priority.ordinal()]++;
+			runningTotal++;
+			if(next.tenant != null)
+			{
+				Map<String, Integer> tenants = runningByTenant.get(next.priority.ordinal());
+				Integer tenantRunning = tenants.get(next.tenant);
+				tenants.put(next.tenant, tenantRunning == null ? 1 : tenantRunning + 1);
+			}
+			workers.execute(next);
+		}
+	}
+
+	/**
+	 * @return The highest priority waiting mission that's allowed to run now
+	 * (taken out of line), or null if there isn't one
+	 */
+	private Job<?> nextEligible()
+	{
+		int interactiveRunning = running[PlanningPriority.INTERACTIVE.ordinal()];
+		boolean roomForOthers = runningTotal - interactiveRunning < threads - reservedForInteractive;
+
+		for(PlanningPriority priority : PRIORITIES)
+		{
+			if(priority != PlanningPriority.INTERACTIVE && !roomForOthers)
+			{
+				break;
+			}
+
+			ArrayDeque<Job<?>> waitingForPriority = waiting.get(priority.ordinal());
+			boolean droppedCancelled = false;
+			Iterator<Job<?>> line = waitingForPriority.iterator();
+			while(line.hasNext())
+			{
+				Job<?> job = line.next();
+				if(job.isCancelled())
+				{
+					line.remove();
+					droppedCancelled = true;
+					continue;
+				}
+				if(job.tenant != null)
+				{
+					Integer tenantRunning = runningByTenant.get(priority.ordinal()).get(job.tenant);
+					if(tenantRunning != null && tenantRunning >= tenantMaxRunning)
+					{
+						//Skip ahead to the next tenant's mission
+						continue;
+					}
+				}
+				line.remove();
+				PlannerMetrics.setScheduledWaiting(priority, waitingForPriority.size());
+				return job;
+			}
+			if(droppedCancelled)
+			{
+				PlannerMetrics.setScheduledWaiting(priority, waitingForPriority.size());
+			}
+		}
+		return null;
+	}
+
+	private synchronized void finished(Job<?> job)
+	{
+		running[job.priority.ordinal()]--;
+		runningTotal--;
+		if(job.tenant != null)
+		{
+			Map<String, Integer> tenants = runningByTenant.get(job.priority.ordinal());
+			int tenantRunning = tenants.get(job.tenant) - 1;
+			if(tenantRunning == 0)
+			{
+				tenants.remove(job.tenant);
+			}
+			else
+			{
+				tenants.put(job.tenant, tenantRunning);
+			}
+		}
+		dispatch();
+	}
+
+	private class Job<T> extends FutureTask<T>
+	{
+		final PlanningPriority priority;
+		final String tenant;
+		final long queuedNanos = System.nanoTime();
+
+		Job(PlanningPriority priority, String tenant, Callable<T> planning)
+		{
+			super(planning);
+			this.priority = priority;
+			this.tenant = tenant;
+		}
+
+		@Override
+		public void run()
+		{
+			long startNanos = System.nanoTime();
+			PlannerMetrics.observeScheduledWait(priority, startNanos - queuedNanos);
+			try
+			{
+				super.run();
+			}
+			finally
+			{
+				PlannerMetrics.observeScheduledRun(priority, System.nanoTime() - startNanos);
+				finished(this);
+			}
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.awt.geom.Line2D;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Polygon Simplifier
+|--------------------------------------------------------------------------
+|
+| Boundaries recorded by walking the perimeter with a rover come in with
+| thousands of nearly collinear vertices, and every containment check and
+| edge scan pays for each of them. This thins them out Visvalingam style
+| -- always dropping the vertex that moves the outline the least -- with
+| two rules to keep the mower safe:
+|
+|   1. No point of the original outline ends up more than the tolerance
+|      away from the simplified outline
+|   2. The polygon is only allowed to shrink (mission boundaries) or
+|      only allowed to grow (obstacles), so we never plan a swath
+|      outside the boundary or through an obstacle
+|
+| Works off the (x,y) values of the positions, so set those up first.
+*/
+public class PolygonSimplifier
+{
+	/**
+	 * Remove vertices from the polygon (in place)
+	 *
+	 * @param polygon Vertices with their (x,y) values set, in meters
+	 * @param toleranceMeters Furthest any point of the original outline may end
+	 * up from the simplified outline
+	 * @param shrink True if the polygon may only lose area (mission boundary),
+	 * false if it may only gain area (obstacle)
+	 * @return Number of vertices removed
+	 */
+	public static int simplify(List<GPSPosition> polygon, double toleranceMeters, boolean shrink)
+	{
+		final int n = polygon.size();
+		if(n <= 3 || toleranceMeters <= 0)
+		{
+			return 0;
+		}
+
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		double twiceArea = 0;
+		for(int i = 0; i < n; i++)
+		{
+			xs[i] = polygon.get(i).x;
+			ys[i] = polygon.get(i).y;
+		}
+		for(int i = 0; i < n; i++)
+		{
+			int j = (i + 1) % n;
+			twiceArea += xs[i] * ys[j] - xs[j] * ys[i];
+		}
+		if(twiceArea == 0)
+		{
+			return 0;
+		}
+
+		//Positive "side" means toward the inside of the polygon, whichever
+		//way round the vertices were given
+		double orientation = Math.signum(twiceArea);
+
+		int[] prev = new int[n];
+		int[] next = new int[n];
+		int[] stamp = new int[n];
+		boolean[] removed = new boolean[n];
+		for(int i = 0; i < n; i++)
+		{
+			prev[i] = (i + n - 1) % n;
+			next[i] = (i + 1) % n;
+		}
+
+		//{cost, vertex, stamp} -- entries whose stamp is out of date are skipped
+		PriorityQueue<double[]> queue = new PriorityQueue<>(n, new Comparator<double[]>()
+		{
+			@Override
+			public int compare(double[] o1, double[] o2)
+			{
+				return Double.compare(o1[0], o2[0]);
+			}
+		});
+		for(int i = 0; i < n; i++)
+		{
+			offer(queue, i, xs, ys, prev, next, stamp, orientation, shrink, toleranceMeters);
+		}
+
+		int remaining = n;
+		while(remaining > 3 && !queue.isEmpty())
+		{
+			double[] entry = queue.poll();
+			int i = (int)entry[1];
+			if(removed[i] || (int)entry[2] != stamp[i])
+			{
+				continue;
+			}
+
+			//The new edge can't cut across any other edge or the
+			//polygon stops being a polygon
+			if(chordCrossesAnotherEdge(i, xs, ys, prev, next, removed))
+			{
+				continue;
+			}
+
+			removed[i] = true;
+			remaining--;
+			int p = prev[i];
+			int q = next[i];
+			next[p] = q;
+			prev[q] = p;
+			offer(queue, p, xs, ys, prev, next, stamp, orientation, shrink, toleranceMeters);
+			offer(queue, q, xs, ys, prev, next, stamp, orientation, shrink, toleranceMeters);
+		}
+
+		for(int i = n - 1; i >= 0; i--)
+		{
+			if(removed[i])
+			{
+				polygon.remove(i);
+			}
+		}
+		return n - remaining;
+	}
+
+	/**
+	 * Queue the vertex up for removal if removing it keeps the outline within
+	 * tolerance and on the allowed side
+	 */
+	private static void offer(PriorityQueue<double[]> queue, int i, double[] xs, double[] ys,
+							  int[] prev, int[] next, int[] stamp, double orientation,
+							  boolean shrink, double toleranceMeters)
+	{
+		stamp[i]++;
+		int n = xs.length;
+		int p = prev[i];
+		int q = next[i];
+
+		//Every original vertex between p and q (including ones already removed)
+		//gets replaced by the chord p -> q
+		double cost = 0;
+		for(int j = (p + 1) % n; j != q; j = (j + 1) % n)
+		{
+			double side = orientation * ((xs[q] - xs[p]) * (ys[j] - ys[p]) - (ys[q] - ys[p]) * (xs[j] - xs[p]));
+
+			//Shrinking, the outline we cut off has to be on the outside of the chord,
+			//and growing it has to be on the inside
+			if(shrink ? side > 0 : side < 0)
+			{
+				return;
+			}
+			cost = Math.max(cost, Line2D.ptSegDist(xs[p], ys[p], xs[q], ys[q], xs[j], ys[j]));
+			if(cost > toleranceMeters)
+			{
+				return;
+			}
+		}
+		queue.add(new double[] {cost, i, stamp[i]});
+	}
+
+	private static boolean chordCrossesAnotherEdge(int i, double[] xs, double[] ys,
+												   int[] prev, int[] next, boolean[] removed)
+	{
+		int p = prev[i];
+		int q = next[i];
+		for(int k = 0; k < xs.length; k++)
+		{
+			if(removed[k])
+			{
+				continue;
+			}
+			int k2 = next[k];
+
+			//Edges sharing an end with the chord (or being replaced by it) touch it by design
+			if(k == p || k == q || k == i || k2 == p || k2 == q || k2 == i)
+			{
+				continue;
+			}
+			if(Line2D.linesIntersect(xs[p], ys[p], xs[q], ys[q], xs[k], ys[k], xs[k2], ys[k2]))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
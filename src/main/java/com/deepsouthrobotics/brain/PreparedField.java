@@ -0,0 +1,274 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.awt.geom.Path2D;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Prepared Field
+|--------------------------------------------------------------------------
+|
+| A mission boundary and its obstacles after all the one-time work has
+| been done on them: they've been projected into (x,y) meters around the
+| start point (see MissionBrain.prepareField(..)), the boundary's been
+| rotated so it begins at the start vertex when the start point is
+| outside of it, and we've got the bounds and containment paths.
+|
+| Nothing in here ever changes once it's built, so one PreparedField can
+| be planned any number of times, from any number of threads, at any
+| heading or swath width. The planner mutates the positions it works
+| with (shifting them, nudging the start point...), so it never gets
+| our vertices -- copyBoundary(), copyObstacles() and copyStart()
+| hand out fresh positions for every plan.
+|
+| The vertices sit in DoubleBuffers so that a field that's been
+| persisted (see FieldStore) can be read straight out of its mapped
+| file rather than copied onto the heap.
+*/
+public final class PreparedField
+{
+	//{latitude, longitude, x, y} for each vertex, one after the other (only
+	//ever read with absolute gets, so the buffers can be shared)
+	private final DoubleBuffer boundary;
+	private final DoubleBuffer[] obstacles;
+
+	//{latitude, longitude, x, y} of where the mission starts (which is the
+	//closest boundary vertex if the requested start was outside the boundary)
+	private final double[] start;
+
+	//Where the user asked to start, before any snapping to the boundary
+	private final double requestedStartLatitude;
+	private final double requestedStartLongitude;
+
+	//Bounds of the boundary in the projected (x,y) space
+	public final double minX;
+	public final double minY;
+	public final double maxX;
+	public final double maxY;
+
+	//Only ever read after the constructor, which makes them safe to share
+	private final Path2D.Double boundaryPath;
+	private final Path2D.Double[] obstaclePaths;
+
+	/**
+	 * @param missionBoundary Projected boundary (copied -- the caller can do what it likes with it afterwards)
+	 * @param polyObstacles Projected obstacles (also copied)
+	 * @param start Projected start position
+	 */
+	PreparedField(List<GPSPosition> missionBoundary,
+				  List<List<GPSPosition>> polyObstacles,
+				  GPSPosition start,
+				  double requestedStartLatitude,
+				  double requestedStartLongitude)
+	{
+		this.boundary = pack(missionBoundary);
+		this.obstacles = new DoubleBuffer[polyObstacles.size()];
+		for(int i = 0; i < obstacles.length; i++)
+		{
+			obstacles[i] = pack(polyObstacles.get(i));
+		}
+		this.start = new double[] {start.latitude, start.longitude, start.x, start.y};
+		this.requestedStartLatitude = requestedStartLatitude;
+		this.requestedStartLongitude = requestedStartLongitude;
+
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+		for(int i = 0; i < boundary.capacity(); i += 4)
+		{
+			minX = Math.min(minX, boundary.get(i + 2));
+			minY = Math.min(minY, boundary.get(i + 3));
+			maxX = Math.max(maxX, boundary.get(i + 2));
+			maxY = Math.max(maxY, boundary.get(i + 3));
+		}
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+
+		this.boundaryPath = path(boundary);
+		this.obstaclePaths = new Path2D.Double[obstacles.length];
+		for(int i = 0; i < obstacles.length; i++)
+		{
+			obstaclePaths[i] = path(obstacles[i]);
+		}
+	}
+
+	/**
+	 * A field that's already been worked out and written down -- i.e. mapped
+	 * back in by the FieldStore
+	 *
+	 * @param start {latitude, longitude, x, y} of the start position
+	 */
+	PreparedField(DoubleBuffer boundary,
+				  DoubleBuffer[] obstacles,
+				  double[] start,
+				  double requestedStartLatitude,
+				  double requestedStartLongitude,
+				  double minX, double minY, double maxX, double maxY)
+	{
+		this.boundary = boundary;
+		this.obstacles = obstacles;
+		this.start = start;
+		this.requestedStartLatitude = requestedStartLatitude;
+		this.requestedStartLongitude = requestedStartLongitude;
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+
+		this.boundaryPath = path(boundary);
+		this.obstaclePaths = new Path2D.Double[obstacles.length];
+		for(int i = 0; i < obstacles.length; i++)
+		{
+			obstaclePaths[i] = path(obstacles[i]);
+		}
+	}
+
+	public int boundaryVertexCount()
+	{
+		return boundary.capacity() / 4;
+	}
+
+	public int obstacleCount()
+	{
+		return obstacles.length;
+	}
+
+	/**
+	 * @return True if the projected (x,y) point is inside the mission boundary
+	 */
+	public boolean boundaryContains(double x, double y)
+	{
+		return boundaryPath.contains(x, y);
+	}
+
+	/**
+	 * @return True if the projected (x,y) point is inside obstacle number i
+	 */
+	public boolean obstacleContains(int i, double x, double y)
+	{
+		return obstaclePaths[i].contains(x, y);
+	}
+
+	/**
+	 * @return Fresh copies of the projected boundary vertices for the planner to work on
+	 */
+	public List<GPSPosition> copyBoundary()
+	{
+		return unpack(boundary);
+	}
+
+	/**
+	 * @return Fresh copies of the projected obstacles for the planner to work on
+	 */
+	public List<List<GPSPosition>> copyObstacles()
+	{
+		List<List<GPSPosition>> copies = new ArrayList<>(obstacles.length);
+		for(DoubleBuffer obstacle : obstacles)
+		{
+			copies.add(unpack(obstacle));
+		}
+		return copies;
+	}
+
+	/**
+	 * @return Fresh copy of the projected start position
+	 */
+	public GPSPosition copyStart()
+	{
+		return new GPSPosition(start[0], start[1], start[2], start[3]);
+	}
+
+	/**
+	 * @return (lat,lng) the (x,y) space is measured from (i.e. the start position)
+	 */
+	public GPSPosition projectionOrigin()
+	{
+		return new GPSPosition(start[0], start[1]);
+	}
+
+	/**
+	 * @return (lat,lng) the user asked to start from
+	 */
+	public GPSPosition requestedStart()
+	{
+		return new GPSPosition(requestedStartLatitude, requestedStartLongitude);
+	}
+
+	//The rest is for the FieldStore to write us out with
+
+	DoubleBuffer boundary()
+	{
+		return boundary;
+	}
+
+	DoubleBuffer[] obstacles()
+	{
+		return obstacles.clone();
+	}
+
+	double[] start()
+	{
+		return start.clone();
+	}
+
+	double requestedStartLatitude()
+	{
+		return requestedStartLatitude;
+	}
+
+	double requestedStartLongitude()
+	{
+		return requestedStartLongitude;
+	}
+
+	private static DoubleBuffer pack(List<GPSPosition> positions)
+	{
+		double[] packed = new double[positions.size() * 4];
+		for(int i = 0; i < positions.size(); i++)
+		{
+			GPSPosition position = positions.get(i);
+			packed[4 * i] = position.latitude;
+			packed[4 * i + 1] = position.longitude;
+			packed[4 * i + 2] = position.x;
+			packed[4 * i + 3] = position.y;
+		}
+		return DoubleBuffer.wrap(packed);
+	}
+
+	private static List<GPSPosition> unpack(DoubleBuffer packed)
+	{
+		List<GPSPosition> positions = new ArrayList<>(packed.capacity() / 4);
+		for(int i = 0; i < packed.capacity(); i += 4)
+		{
+			positions.add(new GPSPosition(packed.get(i), packed.get(i + 1), packed.get(i + 2), packed.get(i + 3)));
+		}
+		return positions;
+	}
+
+	private static Path2D.Double path(DoubleBuffer packed)
+	{
+		Path2D.Double path = new Path2D.Double();
+		for(int i = 0; i < packed.capacity(); i += 4)
+		{
+			if(i == 0)
+			{
+				path.moveTo(packed.get(i + 2), packed.get(i + 3));
+			}
+			else
+			{
+				path.lineTo(packed.get(i + 2), packed.get(i + 3));
+			}
+		}
+		path.closePath();
+		return path;
+	}
+}
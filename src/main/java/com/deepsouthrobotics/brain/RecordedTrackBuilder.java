@@ -0,0 +1,277 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.GPSCartesianCoordinateSpace;
+import com.deepsouthrobotics.data.GPSPosition;
+import com.deepsouthrobotics.data.RecordedPositions;
+
+import java.awt.geom.Line2D;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Recorded Track Builder
+|--------------------------------------------------------------------------
+|
+| Teach and repeat: drive the robot around once while it records its
+| (x,y) position, then hand the recording to this and get back a mission
+| that follows the same path. Recordings have a point every few
+| centimeters, so the path gets straightened out as it goes -- the same
+| way the WaypointDecimator does it, a point is only kept when the
+| straight line from the last kept point would wander more than the
+| tolerance from the points in between -- and the kept points are
+| projected to (lat,lng) through a GPSCartesianCoordinateSpace.
+|
+| Points are fed in one at a time (RecordedPositions batches work
+| straight off the wire) and the only state is a small reorder buffer
+| and the points since the last kept one, so a recording of any
+| length takes the same memory. Guide points aren't part of the
+| track and get skipped.
+*/
+public class RecordedTrackBuilder
+{
+	//A very long straight run means rechecking lots of pending points for
+	//every new one, so give up and keep a point every so often
+	private static final int MAX_PENDING = 256;
+
+	private final GPSCartesianCoordinateSpace space;
+	private final double toleranceMeters;
+	private final List<GPSPosition> out;
+
+	//Min-heap on record index, so points that arrive a little out of order
+	//get put back in order
+	private final int[] heapIndex;
+	private final double[] heapX;
+	private final double[] heapY;
+	private int heapSize;
+	private long lastRecordIndex = Long.MIN_VALUE;
+
+	private boolean keptAny;
+	private double keptX;
+	private double keptY;
+	private final double[] pendingX = new double[MAX_PENDING];
+	private final double[] pendingY = new double[MAX_PENDING];
+	private int pendingCount;
+
+	private long pointsUsed;
+	private long pointsDropped;
+
+	/**
+	 * @param space Where the recording's (0,0) is on the map
+	 * @param toleranceMeters Furthest the mission may be from any recorded point
+	 * @param reorderWindow How far out of order a point may be and still get used
+	 * @param out Where the mission waypoints go
+	 */
+	public RecordedTrackBuilder(GPSCartesianCoordinateSpace space, double toleranceMeters,
+								int reorderWindow, List<GPSPosition> out)
+	{
+		this.space = space;
+		this.toleranceMeters = toleranceMeters;
+		this.out = out;
+		this.heapIndex = new int[Math.max(reorderWindow, 1)];
+		this.heapX = new double[heapIndex.length];
+		this.heapY = new double[heapIndex.length];
+	}
+
+	/**
+	 * Feed in every point of a batch of the recording
+	 */
+	public void accept(RecordedPositions batch)
+	{
+		for(int row = 0; row < batch.size(); row++)
+		{
+			if(batch.isGuidePoint(row) || !batch.hasX(row) || !batch.hasY(row))
+			{
+				pointsDropped++;
+				continue;
+			}
+			accept(batch.recordIndex(row), batch.x(row), batch.y(row));
+		}
+	}
+
+	/**
+	 * Feed in one recorded point
+	 */
+	public void accept(int recordIndex, double x, double y)
+	{
+		if(recordIndex <= lastRecordIndex)
+		{
+			//Too late (or a repeat) -- the track's already gone past it
+			pointsDropped++;
+			return;
+		}
+
+		if(heapSize == heapIndex.length)
+		{
+			track(popEarliest());
+		}
+		push(recordIndex, x, y);
+	}
+
+	/**
+	 * Call once the last point has been accepted
+	 */
+	public void finish()
+	{
+		while(heapSize > 0)
+		{
+			track(popEarliest());
+		}
+		if(pendingCount > 0)
+		{
+			keep(pendingX[pendingCount - 1], pendingY[pendingCount - 1]);
+		}
+	}
+
+	/**
+	 * @return Recorded points that made it into the track (kept or straightened out)
+	 */
+	public long pointsUsed()
+	{
+		return pointsUsed;
+	}
+
+	/**
+	 * @return Guide points, points without an (x,y), and points that came in too late
+	 */
+	public long pointsDropped()
+	{
+		return pointsDropped;
+	}
+
+	/**
+	 * Next point of the track, in record order
+	 *
+	 * @param slot Where popEarliest() left the point
+	 */
+	private void track(int slot)
+	{
+		if(heapIndex[slot] == lastRecordIndex)
+		{
+			//Recorded twice -- we've already got it
+			pointsDropped++;
+			return;
+		}
+		lastRecordIndex = heapIndex[slot];
+
+		double x = heapX[slot];
+		double y = heapY[slot];
+		pointsUsed++;
+
+		if(!keptAny)
+		{
+			keep(x, y);
+			return;
+		}
+
+		if(pendingCount == 0 && Math.hypot(x - keptX, y - keptY) <= toleranceMeters)
+		{
+			//Sitting still
+			return;
+		}
+
+		if(pendingCount >= MAX_PENDING || !pendingPointsAreNear(x, y))
+		{
+			keep(pendingX[pendingCount - 1], pendingY[pendingCount - 1]);
+		}
+		pendingX[pendingCount] = x;
+		pendingY[pendingCount] = y;
+		pendingCount++;
+	}
+
+	private void keep(double x, double y)
+	{
+		out.add(space.gpsPositionGivenDistanceFromZeroZero(x, y));
+		keptAny = true;
+		keptX = x;
+		keptY = y;
+		pendingCount = 0;
+	}
+
+	/**
+	 * @return True if every pending point is within tolerance of the segment
+	 * from the last kept point to (x,y)
+	 */
+	private boolean pendingPointsAreNear(double x, double y)
+	{
+		for(int i = 0; i < pendingCount; i++)
+		{
+			if(Line2D.ptSegDist(keptX, keptY, x, y, pendingX[i], pendingY[i]) > toleranceMeters)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void push(int recordIndex, double x, double y)
+	{
+		int i = heapSize++;
+		while(i > 0)
+		{
+			int parent = (i - 1) / 2;
+			if(heapIndex[parent] <= recordIndex)
+			{
+				break;
+			}
+			move(parent, i);
+			i = parent;
+		}
+		heapIndex[i] = recordIndex;
+		heapX[i] = x;
+		heapY[i] = y;
+	}
+
+	/**
+	 * Take the earliest point off the heap
+	 *
+	 * @return Slot its values were left in (the one just past the end of the heap)
+	 */
+	private int popEarliest()
+	{
+		int recordIndex = heapIndex[0];
+		double x = heapX[0];
+		double y = heapY[0];
+
+		//Sift the last point down from the top
+		heapSize--;
+		int lastIndex = heapIndex[heapSize];
+		double lastX = heapX[heapSize];
+		double lastY = heapY[heapSize];
+		int i = 0;
+		while(true)
+		{
+			int child = 2 * i + 1;
+			if(child >= heapSize)
+			{
+				break;
+			}
+			if(child + 1 < heapSize && heapIndex[child + 1] < heapIndex[child])
+			{
+				child++;
+			}
+			if(heapIndex[child] >= lastIndex)
+			{
+				break;
+			}
+			move(child, i);
+			i = child;
+		}
+		heapIndex[i] = lastIndex;
+		heapX[i] = lastX;
+		heapY[i] = lastY;
+
+		heapIndex[heapSize] = recordIndex;
+		heapX[heapSize] = x;
+		heapY[heapSize] = y;
+		return heapSize;
+	}
+
+	private void move(int from, int to)
+	{
+		heapIndex[to] = heapIndex[from];
+		heapX[to] = heapX[from];
+		heapY[to] = heapY[from];
+	}
+}
@@ -0,0 +1,180 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Registered Field
+|--------------------------------------------------------------------------
+|
+| One version of a field stored in the FieldRegistry -- the (lat,lng)
+| vertices of its boundary and obstacles. Updating a field swaps in a
+| whole new RegisteredField, so a plan that grabbed this one keeps
+| seeing exactly this geometry even if the field changes under it.
+|
+| The projection in a PreparedField is centered on the start point, so
+| we can't prepare the field once for every request -- but clients
+| tend to start from the same spot every time, so we hang on to the
+| PreparedField for the last few start points we've seen (on disk too,
+| when there's a FieldStore).
+*/
+public final class RegisteredField
+{
+	public final String id;
+	public final long version;
+
+	//True if this was mapped out of the FieldStore, so we can always map it again
+	final boolean stored;
+
+	//{latitude, longitude} for each vertex, one after the other -- on the heap
+	//or mapped out of the FieldStore
+	private final DoubleBuffer boundary;
+	private final DoubleBuffer[] obstacles;
+
+	//Start (lat,lng) -> the field prepared around it. This is just a cache
+	//(guarded by itself), the field itself never changes.
+	private final Map<String, PreparedField> prepared = new LinkedHashMap<String, PreparedField>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PreparedField> eldest)
+		{
+			if(size() <= Config.preparedStartsPerField)
+			{
+				return false;
+			}
+			PreparedField evicted = eldest.getValue();
+			FieldStore.forgetPrepared(RegisteredField.this,
+					evicted.requestedStartLatitude(), evicted.requestedStartLongitude());
+			return true;
+		}
+	};
+
+	RegisteredField(String id, long version, List<GPSPosition> missionBoundary, List<List<GPSPosition>> polyObstacles)
+	{
+		this.id = id;
+		this.version = version;
+		this.stored = false;
+		this.boundary = pack(missionBoundary);
+		this.obstacles = new DoubleBuffer[polyObstacles.size()];
+		for(int i = 0; i < obstacles.length; i++)
+		{
+			obstacles[i] = pack(polyObstacles.get(i));
+		}
+	}
+
+	RegisteredField(String id, long version, DoubleBuffer boundary, DoubleBuffer[] obstacles)
+	{
+		this.id = id;
+		this.version = version;
+		this.stored = true;
+		this.boundary = boundary;
+		this.obstacles = obstacles;
+	}
+
+	public int boundaryVertexCount()
+	{
+		return boundary.capacity() / 2;
+	}
+
+	public int obstacleCount()
+	{
+		return obstacles.length;
+	}
+
+	/**
+	 * @return Fresh (lat,lng) copies of the boundary vertices
+	 */
+	public List<GPSPosition> copyBoundary()
+	{
+		return unpack(boundary);
+	}
+
+	/**
+	 * @return Fresh (lat,lng) copies of the obstacles
+	 */
+	public List<List<GPSPosition>> copyObstacles()
+	{
+		List<List<GPSPosition>> copies = new ArrayList<>(obstacles.length);
+		for(DoubleBuffer obstacle : obstacles)
+		{
+			copies.add(unpack(obstacle));
+		}
+		return copies;
+	}
+
+	/**
+	 * @return This version of the field prepared for planning from the given start point
+	 */
+	public PreparedField prepare(GPSPosition startGPSPositionUnchecked)
+	{
+		String key = startGPSPositionUnchecked.latitude + "," + startGPSPositionUnchecked.longitude;
+		synchronized(prepared)
+		{
+			PreparedField field = prepared.get(key);
+			if(field != null)
+			{
+				return field;
+			}
+		}
+
+		//Two requests for a new start point might both prepare it -- that's
+		//fine, they'll get identical fields and one of them wins the map
+		PreparedField field = FieldStore.loadPrepared(this, startGPSPositionUnchecked);
+		boolean loaded = field != null;
+		if(!loaded)
+		{
+			field = new MissionBrain().prepareField(copyBoundary(), copyObstacles(), startGPSPositionUnchecked);
+		}
+		synchronized(prepared)
+		{
+			prepared.put(key, field);
+
+			//Queued under the lock so it can't land after this start point's eviction
+			if(!loaded)
+			{
+				FieldStore.savePrepared(this, field);
+			}
+		}
+		return field;
+	}
+
+	DoubleBuffer boundary()
+	{
+		return boundary;
+	}
+
+	DoubleBuffer[] obstacles()
+	{
+		return obstacles.clone();
+	}
+
+	private static DoubleBuffer pack(List<GPSPosition> positions)
+	{
+		double[] packed = new double[positions.size() * 2];
+		for(int i = 0; i < positions.size(); i++)
+		{
+			packed[2 * i] = positions.get(i).latitude;
+			packed[2 * i + 1] = positions.get(i).longitude;
+		}
+		return DoubleBuffer.wrap(packed);
+	}
+
+	private static List<GPSPosition> unpack(DoubleBuffer packed)
+	{
+		List<GPSPosition> positions = new ArrayList<>(packed.capacity() / 2);
+		for(int i = 0; i < packed.capacity(); i += 2)
+		{
+			positions.add(new GPSPosition(packed.get(i), packed.get(i + 1)));
+		}
+		return positions;
+	}
+}
@@ -0,0 +1,155 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.GPSPosition;
+import com.deepsouthrobotics.util.Geo;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Ring Buffer Trace Logger
+|--------------------------------------------------------------------------
+|
+| Debugging MissionTraceListener that prints the old "3Top <lat> <lng>
+| Distance: <meters>" swath lines without making the planner wait on
+| stdout. Planning threads just drop the raw numbers into a fixed-size
+| ring of primitive slots; a single daemon thread drains the ring, does
+| the haversine math and string building, and writes the lines out.
+|
+| If the printer falls behind and the ring fills up we drop events
+| (and say how many when it catches up) rather than block a request.
+*/
+public class RingBufferTraceLogger implements MissionTraceListener
+{
+	//How long the printer naps when the ring is empty
+	private static final long IDLE_PARK_NANOS = 1000000L;
+
+	private final PrintStream out;
+	private final int mask;
+
+	//One slot per event, spread across parallel primitive arrays so
+	//recording an event doesn't allocate anything
+	private final int[] swathIndex;
+	private final boolean[] forward;
+	private final double[] previousLatitude;
+	private final double[] previousLongitude;
+	private final double[] latitude;
+	private final double[] longitude;
+
+	//published[slot] = sequence number + 1 of the event sitting in the
+	//slot, once a producer has finished writing it
+	private final AtomicLongArray published;
+
+	//Next sequence number a producer will claim
+	private final AtomicLong claimed = new AtomicLong();
+
+	//Next sequence number the printer will read (only the printer writes this)
+	private volatile long consumed;
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * @param capacity Number of events the ring holds (rounded up to a power of 2)
+	 */
+	public RingBufferTraceLogger(int capacity, PrintStream out)
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.out = out;
+		this.mask = size - 1;
+		this.swathIndex = new int[size];
+		this.forward = new boolean[size];
+		this.previousLatitude = new double[size];
+		this.previousLongitude = new double[size];
+		this.latitude = new double[size];
+		this.longitude = new double[size];
+		this.published = new AtomicLongArray(size);
+
+		Thread printer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				drain();
+			}
+		}, "mission-trace-logger");
+		printer.setDaemon(true);
+		printer.start();
+	}
+
+	@Override
+	public void swathTurn(int swathIndex, boolean forward, GPSPosition previousTurn, GPSPosition turn)
+	{
+		long sequence;
+		do
+		{
+			sequence = claimed.get();
+			if(sequence - consumed > mask)
+			{
+				dropped.incrementAndGet();
+				return;
+			}
+		}
+		while(!claimed.compareAndSet(sequence, sequence + 1));
+
+		int slot = (int)(sequence & mask);
+		this.swathIndex[slot] = swathIndex;
+		this.forward[slot] = forward;
+		this.previousLatitude[slot] = previousTurn.latitude;
+		this.previousLongitude[slot] = previousTurn.longitude;
+		this.latitude[slot] = turn.latitude;
+		this.longitude[slot] = turn.longitude;
+
+		//The volatile write publishes the plain array writes above to the printer
+		published.set(slot, sequence + 1);
+	}
+
+	/**
+	 * @return How many events were thrown away because the ring was full
+	 */
+	public long droppedCount()
+	{
+		return dropped.get();
+	}
+
+	private void drain()
+	{
+		Geo geo = new Geo();
+		StringBuilder line = new StringBuilder();
+		long reportedDropped = 0;
+
+		while(true)
+		{
+			long sequence = consumed;
+			int slot = (int)(sequence & mask);
+			if(published.get(slot) != sequence + 1)
+			{
+				long droppedSoFar = dropped.get();
+				if(droppedSoFar != reportedDropped)
+				{
+					out.println("Mission trace dropped " + (droppedSoFar - reportedDropped) + " events");
+					reportedDropped = droppedSoFar;
+				}
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+				continue;
+			}
+
+			double distance = geo.latLongDistance(previousLatitude[slot], previousLongitude[slot],
+					latitude[slot], longitude[slot]);
+			line.setLength(0);
+			line.append(swathIndex[slot])
+					.append(forward[slot] ? "Top " : "Bottom ")
+					.append(latitude[slot]).append(' ')
+					.append(longitude[slot])
+					.append(" Distance: ").append(distance);
+
+			//Hand the slot back before the (slow) print
+			consumed = sequence + 1;
+			out.println(line);
+		}
+	}
+}
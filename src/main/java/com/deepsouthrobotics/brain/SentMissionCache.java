@@ -0,0 +1,173 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Sent Mission Cache
+|--------------------------------------------------------------------------
+|
+| Remembers the waypoints of the missions we've recently sent back, by a
+| hash of the waypoints themselves, so that when the UI nudges the field
+| or the heading and asks again it can tell us which mission it's
+| holding -- and we can send back just the part that changed (see
+| editFrom(..)) rather than the whole waypoint list.
+|
+| The waypoints are kept as bare lat/lng pairs, and least recently used
+| missions fall out once we're holding more than
+| Config.sentMissionCacheMaxWaypoints waypoints all told. Since the key
+| is a hash of the content, a restart costs nothing but a few full
+| responses.
+*/
+public class SentMissionCache
+{
+	//hash -> {lat, lng, lat, lng, ...}
+	private static final LinkedHashMap<String, double[]> MISSIONS = new LinkedHashMap<>(16, 0.75f, true);
+
+	//Guarded by MISSIONS
+	private static long waypointsHeld;
+
+	/**
+	 * Remember a mission we're about to send
+	 *
+	 * @return The mission's hash, for the client to send back next time
+	 */
+	public static String put(List<GPSPosition> waypoints)
+	{
+		double[] latLngs = new double[2 * waypoints.size()];
+		for(int i = 0; i < waypoints.size(); i++)
+		{
+			latLngs[2 * i] = waypoints.get(i).latitude;
+			latLngs[2 * i + 1] = waypoints.get(i).longitude;
+		}
+		String hash = hash(latLngs);
+
+		synchronized(MISSIONS)
+		{
+			double[] previous = MISSIONS.put(hash, latLngs);
+			if(previous != null)
+			{
+				waypointsHeld -= previous.length / 2;
+			}
+			waypointsHeld += waypoints.size();
+
+			//Never evict the one we just put in, even if it's huge on its own
+			Iterator<Map.Entry<String, double[]>> eldest = MISSIONS.entrySet().iterator();
+			while(waypointsHeld > Config.sentMissionCacheMaxWaypoints && MISSIONS.size() > 1)
+			{
+				waypointsHeld -= eldest.next().getValue().length / 2;
+				eldest.remove();
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * The edit that turns a mission we sent earlier into the given one: the
+	 * waypoints both have at the start and the end are kept, and everything
+	 * in between is replaced. No edits at all if they're the same.
+	 *
+	 * @param baseHash What put(..) returned for the mission the client is holding
+	 * @return The edits (indexes refer to the earlier mission), or null if we
+	 * don't have that mission (never sent, or it's fallen out)
+	 */
+	public static List<MissionReplan.Edit> editFrom(String baseHash, List<GPSPosition> waypoints)
+	{
+		double[] base;
+		synchronized(MISSIONS)
+		{
+			base = MISSIONS.get(baseHash);
+		}
+		if(base == null)
+		{
+			return null;
+		}
+
+		int baseCount = base.length / 2;
+		int count = waypoints.size();
+		int most = Math.min(baseCount, count);
+
+		int keptPrefix = 0;
+		while(keptPrefix < most && same(base, keptPrefix, waypoints.get(keptPrefix)))
+		{
+			keptPrefix++;
+		}
+
+		int keptSuffix = 0;
+		while(keptSuffix < most - keptPrefix
+				&& same(base, baseCount - 1 - keptSuffix, waypoints.get(count - 1 - keptSuffix)))
+		{
+			keptSuffix++;
+		}
+
+		List<MissionReplan.Edit> edits = new ArrayList<>();
+		int deleteCount = baseCount - keptPrefix - keptSuffix;
+		int insertEnd = count - keptSuffix;
+		if(deleteCount > 0 || insertEnd > keptPrefix)
+		{
+			edits.add(new MissionReplan.Edit(keptPrefix, deleteCount,
+					new ArrayList<>(waypoints.subList(keptPrefix, insertEnd))));
+		}
+		return edits;
+	}
+
+	/**
+	 * Exact comparison -- the client got Double.toString() of every value, which
+	 * parses back to the same double, so anything that moved at all counts as
+	 * changed
+	 */
+	private static boolean same(double[] latLngs, int index, GPSPosition position)
+	{
+		return Double.doubleToLongBits(latLngs[2 * index]) == Double.doubleToLongBits(position.latitude)
+				&& Double.doubleToLongBits(latLngs[2 * index + 1]) == Double.doubleToLongBits(position.longitude);
+	}
+
+	/**
+	 * First 128 bits of the SHA-256 of the lat/lng values, as hex
+	 */
+	private static String hash(double[] latLngs)
+	{
+		MessageDigest digest;
+		try
+		{
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException e)
+		{
+			//Every JVM has to have SHA-256
+			throw new IllegalStateException(e);
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(8 * 512);
+		for(int i = 0; i < latLngs.length; i++)
+		{
+			if(!buffer.hasRemaining())
+			{
+				digest.update(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+			buffer.putLong(Double.doubleToLongBits(latLngs[i]));
+		}
+		digest.update(buffer.array(), 0, buffer.position());
+
+		byte[] sha = digest.digest();
+		StringBuilder hex = new StringBuilder(32);
+		for(int i = 0; i < 16; i++)
+		{
+			hex.append(Character.forDigit((sha[i] >> 4) & 0xf, 16)).append(Character.forDigit(sha[i] & 0xf, 16));
+		}
+		return hex.toString();
+	}
+}
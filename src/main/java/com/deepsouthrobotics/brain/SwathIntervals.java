@@ -0,0 +1,171 @@
+package com.deepsouthrobotics.brain;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Swath Intervals
+|--------------------------------------------------------------------------
+|
+| Interval math for a single swath line. Intervals are stored as flat
+| double arrays of (start, end) pairs sorted by along value, so
+| {0, 10, 14, 30} means the swath is mowable from 0 to 10
+| and again from 14 to 30.
+*/
+public class SwathIntervals
+{
+	/**
+	 * @return The intervals on the swath line that are inside the mission
+	 * boundary and outside of every obstacle
+	 */
+	public static double[] free(SweepPolygon boundary, List<SweepPolygon> obstacles, double acrossValue)
+	{
+		double[] inside = boundary.insideIntervals(acrossValue);
+		if(inside.length == 0 || obstacles.isEmpty())
+		{
+			return inside;
+		}
+
+		double[] blocked = blocked(obstacles, acrossValue);
+		if(blocked.length == 0)
+		{
+			return inside;
+		}
+
+		return subtract(inside, blocked);
+	}
+
+	/**
+	 * @return Union of the obstacle intervals on the swath line
+	 */
+	public static double[] blocked(List<SweepPolygon> obstacles, double acrossValue)
+	{
+		double[] all = new double[0];
+		for(SweepPolygon obstacle : obstacles)
+		{
+			if(acrossValue < obstacle.minAcross || acrossValue >= obstacle.maxAcross)
+			{
+				continue;
+			}
+			double[] intervals = obstacle.insideIntervals(acrossValue);
+			if(intervals.length > 0)
+			{
+				all = union(all, intervals);
+			}
+		}
+		return all;
+	}
+
+	public static double[] union(double[] a, double[] b)
+	{
+		if(a.length == 0)
+		{
+			return b;
+		}
+		if(b.length == 0)
+		{
+			return a;
+		}
+
+		//Merge both sets of pairs by start value and then
+		//collapse anything that overlaps
+		int pairs = (a.length + b.length) / 2;
+		double[][] merged = new double[pairs][];
+		int m = 0;
+		for(int i = 0; i < a.length; i += 2)
+		{
+			merged[m++] = new double[] {a[i], a[i + 1]};
+		}
+		for(int i = 0; i < b.length; i += 2)
+		{
+			merged[m++] = new double[] {b[i], b[i + 1]};
+		}
+		Arrays.sort(merged, new Comparator<double[]>()
+		{
+			@Override
+			public int compare(double[] o1, double[] o2)
+			{
+				return Double.compare(o1[0], o2[0]);
+			}
+		});
+
+		double[] out = new double[pairs * 2];
+		int count = 0;
+		for(double[] pair : merged)
+		{
+			if(count > 0 && pair[0] <= out[count - 1])
+			{
+				out[count - 1] = Math.max(out[count - 1], pair[1]);
+			}
+			else
+			{
+				out[count++] = pair[0];
+				out[count++] = pair[1];
+			}
+		}
+		return Arrays.copyOf(out, count);
+	}
+
+	/**
+	 * @return Intervals of "from" with every interval of "remove" cut out
+	 */
+	public static double[] subtract(double[] from, double[] remove)
+	{
+		double[] out = new double[from.length + remove.length];
+		int count = 0;
+		int r = 0;
+
+		for(int i = 0; i < from.length; i += 2)
+		{
+			double start = from[i];
+			double end = from[i + 1];
+
+			//skip removals that end before this interval begins
+			while(r < remove.length && remove[r + 1] <= start)
+			{
+				r += 2;
+			}
+
+			int k = r;
+			while(k < remove.length && remove[k] < end)
+			{
+				if(remove[k] > start)
+				{
+					out[count++] = start;
+					out[count++] = remove[k];
+				}
+				start = Math.max(start, remove[k + 1]);
+				k += 2;
+			}
+
+			if(start < end)
+			{
+				out[count++] = start;
+				out[count++] = end;
+			}
+		}
+		return Arrays.copyOf(out, count);
+	}
+
+	/**
+	 * @return Copy of the intervals without the ones shorter than minLength
+	 */
+	public static double[] dropShorterThan(double[] intervals, double minLength)
+	{
+		double[] out = new double[intervals.length];
+		int count = 0;
+		for(int i = 0; i < intervals.length; i += 2)
+		{
+			if(intervals[i + 1] - intervals[i] >= minLength)
+			{
+				out[count++] = intervals[i];
+				out[count++] = intervals[i + 1];
+			}
+		}
+		return count == intervals.length ? intervals : Arrays.copyOf(out, count);
+	}
+}
@@ -0,0 +1,173 @@
+package com.deepsouthrobotics.brain;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Swath Layout
+|--------------------------------------------------------------------------
+|
+| Every swath line of a sweep, with its intervals inside the mission
+| boundary and the pieces of it that obstacles clip out. A swath only
+| depends on its offset from the guide line, so the whole layout is
+| computed in parallel up front -- each worker writes into its own
+| slots of the array, which means the result is the same no matter
+| how many threads did the work. Ordering the swaths and connecting
+| them (turns, transits, detours) is left to the caller.
+*/
+public class SwathLayout
+{
+	//Below this many swaths a worker just does the work itself
+	//rather than splitting it any further
+	private static final int SWATHS_PER_TASK = 32;
+
+	public final Swath[] swaths;
+
+	private SwathLayout(Swath[] swaths)
+	{
+		this.swaths = swaths;
+	}
+
+	/**
+	 * @param originAcross Across value of the first swath (i.e. the guide line)
+	 * @param stepAcross Signed across distance from one swath to the next
+	 */
+	public static SwathLayout compute(SweepPolygon boundary,
+									  List<SweepPolygon> obstacles,
+									  double originAcross,
+									  double stepAcross)
+	{
+		double edge = stepAcross > 0 ? boundary.maxAcross : boundary.minAcross;
+		int count = 0;
+		if(originAcross >= boundary.minAcross && originAcross <= boundary.maxAcross)
+		{
+			count = (int)Math.floor((edge - originAcross) / stepAcross) + 1;
+		}
+
+		Swath[] swaths = new Swath[count];
+		if(count > 0)
+		{
+			PlannerPool.get().invoke(new SwathTask(boundary, obstacles, originAcross, stepAcross, swaths, 0, count));
+		}
+		return new SwathLayout(swaths);
+	}
+
+	/**
+	 * One swath line
+	 */
+	public static class Swath
+	{
+		public final double across;
+
+		//(start, end) pairs of the swath that are inside the mission boundary
+		public final double[] inside;
+
+		//(start, end) pairs where an obstacle sits on the swath -- sorted by
+		//start, and clipObstacles holds the index of the obstacle (in
+		//the list the layout was computed with) for each pair
+		public final double[] clips;
+		public final int[] clipObstacles;
+
+		Swath(double across, double[] inside, double[] clips, int[] clipObstacles)
+		{
+			this.across = across;
+			this.inside = inside;
+			this.clips = clips;
+			this.clipObstacles = clipObstacles;
+		}
+
+		static Swath compute(SweepPolygon boundary, List<SweepPolygon> obstacles, double across)
+		{
+			double[] inside = boundary.insideIntervals(across);
+
+			//Gather each obstacle's intervals separately (rather than unioning them)
+			//so the caller knows which perimeter to follow around each one
+			double[][] pairs = new double[0][];
+			int count = 0;
+			for(int o = 0; o < obstacles.size() && inside.length > 0; o++)
+			{
+				SweepPolygon obstacle = obstacles.get(o);
+				if(across < obstacle.minAcross || across >= obstacle.maxAcross)
+				{
+					continue;
+				}
+				double[] intervals = obstacle.insideIntervals(across);
+				for(int i = 0; i < intervals.length; i += 2)
+				{
+					if(count == pairs.length)
+					{
+						pairs = Arrays.copyOf(pairs, Math.max(4, count * 2));
+					}
+					pairs[count++] = new double[] {intervals[i], intervals[i + 1], o};
+				}
+			}
+
+			pairs = Arrays.copyOf(pairs, count);
+			Arrays.sort(pairs, new Comparator<double[]>()
+			{
+				@Override
+				public int compare(double[] o1, double[] o2)
+				{
+					return Double.compare(o1[0], o2[0]);
+				}
+			});
+
+			double[] clips = new double[count * 2];
+			int[] clipObstacles = new int[count];
+			for(int i = 0; i < count; i++)
+			{
+				clips[2 * i] = pairs[i][0];
+				clips[2 * i + 1] = pairs[i][1];
+				clipObstacles[i] = (int)pairs[i][2];
+			}
+			return new Swath(across, inside, clips, clipObstacles);
+		}
+	}
+
+	//Only ever run on the pool, never serialized
+	@SuppressWarnings("serial")
+	private static class SwathTask extends RecursiveAction
+	{
+		private final SweepPolygon boundary;
+		private final List<SweepPolygon> obstacles;
+		private final double originAcross;
+		private final double stepAcross;
+		private final Swath[] out;
+		private final int from;
+		private final int to;
+
+		SwathTask(SweepPolygon boundary, List<SweepPolygon> obstacles, double originAcross,
+				  double stepAcross, Swath[] out, int from, int to)
+		{
+			this.boundary = boundary;
+			this.obstacles = obstacles;
+			this.originAcross = originAcross;
+			this.stepAcross = stepAcross;
+			this.out = out;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(to - from <= SWATHS_PER_TASK)
+			{
+				for(int k = from; k < to; k++)
+				{
+					out[k] = Swath.compute(boundary, obstacles, originAcross + k * stepAcross);
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new SwathTask(boundary, obstacles, originAcross, stepAcross, out, from, middle),
+					new SwathTask(boundary, obstacles, originAcross, stepAcross, out, middle, to));
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.deepsouthrobotics.brain;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Sweep Frame
+|--------------------------------------------------------------------------
+|
+| A rotated (along, across) coordinate system where "along" runs in the
+| direction of the mowing heading and "across" runs perpendicular to
+| it. Every swath is a line of constant "across" value, which turns
+| most of the swath math into plain old 1-dimensional interval
+| math instead of pushing points around 1 cm at a time.
+*/
+public class SweepFrame
+{
+	public final double cos;
+	public final double sin;
+
+	/**
+	 * @param headingRadians Mowing heading -- same convention as MissionBrain,
+	 * i.e. a point moves along the heading by adding (cos, sin) to its (x, y)
+	 */
+	public SweepFrame(double headingRadians)
+	{
+		this.cos = Math.cos(headingRadians);
+		this.sin = Math.sin(headingRadians);
+	}
+
+	public double along(double x, double y)
+	{
+		return x * cos + y * sin;
+	}
+
+	public double across(double x, double y)
+	{
+		return -x * sin + y * cos;
+	}
+
+	public double x(double along, double across)
+	{
+		return along * cos - across * sin;
+	}
+
+	public double y(double along, double across)
+	{
+		return along * sin + across * cos;
+	}
+}
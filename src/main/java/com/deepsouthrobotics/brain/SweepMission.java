@@ -0,0 +1,112 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.GPSCartesianCoordinateSpace;
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Sweep Mission
+|--------------------------------------------------------------------------
+|
+| A mission built by MissionBrain's sweep, along with everything we need
+| to patch it up later without starting from scratch: the geometry it
+| was planned with (projected into the mission's (x,y) space) and a
+| record of which waypoints each swath produced.
+*/
+public class SweepMission
+{
+	public final List<GPSPosition> waypoints;
+	public final List<SwathRun> swathRuns;
+
+	public final List<GPSPosition> missionBoundary;
+	public final List<List<GPSPosition>> polyObstacles;
+
+	public final GPSCartesianCoordinateSpace space;
+	public final SweepFrame frame;
+	public final double mowingPathWidthInMeters;
+	public final double headingDegrees;
+
+	//How far the (x,y) coordinates were shifted by scaleMinXAndMinYToZero(..)
+	public final double offsetX;
+	public final double offsetY;
+
+	//Only known when the mission was built from (lat,lng) input -- the
+	//start marker as the user sent it, and the (lat,lng) that the
+	//(x,y) coordinates were measured from before being shifted (null
+	//otherwise)
+	public final GPSPosition startLatLng;
+	public final GPSPosition projectionOrigin;
+
+	public SweepMission(List<GPSPosition> waypoints,
+						List<SwathRun> swathRuns,
+						List<GPSPosition> missionBoundary,
+						List<List<GPSPosition>> polyObstacles,
+						GPSCartesianCoordinateSpace space,
+						SweepFrame frame,
+						double mowingPathWidthInMeters,
+						double headingDegrees,
+						double offsetX,
+						double offsetY,
+						GPSPosition startLatLng,
+						GPSPosition projectionOrigin)
+	{
+		this.waypoints = waypoints;
+		this.swathRuns = swathRuns;
+		this.missionBoundary = missionBoundary;
+		this.polyObstacles = polyObstacles;
+		this.space = space;
+		this.frame = frame;
+		this.mowingPathWidthInMeters = mowingPathWidthInMeters;
+		this.headingDegrees = headingDegrees;
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+		this.startLatLng = startLatLng;
+		this.projectionOrigin = projectionOrigin;
+	}
+
+	/**
+	 * The stretch of waypoints one swath produced -- from the point where we
+	 * turned onto the swath through to the point where we turned off of it
+	 */
+	public static class SwathRun
+	{
+		public final int swath;
+		public final double across;
+		public final double entryAlong;
+		public final boolean forward;
+
+		//Where the last mowed section of the swath started/ended before
+		//the turn point got pulled back, and where we actually turned
+		public final double lastSectionStart;
+		public final double lastSectionEnd;
+		public final double turnAlong;
+
+		public final int firstWaypoint;
+		public final int waypointCount;
+
+		public SwathRun(int swath, double across, double entryAlong, boolean forward,
+						double lastSectionStart, double lastSectionEnd, double turnAlong,
+						int firstWaypoint, int waypointCount)
+		{
+			this.swath = swath;
+			this.across = across;
+			this.entryAlong = entryAlong;
+			this.forward = forward;
+			this.lastSectionStart = lastSectionStart;
+			this.lastSectionEnd = lastSectionEnd;
+			this.turnAlong = turnAlong;
+			this.firstWaypoint = firstWaypoint;
+			this.waypointCount = waypointCount;
+		}
+
+		public SwathRun movedTo(int newFirstWaypoint, int newWaypointCount)
+		{
+			return new SwathRun(swath, across, entryAlong, forward, lastSectionStart, lastSectionEnd,
+					turnAlong, newFirstWaypoint, newWaypointCount);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.deepsouthrobotics.brain;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Sweep Polygon
+|--------------------------------------------------------------------------
+|
+| A polygon (mission boundary or obstacle) with its vertices projected
+| into a SweepFrame. The main trick here is answering "where does the
+| swath line at this across value enter and leave the polygon?"
+| analytically rather than by stepping a point along the line.
+*/
+public class SweepPolygon
+{
+	public final double[] along;
+	public final double[] across;
+
+	public final double minAlong;
+	public final double maxAlong;
+	public final double minAcross;
+	public final double maxAcross;
+
+	public SweepPolygon(List<? extends Point2D> points, SweepFrame frame)
+	{
+		int n = points.size();
+		along = new double[n];
+		across = new double[n];
+
+		double minU = Double.MAX_VALUE;
+		double maxU = -Double.MAX_VALUE;
+		double minV = Double.MAX_VALUE;
+		double maxV = -Double.MAX_VALUE;
+
+		for(int i = 0; i < n; i++)
+		{
+			Point2D p = points.get(i);
+			along[i] = frame.along(p.getX(), p.getY());
+			across[i] = frame.across(p.getX(), p.getY());
+			minU = Math.min(minU, along[i]);
+			maxU = Math.max(maxU, along[i]);
+			minV = Math.min(minV, across[i]);
+			maxV = Math.max(maxV, across[i]);
+		}
+
+		minAlong = minU;
+		maxAlong = maxU;
+		minAcross = minV;
+		maxAcross = maxV;
+	}
+
+	public int size()
+	{
+		return along.length;
+	}
+
+	/**
+	 * Intersect the swath line at the given across value with every edge
+	 * of the polygon. A vertex sitting exactly on the line is treated as
+	 * being below it, so a line through a vertex is counted the same
+	 * as a line an infinitesimal distance above it -- that keeps the
+	 * number of crossings even without any special casing.
+	 *
+	 * @param acrossValue Across coordinate of the swath line
+	 * @return Sorted along values where the line crosses the polygon
+	 * perimeter -- pairs of values are the "inside" intervals
+	 */
+	public double[] insideIntervals(double acrossValue)
+	{
+		if(acrossValue < minAcross || acrossValue >= maxAcross)
+		{
+			return new double[0];
+		}
+
+		int n = along.length;
+		double[] crossings = new double[n];
+		int count = 0;
+
+		for(int i = 0; i < n; i++)
+		{
+			int j = i == n - 1 ? 0 : i + 1;
+			double v1 = across[i];
+			double v2 = across[j];
+			if((v1 > acrossValue) != (v2 > acrossValue))
+			{
+				double t = (acrossValue - v1) / (v2 - v1);
+				crossings[count++] = along[i] + t * (along[j] - along[i]);
+			}
+		}
+
+		double[] sorted = Arrays.copyOf(crossings, count);
+		Arrays.sort(sorted);
+		return sorted;
+	}
+}
@@ -0,0 +1,336 @@
+package com.deepsouthrobotics.brain;
+
+import java.util.Arrays;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Transit Orderer
+|--------------------------------------------------------------------------
+|
+| Decides which order to mow a bunch of disconnected regions (the
+| BoustrophedonCellPlanner's cells) in so the robot spends as little
+| time as possible driving between them. This is a travelling salesman
+| problem in disguise, so we don't try to solve it exactly -- nearest
+| neighbor gets us a decent tour, then 2-opt and Or-opt moves polish
+| it 'till nothing improves or we've tried as many moves as we're
+| allowed. Counting moves rather than watching the clock means the
+| same regions always come out in the same order, however busy the
+| box is; the time budget is only a safety net for a tour so big the
+| move count would take far too long.
+|
+| Each region ("node") can be mowed a few different ways, and each way
+| ("option") has an entry point and an exit point. Options come in
+| pairs: option 2i+1 must be option 2i driven backwards (entry and
+| exit swapped), which is what lets 2-opt reverse a stretch of
+| the tour. Transit cost is the straight-line distance from
+| one region's exit to the next region's entry.
+*/
+public class TransitOrderer
+{
+	private final double startX;
+	private final double startY;
+
+	//options[node] = {entryX, entryY, exitX, exitY, entryX, entryY, ...}
+	private final double[][] options;
+	private final long maxMoves;
+	private final long deadlineNanos;
+
+	//Candidate moves we've looked at so far
+	private long moves;
+
+	//The tour -- sequence[i] is the i'th node we mow and option[i]
+	//is how we mow it
+	private int[] sequence;
+	private int[] option;
+
+	/**
+	 * @param startX Where the robot is before the first region
+	 * @param startY Where the robot is before the first region
+	 * @param options For each node, 4 values (entry x/y, exit x/y) per option
+	 * @param maxMoves Stop improving the tour after looking at this many moves
+	 * @param budgetMillis ...or after this long, if that comes first (it
+	 * shouldn't -- set it well past what maxMoves takes)
+	 */
+	public TransitOrderer(double startX, double startY, double[][] options, long maxMoves, long budgetMillis)
+	{
+		this.startX = startX;
+		this.startY = startY;
+		this.options = options;
+		this.maxMoves = maxMoves;
+		this.deadlineNanos = System.nanoTime() + budgetMillis * 1000000L;
+	}
+
+	/**
+	 * Run the ordering
+	 *
+	 * @return {node, option} pairs in the order they should be mowed
+	 */
+	public int[][] order()
+	{
+		int n = options.length;
+		sequence = new int[n];
+		option = new int[n];
+		if(n == 0)
+		{
+			return new int[0][];
+		}
+
+		nearestNeighbor();
+
+		boolean improved = true;
+		while(improved && !outOfWork())
+		{
+			improved = twoOpt();
+			improved |= orOpt();
+			improved |= reselectOptions();
+		}
+
+		int[][] result = new int[n][];
+		for(int i = 0; i < n; i++)
+		{
+			result[i] = new int[] {sequence[i], option[i]};
+		}
+		return result;
+	}
+
+	private void nearestNeighbor()
+	{
+		int n = options.length;
+		boolean[] used = new boolean[n];
+		double x = startX;
+		double y = startY;
+
+		for(int i = 0; i < n; i++)
+		{
+			int bestNode = -1;
+			int bestOption = 0;
+			double bestDistance = Double.MAX_VALUE;
+			for(int node = 0; node < n; node++)
+			{
+				if(used[node])
+				{
+					continue;
+				}
+				for(int o = 0; o < options[node].length / 4; o++)
+				{
+					double distance = distance(entryX(node, o) - x, entryY(node, o) - y);
+					if(distance < bestDistance)
+					{
+						bestDistance = distance;
+						bestNode = node;
+						bestOption = o;
+					}
+				}
+			}
+			used[bestNode] = true;
+			sequence[i] = bestNode;
+			option[i] = bestOption;
+			x = exitX(bestNode, bestOption);
+			y = exitY(bestNode, bestOption);
+		}
+	}
+
+	/**
+	 * Reverse stretches of the tour (driving each region in it backwards)
+	 * whenever that shortens the 2 transits at the ends of the stretch
+	 */
+	private boolean twoOpt()
+	{
+		int n = sequence.length;
+		boolean improved = false;
+
+		for(int i = 0; i < n - 1; i++)
+		{
+			if(outOfWork())
+			{
+				return improved;
+			}
+			moves += n - i - 1;
+			for(int j = i + 1; j < n; j++)
+			{
+				double before = transit(i - 1, i) + (j + 1 < n ? transit(j, j + 1) : 0);
+
+				//after reversal the stretch is entered through node j's (old) exit
+				//and left through node i's (old) entry
+				double beforeX = i == 0 ? startX : exitX(sequence[i - 1], option[i - 1]);
+				double beforeY = i == 0 ? startY : exitY(sequence[i - 1], option[i - 1]);
+				double after = distance(exitX(sequence[j], option[j]) - beforeX, exitY(sequence[j], option[j]) - beforeY);
+				if(j + 1 < n)
+				{
+					after += distance(entryX(sequence[j + 1], option[j + 1]) - entryX(sequence[i], option[i]),
+							entryY(sequence[j + 1], option[j + 1]) - entryY(sequence[i], option[i]));
+				}
+
+				if(after < before - 1e-9)
+				{
+					for(int a = i, b = j; a <= b; a++, b--)
+					{
+						int node = sequence[a];
+						int o = option[a];
+						sequence[a] = sequence[b];
+						option[a] = option[b] ^ 1;
+						sequence[b] = node;
+						option[b] = o ^ 1;
+					}
+					improved = true;
+				}
+			}
+		}
+		return improved;
+	}
+
+	/**
+	 * Pull single regions out of the tour and drop them back in wherever
+	 * (and however) they fit best
+	 */
+	private boolean orOpt()
+	{
+		int n = sequence.length;
+		boolean improved = false;
+
+		for(int i = 0; i < n && n > 1; i++)
+		{
+			if(outOfWork())
+			{
+				return improved;
+			}
+
+			int node = sequence[i];
+			double removed = transit(i - 1, i) + (i + 1 < n ? transit(i, i + 1) : 0);
+			if(i + 1 < n)
+			{
+				removed -= transit(i - 1, i + 1);
+			}
+
+			int bestPosition = -1;
+			int bestOption = 0;
+			double bestGain = 1e-9;
+
+			//position p means "insert between tour slots p-1 and p" once
+			//the node has been taken out
+			int[] rest = without(sequence, i);
+			int[] restOptions = without(option, i);
+			moves += (long)n * (options[node].length / 4);
+			for(int p = 0; p <= rest.length; p++)
+			{
+				double prevX = p == 0 ? startX : exitX(rest[p - 1], restOptions[p - 1]);
+				double prevY = p == 0 ? startY : exitY(rest[p - 1], restOptions[p - 1]);
+				double existing = 0;
+				if(p < rest.length)
+				{
+					existing = distance(entryX(rest[p], restOptions[p]) - prevX, entryY(rest[p], restOptions[p]) - prevY);
+				}
+				for(int o = 0; o < options[node].length / 4; o++)
+				{
+					double added = distance(entryX(node, o) - prevX, entryY(node, o) - prevY);
+					if(p < rest.length)
+					{
+						added += distance(entryX(rest[p], restOptions[p]) - exitX(node, o),
+								entryY(rest[p], restOptions[p]) - exitY(node, o));
+					}
+					double gain = removed - (added - existing);
+					if(gain > bestGain)
+					{
+						bestGain = gain;
+						bestPosition = p;
+						bestOption = o;
+					}
+				}
+			}
+
+			if(bestPosition >= 0)
+			{
+				sequence = insert(rest, bestPosition, node);
+				option = insert(restOptions, bestPosition, bestOption);
+				improved = true;
+			}
+		}
+		return improved;
+	}
+
+	/**
+	 * Keep the order, but try every way of mowing each region
+	 */
+	private boolean reselectOptions()
+	{
+		boolean improved = false;
+		for(int i = 0; i < sequence.length; i++)
+		{
+			int original = option[i];
+			double best = transit(i - 1, i) + (i + 1 < sequence.length ? transit(i, i + 1) : 0);
+			moves += options[sequence[i]].length / 4;
+			for(int o = 0; o < options[sequence[i]].length / 4; o++)
+			{
+				option[i] = o;
+				double cost = transit(i - 1, i) + (i + 1 < sequence.length ? transit(i, i + 1) : 0);
+				if(cost < best - 1e-9)
+				{
+					best = cost;
+					original = o;
+					improved = true;
+				}
+			}
+			option[i] = original;
+		}
+		return improved;
+	}
+
+	private boolean outOfWork()
+	{
+		return moves >= maxMoves || System.nanoTime() >= deadlineNanos;
+	}
+
+	/**
+	 * @return Transit distance from tour slot "from" (-1 is the start point)
+	 * to tour slot "to"
+	 */
+	private double transit(int from, int to)
+	{
+		double x = from < 0 ? startX : exitX(sequence[from], option[from]);
+		double y = from < 0 ? startY : exitY(sequence[from], option[from]);
+		return distance(entryX(sequence[to], option[to]) - x, entryY(sequence[to], option[to]) - y);
+	}
+
+	private static double distance(double dx, double dy)
+	{
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	private double entryX(int node, int o)
+	{
+		return options[node][4 * o];
+	}
+
+	private double entryY(int node, int o)
+	{
+		return options[node][4 * o + 1];
+	}
+
+	private double exitX(int node, int o)
+	{
+		return options[node][4 * o + 2];
+	}
+
+	private double exitY(int node, int o)
+	{
+		return options[node][4 * o + 3];
+	}
+
+	private static int[] without(int[] values, int index)
+	{
+		int[] out = new int[values.length - 1];
+		System.arraycopy(values, 0, out, 0, index);
+		System.arraycopy(values, index + 1, out, index, values.length - index - 1);
+		return out;
+	}
+
+	private static int[] insert(int[] values, int index, int value)
+	{
+		int[] out = Arrays.copyOf(values, values.length + 1);
+		System.arraycopy(values, index, out, index + 1, values.length - index);
+		out[index] = value;
+		return out;
+	}
+}
@@ -0,0 +1,150 @@
+package com.deepsouthrobotics.brain;
+
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Waypoint Decimator
+|--------------------------------------------------------------------------
+|
+| Output stage that drops waypoints the autopilot doesn't need -- points
+| that sit (within a cross-track tolerance) on the straight line between
+| their neighbors, and points practically on top of the previous one.
+| Obstacle detours and perimeter transits are full of these. Points on
+| a swath line (swath ends, turns, and where we leave/rejoin a swath
+| around an obstacle) are always kept.
+|
+| Waypoints are fed in one at a time and come out the other end as soon
+| as we know they're needed, so this can sit between the planner and
+| whatever encodes/uploads the mission.
+*/
+public class WaypointDecimator
+{
+	//Anything within a millimeter of a swath line is on it
+	private static final double ON_SWATH_METERS = .001;
+
+	//A very long straight run means rechecking lots of pending points for
+	//every new one, so give up and keep a point every so often
+	private static final int MAX_PENDING = 256;
+
+	private final SweepFrame frame;
+	private final double originAcross;
+	private final double swathWidth;
+	private final double toleranceMeters;
+	private final List<GPSPosition> out;
+
+	private GPSPosition kept;
+	private final List<GPSPosition> pending = new ArrayList<>();
+
+	/**
+	 * @param frame Sweep frame the mission was planned in
+	 * @param originAcross Across value of any swath line (e.g. the first waypoint's)
+	 * @param swathWidth Distance between swath lines
+	 * @param toleranceMeters Furthest a dropped point may be from the path that's left
+	 * @param out Where the kept waypoints go
+	 */
+	public WaypointDecimator(SweepFrame frame, double originAcross, double swathWidth,
+							 double toleranceMeters, List<GPSPosition> out)
+	{
+		this.frame = frame;
+		this.originAcross = originAcross;
+		this.swathWidth = swathWidth;
+		this.toleranceMeters = toleranceMeters;
+		this.out = out;
+	}
+
+	public void accept(GPSPosition waypoint)
+	{
+		if(kept == null)
+		{
+			emit(waypoint);
+			return;
+		}
+
+		boolean onSwath = isOnSwathLine(waypoint);
+		if(onSwath && pending.isEmpty() && kept.distance(waypoint) <= toleranceMeters)
+		{
+			//Same spot as the point we just kept
+			return;
+		}
+
+		if(pending.size() >= MAX_PENDING || !pendingPointsAreNear(waypoint))
+		{
+			emit(pending.get(pending.size() - 1));
+		}
+		pending.add(waypoint);
+
+		if(onSwath)
+		{
+			emit(waypoint);
+		}
+	}
+
+	/**
+	 * Call once the last waypoint has been accepted
+	 */
+	public void finish()
+	{
+		if(!pending.isEmpty())
+		{
+			emit(pending.get(pending.size() - 1));
+		}
+	}
+
+	/**
+	 * Convenience for running a whole list through the decimator
+	 */
+	public static List<GPSPosition> decimate(List<GPSPosition> waypoints, SweepFrame frame,
+											 double swathWidth, double toleranceMeters)
+	{
+		List<GPSPosition> out = new ArrayList<>();
+		if(waypoints.isEmpty())
+		{
+			return out;
+		}
+		GPSPosition first = waypoints.get(0);
+		WaypointDecimator decimator = new WaypointDecimator(frame, frame.across(first.x, first.y),
+				swathWidth, toleranceMeters, out);
+		for(GPSPosition waypoint : waypoints)
+		{
+			decimator.accept(waypoint);
+		}
+		decimator.finish();
+		return out;
+	}
+
+	private void emit(GPSPosition waypoint)
+	{
+		out.add(waypoint);
+		kept = waypoint;
+		pending.clear();
+	}
+
+	/**
+	 * @return True if every pending point is within tolerance of the
+	 * segment from the last kept point to the given one
+	 */
+	private boolean pendingPointsAreNear(GPSPosition waypoint)
+	{
+		for(GPSPosition point : pending)
+		{
+			if(Line2D.ptSegDist(kept.x, kept.y, waypoint.x, waypoint.y, point.x, point.y) > toleranceMeters)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isOnSwathLine(GPSPosition waypoint)
+	{
+		double swaths = (frame.across(waypoint.x, waypoint.y) - originAcross) / swathWidth;
+		return Math.abs(swaths - Math.rint(swaths)) * swathWidth <= ON_SWATH_METERS;
+	}
+}
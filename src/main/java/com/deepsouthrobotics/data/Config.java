@@ -12,16 +12,93 @@ package com.deepsouthrobotics.data;
 public class Config 
 {
     // when building a mission, line distance threshold at which we end mission
-    public static final Double minMowingLineDistanceMeters = 2.0;
+    public static final double minMowingLineDistanceMeters = 2.0;
 
     // when building a mission, adjust flexible point by this much until boundary reached
     // basically, this is a hack and it exists until I make the algorithm less dumb
-    public static final Double boundaryPushAdjustmentMeters = 0.01;
+    public static final double boundaryPushAdjustmentMeters = 0.01;
+
+    // fidelity=preview missions (see PlannerOptions) probe for the boundary in
+    // steps this big, plan on an outline simplified by this many centimeters,
+    // and let the transit ordering try this many moves (with the same kind of
+    // safety net as below)
+    public static final double previewBoundaryPushAdjustmentMeters = 0.25;
+    public static final double previewSimplifyToleranceCentimeters = 25;
+    public static final long previewTransitOrderingMaxMoves = 50 * 1000;
+    public static final long previewTransitOrderingBudgetMillis = 200;
 
     //This is basically a hack to optimize some calculations when
     //building missions -- ideally we'd not need to use a fixed
     //max size
     public static final int maxMissionBoundaryMeters = 100*1000;
+
+    // how many moves we let the transit ordering (i.e. which order to mow
+    // disconnected cells in) try while polishing its tour before we take what
+    // it's got -- a count rather than a time so the same field always gets the
+    // same mission. That's around 5ms of work; the time budget is only a safety
+    // net for a box that's so loaded it'd take far longer.
+    public static final long transitOrderingMaxMoves = 250 * 1000;
+    public static final long transitOrderingBudgetMillis = 1000;
+
+    // number of recently built missions we hang on to for incremental replanning
+    public static final int missionCacheSize = 256;
+
+    // missions we've sent back (see SentMissionCache) are kept around, as long as
+    // there aren't more than this many waypoints in them all told, so clients
+    // can ask for just what changed since one of them
+    public static final long sentMissionCacheMaxWaypoints = 1000 * 1000;
+
+    // fields clients can store with PUT /fields/{id} (and for each one, how many
+    // start points we keep the projected version of the field around for)
+    public static final int maxRegisteredFields = 4096;
+    public static final int preparedStartsPerField = 8;
+
+    // -Ddeepsouthrobotics.fieldStore=/some/dir keeps registered fields (and the
+    // prepared versions of them) on disk so they survive a redeploy --
+    // leave it out and they only live in memory
+    public static final String fieldStoreDirectory = System.getProperty("deepsouthrobotics.fieldStore");
+
+    // building a mission from a recorded track: recorded points are straightened
+    // out until the path is within this many centimeters of every one of
+    // them, and points that show up to this many places out of order
+    // get put back in order (any later than that are dropped)
+    public static final double recordedTrackToleranceCentimeters = 10;
+    public static final int recordedTrackReorderWindow = 64;
+
+    // checking how much of the field a mission covers (see CoverageVerifier) is
+    // done on a grid of cells this many meters across -- unless that would
+    // take more than coverageMaxCells cells, in which case the cells
+    // get bigger
+    public static final double coverageResolutionMeters = 0.05;
+    public static final long coverageMaxCells = 5000L * 5000L;
+
+    // how long the planner gets to warm up (see PlannerWarmup) after the servlet
+    // starts before we call ourselves ready regardless --
+    // -Ddeepsouthrobotics.warmupBudgetMillis=0 skips the warm-up
+    public static final long warmupBudgetMillis = Long.getLong("deepsouthrobotics.warmupBudgetMillis", 30 * 1000);
+
+    // port the embedded server (see EmbeddedServer) listens on when it isn't
+    // given one on the command line
+    public static final int serverPort = Integer.getInteger("deepsouthrobotics.port", 8080);
+
+    // planning priorities (see PlanningScheduler): how many planner threads
+    // only interactive missions get to use, and how many missions of each
+    // priority one tenant (the X-Tenant header) can have planning at once
+    public static final int schedulerInteractiveReservedThreads =
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    public static final int schedulerTenantMaxRunning =
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    // flight recordings started from the admin endpoint get dumped here, and
+    // unless told otherwise they keep the last 10 minutes / 100MB of events
+    public static final String flightRecordingDirectory = System.getProperty("java.io.tmpdir");
+    public static final long flightRecordingMaxAgeSeconds = 10 * 60;
+    public static final long flightRecordingMaxSizeMegabytes = 100;
+
+    // -Ddeepsouthrobotics.missionTrace=true prints every swath turn (from a
+    // background thread, through a ring buffer of this many events)
+    public static final boolean missionTraceLogging = Boolean.getBoolean("deepsouthrobotics.missionTrace");
+    public static final int missionTraceBufferSize = 4096;
     
     public static final int MISSION_BUILDING_SERVICE_TIMEOUT = 7200; //number of seconds to wait for mission building service to create mission from recording
 }
@@ -14,6 +14,9 @@ import com.deepsouthrobotics.util.Geo;
 */
 public class GPSCartesianCoordinateSpace 
 {
+	//Geo doesn't hold any state, so every space can share one
+	private static final Geo GEO = new Geo();
+
 	public GPSPosition center;
 	
 	/*
@@ -22,17 +25,15 @@ public class GPSCartesianCoordinateSpace
 	 */
 	public GPSCartesianCoordinateSpace(GPSPosition gpsPosition)
 	{
-		Double distanceFromZeroX = gpsPosition.x;
-		Double distanceFromZeroY = gpsPosition.y;
+		double distanceFromZeroX = gpsPosition.x;
+		double distanceFromZeroY = gpsPosition.y;
 		
-		Geo geo = new Geo();
-		center = geo.offset(gpsPosition, -distanceFromZeroX, -distanceFromZeroY);
+		center = GEO.offset(gpsPosition, -distanceFromZeroX, -distanceFromZeroY);
 	}
 	
 	public GPSPosition gpsPositionGivenDistanceFromZeroZero(double x, double y)
 	{
-		Geo geo = new Geo();
-		GPSPosition g = geo.offset(center, x, y);
+		GPSPosition g = GEO.offset(center, x, y);
 		g.x = x;
 		g.y = y;
 		return g;
@@ -0,0 +1,44 @@
+package com.deepsouthrobotics.data;
+
+import javax.ws.rs.BadRequestException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Mission Format
+|--------------------------------------------------------------------------
+|
+| How a built mission gets sent back: JSON is the original array of
+| {"lat":..,"lng":..} objects, WPL is a QGC WPL 110 waypoint file that
+| can be loaded straight into QGroundControl or Mission Planner, and
+| MAVLINK is the same mission as MAVLink v2 MISSION_ITEM_INT frames
+| for a ground station to forward to the autopilot
+|
+*/
+public enum MissionFormat {
+    JSON, WPL, MAVLINK;
+
+    public static MissionFormat fromQueryParam(String value)
+    {
+        if(value == null || value.trim().isEmpty())
+        {
+            return JSON;
+        }
+        try
+        {
+            return MissionFormat.valueOf(value.trim().toUpperCase());
+        }
+        catch(IllegalArgumentException e)
+        {
+            List<String> allowed = new ArrayList<>();
+            for(MissionFormat known : values())
+            {
+                allowed.add(known.name().toLowerCase());
+            }
+            throw new BadRequestException("Unknown format '" + value + "' -- use one of " + allowed);
+        }
+    }
+}
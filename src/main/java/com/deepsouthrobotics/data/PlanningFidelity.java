@@ -0,0 +1,42 @@
+package com.deepsouthrobotics.data;
+
+import javax.ws.rs.BadRequestException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planning Fidelity
+|--------------------------------------------------------------------------
+|
+| How careful the planner is (see PlannerOptions): FINAL is the mission
+| the mower actually runs, PREVIEW is a rough version that's quick
+| enough to replan while the user drags the start marker around
+|
+*/
+public enum PlanningFidelity {
+    FINAL, PREVIEW;
+
+    public static PlanningFidelity fromQueryParam(String value)
+    {
+        if(value == null || value.trim().isEmpty())
+        {
+            return FINAL;
+        }
+        try
+        {
+            return PlanningFidelity.valueOf(value.trim().toUpperCase());
+        }
+        catch(IllegalArgumentException e)
+        {
+            List<String> allowed = new ArrayList<>();
+            for(PlanningFidelity known : values())
+            {
+                allowed.add(known.name().toLowerCase());
+            }
+            throw new BadRequestException("Unknown fidelity '" + value + "' -- use one of " + allowed);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.deepsouthrobotics.data;
+
+import javax.ws.rs.BadRequestException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planning Mode
+|--------------------------------------------------------------------------
+|
+| How the mission gets built: SWEEP is the original single sweep across
+| the whole boundary, CELLS splits the boundary into boustrophedon
+| cells that get planned in parallel and stitched together
+|
+| Only CELLS orders its regions to keep the driving between them short
+| (see TransitOrderer). SWEEP mows each swath's look-ahead sections
+| as it comes to them, so a field with deep notches -- where that
+| means a long perimeter transit on every swath -- wants CELLS.
+|
+*/
+public enum PlanningMode {
+    SWEEP, CELLS;
+
+    public static PlanningMode fromQueryParam(String value)
+    {
+        if(value == null || value.trim().isEmpty())
+        {
+            return SWEEP;
+        }
+        try
+        {
+            return PlanningMode.valueOf(value.trim().toUpperCase());
+        }
+        catch(IllegalArgumentException e)
+        {
+            List<String> allowed = new ArrayList<>();
+            for(PlanningMode known : values())
+            {
+                allowed.add(known.name().toLowerCase());
+            }
+            throw new BadRequestException("Unknown planningMode '" + value + "' -- use one of " + allowed);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.deepsouthrobotics.data;
+
+import javax.ws.rs.BadRequestException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planning Priority
+|--------------------------------------------------------------------------
+|
+| Which line a mission waits in for a planner thread (see
+| PlanningScheduler): INTERACTIVE is somebody in the UI waiting on the
+| result (dragging the start marker around, say), NORMAL is everything
+| that doesn't say, and BULK is batch planning that can wait
+|
+*/
+public enum PlanningPriority {
+    INTERACTIVE, NORMAL, BULK;
+
+    public static PlanningPriority fromQueryParam(String value)
+    {
+        if(value == null || value.trim().isEmpty())
+        {
+            return NORMAL;
+        }
+        try
+        {
+            return PlanningPriority.valueOf(value.trim().toUpperCase());
+        }
+        catch(IllegalArgumentException e)
+        {
+            List<String> allowed = new ArrayList<>();
+            for(PlanningPriority known : values())
+            {
+                allowed.add(known.name().toLowerCase());
+            }
+            throw new BadRequestException("Unknown priority '" + value + "' -- use one of " + allowed);
+        }
+    }
+
+    /**
+     * @return Name used for the priority label, e.g. "interactive"
+     */
+    public String label()
+    {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,646 @@
+package com.deepsouthrobotics.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Recorded Positions
+|--------------------------------------------------------------------------
+|
+| The Cartesian points out of a mission recording, one column per value,
+| read from lines like these:
+|
+| POINT 32 CARTESIAN X:-2.72 Y:0.57 AUTOPILOT_TIME_MILLIS:131559 LOCAL_TIME_MILLIS:1487620496519
+| GUIDEPOINT_CARTESIAN CARTESIAN X:-4.57 Y:-1.68 AUTOPILOT_TIME_MILLIS:126446 LOCAL_TIME_MILLIS:1487617141467
+|
+| A day of mowing is millions of these, so rather than splitting every
+| line into Strings and boxing every value (like
+| CartesianPosition.buildFromKeyValArray(..) does) we map the file
+| and walk it a byte at a time, decoding the numbers right where
+| they sit. Nothing gets allocated per line -- the only garbage is
+| the columns growing.
+|
+| Values come out exactly as buildFromKeyValArray(..) would give them
+| (keys are case insensitive, a key that's missing is "null", and
+| numbers that aren't plain decimals fall back to Double.parseDouble
+| and Long.parseLong). Lines of any other kind (GPS points, blank
+| lines...) are skipped and counted.
+|
+| Recordings that come in over the wire can be read a batch at a time
+| instead (see read(InputStream, ..)), which only ever holds one
+| buffer's worth of lines.
+*/
+public class RecordedPositions
+{
+    private static final byte[] POINT = ascii(Constants.SERIALIZE_POINT_TYPE);
+    private static final byte[] GUIDEPOINT = ascii(Constants.SERIALIZE_GUIDEPOINT_CARTESIAN_TYPE);
+    private static final byte[] CARTESIAN = ascii(Constants.SERIALIZE_CARTESIAN_TYPE);
+
+    private static final byte[] KEY_X = ascii(CartesianPosition.SERIALIZE_CART_X);
+    private static final byte[] KEY_Y = ascii(CartesianPosition.SERIALIZE_CART_Y);
+    private static final byte[] KEY_AUTOPILOT_TIME = ascii(CartesianPosition.SERIALIZE_CART_AUTOPILOT_TIME_MILLIS);
+    private static final byte[] KEY_LOCAL_TIME = ascii(CartesianPosition.SERIALIZE_CART_LOCAL_TIME_MILLIS);
+    private static final byte KEY_VAL_SEPARATOR = (byte)Constants.SERIALIZE_KEY_VAL_SEPARATOR.charAt(0);
+
+    // which of a row's values were on its line
+    private static final byte HAS_X = 1;
+    private static final byte HAS_Y = 2;
+    private static final byte HAS_AUTOPILOT_TIME = 4;
+    private static final byte HAS_LOCAL_TIME = 8;
+
+    // we map this much of the file at a time (so recordings over 2GB work too)
+    private static final int WINDOW_BYTES = 256 * 1024 * 1024;
+
+    // and read this much of a stream at a time
+    private static final int STREAM_BUFFER_BYTES = 1024 * 1024;
+
+    // powers of ten a double holds exactly -- see parseDouble(..)
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private int size;
+    private int skippedLines;
+
+    private boolean[] guidePoint;
+    private int[] recordIndex;
+    private byte[] present;
+    private double[] x;
+    private double[] y;
+    private long[] autopilotTimeMillis;
+    private long[] localTimeMillis;
+
+    // where we are in the buffer we're parsing (and which line it is, for errors)
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+    private long lineNumber;
+
+    private RecordedPositions(int expectedRows)
+    {
+        int capacity = Math.max(expectedRows, 16);
+        guidePoint = new boolean[capacity];
+        recordIndex = new int[capacity];
+        present = new byte[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        autopilotTimeMillis = new long[capacity];
+        localTimeMillis = new long[capacity];
+    }
+
+    /**
+     * Read every POINT and GUIDEPOINT_CARTESIAN line of a recording
+     */
+    public static RecordedPositions read(File recording) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(recording.toPath(), StandardOpenOption.READ))
+        {
+            long fileSize = channel.size();
+
+            // recorded lines run about 90 bytes
+            RecordedPositions positions = new RecordedPositions((int)Math.min(fileSize / 90, Integer.MAX_VALUE - 8));
+
+            long windowStart = 0;
+            while(windowStart < fileSize)
+            {
+                int windowBytes = (int)Math.min(WINDOW_BYTES, fileSize - windowStart);
+                boolean lastWindow = windowStart + windowBytes == fileSize;
+                positions.buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowBytes);
+                positions.position = 0;
+                positions.limit = windowBytes;
+
+                // leave a line that runs off the end of this window for the next one
+                int parsed = positions.parseLines(lastWindow);
+                if(parsed == 0 && !lastWindow)
+                {
+                    throw new IOException("Line " + (positions.lineNumber + 1) + " of " + recording + " is longer than " + WINDOW_BYTES + " bytes");
+                }
+                windowStart += parsed;
+            }
+            positions.buffer = null;
+            return positions;
+        }
+    }
+
+    /**
+     * Gets handed each batch of rows as a stream is read
+     */
+    public interface Batches
+    {
+        /**
+         * @param batch Only good 'till this returns -- the next batch reuses it
+         */
+        void accept(RecordedPositions batch) throws IOException;
+    }
+
+    /**
+     * Read a recording from a stream a buffer at a time, handing over the rows
+     * of each buffer as we go -- so memory stays the same however long the
+     * recording is
+     */
+    public static void read(InputStream recording, Batches batches) throws IOException
+    {
+        byte[] bytes = new byte[STREAM_BUFFER_BYTES];
+        RecordedPositions positions = new RecordedPositions(STREAM_BUFFER_BYTES / 90);
+        positions.buffer = ByteBuffer.wrap(bytes);
+
+        int filled = 0;
+        boolean endOfStream = false;
+        while(!endOfStream)
+        {
+            int read = recording.read(bytes, filled, bytes.length - filled);
+            if(read < 0)
+            {
+                endOfStream = true;
+            }
+            else
+            {
+                filled += read;
+                if(filled < bytes.length)
+                {
+                    continue;
+                }
+            }
+
+            positions.position = 0;
+            positions.limit = filled;
+            int parsed = positions.parseLines(endOfStream);
+            if(parsed == 0 && !endOfStream)
+            {
+                throw new IOException("Line " + (positions.lineNumber + 1) + " of the recording is longer than " + STREAM_BUFFER_BYTES + " bytes");
+            }
+            if(positions.size > 0)
+            {
+                batches.accept(positions);
+            }
+            positions.size = 0;
+
+            // carry the line that ran off the end over to the next buffer
+            System.arraycopy(bytes, parsed, bytes, 0, filled - parsed);
+            filled -= parsed;
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return Number of lines (so far, when streaming) that weren't Cartesian points or guide points
+     */
+    public int skippedLines()
+    {
+        return skippedLines;
+    }
+
+    public boolean isGuidePoint(int row)
+    {
+        return guidePoint[row];
+    }
+
+    /**
+     * @return The POINT's index in the recording (guide points don't have one, so -1)
+     */
+    public int recordIndex(int row)
+    {
+        return recordIndex[row];
+    }
+
+    public boolean hasX(int row)
+    {
+        return (present[row] & HAS_X) != 0;
+    }
+
+    public boolean hasY(int row)
+    {
+        return (present[row] & HAS_Y) != 0;
+    }
+
+    public boolean hasAutopilotTimeMillis(int row)
+    {
+        return (present[row] & HAS_AUTOPILOT_TIME) != 0;
+    }
+
+    public boolean hasLocalTimeMillis(int row)
+    {
+        return (present[row] & HAS_LOCAL_TIME) != 0;
+    }
+
+    /**
+     * @return Meters north of the recording's origin (NaN if the line didn't have one)
+     */
+    public double x(int row)
+    {
+        return x[row];
+    }
+
+    /**
+     * @return Meters east of the recording's origin (NaN if the line didn't have one)
+     */
+    public double y(int row)
+    {
+        return y[row];
+    }
+
+    /**
+     * @return Zero if the line didn't have one -- see hasAutopilotTimeMillis(..)
+     */
+    public long autopilotTimeMillis(int row)
+    {
+        return autopilotTimeMillis[row];
+    }
+
+    /**
+     * @return Zero if the line didn't have one -- see hasLocalTimeMillis(..)
+     */
+    public long localTimeMillis(int row)
+    {
+        return localTimeMillis[row];
+    }
+
+    /**
+     * @return The row as a CartesianPosition -- the same one
+     * CartesianPosition.buildFromKeyValArray(..) builds from its line
+     */
+    public CartesianPosition cartesianPosition(int row)
+    {
+        CartesianPosition cp = new CartesianPosition();
+        if(hasX(row))
+        {
+            cp.setX(x[row]);
+        }
+        if(hasY(row))
+        {
+            cp.setY(y[row]);
+        }
+        if(hasAutopilotTimeMillis(row))
+        {
+            cp.setAutopilotTimeRecordedMillis(autopilotTimeMillis[row]);
+        }
+        if(hasLocalTimeMillis(row))
+        {
+            cp.setLocalTimeReceivedMillis(localTimeMillis[row]);
+        }
+        return cp;
+    }
+
+    /**
+     * Parse the lines in buffer[position, limit)
+     *
+     * @param toTheEnd True if the last line ends at the limit even without a newline
+     * @return How many bytes (whole lines) got parsed
+     */
+    private int parseLines(boolean toTheEnd)
+    {
+        int parsed = 0;
+        while(position < limit)
+        {
+            int lineEnd = position;
+            while(lineEnd < limit && buffer.get(lineEnd) != '\n')
+            {
+                lineEnd++;
+            }
+            if(lineEnd == limit && !toTheEnd)
+            {
+                break;
+            }
+
+            lineNumber++;
+            parseLine(position, lineEnd);
+            position = Math.min(lineEnd + 1, limit);
+            parsed = position;
+        }
+        return parsed;
+    }
+
+    private void parseLine(int start, int end)
+    {
+        // POINT <index> CARTESIAN ... or GUIDEPOINT_CARTESIAN CARTESIAN ...
+        int tokenStart = skipSpaces(start, end);
+        int tokenEnd = tokenEnd(tokenStart, end);
+        boolean isGuidePoint;
+        int index = -1;
+        if(tokenEquals(tokenStart, tokenEnd, POINT))
+        {
+            isGuidePoint = false;
+            tokenStart = skipSpaces(tokenEnd, end);
+            tokenEnd = tokenEnd(tokenStart, end);
+            if(tokenStart == tokenEnd)
+            {
+                skippedLines++;
+                return;
+            }
+            index = (int)parseLong(tokenStart, tokenEnd, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        else if(tokenEquals(tokenStart, tokenEnd, GUIDEPOINT))
+        {
+            isGuidePoint = true;
+        }
+        else
+        {
+            skippedLines++;
+            return;
+        }
+
+        tokenStart = skipSpaces(tokenEnd, end);
+        tokenEnd = tokenEnd(tokenStart, end);
+        if(!tokenEquals(tokenStart, tokenEnd, CARTESIAN))
+        {
+            skippedLines++;
+            return;
+        }
+
+        ensureCapacity(size + 1);
+        guidePoint[size] = isGuidePoint;
+        recordIndex[size] = index;
+        byte has = 0;
+        double rowX = Double.NaN;
+        double rowY = Double.NaN;
+        long rowAutopilotTime = 0;
+        long rowLocalTime = 0;
+
+        // KEY:value pairs -- anything that isn't one of ours gets ignored, same
+        // as buildFromKeyValArray(..)
+        for(tokenStart = skipSpaces(tokenEnd, end); tokenStart < end; tokenStart = skipSpaces(tokenEnd, end))
+        {
+            tokenEnd = tokenEnd(tokenStart, end);
+            int keyEnd = tokenStart;
+            while(keyEnd < tokenEnd && buffer.get(keyEnd) != KEY_VAL_SEPARATOR)
+            {
+                keyEnd++;
+            }
+
+            // the value runs to the next separator, if there's another one ("X:1:2" is 1)
+            int valueStart = keyEnd + 1;
+            int valueEnd = valueStart;
+            while(valueEnd < tokenEnd && buffer.get(valueEnd) != KEY_VAL_SEPARATOR)
+            {
+                valueEnd++;
+            }
+
+            if(keyEqualsIgnoreCase(tokenStart, keyEnd, KEY_X))
+            {
+                rowX = parseDouble(valueStart, valueEnd);
+                has |= HAS_X;
+            }
+            else if(keyEqualsIgnoreCase(tokenStart, keyEnd, KEY_Y))
+            {
+                rowY = parseDouble(valueStart, valueEnd);
+                has |= HAS_Y;
+            }
+            else if(keyEqualsIgnoreCase(tokenStart, keyEnd, KEY_AUTOPILOT_TIME))
+            {
+                rowAutopilotTime = parseLong(valueStart, valueEnd, Long.MIN_VALUE, Long.MAX_VALUE);
+                has |= HAS_AUTOPILOT_TIME;
+            }
+            else if(keyEqualsIgnoreCase(tokenStart, keyEnd, KEY_LOCAL_TIME))
+            {
+                rowLocalTime = parseLong(valueStart, valueEnd, Long.MIN_VALUE, Long.MAX_VALUE);
+                has |= HAS_LOCAL_TIME;
+            }
+        }
+
+        present[size] = has;
+        x[size] = rowX;
+        y[size] = rowY;
+        autopilotTimeMillis[size] = rowAutopilotTime;
+        localTimeMillis[size] = rowLocalTime;
+        size++;
+    }
+
+    private int skipSpaces(int from, int end)
+    {
+        while(from < end && isSpace(buffer.get(from)))
+        {
+            from++;
+        }
+        return from;
+    }
+
+    private int tokenEnd(int from, int end)
+    {
+        while(from < end && !isSpace(buffer.get(from)))
+        {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isSpace(byte b)
+    {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private boolean tokenEquals(int start, int end, byte[] token)
+    {
+        if(end - start != token.length)
+        {
+            return false;
+        }
+        for(int i = 0; i < token.length; i++)
+        {
+            if(buffer.get(start + i) != token[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param key Upper case key
+     */
+    private boolean keyEqualsIgnoreCase(int start, int end, byte[] key)
+    {
+        if(end - start != key.length)
+        {
+            return false;
+        }
+        for(int i = 0; i < key.length; i++)
+        {
+            byte b = buffer.get(start + i);
+            if(b >= 'a' && b <= 'z')
+            {
+                b -= 'a' - 'A';
+            }
+            if(b != key[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Plain decimals ("-2.72", "1487.6", "12") with no more than 15 significant
+     * digits are exact as a long, and dividing by a power of ten a double
+     * holds exactly is correctly rounded -- so we get the very same double
+     * Double.parseDouble(..) would. Anything else goes to
+     * Double.parseDouble(..), which also throws for junk like it would
+     * have before.
+     */
+    private double parseDouble(int start, int end)
+    {
+        int i = start;
+        boolean negative = false;
+        if(i < end && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+        {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean sawDigit = false;
+        boolean sawPoint = false;
+        for(; i < end; i++)
+        {
+            byte b = buffer.get(i);
+            if(b >= '0' && b <= '9')
+            {
+                sawDigit = true;
+                if(mantissa != 0 || b != '0')
+                {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if(sawPoint)
+                {
+                    fractionDigits++;
+                }
+                if(digits > 15)
+                {
+                    return slowParseDouble(start, end);
+                }
+            }
+            else if(b == '.' && !sawPoint)
+            {
+                sawPoint = true;
+            }
+            else
+            {
+                return slowParseDouble(start, end);
+            }
+        }
+        if(!sawDigit || fractionDigits >= POWERS_OF_TEN.length)
+        {
+            return slowParseDouble(start, end);
+        }
+
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Same as Long.parseLong(..) (or Integer.parseInt(..) given the int range)
+     */
+    private long parseLong(int start, int end, long min, long max)
+    {
+        int i = start;
+        boolean negative = false;
+        if(i < end && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+        {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if(i == end || end - i > 18)
+        {
+            return slowParseLong(start, end, min, max);
+        }
+
+        long value = 0;
+        for(; i < end; i++)
+        {
+            byte b = buffer.get(i);
+            if(b < '0' || b > '9')
+            {
+                return slowParseLong(start, end, min, max);
+            }
+            value = value * 10 + (b - '0');
+        }
+        value = negative ? -value : value;
+        if(value < min || value > max)
+        {
+            return slowParseLong(start, end, min, max);
+        }
+        return value;
+    }
+
+    private double slowParseDouble(int start, int end)
+    {
+        try
+        {
+            return Double.parseDouble(text(start, end));
+        }
+        catch(NumberFormatException e)
+        {
+            throw new NumberFormatException("Line " + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    private long slowParseLong(int start, int end, long min, long max)
+    {
+        try
+        {
+            return min == Integer.MIN_VALUE && max == Integer.MAX_VALUE
+                    ? Integer.parseInt(text(start, end))
+                    : Long.parseLong(text(start, end));
+        }
+        catch(NumberFormatException e)
+        {
+            throw new NumberFormatException("Line " + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    private String text(int start, int end)
+    {
+        if(start > end)
+        {
+            // a key with no ':value' -- buildFromKeyValArray(..) can't cope with that either
+            throw new NumberFormatException("Line " + lineNumber + " has a key without a value");
+        }
+        byte[] bytes = new byte[end - start];
+        for(int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private void ensureCapacity(int rows)
+    {
+        if(rows <= x.length)
+        {
+            return;
+        }
+        int capacity = Math.max(rows, x.length + (x.length >> 1));
+        guidePoint = Arrays.copyOf(guidePoint, capacity);
+        recordIndex = Arrays.copyOf(recordIndex, capacity);
+        present = Arrays.copyOf(present, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        autopilotTimeMillis = Arrays.copyOf(autopilotTimeMillis, capacity);
+        localTimeMillis = Arrays.copyOf(localTimeMillis, capacity);
+    }
+
+    private static byte[] ascii(String text)
+    {
+        byte[] bytes = new byte[text.length()];
+        for(int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = (byte)text.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -27,10 +27,11 @@ public class CORSFilter implements ContainerResponseFilter
                        final ContainerResponseContext cres) throws IOException
     {
         cres.getHeaders().add("Access-Control-Allow-Origin", "*");
-        cres.getHeaders().add("Access-Control-Allow-Headers", "origin, content-type, accept, authorization");
+        cres.getHeaders().add("Access-Control-Allow-Headers", "origin, content-type, accept, authorization, x-tenant");
         cres.getHeaders().add("Access-Control-Allow-Credentials", "true");
         cres.getHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, HEAD");
         cres.getHeaders().add("Access-Control-Max-Age", "1209600");
+        cres.getHeaders().add("Access-Control-Expose-Headers", "X-Mission-Id, X-Simplified-Vertices, X-Decimated-Waypoints, X-Field-Version, X-Mission-Item-Count, X-Recorded-Points, X-Planning-Fidelity, X-Mission-Hash, X-Mission-Delta");
     }
 
 }
\ No newline at end of file
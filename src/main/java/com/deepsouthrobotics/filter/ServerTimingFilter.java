@@ -0,0 +1,79 @@
+package com.deepsouthrobotics.filter;
+
+import com.deepsouthrobotics.util.PlannerPhase;
+import com.deepsouthrobotics.util.RequestProfile;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Server-Timing Filter
+|--------------------------------------------------------------------------
+|
+| Profile every request and report where the time went in a
+| Server-Timing header, so slow fields can be looked into
+| right from the browser's dev tools
+|
+| Streamed formats (WPL, MAVLink) get encoded as the body is written,
+| which is after this filter has already sent the headers, so there's
+| no encode timing for them -- their total is up to the first byte.
+|
+*/
+
+@Provider
+public class ServerTimingFilter implements ContainerRequestFilter, ContainerResponseFilter
+{
+    private static final String PROFILE_PROPERTY = RequestProfile.class.getName();
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) throws IOException
+    {
+        requestContext.setProperty(PROFILE_PROPERTY, RequestProfile.begin());
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext,
+                       final ContainerResponseContext cres) throws IOException
+    {
+        RequestProfile profile = (RequestProfile)requestContext.getProperty(PROFILE_PROPERTY);
+        RequestProfile.end();
+        if(profile == null)
+        {
+            return;
+        }
+
+        long total = System.nanoTime() - profile.startNanos;
+        long parse = profile.phaseNanos(PlannerPhase.PARSE);
+        long project = profile.phaseNanos(PlannerPhase.PROJECTION);
+        long encode = profile.phaseNanos(PlannerPhase.SERIALIZATION);
+        boolean streamed = cres.getEntity() instanceof StreamingOutput;
+
+        //Everything that isn't parsing, projecting or encoding is
+        //planning as far as the browser is concerned
+        long plan = Math.max(0, total - parse - project - encode);
+
+        cres.getHeaders().add("Server-Timing",
+                timing("parse", parse) + ", " +
+                timing("project", project) + ", " +
+                timing("plan", plan) + ", " +
+                (streamed ? "" : timing("encode", encode) + ", ") +
+                timing("total", total));
+
+        //Without this the browser hides the timings from cross-origin callers
+        cres.getHeaders().add("Timing-Allow-Origin", "*");
+    }
+
+    private String timing(String name, long nanos)
+    {
+        return name + ";dur=" + String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
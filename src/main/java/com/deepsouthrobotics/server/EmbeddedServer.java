@@ -0,0 +1,104 @@
+package com.deepsouthrobotics.server;
+
+import com.deepsouthrobotics.api.MissionBuilderApplication;
+import com.deepsouthrobotics.data.Config;
+import com.deepsouthrobotics.util.VirtualThreads;
+import com.sun.net.httpserver.HttpServer;
+import org.glassfish.jersey.server.ApplicationHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Embedded Server
+|--------------------------------------------------------------------------
+|
+| Runs the mission builder without a servlet container:
+|
+|   java -jar missionbuilder-server.jar [port]
+|
+| serves the same API as the WAR at http://<host>:<port>/api/ out of the
+| JDK's built-in HTTP server (HTTP/1.1, with keep-alive). On Java 21
+| and up every request gets its own virtual thread, so requests that
+| are waiting on the network don't tie up a thread each. On older JVMs
+| requests get a platform thread each. Either way their planning gets
+| handed to the PlanningScheduler's platform threads (see
+| PlannerPool.plan(..)), just like in the servlet container.
+*/
+public class EmbeddedServer
+{
+    private static final String CONTEXT_PATH = "/api/";
+
+    public static void main(String[] args) throws IOException
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Config.serverPort;
+        final HttpServer server = start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                server.stop(1);
+            }
+        }, "server-shutdown"));
+    }
+
+    /**
+     * @param port Port to listen on (0 for any free one)
+     */
+    public static HttpServer start(int port) throws IOException
+    {
+        ApplicationHandler application = new ApplicationHandler(new MissionBuilderApplication());
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(CONTEXT_PATH, new JerseyHttpHandler(application, CONTEXT_PATH));
+
+        ExecutorService requestThreads = VirtualThreads.newPerTaskExecutor();
+        if(requestThreads == null)
+        {
+            requestThreads = Executors.newCachedThreadPool();
+        }
+        boolean virtual = runsOnVirtualThreads(requestThreads);
+        server.setExecutor(requestThreads);
+        server.start();
+
+        System.out.println("Mission builder listening on http://localhost:" + server.getAddress().getPort() + CONTEXT_PATH
+                + " (" + (virtual ? "virtual" : "platform") + " request threads)");
+        return server;
+    }
+
+    /**
+     * Ask one of the executor's own threads, so the startup line says what
+     * requests will really run on
+     */
+    private static boolean runsOnVirtualThreads(ExecutorService requestThreads)
+    {
+        try
+        {
+            return requestThreads.submit(new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call()
+                {
+                    return VirtualThreads.isVirtual(Thread.currentThread());
+                }
+            }).get();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch(ExecutionException e)
+        {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.deepsouthrobotics.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerException;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.spi.ContainerResponseWriter;
+
+import javax.ws.rs.core.SecurityContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Jersey HTTP Handler
+|--------------------------------------------------------------------------
+|
+| Hands the JDK's built-in HTTP server's requests to Jersey, the same way
+| the servlet container does in the WAR. Each exchange is handled start
+| to finish on whatever thread the server's executor gives it (see
+| EmbeddedServer). None of our resources use async responses, so we
+| don't suspend -- if one ever asks to, the request fails with a 500
+| and the reason goes to stderr instead of hanging the exchange.
+*/
+class JerseyHttpHandler implements HttpHandler
+{
+    //Nobody logs in -- same as the servlet without any auth set up
+    private static final SecurityContext ANONYMOUS = new SecurityContext()
+    {
+        @Override
+        public Principal getUserPrincipal()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isUserInRole(String role)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isSecure()
+        {
+            return false;
+        }
+
+        @Override
+        public String getAuthenticationScheme()
+        {
+            return null;
+        }
+    };
+
+    private final ApplicationHandler application;
+
+    //Where the application is mounted, e.g. "/api/"
+    private final String contextPath;
+
+    JerseyHttpHandler(ApplicationHandler application, String contextPath)
+    {
+        this.application = application;
+        this.contextPath = contextPath;
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException
+    {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if(host == null)
+        {
+            host = exchange.getLocalAddress().getHostString() + ":" + exchange.getLocalAddress().getPort();
+        }
+        URI baseUri = URI.create("http://" + host + contextPath);
+        URI requestUri = URI.create("http://" + host + exchange.getRequestURI().toString());
+
+        ContainerRequest request = new ContainerRequest(baseUri, requestUri, exchange.getRequestMethod(),
+                ANONYMOUS, new MapPropertiesDelegate());
+        for(Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet())
+        {
+            request.headers(header.getKey(), header.getValue());
+        }
+        request.setEntityStream(exchange.getRequestBody());
+        request.setWriter(new ResponseWriter(exchange));
+
+        try
+        {
+            application.handle(request);
+        }
+        finally
+        {
+            //Does nothing if the writer already committed the response
+            exchange.close();
+        }
+    }
+
+    private static class ResponseWriter implements ContainerResponseWriter
+    {
+        private final HttpExchange exchange;
+        private boolean headersSent;
+
+        ResponseWriter(HttpExchange exchange)
+        {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public OutputStream writeResponseStatusAndHeaders(long contentLength, ContainerResponse response)
+                throws ContainerException
+        {
+            Headers headers = exchange.getResponseHeaders();
+            for(Map.Entry<String, List<String>> header : response.getStringHeaders().entrySet())
+            {
+                for(String value : header.getValue())
+                {
+                    headers.add(header.getKey(), value);
+                }
+            }
+
+            //The JDK server's lengths: -1 is no body at all, 0 is chunked
+            int status = response.getStatus();
+            long length = contentLength < 0 ? 0 : contentLength;
+            if(contentLength == 0 || status == 204 || status == 304 || "HEAD".equals(exchange.getRequestMethod()))
+            {
+                length = -1;
+            }
+
+            try
+            {
+                exchange.sendResponseHeaders(status, length);
+                headersSent = true;
+            }
+            catch(IOException e)
+            {
+                throw new ContainerException("Couldn't send the response headers", e);
+            }
+            return exchange.getResponseBody();
+        }
+
+        /**
+         * Jersey turns a refused suspend into a 500 for the request
+         */
+        @Override
+        public boolean suspend(long timeOut, TimeUnit timeUnit, TimeoutHandler timeoutHandler)
+        {
+            System.err.println("Refused to suspend " + exchange.getRequestMethod() + " " + exchange.getRequestURI()
+                    + " -- the embedded server doesn't do async responses");
+            return false;
+        }
+
+        /**
+         * Only allowed on a suspended response, and we never suspend
+         */
+        @Override
+        public void setSuspendTimeout(long timeOut, TimeUnit timeUnit)
+        {
+            throw new IllegalStateException("The response isn't suspended");
+        }
+
+        @Override
+        public void commit()
+        {
+            exchange.close();
+        }
+
+        @Override
+        public void failure(Throwable error)
+        {
+            System.err.println("Failed " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + error);
+            try
+            {
+                if(!headersSent)
+                {
+                    exchange.sendResponseHeaders(500, -1);
+                    headersSent = true;
+                }
+            }
+            catch(IOException e)
+            {
+                //The client's gone -- nothing more we can tell it
+            }
+            finally
+            {
+                exchange.close();
+            }
+        }
+
+        @Override
+        public boolean enableResponseBuffering()
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.deepsouthrobotics.util;
+
+import com.deepsouthrobotics.data.Config;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Flight Recordings
+|--------------------------------------------------------------------------
+|
+| The one on-demand flight recording the admin endpoint controls. It's
+| bounded (by age and size, and optionally by duration) so it can be
+| left running against production traffic, and it gets dumped to
+| Config.flightRecordingDirectory -- callers don't get to pick the
+| file. Only touch this class once PlannerEvents.AVAILABLE says
+| jdk.jfr is there.
+*/
+public class FlightRecordings
+{
+	private static Recording recording;
+
+	/**
+	 * Start recording (the JDK's "default" low overhead settings plus all of
+	 * the planner events) unless we already are. A recording that stopped on
+	 * its own (its durationSeconds ran out) gets written out and closed first,
+	 * the same as stop() would -- if writing it fails it's still closed, so
+	 * trying again starts a fresh one.
+	 *
+	 * @return False if a recording was already running
+	 */
+	public static synchronized boolean start(long maxAgeSeconds, long maxSizeMegabytes, Long durationSeconds)
+			throws IOException, ParseException
+	{
+		if(recording != null && recording.getState() == jdk.jfr.RecordingState.RUNNING)
+		{
+			return false;
+		}
+		if(recording != null)
+		{
+			if(recording.getState() == jdk.jfr.RecordingState.STOPPED)
+			{
+				stop();
+			}
+			else
+			{
+				recording.close();
+				recording = null;
+			}
+		}
+
+		recording = new Recording(Configuration.getConfiguration("default"));
+		recording.setName("mission-planner");
+		for(String event : new String[] {"com.deepsouthrobotics.MissionBuild", "com.deepsouthrobotics.SwathGeneration",
+				"com.deepsouthrobotics.ObstacleCircumvention", "com.deepsouthrobotics.BoundaryTracing"})
+		{
+			recording.enable(event);
+		}
+		recording.setToDisk(true);
+		recording.setMaxAge(Duration.ofSeconds(maxAgeSeconds));
+		recording.setMaxSize(maxSizeMegabytes * 1024 * 1024);
+		if(durationSeconds != null)
+		{
+			recording.setDuration(Duration.ofSeconds(durationSeconds));
+		}
+		recording.start();
+		return true;
+	}
+
+	/**
+	 * Write out what's been recorded so far, and keep recording
+	 *
+	 * @return The file it was written to, or null if nothing's been recorded
+	 */
+	public static synchronized File dump() throws IOException
+	{
+		if(recording == null)
+		{
+			return null;
+		}
+		File file = newRecordingFile();
+		recording.dump(file.toPath());
+		return file;
+	}
+
+	/**
+	 * Stop recording and write it out
+	 *
+	 * @return The file it was written to, or null if we weren't recording
+	 */
+	public static synchronized File stop() throws IOException
+	{
+		if(recording == null)
+		{
+			return null;
+		}
+		File file = newRecordingFile();
+		try
+		{
+			if(recording.getState() == jdk.jfr.RecordingState.RUNNING)
+			{
+				recording.stop();
+			}
+			recording.dump(file.toPath());
+		}
+		finally
+		{
+			recording.close();
+			recording = null;
+		}
+		return file;
+	}
+
+	/**
+	 * @return NEW, RUNNING, STOPPED, CLOSED -- or NONE if there's no recording
+	 */
+	public static synchronized String state()
+	{
+		return recording == null ? "NONE" : recording.getState().name();
+	}
+
+	private static File newRecordingFile()
+	{
+		String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+		return new File(Config.flightRecordingDirectory, "mission-planner-" + timestamp + ".jfr");
+	}
+}
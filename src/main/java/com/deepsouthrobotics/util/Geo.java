@@ -53,12 +53,12 @@ public class Geo
 
 	    final int R = 6371; // Radius of the earth
 
-	    Double latDistance = Math.toRadians(lat2 - lat1);
-	    Double lonDistance = Math.toRadians(lon2 - lon1);
-	    Double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+	    double latDistance = Math.toRadians(lat2 - lat1);
+	    double lonDistance = Math.toRadians(lon2 - lon1);
+	    double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
 	            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
 	            * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-	    Double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+	    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
 	    double distance = R * c * 1000; // convert to meters
 
 	    double height = el1 - el2;
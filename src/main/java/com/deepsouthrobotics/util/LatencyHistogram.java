@@ -0,0 +1,83 @@
+package com.deepsouthrobotics.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Latency Histogram
+|--------------------------------------------------------------------------
+|
+| Fixed-bucket latency histogram that any number of threads can record
+| into without taking a lock -- each observation is one atomic add on
+| its bucket and one on the running sum. Buckets are in seconds (the
+| Prometheus convention) and run from 100 microseconds to 10 seconds.
+*/
+public class LatencyHistogram
+{
+	//Upper bounds (inclusive) in seconds, written the way they show up in
+	//the "le" label -- anything slower lands in +Inf
+	private static final String[] BUCKET_SECONDS = {
+			"0.0001", "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025",
+			"0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"};
+
+	private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+	static
+	{
+		for(int i = 0; i < BUCKET_SECONDS.length; i++)
+		{
+			BUCKET_NANOS[i] = Math.round(Double.parseDouble(BUCKET_SECONDS[i]) * 1e9);
+		}
+	}
+
+	//Not cumulative -- bucket i only counts observations that landed in it,
+	//the last slot is +Inf
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_SECONDS.length + 1);
+	private final AtomicLong sumNanos = new AtomicLong();
+
+	public void observeNanos(long nanos)
+	{
+		int bucket = 0;
+		while(bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket])
+		{
+			bucket++;
+		}
+		buckets.incrementAndGet(bucket);
+		sumNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * @param startNanos System.nanoTime() from when the timed work began
+	 */
+	public void observeSince(long startNanos)
+	{
+		observeNanos(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Append the histogram in Prometheus text format
+	 *
+	 * @param name Metric name (without the _bucket/_sum/_count suffix)
+	 * @param labels Labels every sample gets, e.g. phase="projection" (or empty)
+	 */
+	public void writePrometheus(StringBuilder out, String name, String labels)
+	{
+		String separator = labels.isEmpty() ? "" : ",";
+		long cumulative = 0;
+		for(int i = 0; i < BUCKET_SECONDS.length; i++)
+		{
+			cumulative += buckets.get(i);
+			out.append(name).append("_bucket{").append(labels).append(separator)
+					.append("le=\"").append(BUCKET_SECONDS[i]).append("\"} ").append(cumulative).append('\n');
+		}
+		cumulative += buckets.get(BUCKET_SECONDS.length);
+		out.append(name).append("_bucket{").append(labels).append(separator)
+				.append("le=\"+Inf\"} ").append(cumulative).append('\n');
+
+		String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+		out.append(name).append("_sum").append(braces).append(' ').append(sumNanos.get() / 1e9).append('\n');
+		out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+	}
+}
@@ -0,0 +1,179 @@
+package com.deepsouthrobotics.util;
+
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| MAVLink Mission Encoder
+|--------------------------------------------------------------------------
+|
+| Writes a mission out as MAVLink v2 MISSION_ITEM_INT frames, one per
+| mission item, ready to hand to the autopilot as it asks for them
+| during a mission upload (MISSION_COUNT -> MISSION_REQUEST_INT ->
+| MISSION_ITEM_INT ...). Same items as the waypoint file (see
+| WaypointFileWriter): item 0 is home, then the waypoints with lat/lng
+| as 1e-7 degree integers (the same scaling Geo.offset(..) works in).
+|
+| Frames are built in a direct ByteBuffer that each thread reuses and
+| drained to the channel whenever it fills up. Every frame is
+| 10 + 37 + 2 = 49 bytes (the mission_type extension is zero for
+| plain missions, so MAVLink v2 trims it off the end).
+*/
+public class MavlinkMissionEncoder
+{
+	public static final int MISSION_ITEM_INT = 73;
+
+	//Mission item seq is a uint16
+	public static final int MAX_MISSION_ITEMS = 65535;
+
+	private static final byte MAVLINK_V2_STX = (byte)0xFD;
+	private static final int MISSION_ITEM_INT_CRC_EXTRA = 38;
+
+	//We're talking as a ground station (MAV_COMP_ID_MISSIONPLANNER)
+	private static final int SYSTEM_ID = 255;
+	private static final int COMPONENT_ID = 190;
+
+	private static final int MAV_FRAME_GLOBAL = 0;
+	private static final int MAV_FRAME_GLOBAL_RELATIVE_ALT = 3;
+	private static final int MAV_CMD_NAV_WAYPOINT = 16;
+
+	//Header, full payload (before trimming) and checksum
+	private static final int MAX_FRAME_BYTES = 10 + 38 + 2;
+
+	private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>()
+	{
+		@Override
+		protected ByteBuffer initialValue()
+		{
+			return ByteBuffer.allocateDirect(8192).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	};
+
+	private final int targetSystem;
+	private final int targetComponent;
+
+	//Rolls over every 256 frames, like it's meant to
+	private int packetSequence;
+
+	/**
+	 * @param targetSystem MAVLink system id of the vehicle (usually 1)
+	 * @param targetComponent MAVLink component id of its autopilot (usually 1)
+	 */
+	public MavlinkMissionEncoder(int targetSystem, int targetComponent)
+	{
+		this.targetSystem = targetSystem;
+		this.targetComponent = targetComponent;
+	}
+
+	/**
+	 * @return Number of mission items writeMission(..) writes for these
+	 * waypoints (i.e. what goes in MISSION_COUNT)
+	 */
+	public static int missionItemCount(List<GPSPosition> waypoints)
+	{
+		return waypoints.isEmpty() ? 0 : waypoints.size() + 1;
+	}
+
+	/**
+	 * Write home (the first waypoint again) as item 0 and then every waypoint
+	 */
+	public void writeMission(List<GPSPosition> waypoints, WritableByteChannel channel) throws IOException
+	{
+		if(missionItemCount(waypoints) > MAX_MISSION_ITEMS)
+		{
+			throw new IllegalArgumentException("MAVLink missions top out at " + MAX_MISSION_ITEMS + " items");
+		}
+
+		ByteBuffer buffer = BUFFER.get();
+		buffer.clear();
+		if(!waypoints.isEmpty())
+		{
+			putMissionItem(buffer, 0, waypoints.get(0), MAV_FRAME_GLOBAL, 1, 0f);
+		}
+		for(int i = 0; i < waypoints.size(); i++)
+		{
+			if(buffer.remaining() < MAX_FRAME_BYTES)
+			{
+				drain(buffer, channel);
+			}
+			putMissionItem(buffer, i + 1, waypoints.get(i), MAV_FRAME_GLOBAL_RELATIVE_ALT, 0, 100f);
+		}
+		drain(buffer, channel);
+	}
+
+	private void putMissionItem(ByteBuffer buffer, int seq, GPSPosition position, int frame, int current, float altitude)
+	{
+		int start = buffer.position();
+		buffer.put(MAVLINK_V2_STX);
+		buffer.put((byte)0); //payload length, filled in below
+		buffer.put((byte)0); //incompat flags (not signed)
+		buffer.put((byte)0); //compat flags
+		buffer.put((byte)packetSequence++);
+		buffer.put((byte)SYSTEM_ID);
+		buffer.put((byte)COMPONENT_ID);
+		buffer.put((byte)MISSION_ITEM_INT);
+		buffer.put((byte)(MISSION_ITEM_INT >> 8));
+		buffer.put((byte)(MISSION_ITEM_INT >> 16));
+
+		//Payload, in MAVLink's wire order (biggest fields first, extensions last)
+		int payloadStart = buffer.position();
+		buffer.putFloat(0f); //param1 (hold time)
+		buffer.putFloat(0f); //param2 (acceptance radius)
+		buffer.putFloat(0f); //param3 (pass radius)
+		buffer.putFloat(0f); //param4 (yaw)
+		buffer.putInt((int)Math.round(position.latitude * 1.0e+7));
+		buffer.putInt((int)Math.round(position.longitude * 1.0e+7));
+		buffer.putFloat(altitude);
+		buffer.putShort((short)seq);
+		buffer.putShort((short)MAV_CMD_NAV_WAYPOINT);
+		buffer.put((byte)targetSystem);
+		buffer.put((byte)targetComponent);
+		buffer.put((byte)frame);
+		buffer.put((byte)current);
+		buffer.put((byte)1); //autocontinue
+		buffer.put((byte)0); //mission_type (MAV_MISSION_TYPE_MISSION)
+
+		//MAVLink v2 drops the zeros off the end of the payload (keeping at least one byte)
+		int end = buffer.position();
+		while(end > payloadStart + 1 && buffer.get(end - 1) == 0)
+		{
+			end--;
+		}
+		buffer.position(end);
+		buffer.put(start + 1, (byte)(end - payloadStart));
+
+		//CRC-16/MCRF4XX of everything after the STX, plus the message's CRC extra
+		int crc = 0xFFFF;
+		for(int i = start + 1; i < end; i++)
+		{
+			crc = crcAccumulate(buffer.get(i), crc);
+		}
+		crc = crcAccumulate((byte)MISSION_ITEM_INT_CRC_EXTRA, crc);
+		buffer.putShort((short)crc);
+	}
+
+	private static int crcAccumulate(byte b, int crc)
+	{
+		int tmp = (b & 0xFF) ^ (crc & 0xFF);
+		tmp = (tmp ^ (tmp << 4)) & 0xFF;
+		return ((crc >> 8) ^ (tmp << 8) ^ (tmp << 3) ^ (tmp >> 4)) & 0xFFFF;
+	}
+
+	private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException
+	{
+		buffer.flip();
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
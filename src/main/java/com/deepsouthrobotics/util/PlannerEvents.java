@@ -0,0 +1,74 @@
+package com.deepsouthrobotics.util;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planner Events
+|--------------------------------------------------------------------------
+|
+| Java Flight Recorder events for the expensive parts of planning, so
+| production traffic can be profiled (see the admin recording endpoint)
+| instead of reproducing fields offline. Every event carries the shape
+| of the field being planned -- vertex count, obstacle count, swath
+| width and heading -- which the planner sets up once per mission
+| with describeField(..).
+|
+| Older JVMs don't have jdk.jfr at all, so nothing here touches it
+| unless it's there -- without it begin(..) hands back null and
+| commit(..) does nothing.
+*/
+public class PlannerEvents
+{
+	public enum Kind
+	{
+		MISSION_BUILD,
+		SWATH_GENERATION,
+		OBSTACLE_CIRCUMVENTION,
+		BOUNDARY_TRACING
+	}
+
+	public static final boolean AVAILABLE = flightRecorderAvailable();
+
+	private static final ThreadLocal<double[]> FIELD = new ThreadLocal<>();
+
+	/**
+	 * Describe the field the current thread is about to plan -- every event
+	 * committed on this thread from here on carries these values
+	 */
+	public static void describeField(int vertexCount, int obstacleCount, double width, double heading)
+	{
+		FIELD.set(new double[] {vertexCount, obstacleCount, width, heading});
+	}
+
+	/**
+	 * @return Event to hand to commit(..) when the work is done (null if
+	 * flight recording isn't available)
+	 */
+	public static Object begin(Kind kind)
+	{
+		return AVAILABLE ? PlannerFlightEvents.begin(kind) : null;
+	}
+
+	public static void commit(Object event)
+	{
+		if(event != null)
+		{
+			double[] field = FIELD.get();
+			PlannerFlightEvents.commit(event, field == null ? new double[4] : field);
+		}
+	}
+
+	private static boolean flightRecorderAvailable()
+	{
+		try
+		{
+			Class.forName("jdk.jfr.FlightRecorder");
+			return PlannerFlightEvents.isAvailable();
+		}
+		catch(ClassNotFoundException | LinkageError e)
+		{
+			return false;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.deepsouthrobotics.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planner Flight Events
+|--------------------------------------------------------------------------
+|
+| The actual jdk.jfr event types behind PlannerEvents. Only ever loaded
+| once PlannerEvents has checked that jdk.jfr exists.
+*/
+class PlannerFlightEvents
+{
+	//Indexed by PlannerEvents.Kind ordinal
+	private static final EventType[] TYPES = {
+			EventType.getEventType(MissionBuild.class),
+			EventType.getEventType(SwathGeneration.class),
+			EventType.getEventType(ObstacleCircumvention.class),
+			EventType.getEventType(BoundaryTracing.class)
+	};
+
+	static boolean isAvailable()
+	{
+		return FlightRecorder.isAvailable();
+	}
+
+	static Object begin(PlannerEvents.Kind kind)
+	{
+		//Check the (cached) event type first so a disabled event doesn't even
+		//cost us an allocation -- begin(..) gets called for every swath
+		if(!TYPES[kind.ordinal()].isEnabled())
+		{
+			return null;
+		}
+
+		PlannerEvent event;
+		switch(kind)
+		{
+			case MISSION_BUILD:
+				event = new MissionBuild();
+				break;
+			case SWATH_GENERATION:
+				event = new SwathGeneration();
+				break;
+			case OBSTACLE_CIRCUMVENTION:
+				event = new ObstacleCircumvention();
+				break;
+			default:
+				event = new BoundaryTracing();
+				break;
+		}
+		event.begin();
+		return event;
+	}
+
+	static void commit(Object event, double[] field)
+	{
+		PlannerEvent plannerEvent = (PlannerEvent)event;
+		plannerEvent.end();
+		if(plannerEvent.shouldCommit())
+		{
+			plannerEvent.vertexCount = (int)field[0];
+			plannerEvent.obstacleCount = (int)field[1];
+			plannerEvent.width = field[2];
+			plannerEvent.heading = field[3];
+			plannerEvent.commit();
+		}
+	}
+
+	@Category({"Mission Builder", "Planner"})
+	abstract static class PlannerEvent extends Event
+	{
+		@Label("Vertex Count")
+		@Description("Vertices in the mission boundary")
+		int vertexCount;
+
+		@Label("Obstacle Count")
+		int obstacleCount;
+
+		@Label("Width")
+		@Description("Swath width in meters")
+		double width;
+
+		@Label("Heading")
+		@Description("Mowing heading in degrees")
+		double heading;
+	}
+
+	@Name("com.deepsouthrobotics.MissionBuild")
+	@Label("Mission Build")
+	static class MissionBuild extends PlannerEvent
+	{
+	}
+
+	@Name("com.deepsouthrobotics.SwathGeneration")
+	@Label("Swath Generation")
+	static class SwathGeneration extends PlannerEvent
+	{
+	}
+
+	@Name("com.deepsouthrobotics.ObstacleCircumvention")
+	@Label("Obstacle Circumvention")
+	static class ObstacleCircumvention extends PlannerEvent
+	{
+	}
+
+	@Name("com.deepsouthrobotics.BoundaryTracing")
+	@Label("Boundary Tracing")
+	static class BoundaryTracing extends PlannerEvent
+	{
+	}
+}
@@ -0,0 +1,257 @@
+package com.deepsouthrobotics.util;
+
+import com.deepsouthrobotics.data.PlanningPriority;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planner Metrics
+|--------------------------------------------------------------------------
+|
+| Process-wide latency histograms (one per planner phase, plus whole
+| requests) and counters, exposed at /api/metrics in the Prometheus
+| text format. Everything in here is lock-free, so it's fine to
+| record from any thread. Whatever gets recorded on a request's thread
+| also goes into that request's RequestProfile (if it has one).
+|
+| The warm-up's planning (see PlannerWarmup) only goes into its own
+| profile -- missions planned while the JIT was still catching up
+| aren't traffic, and leaving them out means we never have to wipe
+| the real requests that came in alongside them.
+*/
+public class PlannerMetrics
+{
+	private static final LatencyHistogram[] PHASES = new LatencyHistogram[PlannerPhase.values().length];
+	static
+	{
+		for(int i = 0; i < PHASES.length; i++)
+		{
+			PHASES[i] = new LatencyHistogram();
+		}
+	}
+
+	private static final LatencyHistogram REQUESTS = new LatencyHistogram();
+
+	//How long missions waited for a planner thread / planned for, by priority (see PlanningScheduler)
+	private static final LatencyHistogram[] SCHEDULED_WAITS = new LatencyHistogram[PlanningPriority.values().length];
+	private static final LatencyHistogram[] SCHEDULED_RUNS = new LatencyHistogram[PlanningPriority.values().length];
+	static
+	{
+		for(int i = 0; i < SCHEDULED_WAITS.length; i++)
+		{
+			SCHEDULED_WAITS[i] = new LatencyHistogram();
+			SCHEDULED_RUNS[i] = new LatencyHistogram();
+		}
+	}
+	private static final AtomicIntegerArray SCHEDULED_WAITING = new AtomicIntegerArray(PlanningPriority.values().length);
+
+	private static final StripedCounter CONTAINMENT_CHECKS = new StripedCounter();
+	private static final StripedCounter STEP_ITERATIONS = new StripedCounter();
+	private static final StripedCounter OBSTACLE_INTERSECTION_TESTS = new StripedCounter();
+	private static final StripedCounter SWATHS = new StripedCounter();
+	private static final StripedCounter MISSIONS_BUILT = new StripedCounter();
+	private static final StripedCounter WAYPOINTS_GENERATED = new StripedCounter();
+
+	/**
+	 * @return System.nanoTime() to hand back to observe(..) when the phase is done
+	 */
+	public static long startPhase(PlannerPhase phase)
+	{
+		RequestProfile profile = RequestProfile.current();
+		if(profile != null)
+		{
+			profile.phaseStarted(phase);
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * @param startNanos What startPhase(..) returned
+	 */
+	public static void observe(PlannerPhase phase, long startNanos)
+	{
+		long nanos = System.nanoTime() - startNanos;
+		RequestProfile profile = RequestProfile.current();
+		if(profile == null || !profile.warmup)
+		{
+			PHASES[phase.ordinal()].observeNanos(nanos);
+		}
+		if(profile != null)
+		{
+			profile.phaseEnded(phase, nanos);
+		}
+	}
+
+	/**
+	 * One sample for a phase that runs in lots of small pieces (a few per
+	 * swath, say) -- the caller times the pieces with System.nanoTime()
+	 * and adds them up, so there's one histogram sample per mission like
+	 * the other phases rather than one per piece
+	 *
+	 * @param pieces How many times the phase ran (nothing's recorded for 0)
+	 */
+	public static void observeTotal(PlannerPhase phase, long nanos, int pieces)
+	{
+		if(pieces == 0)
+		{
+			return;
+		}
+		RequestProfile profile = RequestProfile.current();
+		if(profile == null || !profile.warmup)
+		{
+			PHASES[phase.ordinal()].observeNanos(nanos);
+		}
+		if(profile != null)
+		{
+			profile.phaseTotal(phase, nanos, pieces);
+		}
+	}
+
+	/**
+	 * @param startNanos System.nanoTime() from when the request came in
+	 */
+	public static void observeRequest(long startNanos)
+	{
+		REQUESTS.observeSince(startNanos);
+	}
+
+	public static void observeScheduledWait(PlanningPriority priority, long nanos)
+	{
+		SCHEDULED_WAITS[priority.ordinal()].observeNanos(nanos);
+	}
+
+	public static void observeScheduledRun(PlanningPriority priority, long nanos)
+	{
+		SCHEDULED_RUNS[priority.ordinal()].observeNanos(nanos);
+	}
+
+	/**
+	 * @param waiting How many missions of this priority are in line right now
+	 */
+	public static void setScheduledWaiting(PlanningPriority priority, int waiting)
+	{
+		SCHEDULED_WAITING.set(priority.ordinal(), waiting);
+	}
+
+	public static void countContainmentChecks(long checks)
+	{
+		RequestProfile profile = RequestProfile.current();
+		if(profile == null || !profile.warmup)
+		{
+			CONTAINMENT_CHECKS.add(checks);
+		}
+		if(profile != null)
+		{
+			profile.containmentChecks += checks;
+		}
+	}
+
+	public static void countStepIterations(long steps)
+	{
+		RequestProfile profile = RequestProfile.current();
+		if(profile == null || !profile.warmup)
+		{
+			STEP_ITERATIONS.add(steps);
+		}
+		if(profile != null)
+		{
+			profile.stepIterations += steps;
+		}
+	}
+
+	public static void countObstacleIntersectionTests(long tests)
+	{
+		RequestProfile profile = RequestProfile.current();
+		if(profile == null || !profile.warmup)
+		{
+			OBSTACLE_INTERSECTION_TESTS.add(tests);
+		}
+		if(profile != null)
+		{
+			profile.obstacleIntersectionTests += tests;
+		}
+	}
+
+	public static void countSwaths(long swaths)
+	{
+		RequestProfile profile = RequestProfile.current();
+		if(profile == null || !profile.warmup)
+		{
+			SWATHS.add(swaths);
+		}
+		if(profile != null)
+		{
+			profile.swaths += swaths;
+		}
+	}
+
+	public static void countMissionBuilt(int waypoints)
+	{
+		RequestProfile profile = RequestProfile.current();
+		if(profile == null || !profile.warmup)
+		{
+			MISSIONS_BUILT.increment();
+			WAYPOINTS_GENERATED.add(waypoints);
+		}
+		if(profile != null)
+		{
+			profile.waypoints += waypoints;
+		}
+	}
+
+	public static String prometheusText()
+	{
+		StringBuilder out = new StringBuilder();
+
+		out.append("# HELP mission_request_seconds Time to handle a mission building request\n");
+		out.append("# TYPE mission_request_seconds histogram\n");
+		REQUESTS.writePrometheus(out, "mission_request_seconds", "");
+
+		out.append("# HELP mission_planner_phase_seconds Time spent in each phase of mission planning\n");
+		out.append("# TYPE mission_planner_phase_seconds histogram\n");
+		for(PlannerPhase phase : PlannerPhase.values())
+		{
+			PHASES[phase.ordinal()].writePrometheus(out, "mission_planner_phase_seconds", "phase=\"" + phase.label() + "\"");
+		}
+
+		out.append("# HELP mission_scheduler_queue_seconds Time missions waited for a planner thread, by priority\n");
+		out.append("# TYPE mission_scheduler_queue_seconds histogram\n");
+		for(PlanningPriority priority : PlanningPriority.values())
+		{
+			SCHEDULED_WAITS[priority.ordinal()].writePrometheus(out, "mission_scheduler_queue_seconds", "priority=\"" + priority.label() + "\"");
+		}
+
+		out.append("# HELP mission_scheduler_run_seconds Time missions spent planning once they got a thread, by priority\n");
+		out.append("# TYPE mission_scheduler_run_seconds histogram\n");
+		for(PlanningPriority priority : PlanningPriority.values())
+		{
+			SCHEDULED_RUNS[priority.ordinal()].writePrometheus(out, "mission_scheduler_run_seconds", "priority=\"" + priority.label() + "\"");
+		}
+
+		out.append("# HELP mission_scheduler_waiting Missions waiting for a planner thread, by priority\n");
+		out.append("# TYPE mission_scheduler_waiting gauge\n");
+		for(PlanningPriority priority : PlanningPriority.values())
+		{
+			out.append("mission_scheduler_waiting{priority=\"").append(priority.label()).append("\"} ")
+					.append(SCHEDULED_WAITING.get(priority.ordinal())).append('\n');
+		}
+
+		counter(out, "mission_planner_containment_checks_total", "Point-in-polygon checks", CONTAINMENT_CHECKS);
+		counter(out, "mission_planner_step_iterations_total", "Iterations of the 1cm stepping loops", STEP_ITERATIONS);
+		counter(out, "mission_planner_obstacle_intersection_tests_total", "Segment vs. boundary/obstacle edge intersection tests", OBSTACLE_INTERSECTION_TESTS);
+		counter(out, "mission_planner_swaths_total", "Swath lines laid out", SWATHS);
+		counter(out, "mission_planner_missions_total", "Missions built", MISSIONS_BUILT);
+		counter(out, "mission_planner_waypoints_total", "Waypoints generated", WAYPOINTS_GENERATED);
+		return out.toString();
+	}
+
+	private static void counter(StringBuilder out, String name, String help, StripedCounter counter)
+	{
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append(' ').append(counter.sum()).append('\n');
+	}
+}
@@ -0,0 +1,33 @@
+package com.deepsouthrobotics.util;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Planner Phase
+|--------------------------------------------------------------------------
+|
+| The stages of handling a mission request that we keep timings for
+*/
+public enum PlannerPhase
+{
+	PARSE,
+	PROJECTION,
+	START_ADJUSTMENT,
+	SWATH_LAYOUT,
+	SWATH_LOOP,
+	LOOK_AHEAD,
+	OBSTACLE_CIRCUMVENTION,
+	CELL_PLANNING,
+	TRACK_SIMPLIFICATION,
+	COVERAGE_VERIFICATION,
+	SERIALIZATION;
+
+	/**
+	 * @return Name used for the phase label, e.g. "start_adjustment"
+	 */
+	public String label()
+	{
+		return name().toLowerCase();
+	}
+}
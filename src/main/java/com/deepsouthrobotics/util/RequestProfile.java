@@ -0,0 +1,175 @@
+package com.deepsouthrobotics.util;
+
+import org.json.JSONObject;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Request Profile
+|--------------------------------------------------------------------------
+|
+| Per-request breakdown of where planning time (and memory) went. The
+| ServerTimingFilter starts one for every request on the request's
+| thread, PlannerMetrics feeds it alongside the process-wide metrics,
+| and the filter turns it into a Server-Timing header at the end.
+|
+| Allocated bytes come from HotSpot's per-thread allocation counter, so
+| they only cover the request thread (not the planner pool's workers)
+| and are -1 on JVMs that don't have the counter.
+*/
+public class RequestProfile
+{
+	private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+	private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+	public final long startNanos = System.nanoTime();
+
+	//True for the warm-up's planning, which PlannerMetrics keeps out of the
+	//process-wide metrics
+	final boolean warmup;
+
+	private final long[] phaseNanos = new long[PlannerPhase.values().length];
+	private final long[] phaseBytes = new long[PlannerPhase.values().length];
+	private final int[] phaseCounts = new int[PlannerPhase.values().length];
+	private final long[] phaseStartBytes = new long[PlannerPhase.values().length];
+
+	public long swaths;
+	public long obstacleIntersectionTests;
+	public long containmentChecks;
+	public long stepIterations;
+	public long waypoints;
+
+	/**
+	 * Start profiling the current thread's request
+	 */
+	public static RequestProfile begin()
+	{
+		RequestProfile profile = new RequestProfile(false);
+		CURRENT.set(profile);
+		return profile;
+	}
+
+	/**
+	 * Start profiling the planner warm-up on the current thread (see
+	 * PlannerWarmup) -- it's recorded here but not in PlannerMetrics
+	 */
+	public static RequestProfile beginWarmup()
+	{
+		RequestProfile profile = new RequestProfile(true);
+		CURRENT.set(profile);
+		return profile;
+	}
+
+	private RequestProfile(boolean warmup)
+	{
+		this.warmup = warmup;
+	}
+
+	/**
+	 * @return The profile of the request the current thread is working on, or null
+	 */
+	public static RequestProfile current()
+	{
+		return CURRENT.get();
+	}
+
+	/**
+	 * Carry on recording a request's profile on the current thread (i.e. one
+	 * the request handed its work off to) -- call end() when it's done
+	 */
+	public static void attach(RequestProfile profile)
+	{
+		CURRENT.set(profile);
+	}
+
+	public static void end()
+	{
+		CURRENT.remove();
+	}
+
+	void phaseStarted(PlannerPhase phase)
+	{
+		phaseStartBytes[phase.ordinal()] = allocatedBytes();
+	}
+
+	void phaseEnded(PlannerPhase phase, long nanos)
+	{
+		int i = phase.ordinal();
+		phaseNanos[i] += nanos;
+		phaseCounts[i]++;
+		long bytes = allocatedBytes();
+		if(bytes >= 0 && phaseStartBytes[i] >= 0)
+		{
+			phaseBytes[i] += bytes - phaseStartBytes[i];
+		}
+	}
+
+	/**
+	 * For PlannerMetrics.observeTotal(..) -- we don't read the allocation
+	 * counter around every piece, so the phase's bytes are unknown (-1)
+	 */
+	void phaseTotal(PlannerPhase phase, long nanos, int pieces)
+	{
+		int i = phase.ordinal();
+		phaseNanos[i] += nanos;
+		phaseCounts[i] += pieces;
+		phaseBytes[i] = -1;
+	}
+
+	public long phaseNanos(PlannerPhase phase)
+	{
+		return phaseNanos[phase.ordinal()];
+	}
+
+	public JSONObject toJSON()
+	{
+		JSONObject phases = new JSONObject();
+		for(PlannerPhase phase : PlannerPhase.values())
+		{
+			int i = phase.ordinal();
+			if(phaseCounts[i] == 0)
+			{
+				continue;
+			}
+			JSONObject json = new JSONObject();
+			json.put("ms", phaseNanos[i] / 1e6);
+			json.put("count", phaseCounts[i]);
+			json.put("allocatedBytes", ALLOCATION_BEAN == null ? -1 : phaseBytes[i]);
+			phases.put(phase.label(), json);
+		}
+
+		JSONObject profile = new JSONObject();
+		profile.put("totalMs", (System.nanoTime() - startNanos) / 1e6);
+		profile.put("swaths", swaths);
+		profile.put("obstacleIntersectionTests", obstacleIntersectionTests);
+		profile.put("containmentChecks", containmentChecks);
+		profile.put("stepIterations", stepIterations);
+		profile.put("waypoints", waypoints);
+		profile.put("phases", phases);
+		return profile;
+	}
+
+	private static long allocatedBytes()
+	{
+		return ALLOCATION_BEAN == null ? -1 : ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean allocationBean()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean)bean;
+			if(hotspotBean.isThreadAllocatedMemorySupported() && hotspotBean.isThreadAllocatedMemoryEnabled())
+			{
+				return hotspotBean;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,46 @@
+package com.deepsouthrobotics.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Striped Counter
+|--------------------------------------------------------------------------
+|
+| Lock-free counter for the hot loops (containment checks, 1cm steps).
+| A single AtomicLong would have every planning thread fighting over
+| one cache line, so each thread adds into its own slot (spread out
+| so neighbors don't share a cache line) and reads add them up.
+*/
+public class StripedCounter
+{
+	private static final int STRIPES = 16;
+
+	//8 longs = 64 bytes between stripes
+	private static final int SPACING = 8;
+
+	private final AtomicLongArray cells = new AtomicLongArray(STRIPES * SPACING);
+
+	public void add(long amount)
+	{
+		int stripe = (int)(Thread.currentThread().getId() & (STRIPES - 1));
+		cells.addAndGet(stripe * SPACING, amount);
+	}
+
+	public void increment()
+	{
+		add(1);
+	}
+
+	public long sum()
+	{
+		long sum = 0;
+		for(int i = 0; i < STRIPES; i++)
+		{
+			sum += cells.get(i * SPACING);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,76 @@
+package com.deepsouthrobotics.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Virtual Threads
+|--------------------------------------------------------------------------
+|
+| Virtual threads when the JVM we're running on has them (Java 21 and up)
+| and plain old platform threads when it doesn't. We still build for
+| older JVMs (the WAR has to deploy on whatever the servlet container
+| runs), so everything goes through reflection.
+*/
+public class VirtualThreads
+{
+	private static final Method IS_VIRTUAL = method(Thread.class, "isVirtual");
+	private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = method(Executors.class, "newVirtualThreadPerTaskExecutor");
+
+	/**
+	 * @return True if t is a virtual thread (never on JVMs without them)
+	 */
+	public static boolean isVirtual(Thread t)
+	{
+		if(IS_VIRTUAL == null)
+		{
+			return false;
+		}
+		try
+		{
+			return (Boolean)IS_VIRTUAL.invoke(t);
+		}
+		catch(IllegalAccessException | InvocationTargetException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * @return An executor that starts a new virtual thread for every task, or
+	 * null if this JVM doesn't have them (or only has them as a preview
+	 * feature that isn't switched on)
+	 */
+	public static ExecutorService newPerTaskExecutor()
+	{
+		if(NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null)
+		{
+			return null;
+		}
+		try
+		{
+			return (ExecutorService)NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+		}
+		catch(IllegalAccessException | InvocationTargetException e)
+		{
+			return null;
+		}
+	}
+
+	private static Method method(Class<?> type, String name)
+	{
+		try
+		{
+			return type.getMethod(name);
+		}
+		catch(NoSuchMethodException e)
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package com.deepsouthrobotics.util;
+
+import com.deepsouthrobotics.data.Constants;
+import com.deepsouthrobotics.data.GPSPosition;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+|--------------------------------------------------------------------------
+| Copyright (C) Wayne Baswell 2019 -- GPL version 3 or later
+|
+| Waypoint File Writer
+|--------------------------------------------------------------------------
+|
+| Writes a mission out as a QGC WPL 110 waypoint file (the format
+| QGroundControl and Mission Planner load for ArduPilot):
+|
+|   QGC WPL 110
+|   0	1	0	16	0	0	0	0	<lat>	<lng>	0.000000	1        <- home
+|   1	0	3	16	0	0	0	0	<lat>	<lng>	100.000000	1      <- waypoints
+|   ...
+|
+| Rows are formatted straight into one reusable byte buffer that gets
+| flushed to the stream whenever it fills up, so no Strings get built
+| along the way and writing out a 100k waypoint mission takes the
+| same few KB as writing out a 10 waypoint one.
+*/
+public class WaypointFileWriter
+{
+	//Digits after the decimal point for lat/lng -- 8 is about a millimeter
+	private static final int COORDINATE_DECIMALS = 8;
+	private static final long COORDINATE_SCALE = 100000000L;
+
+	//Longest row we'll ever write (about 90 bytes): a 10 digit index, the fixed
+	//columns and two coordinates of at most 20 characters each
+	private static final int MAX_ROW_BYTES = 128;
+
+	private static final byte[] HEADER = ascii(Constants.WAYPOINT_FILE_HEADER + "\n");
+	private static final byte[] HOME_COLUMNS = ascii("\t1\t0\t16\t0\t0\t0\t0\t");
+	private static final byte[] WAYPOINT_COLUMNS = ascii("\t0\t3\t16\t0\t0\t0\t0\t");
+	private static final byte[] HOME_TAIL = ascii("\t0.000000\t1\n");
+	private static final byte[] WAYPOINT_TAIL = ascii("\t100.000000\t1\n");
+
+	private final OutputStream out;
+	private final byte[] buffer;
+	private int count;
+
+	public WaypointFileWriter(OutputStream out)
+	{
+		this(out, 8192);
+	}
+
+	public WaypointFileWriter(OutputStream out, int bufferSize)
+	{
+		this.out = out;
+		this.buffer = new byte[Math.max(bufferSize, MAX_ROW_BYTES)];
+	}
+
+	/**
+	 * Write the whole file -- the header, the first waypoint again as the home
+	 * position (row 0 is always home, and the autopilot skips it), then the
+	 * waypoints numbered from 1 -- and flush it
+	 */
+	public void writeMission(List<GPSPosition> waypoints) throws IOException
+	{
+		writeHeader();
+		if(!waypoints.isEmpty())
+		{
+			writeHome(waypoints.get(0));
+		}
+		for(int i = 0; i < waypoints.size(); i++)
+		{
+			writeWaypoint(i + 1, waypoints.get(i));
+		}
+		flush();
+	}
+
+	public void writeHeader() throws IOException
+	{
+		ensureRoom(HEADER.length);
+		put(HEADER);
+	}
+
+	public void writeHome(GPSPosition home) throws IOException
+	{
+		writeRow(0, HOME_COLUMNS, home, HOME_TAIL);
+	}
+
+	/**
+	 * Same row as MissionBrain.buildWaypointString(..), minus the String
+	 */
+	public void writeWaypoint(int index, GPSPosition waypoint) throws IOException
+	{
+		writeRow(index, WAYPOINT_COLUMNS, waypoint, WAYPOINT_TAIL);
+	}
+
+	public void flush() throws IOException
+	{
+		out.write(buffer, 0, count);
+		count = 0;
+		out.flush();
+	}
+
+	private void writeRow(int index, byte[] columns, GPSPosition position, byte[] tail) throws IOException
+	{
+		ensureRoom(MAX_ROW_BYTES);
+		putLong(index);
+		put(columns);
+		putCoordinate(position.latitude);
+		buffer[count++] = '\t';
+		putCoordinate(position.longitude);
+		put(tail);
+	}
+
+	private void ensureRoom(int bytes) throws IOException
+	{
+		if(count + bytes > buffer.length)
+		{
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+
+	private void put(byte[] bytes)
+	{
+		System.arraycopy(bytes, 0, buffer, count, bytes.length);
+		count += bytes.length;
+	}
+
+	/**
+	 * Fixed point with up to 8 decimals and the trailing zeros dropped -- so
+	 * 30.563625 comes out as 30.563625 (same as Double.toString(..) would
+	 * give us) but we never fall into scientific notation near the
+	 * equator or the prime meridian
+	 */
+	private void putCoordinate(double value)
+	{
+		if(Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) > 1e9)
+		{
+			throw new IllegalArgumentException("Not a coordinate: " + value);
+		}
+
+		long scaled = Math.round(Math.abs(value) * COORDINATE_SCALE);
+		if(value < 0 && scaled != 0)
+		{
+			buffer[count++] = '-';
+		}
+		putLong(scaled / COORDINATE_SCALE);
+
+		long fraction = scaled % COORDINATE_SCALE;
+		if(fraction == 0)
+		{
+			return;
+		}
+		int decimals = COORDINATE_DECIMALS;
+		while(fraction % 10 == 0)
+		{
+			fraction /= 10;
+			decimals--;
+		}
+		buffer[count++] = '.';
+		for(int i = decimals - 1; i >= 0; i--)
+		{
+			buffer[count + i] = (byte)('0' + fraction % 10);
+			fraction /= 10;
+		}
+		count += decimals;
+	}
+
+	/**
+	 * Non-negative values only
+	 */
+	private void putLong(long value)
+	{
+		int digits = 1;
+		for(long rest = value / 10; rest > 0; rest /= 10)
+		{
+			digits++;
+		}
+		for(int i = digits - 1; i >= 0; i--)
+		{
+			buffer[count + i] = (byte)('0' + value % 10);
+			value /= 10;
+		}
+		count += digits;
+	}
+
+	private static byte[] ascii(String text)
+	{
+		byte[] bytes = new byte[text.length()];
+		for(int i = 0; i < bytes.length; i++)
+		{
+			bytes[i] = (byte)text.charAt(i);
+		}
+		return bytes;
+	}
+}